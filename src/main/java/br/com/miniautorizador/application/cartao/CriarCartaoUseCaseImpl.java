@@ -1,6 +1,8 @@
 package br.com.miniautorizador.application.cartao;
 
 import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.service.CartaoService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,15 +11,19 @@ import org.springframework.stereotype.Service;
 @Service
 public class CriarCartaoUseCaseImpl implements CriarCartaoUseCase {
     private final CartaoService cartaoService;
+    private final TopologiaShards topologiaShards;
 
     @Autowired
-    public CriarCartaoUseCaseImpl(CartaoService cartaoService) {
+    public CriarCartaoUseCaseImpl(CartaoService cartaoService, TopologiaShards topologiaShards) {
         this.cartaoService = cartaoService;
+        this.topologiaShards = topologiaShards;
     }
 
     @Override
     public Cartao criarCartao(CartaoRequest cartaoRequest) {
-        return cartaoService.criarCartao(cartaoRequest);
+        // A validação da requisição fica no serviço; sem número válido, ele recusa antes de acessar o banco de dados
+        long numeroCartao = cartaoRequest == null ? NumeroCartao.INVALIDO : cartaoRequest.numero();
+        return topologiaShards.executar(numeroCartao, () -> cartaoService.criarCartao(cartaoRequest));
     }
 }
 
@@ -0,0 +1,10 @@
+package br.com.miniautorizador.application.cartao;
+
+import br.com.miniautorizador.presentation.dto.CartaoLoteRequest;
+import br.com.miniautorizador.presentation.dto.ResultadoCartaoResponse;
+
+import java.util.List;
+
+public interface CriarCartoesEmLoteUseCase {
+    List<ResultadoCartaoResponse> criarCartoes(CartaoLoteRequest cartaoLoteRequest);
+}
@@ -0,0 +1,35 @@
+package br.com.miniautorizador.application.cartao;
+
+import br.com.miniautorizador.domain.cartao.StatusCriacaoCartao;
+import br.com.miniautorizador.presentation.dto.CartaoLoteRequest;
+import br.com.miniautorizador.presentation.dto.CartaoRequest;
+import br.com.miniautorizador.presentation.dto.ResultadoCartaoResponse;
+import br.com.miniautorizador.service.CartaoLoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class CriarCartoesEmLoteUseCaseImpl implements CriarCartoesEmLoteUseCase {
+    private final CartaoLoteService cartaoLoteService;
+
+    @Autowired
+    public CriarCartoesEmLoteUseCaseImpl(CartaoLoteService cartaoLoteService) {
+        this.cartaoLoteService = cartaoLoteService;
+    }
+
+    @Override
+    public List<ResultadoCartaoResponse> criarCartoes(CartaoLoteRequest cartaoLoteRequest) {
+        Objects.requireNonNull(cartaoLoteRequest, "Request não pode ser nula");
+        List<CartaoRequest> cartoes = cartaoLoteRequest.getCartoes();
+        List<StatusCriacaoCartao> status = cartaoLoteService.criarCartoes(cartoes);
+        List<ResultadoCartaoResponse> resultados = new ArrayList<>(cartoes.size());
+        for (int i = 0; i < cartoes.size(); i++) {
+            resultados.add(new ResultadoCartaoResponse(cartoes.get(i).getNumeroCartao(), status.get(i)));
+        }
+        return resultados;
+    }
+}
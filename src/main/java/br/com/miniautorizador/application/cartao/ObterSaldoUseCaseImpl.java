@@ -1,26 +1,68 @@
 package br.com.miniautorizador.application.cartao;
 
-import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
 import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteException;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.metricas.MedicaoEtapas;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
 import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 @Service
 public class ObterSaldoUseCaseImpl implements ObterSaldoUseCase {
     private final CartaoRepository cartaoRepository;
+    private final LimitadorConcorrencia limitadorConcorrencia;
+    private final Optional<MotorSaldoMemoria> motorSaldoMemoria;
+    private final MetricasAutorizacao metricasAutorizacao;
+    private final SaldoCache saldoCache;
+    private final TopologiaShards topologiaShards;
 
     @Autowired
-    public ObterSaldoUseCaseImpl(CartaoRepository cartaoRepository) {
+    public ObterSaldoUseCaseImpl(
+            CartaoRepository cartaoRepository,
+            LimitadorConcorrencia limitadorConcorrencia,
+            Optional<MotorSaldoMemoria> motorSaldoMemoria,
+            MetricasAutorizacao metricasAutorizacao,
+            SaldoCache saldoCache,
+            TopologiaShards topologiaShards) {
         this.cartaoRepository = cartaoRepository;
+        this.limitadorConcorrencia = limitadorConcorrencia;
+        this.motorSaldoMemoria = motorSaldoMemoria;
+        this.metricasAutorizacao = metricasAutorizacao;
+        this.saldoCache = saldoCache;
+        this.topologiaShards = topologiaShards;
     }
 
     @Override
     public BigDecimal obterSaldo(String numeroCartao) {
-        Cartao cartao = cartaoRepository.findByNumeroCartao(numeroCartao)
-                .orElseThrow(() -> new CartaoInexistenteException(numeroCartao));
-        return cartao.getSaldo();
+        MedicaoEtapas medicao = metricasAutorizacao.iniciar("saldo");
+        String resultado = MetricasAutorizacao.ERRO;
+        try {
+            // Um número sem 16 dígitos não corresponde a nenhum cartão, sem acesso ao banco de dados
+            long numero = NumeroCartao.converter(numeroCartao);
+            Optional<BigDecimal> saldo = NumeroCartao.valido(numero) ? buscarSaldo(numero, medicao) : Optional.empty();
+            resultado = saldo.isPresent() ? "OK" : "CARTAO_INEXISTENTE";
+            return saldo.orElseThrow(() -> new CartaoInexistenteException(numeroCartao));
+        } finally {
+            metricasAutorizacao.concluir(medicao, resultado);
+        }
+    }
+
+    private Optional<BigDecimal> buscarSaldo(long numeroCartao, MedicaoEtapas medicao) {
+        if (motorSaldoMemoria.isPresent()) {
+            // Com o motor em memória, o saldo da tabela pode estar atrás dos débitos ainda não gravados
+            return medicao.medir("motor-memoria", () -> motorSaldoMemoria.get().consultarSaldo(numeroCartao));
+        }
+        // Em uma falta, só a leitura no banco de dados passa pelo limitador; acertos não ocupam vaga
+        return medicao.medir("buscar-cartao", () -> saldoCache.obter(numeroCartao,
+                () -> limitadorConcorrencia.executar(() -> topologiaShards.executar(numeroCartao,
+                        () -> cartaoRepository.findSaldoByNumeroCartao(numeroCartao)))));
     }
 }
@@ -1,7 +1,14 @@
 package br.com.miniautorizador.application.transacao;
 
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
 
 public interface RealizarTransacaoUseCase {
-    void realizarTransacao(TransacaoRequest transacaoRequest);
+    /**
+     * Realiza a transação de débito. Recusas de negócio são devolvidas como status, sem exceção.
+     *
+     * @param transacaoRequest Transação de débito.
+     * @return Resultado da transação.
+     */
+    StatusTransacao realizarTransacao(TransacaoRequest transacaoRequest);
 }
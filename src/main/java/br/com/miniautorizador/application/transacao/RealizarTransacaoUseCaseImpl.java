@@ -1,21 +1,104 @@
 package br.com.miniautorizador.application.transacao;
 
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.concorrencia.CartaoLockManager;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.diagnostico.RastreadorCartoesQuentes;
+import br.com.miniautorizador.infrastructure.jfr.AutorizacaoEvent;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.retry.RetryExecutor;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
 import br.com.miniautorizador.service.transacao.TransacaoService;
+import br.com.miniautorizador.service.transacao.lote.DebitoEmLoteService;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
 @Service
 public class RealizarTransacaoUseCaseImpl implements RealizarTransacaoUseCase {
     private final TransacaoService transacaoService;
+    private final RetryExecutor retryExecutor;
+    private final CartaoLockManager cartaoLockManager;
+    private final LimitadorConcorrencia limitadorConcorrencia;
+    private final Optional<MotorSaldoMemoria> motorSaldoMemoria;
+    private final Optional<DebitoEmLoteService> debitoEmLoteService;
+    private final RastreadorCartoesQuentes rastreadorCartoesQuentes;
+    private final TopologiaShards topologiaShards;
 
     @Autowired
-    public RealizarTransacaoUseCaseImpl(TransacaoService transacaoService) {
+    public RealizarTransacaoUseCaseImpl(
+            TransacaoService transacaoService,
+            RetryExecutor retryExecutor,
+            CartaoLockManager cartaoLockManager,
+            LimitadorConcorrencia limitadorConcorrencia,
+            Optional<MotorSaldoMemoria> motorSaldoMemoria,
+            Optional<DebitoEmLoteService> debitoEmLoteService,
+            RastreadorCartoesQuentes rastreadorCartoesQuentes,
+            TopologiaShards topologiaShards) {
         this.transacaoService = transacaoService;
+        this.retryExecutor = retryExecutor;
+        this.cartaoLockManager = cartaoLockManager;
+        this.limitadorConcorrencia = limitadorConcorrencia;
+        this.motorSaldoMemoria = motorSaldoMemoria;
+        this.debitoEmLoteService = debitoEmLoteService;
+        this.rastreadorCartoesQuentes = rastreadorCartoesQuentes;
+        this.topologiaShards = topologiaShards;
     }
 
     @Override
-    public void realizarTransacao(TransacaoRequest transacaoRequest) {
-        transacaoService.realizarTransacao(transacaoRequest);
+    public StatusTransacao realizarTransacao(TransacaoRequest transacaoRequest) {
+        Objects.requireNonNull(transacaoRequest, "Request não pode ser nula.");
+        rastreadorCartoesQuentes.registrarRequisicao(transacaoRequest.numero());
+        AutorizacaoEvent evento = AutorizacaoEvent.iniciar();
+        StatusTransacao status = null;
+        try {
+            status = autorizar(transacaoRequest, evento);
+            return status;
+        } finally {
+            evento.concluir(transacaoRequest.numero(),
+                    status == null ? MetricasAutorizacao.ERRO : status.name());
+        }
+    }
+
+    private StatusTransacao autorizar(TransacaoRequest transacaoRequest, AutorizacaoEvent evento) {
+        if (motorSaldoMemoria.isPresent()) {
+            return motorSaldoMemoria.get().debitar(transacaoRequest);
+        }
+        if (debitoEmLoteService.isPresent()) {
+            // O lote é aplicado por uma única thread; a retentativa reenvia o débito para o próximo lote
+            return retryExecutor.executar(() -> tentar(transacaoRequest, evento,
+                    () -> limitadorConcorrencia.executar(() -> debitoEmLoteService.get().debitar(transacaoRequest))));
+        }
+        // Débitos do mesmo cartão são serializados na JVM; a retentativa envolve toda a transação, reaberta a cada tentativa.
+        // O limitador fica dentro do lock e da retentativa, em volta só da ida ao banco de dados: nem a espera por um
+        // cartão disputado nem o backoff entre tentativas contam como latência do banco ou ocupam vaga
+        long inicioLock = System.nanoTime();
+        return cartaoLockManager.executar(transacaoRequest.numero(), () -> {
+            evento.registrarEsperaLock(System.nanoTime() - inicioLock);
+            return retryExecutor.executar(() -> tentar(transacaoRequest, evento,
+                    () -> limitadorConcorrencia.executar(() -> topologiaShards.executar(transacaoRequest.numero(),
+                            () -> transacaoService.realizarTransacao(transacaoRequest)))));
+        });
+    }
+
+    /**
+     * Executa uma tentativa de débito, contando-a no evento JFR e registrando no rastreador de cartões quentes as que
+     * falham por conflito de concorrência, antes da retentativa.
+     */
+    private StatusTransacao tentar(TransacaoRequest transacaoRequest, AutorizacaoEvent evento,
+                                   Supplier<StatusTransacao> tentativa) {
+        evento.registrarTentativa();
+        try {
+            return tentativa.get();
+        } catch (ConcurrencyFailureException e) {
+            rastreadorCartoesQuentes.registrarConflito(transacaoRequest.numero());
+            throw e;
+        }
     }
 }
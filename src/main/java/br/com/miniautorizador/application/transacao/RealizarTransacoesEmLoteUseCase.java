@@ -0,0 +1,10 @@
+package br.com.miniautorizador.application.transacao;
+
+import br.com.miniautorizador.presentation.dto.ResultadoTransacaoResponse;
+import br.com.miniautorizador.presentation.dto.TransacaoLoteRequest;
+
+import java.util.List;
+
+public interface RealizarTransacoesEmLoteUseCase {
+    List<ResultadoTransacaoResponse> realizarTransacoes(TransacaoLoteRequest transacaoLoteRequest);
+}
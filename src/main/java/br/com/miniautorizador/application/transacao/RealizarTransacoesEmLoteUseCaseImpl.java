@@ -0,0 +1,182 @@
+package br.com.miniautorizador.application.transacao;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.diagnostico.RastreadorCartoesQuentes;
+import br.com.miniautorizador.infrastructure.jfr.AutorizacaoLoteEvent;
+import br.com.miniautorizador.infrastructure.metricas.MedicaoEtapas;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.retry.RetryExecutor;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.presentation.dto.ResultadoTransacaoResponse;
+import br.com.miniautorizador.presentation.dto.TransacaoLoteRequest;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.lote.AutorizacaoLoteService;
+import br.com.miniautorizador.service.transacao.lote.DebitoLoteProperties;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+@Service
+public class RealizarTransacoesEmLoteUseCaseImpl implements RealizarTransacoesEmLoteUseCase {
+    private static final String FLUXO = "lote";
+
+    private final AutorizacaoLoteService autorizacaoLoteService;
+    private final RetryExecutor retryExecutor;
+    private final DebitoLoteProperties debitoLoteProperties;
+    private final Optional<MotorSaldoMemoria> motorSaldoMemoria;
+    private final TopologiaShards topologiaShards;
+    private final LimitadorConcorrencia limitadorConcorrencia;
+    private final RastreadorCartoesQuentes rastreadorCartoesQuentes;
+    private final MetricasAutorizacao metricasAutorizacao;
+
+    @Autowired
+    public RealizarTransacoesEmLoteUseCaseImpl(
+            AutorizacaoLoteService autorizacaoLoteService,
+            RetryExecutor retryExecutor,
+            DebitoLoteProperties debitoLoteProperties,
+            Optional<MotorSaldoMemoria> motorSaldoMemoria,
+            TopologiaShards topologiaShards,
+            LimitadorConcorrencia limitadorConcorrencia,
+            RastreadorCartoesQuentes rastreadorCartoesQuentes,
+            MetricasAutorizacao metricasAutorizacao) {
+        this.autorizacaoLoteService = autorizacaoLoteService;
+        this.retryExecutor = retryExecutor;
+        this.debitoLoteProperties = debitoLoteProperties;
+        this.motorSaldoMemoria = motorSaldoMemoria;
+        this.topologiaShards = topologiaShards;
+        this.limitadorConcorrencia = limitadorConcorrencia;
+        this.rastreadorCartoesQuentes = rastreadorCartoesQuentes;
+        this.metricasAutorizacao = metricasAutorizacao;
+    }
+
+    @Override
+    public List<ResultadoTransacaoResponse> realizarTransacoes(TransacaoLoteRequest transacaoLoteRequest) {
+        Objects.requireNonNull(transacaoLoteRequest, "Request não pode ser nula.");
+        List<TransacaoRequest> transacoes = Objects.requireNonNull(
+                transacaoLoteRequest.getTransacoes(), "As transações devem ser informadas.");
+        transacoes.forEach(transacao -> rastreadorCartoesQuentes.registrarRequisicao(transacao.numero()));
+
+        List<ResultadoTransacaoResponse> resultados = new ArrayList<>(transacoes.size());
+        int tamanhoBloco = Math.max(1, debitoLoteProperties.getTamanhoBloco());
+        RuntimeException falha = null;
+        boolean algumaAplicada = false;
+        // Cada bloco é um commit por shard; a parte de um shard que falhar por concorrência é reaplicada inteira, pois
+        // nada dela foi gravado. Os blocos já aplicados não são desfeitos por uma falha posterior: cada transação
+        // recebe o seu resultado, e as que não foram aplicadas são marcadas para reenvio
+        for (int inicio = 0; inicio < transacoes.size(); inicio += tamanhoBloco) {
+            List<TransacaoRequest> bloco = transacoes.subList(inicio, Math.min(inicio + tamanhoBloco, transacoes.size()));
+            if (falha != null) {
+                // Depois de uma falha, os blocos seguintes não são enviados ao banco de dados
+                bloco.forEach(transacao -> resultados.add(ResultadoTransacaoResponse.falha(
+                        transacao.getNumeroCartao(), ResultadoTransacaoResponse.NAO_PROCESSADA)));
+                continue;
+            }
+            List<CompletableFuture<StatusTransacao>> status = motorSaldoMemoria.isPresent()
+                    ? debitarNoMotor(bloco)
+                    : autorizarPorShard(bloco);
+            for (int i = 0; i < bloco.size(); i++) {
+                String numeroCartao = bloco.get(i).getNumeroCartao();
+                try {
+                    resultados.add(new ResultadoTransacaoResponse(numeroCartao, status.get(i).join()));
+                    algumaAplicada = true;
+                } catch (CompletionException e) {
+                    RuntimeException causa = e.getCause() instanceof RuntimeException erro ? erro : e;
+                    falha = falha == null ? causa : falha;
+                    boolean indeterminada = causa instanceof ResultadoIndeterminadoException;
+                    algumaAplicada |= indeterminada;
+                    resultados.add(ResultadoTransacaoResponse.falha(numeroCartao, indeterminada
+                            ? ResultadoTransacaoResponse.RESULTADO_INDETERMINADO
+                            : ResultadoTransacaoResponse.NAO_PROCESSADA));
+                }
+            }
+        }
+        if (falha != null && !algumaAplicada) {
+            // Nada foi aplicado: a falha é devolvida como nas transações individuais (ex.: 503 com Retry-After)
+            throw falha;
+        }
+        return resultados;
+    }
+
+    private List<CompletableFuture<StatusTransacao>> debitarNoMotor(List<TransacaoRequest> bloco) {
+        AutorizacaoLoteEvent evento = AutorizacaoLoteEvent.iniciar();
+        evento.registrarTentativa();
+        MedicaoEtapas medicao = metricasAutorizacao.iniciar(FLUXO);
+        List<CompletableFuture<StatusTransacao>> status = medicao.medir("motor-memoria",
+                () -> motorSaldoMemoria.get().debitar(bloco));
+        boolean falhou = status.stream().anyMatch(CompletableFuture::isCompletedExceptionally);
+        String resultado = falhou ? MetricasAutorizacao.ERRO : StatusTransacao.OK.name();
+        metricasAutorizacao.concluir(medicao, resultado);
+        evento.concluir(TopologiaShards.UNICO, bloco.size(), aprovados(status), resultado);
+        return status;
+    }
+
+    private List<CompletableFuture<StatusTransacao>> autorizarPorShard(List<TransacaoRequest> bloco) {
+        List<CompletableFuture<StatusTransacao>> status = new ArrayList<>(Collections.nCopies(bloco.size(), null));
+        topologiaShards.porShard(IntStream.range(0, bloco.size()).boxed().toList(),
+                indice -> bloco.get(indice).numero(),
+                (shard, indices) -> {
+                    List<TransacaoRequest> doShard = indices.stream().map(bloco::get).toList();
+                    StatusTransacao[] resultado;
+                    try {
+                        resultado = autorizar(shard, doShard);
+                    } catch (RuntimeException e) {
+                        // A transação do shard foi desfeita; os outros shards do bloco seguem com o seu commit
+                        indices.forEach(indice -> status.set(indice, CompletableFuture.failedFuture(e)));
+                        return;
+                    }
+                    for (int i = 0; i < indices.size(); i++) {
+                        status.set(indices.get(i), CompletableFuture.completedFuture(resultado[i]));
+                    }
+                });
+        return status;
+    }
+
+    /**
+     * Aplica a parte do bloco de um shard. O limitador fica dentro da retentativa, em volta só da ida ao banco de
+     * dados, e os conflitos de concorrência contam para os cartões da parte no rastreador de cartões quentes.
+     */
+    private StatusTransacao[] autorizar(String shard, List<TransacaoRequest> doShard) {
+        AutorizacaoLoteEvent evento = AutorizacaoLoteEvent.iniciar();
+        MedicaoEtapas medicao = metricasAutorizacao.iniciar(FLUXO);
+        StatusTransacao[] resultado = null;
+        try {
+            resultado = retryExecutor.executar(() -> {
+                evento.registrarTentativa();
+                try {
+                    return limitadorConcorrencia.executar(() ->
+                            medicao.medir("autorizar-bloco", () -> autorizacaoLoteService.autorizar(doShard)));
+                } catch (ConcurrencyFailureException e) {
+                    doShard.forEach(transacao -> rastreadorCartoesQuentes.registrarConflito(transacao.numero()));
+                    throw e;
+                }
+            });
+            return resultado;
+        } finally {
+            // O resultado do bloco é OK quando ele foi aplicado; o de cada débito vai na resposta
+            String situacao = resultado == null ? MetricasAutorizacao.ERRO : StatusTransacao.OK.name();
+            metricasAutorizacao.concluir(medicao, situacao);
+            evento.concluir(shard, doShard.size(), resultado == null ? 0
+                    : (int) Arrays.stream(resultado).filter(StatusTransacao.OK::equals).count(), situacao);
+        }
+    }
+
+    private static int aprovados(List<CompletableFuture<StatusTransacao>> status) {
+        return (int) status.stream()
+                .filter(resultado -> !resultado.isCompletedExceptionally())
+                .filter(resultado -> resultado.join() == StatusTransacao.OK)
+                .count();
+    }
+}
@@ -8,14 +8,19 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "cartoes", uniqueConstraints = @UniqueConstraint(columnNames = "numero_cartao"))
+@Table(name = "cartoes")
 @Getter
 @Setter
 @NoArgsConstructor
 public class Cartao {
+    /**
+     * Saldo de todo cartão novo, criado individualmente ou em lote.
+     */
+    public static final BigDecimal SALDO_INICIAL = new BigDecimal("500.00");
+
     @Id
-    @Column(name = "numero_cartao", length = 16, nullable = false, unique = true)
-    private String numeroCartao;
+    @Column(name = "numero_cartao", nullable = false)
+    private long numeroCartao;
 
     @Column(nullable = false)
     private String senha;
@@ -26,7 +31,7 @@ public class Cartao {
     @Version
     private Long version;
 
-    public Cartao(String numeroCartao, String senha, BigDecimal saldo) {
+    public Cartao(long numeroCartao, String senha, BigDecimal saldo) {
         this.numeroCartao = numeroCartao;
         this.senha = senha;
         this.saldo = saldo;
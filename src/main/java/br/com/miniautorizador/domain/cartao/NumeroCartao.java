@@ -0,0 +1,67 @@
+package br.com.miniautorizador.domain.cartao;
+
+/**
+ * Conversão do número do cartão entre o formato da API (texto com 16 dígitos) e o formato compacto usado no restante
+ * da aplicação e gravado no banco de dados ({@code long}, coluna {@code BIGINT}).
+ * <p>
+ * A conversão é feita uma única vez, na fronteira da API. Zeros à esquerda não são guardados no valor numérico e são
+ * restaurados por {@link #formatar(long)}.
+ *
+ * @author Fabiana Costa
+ */
+public final class NumeroCartao {
+    /**
+     * Valor de um número de cartão que não tem exatamente 16 dígitos. Não corresponde a nenhum cartão.
+     */
+    public static final long INVALIDO = -1L;
+    public static final int DIGITOS = 16;
+    private static final long LIMITE = 10_000_000_000_000_000L;
+
+    private NumeroCartao() {
+    }
+
+    /**
+     * @param numeroCartao Número do cartão no formato da API.
+     * @return Número do cartão no formato compacto, ou {@link #INVALIDO} caso não tenha exatamente 16 dígitos.
+     */
+    public static long converter(String numeroCartao) {
+        if (numeroCartao == null || numeroCartao.length() != DIGITOS) {
+            return INVALIDO;
+        }
+        long numero = 0;
+        for (int i = 0; i < DIGITOS; i++) {
+            char digito = numeroCartao.charAt(i);
+            if (digito < '0' || digito > '9') {
+                return INVALIDO;
+            }
+            numero = numero * 10 + (digito - '0');
+        }
+        return numero;
+    }
+
+    /**
+     * @param numeroCartao Número do cartão no formato compacto.
+     * @return Se o número tem no máximo 16 dígitos e não é negativo.
+     */
+    public static boolean valido(long numeroCartao) {
+        return numeroCartao >= 0 && numeroCartao < LIMITE;
+    }
+
+    /**
+     * @param numeroCartao Número do cartão no formato compacto.
+     * @return Número do cartão no formato da API, com zeros à esquerda até 16 dígitos.
+     * @throws IllegalArgumentException Caso o número não seja {@linkplain #valido(long) válido}.
+     */
+    public static String formatar(long numeroCartao) {
+        if (!valido(numeroCartao)) {
+            throw new IllegalArgumentException("Número de cartão inválido: " + numeroCartao);
+        }
+        char[] digitos = new char[DIGITOS];
+        long restante = numeroCartao;
+        for (int i = DIGITOS - 1; i >= 0; i--) {
+            digitos[i] = (char) ('0' + restante % 10);
+            restante /= 10;
+        }
+        return new String(digitos);
+    }
+}
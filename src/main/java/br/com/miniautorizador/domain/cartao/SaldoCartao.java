@@ -0,0 +1,13 @@
+package br.com.miniautorizador.domain.cartao;
+
+import java.math.BigDecimal;
+
+/**
+ * Saldo do cartão com a versão da linha em que foi lido.
+ *
+ * @param saldo  Saldo do cartão.
+ * @param versao Valor da coluna {@code version} do cartão na leitura.
+ * @author Fabiana Costa
+ */
+public record SaldoCartao(BigDecimal saldo, Long versao) {
+}
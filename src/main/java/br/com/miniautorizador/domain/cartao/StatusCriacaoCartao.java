@@ -0,0 +1,11 @@
+package br.com.miniautorizador.domain.cartao;
+
+/**
+ * Resultado da criação de um cartão no provisionamento em lote.
+ *
+ * @author Fabiana Costa
+ */
+public enum StatusCriacaoCartao {
+    CRIADO,
+    CARTAO_EXISTENTE
+}
@@ -1,7 +0,0 @@
-package br.com.miniautorizador.domain.cartao.exception;
-
-public class SaldoInsuficienteException extends RuntimeException {
-    public SaldoInsuficienteException() {
-        super("Saldo insuficiente no cartão.");
-    }
-}
\ No newline at end of file
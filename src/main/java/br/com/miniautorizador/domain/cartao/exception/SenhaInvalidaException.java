@@ -1,7 +0,0 @@
-package br.com.miniautorizador.domain.cartao.exception;
-
-public class SenhaInvalidaException extends RuntimeException {
-    public SenhaInvalidaException() {
-        super("Senha inválida.");
-    }
-}
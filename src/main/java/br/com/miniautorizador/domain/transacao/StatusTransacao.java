@@ -0,0 +1,15 @@
+package br.com.miniautorizador.domain.transacao;
+
+/**
+ * Resultado de uma transação de débito, com os mesmos códigos devolvidos pela API.
+ * <p>
+ * As recusas de negócio circulam como status do caso de uso até o controller, sem exceções.
+ *
+ * @author Fabiana Costa
+ */
+public enum StatusTransacao {
+    OK,
+    SALDO_INSUFICIENTE,
+    SENHA_INVALIDA,
+    CARTAO_INEXISTENTE
+}
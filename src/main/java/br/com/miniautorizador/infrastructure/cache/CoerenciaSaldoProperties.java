@@ -0,0 +1,50 @@
+package br.com.miniautorizador.infrastructure.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração da coerência do cache de saldos entre instâncias da aplicação.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.cache-saldo.coerencia")
+public class CoerenciaSaldoProperties {
+    /**
+     * Registra os débitos na tabela de alterações e descarta os saldos alterados por outras instâncias. Deve ter o
+     * mesmo valor em todas as instâncias.
+     */
+    private boolean habilitado = false;
+
+    /**
+     * Intervalo entre as leituras da tabela de alterações.
+     */
+    private Duration intervalo = Duration.ofMillis(200);
+
+    /**
+     * Idade máxima de um saldo servido pelo cache em relação aos débitos já confirmados. Enquanto as alterações não
+     * forem lidas dentro desse prazo, as consultas vão ao banco de dados.
+     */
+    private Duration defasagemMaxima = Duration.ofSeconds(1);
+
+    /**
+     * Quantidade máxima de alterações por leitura.
+     */
+    private int tamanhoLote = 1_000;
+
+    /**
+     * Tempo máximo entre a reserva do identificador de uma alteração e o commit da transação. Lacunas mais antigas na
+     * sequência de identificadores são consideradas transações desfeitas.
+     */
+    private Duration tempoLacuna = Duration.ofSeconds(10);
+
+    /**
+     * Tempo de permanência das alterações na tabela.
+     */
+    private Duration retencao = Duration.ofMinutes(10);
+}
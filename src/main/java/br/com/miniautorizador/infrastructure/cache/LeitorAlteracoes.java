@@ -0,0 +1,95 @@
+package br.com.miniautorizador.infrastructure.cache;
+
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository.AlteracaoSaldo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitura incremental da tabela de alterações de saldo pela sequência de identificadores.
+ * <p>
+ * O identificador é reservado quando a alteração é registrada, mas a linha só fica visível no commit, e transações
+ * concorrentes confirmam fora de ordem. Os identificadores pulados ficam como lacunas e são consultados de novo nas
+ * leituras seguintes, até aparecerem ou ficarem mais antigos que o tempo de lacuna (transação desfeita). Não é
+ * thread-safe: as leituras são feitas por uma única thread.
+ *
+ * @author Fabiana Costa
+ */
+final class LeitorAlteracoes {
+    static final int MAXIMO_LACUNAS = 10_000;
+
+    private final AlteracaoSaldoJdbcRepository repository;
+    private final CoerenciaSaldoProperties properties;
+    private final Map<Long, Long> lacunas = new HashMap<>();
+    private long maximo = -1;
+
+    LeitorAlteracoes(AlteracaoSaldoJdbcRepository repository, CoerenciaSaldoProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    boolean iniciado() {
+        return maximo >= 0;
+    }
+
+    /**
+     * Posiciona a leitura no fim da tabela, descartando as lacunas pendentes.
+     */
+    void iniciar() {
+        maximo = repository.ultimoId();
+        lacunas.clear();
+    }
+
+    /**
+     * Lê as alterações confirmadas desde a leitura anterior, inclusive as que preencheram lacunas.
+     *
+     * @return Alterações lidas e se a leitura chegou ao fim da tabela.
+     */
+    Leitura ler() {
+        long agora = System.nanoTime();
+        int tamanhoLote = properties.getTamanhoLote();
+        List<AlteracaoSaldo> alteracoes = new ArrayList<>();
+        if (!lacunas.isEmpty()) {
+            List<Long> ids = new ArrayList<>(lacunas.keySet());
+            for (int inicio = 0; inicio < ids.size(); inicio += tamanhoLote) {
+                for (AlteracaoSaldo alteracao : repository.buscarPorIds(
+                        ids.subList(inicio, Math.min(inicio + tamanhoLote, ids.size())))) {
+                    lacunas.remove(alteracao.id());
+                    alteracoes.add(alteracao);
+                }
+            }
+            long tempoLacuna = properties.getTempoLacuna().toNanos();
+            lacunas.values().removeIf(desde -> agora - desde > tempoLacuna);
+        }
+
+        List<AlteracaoSaldo> novas = repository.buscarDesde(maximo, tamanhoLote);
+        boolean rastroPerdido = false;
+        for (AlteracaoSaldo alteracao : novas) {
+            if (alteracao.id() - maximo - 1 + lacunas.size() > MAXIMO_LACUNAS) {
+                // Lacunas demais para acompanhar: quem lê precisa tratar como perda das alterações
+                rastroPerdido = true;
+                lacunas.clear();
+            } else {
+                for (long id = maximo + 1; id < alteracao.id(); id++) {
+                    lacunas.put(id, agora);
+                }
+            }
+            maximo = alteracao.id();
+            alteracoes.add(alteracao);
+        }
+        return new Leitura(alteracoes, novas.size() < tamanhoLote, rastroPerdido);
+    }
+
+    /**
+     * Resultado de uma leitura.
+     *
+     * @param alteracoes    Alterações lidas.
+     * @param completa      Se todas as alterações visíveis no início da leitura foram lidas.
+     * @param rastroPerdido Se lacunas deixaram de ser acompanhadas e alguma alteração pode ter sido perdida.
+     */
+    record Leitura(List<AlteracaoSaldo> alteracoes, boolean completa, boolean rastroPerdido) {
+    }
+}
@@ -0,0 +1,294 @@
+package br.com.miniautorizador.infrastructure.cache;
+
+import br.com.miniautorizador.domain.cartao.SaldoCartao;
+import br.com.miniautorizador.infrastructure.replicas.RoteadorDataSource;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cache local dos saldos dos cartões, com leitura no banco de dados na primeira consulta (read-through).
+ * <p>
+ * O cache é limitado em quantidade e em tempo de vida, com a política de remoção W-TinyLFU do Caffeine: cartões
+ * consultados com frequência permanecem, e consultas esporádicas não expulsam os saldos mais usados. Cartões
+ * inexistentes não são guardados.
+ * <p>
+ * Quem altera o saldo chama {@link #registrarAlteracao(long)} dentro da transação; a entrada é descartada quando a
+ * transação termina, depois que o novo saldo já está visível no banco de dados. Uma leitura iniciada antes do commit
+ * não sobrevive à invalidação: a carga e a remoção da mesma chave são atômicas no Caffeine, então a remoção espera a
+ * carga em andamento terminar e descarta o valor lido.
+ * <p>
+ * Com a coerência entre instâncias habilitada ({@link CoerenciaSaldoProperties}), a alteração também é gravada, com a
+ * versão da linha, na tabela de alterações, lida periodicamente por todas as instâncias: um saldo em cache com versão
+ * anterior à alterada é descartado. O cache só atende consultas enquanto a última leitura completa da tabela é mais
+ * recente que a defasagem máxima; fora disso, e logo após a inicialização, as consultas vão ao banco de dados.
+ * <p>
+ * Com réplicas de leitura, o saldo de um cartão alterado há menos que a janela do primário é lido no banco primário:
+ * a réplica pode não ter recebido o débito, e o saldo anterior ficaria em cache depois da invalidação.
+ * <p>
+ * Acertos, faltas e remoções são publicados nas métricas {@code cache.*} com a tag {@code cache=saldo}.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class SaldoCache {
+    static final String NOME = "saldo";
+    static final long MAXIMO_ALTERADOS = 100_000;
+    private static final Logger logger = LoggerFactory.getLogger(SaldoCache.class);
+
+    private final Cache<Long, SaldoCartao> saldos;
+    private final Cache<Long, Boolean> alteradosRecentemente;
+    private final boolean habilitado;
+    private final CoerenciaSaldoProperties coerencia;
+    private final AlteracaoSaldoJdbcRepository alteracaoSaldoRepository;
+    private final LeitorAlteracoes leitor;
+    private final ReentrantLock sincronizacao = new ReentrantLock();
+    private volatile boolean coberto;
+    private volatile long cobertoAte;
+    private long aquecidoEm;
+    private long ultimaLimpeza;
+    private ScheduledExecutorService agendador;
+
+    @Autowired
+    public SaldoCache(
+            SaldoCacheProperties properties,
+            CoerenciaSaldoProperties coerencia,
+            AlteracaoSaldoJdbcRepository alteracaoSaldoRepository,
+            MeterRegistry meterRegistry) {
+        this.habilitado = properties.getTamanhoMaximo() > 0;
+        this.coerencia = coerencia;
+        this.alteracaoSaldoRepository = alteracaoSaldoRepository;
+        this.leitor = new LeitorAlteracoes(alteracaoSaldoRepository, coerencia);
+        this.cobertoAte = System.nanoTime();
+        this.ultimaLimpeza = cobertoAte;
+        this.saldos = Caffeine.newBuilder()
+                .maximumSize(properties.getTamanhoMaximo())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.alteradosRecentemente = Caffeine.newBuilder()
+                .maximumSize(properties.getJanelaPrimario().isZero() ? 0 : MAXIMO_ALTERADOS)
+                .expireAfterWrite(properties.getJanelaPrimario())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, saldos, NOME);
+        if (coerencia.isHabilitado()) {
+            Gauge.builder("miniautorizador.cache-saldo.defasagem", this,
+                            cache -> (System.nanoTime() - cache.cobertoAte) / 1e9)
+                    .description("Segundos desde a última leitura completa da tabela de alterações de saldo")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!coerencia.isHabilitado()) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "coerencia-saldo");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = coerencia.getIntervalo().toMillis();
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                sincronizar();
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao ler a tabela de alterações de saldo", e);
+            }
+        }, 0, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    /**
+     * Obtém o saldo do cartão, lendo-o com o carregador quando não está em cache.
+     *
+     * @param numeroCartao Número do cartão.
+     * @param carregador   Leitura do saldo no banco de dados.
+     * @return Saldo do cartão, ou vazio caso o cartão não exista.
+     */
+    public Optional<BigDecimal> obter(long numeroCartao, Supplier<Optional<SaldoCartao>> carregador) {
+        Supplier<Optional<SaldoCartao>> leitura = alteradosRecentemente.getIfPresent(numeroCartao) == null
+                ? carregador
+                : () -> RoteadorDataSource.noPrimario(carregador);
+        if (!habilitado || !coerente()) {
+            return leitura.get().map(SaldoCartao::saldo);
+        }
+        return Optional.ofNullable(saldos.get(numeroCartao, numero -> leitura.get().orElse(null)))
+                .map(SaldoCartao::saldo);
+    }
+
+    /**
+     * Registra a alteração do saldo do cartão na transação corrente.
+     *
+     * @param numeroCartao Número do cartão cujo saldo foi alterado.
+     * @see #registrarAlteracao(Collection)
+     */
+    public void registrarAlteracao(long numeroCartao) {
+        registrarAlteracao(List.of(numeroCartao));
+    }
+
+    /**
+     * Registra a alteração dos saldos dos cartões na transação corrente: com a coerência habilitada, grava as versões
+     * atuais na tabela de alterações, e descarta os saldos deste cache ao fim da transação.
+     *
+     * @param numerosCartao Números dos cartões cujos saldos foram alterados.
+     */
+    public void registrarAlteracao(Collection<Long> numerosCartao) {
+        if (numerosCartao.isEmpty()) {
+            return;
+        }
+        if (coerencia.isHabilitado()) {
+            alteracaoSaldoRepository.registrar(numerosCartao);
+        }
+        invalidarAposCommit(numerosCartao);
+    }
+
+    /**
+     * Descarta o saldo do cartão ao fim da transação corrente, ou imediatamente fora de uma transação.
+     *
+     * @param numeroCartao Número do cartão cujo saldo foi alterado.
+     */
+    public void invalidarAposCommit(long numeroCartao) {
+        invalidarAposCommit(List.of(numeroCartao));
+    }
+
+    /**
+     * Descarta os saldos dos cartões ao fim da transação corrente, ou imediatamente fora de uma transação. Até o fim
+     * da janela do primário, os saldos desses cartões são lidos no banco primário.
+     *
+     * @param numerosCartao Números dos cartões cujos saldos foram alterados.
+     */
+    public void invalidarAposCommit(Collection<Long> numerosCartao) {
+        if (numerosCartao.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            descartar(numerosCartao);
+            return;
+        }
+        // Também em rollback: a remoção é inofensiva, e o saldo pode ter sido lido durante a transação
+        List<Long> numeros = List.copyOf(numerosCartao);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                descartar(numeros);
+            }
+        });
+    }
+
+    /**
+     * Descarta todos os saldos em cache.
+     */
+    public void invalidar() {
+        saldos.invalidateAll();
+    }
+
+    /**
+     * Lê a tabela de alterações e descarta os saldos em cache alterados por qualquer instância. Executado
+     * periodicamente com a coerência habilitada.
+     */
+    public void sincronizar() {
+        sincronizacao.lock();
+        try {
+            long inicio = System.nanoTime();
+            if (!leitor.iniciado() || coberto && inicio - cobertoAte > coerencia.getRetencao().toNanos()) {
+                // Sem posição na tabela, ou parado por tempo suficiente para alterações terem sido removidas
+                leitor.iniciar();
+                reiniciar(inicio);
+            }
+            LeitorAlteracoes.Leitura leitura;
+            do {
+                leitura = leitor.ler();
+                leitura.alteracoes().forEach(alteracao ->
+                        invalidarAnteriores(alteracao.numeroCartao(), alteracao.versao()));
+                if (leitura.rastroPerdido()) {
+                    reiniciar(inicio);
+                }
+            } while (!leitura.completa());
+
+            if (!coberto) {
+                if (inicio - aquecidoEm < 0) {
+                    return;
+                }
+                // Entradas gravadas antes da perda de rastro ou por leituras em andamento no fechamento
+                saldos.invalidateAll();
+                coberto = true;
+            }
+            cobertoAte = inicio;
+            removerAlteracoesAntigas(inicio);
+        } finally {
+            sincronizacao.unlock();
+        }
+    }
+
+    private boolean coerente() {
+        return !coerencia.isHabilitado()
+                || coberto && System.nanoTime() - cobertoAte <= coerencia.getDefasagemMaxima().toNanos();
+    }
+
+    /**
+     * Deixa de atender pelo cache até que o tempo de lacuna passe: uma transação em andamento pode confirmar uma
+     * alteração com identificador que não será mais lido.
+     */
+    private void reiniciar(long inicio) {
+        coberto = false;
+        aquecidoEm = inicio + coerencia.getTempoLacuna().toNanos();
+    }
+
+    private void descartar(Collection<Long> numerosCartao) {
+        numerosCartao.forEach(this::marcarAlterado);
+        if (habilitado) {
+            saldos.invalidateAll(numerosCartao);
+        }
+    }
+
+    private void marcarAlterado(long numeroCartao) {
+        alteradosRecentemente.put(numeroCartao, Boolean.TRUE);
+    }
+
+    private void invalidarAnteriores(long numeroCartao, long versao) {
+        marcarAlterado(numeroCartao);
+        saldos.asMap().computeIfPresent(numeroCartao, (numero, saldo) ->
+                saldo.versao() == null || saldo.versao() < versao ? null : saldo);
+    }
+
+    private void removerAlteracoesAntigas(long agora) {
+        long retencao = coerencia.getRetencao().toNanos();
+        if (agora - ultimaLimpeza < retencao / 2) {
+            return;
+        }
+        ultimaLimpeza = agora;
+        int removidas = alteracaoSaldoRepository.removerAnteriores(Instant.now().minus(coerencia.getRetencao()));
+        logger.debug("{} alterações de saldo removidas", removidas);
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.miniautorizador.infrastructure.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do cache de saldos consultados em {@code GET /cartoes/{numeroCartao}}.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.cache-saldo")
+public class SaldoCacheProperties {
+    /**
+     * Quantidade máxima de saldos mantidos em cache. Zero desativa o cache.
+     */
+    private long tamanhoMaximo = 100_000;
+
+    /**
+     * Tempo de vida de um saldo em cache, contado a partir da leitura no banco de dados. Limita a defasagem em relação
+     * a débitos que não passam por esta instância.
+     */
+    private Duration ttl = Duration.ofSeconds(10);
+
+    /**
+     * Tempo após a alteração de um saldo, por esta instância ou lida na tabela de alterações, em que a leitura desse
+     * cartão vai ao banco primário, mesmo com réplicas de leitura. Deve ser maior que a defasagem máxima das réplicas.
+     */
+    private Duration janelaPrimario = Duration.ofSeconds(2);
+}
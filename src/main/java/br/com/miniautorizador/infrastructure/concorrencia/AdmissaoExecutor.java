@@ -0,0 +1,221 @@
+package br.com.miniautorizador.infrastructure.concorrencia;
+
+import br.com.miniautorizador.infrastructure.metricas.ServerTiming;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Controle de admissão das requisições processadas de forma assíncrona.
+ * <p>
+ * As requisições admitidas entram em uma fila limitada e são processadas com concorrência limitada, liberando a
+ * thread do servlet enquanto aguardam. Em um pico de tráfego, o excesso é recusado na hora com
+ * {@link ServicoOcupadoException} (fila cheia) ou descartado ao sair da fila (espera acima de
+ * {@link AdmissaoProperties#getTempoMaximoFila()}), de modo que o tempo de resposta das requisições admitidas
+ * continua limitado em vez de crescer até os clientes desistirem.
+ * <p>
+ * Por padrão, as requisições são processadas por um pool fixo de threads de plataforma. Com
+ * {@code spring.threads.virtual.enabled}, cada requisição roda em uma thread virtual, e a fila e a concorrência são
+ * limitadas por semáforos.
+ * <p>
+ * Uma requisição sem resultado dentro de {@link AdmissaoProperties#getTimeoutResposta()} é cancelada se ainda não
+ * começou, e recusada com {@link ServicoOcupadoException}; se já começou, pode ter sido aplicada, e termina com
+ * {@link ResultadoIndeterminadoException} em vez de um convite à retentativa. A exceção leva a conclusão real da
+ * requisição, que continua em execução, para que quem guarda o resultado possa esperar por ela.
+ * <p>
+ * A operação leva consigo o {@link ServerTiming} da requisição, para que as etapas medidas no pool, incluindo a
+ * espera na fila, apareçam no cabeçalho {@code Server-Timing}.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class AdmissaoExecutor {
+    private static final int PENDENTE = 0;
+    private static final int INICIADA = 1;
+    private static final int CANCELADA = 2;
+
+    private final ExecutorService executor;
+    private final Semaphore vagas;
+    private final Semaphore execucoes;
+    private final int threads;
+    private final int capacidade;
+    private final long tempoMaximoFilaNanos;
+    private final long timeoutRespostaNanos;
+    private final Duration retryAfter;
+    private final Timer espera;
+    private final Counter rejeitadas;
+    private final Counter expiradas;
+    private final Counter indeterminadas;
+
+    @Autowired
+    public AdmissaoExecutor(AdmissaoProperties admissaoProperties, MeterRegistry meterRegistry,
+                            Environment environment) {
+        this(admissaoProperties, meterRegistry, Threading.VIRTUAL.isActive(environment));
+    }
+
+    public AdmissaoExecutor(AdmissaoProperties admissaoProperties, MeterRegistry meterRegistry,
+                            boolean threadsVirtuais) {
+        this.threads = admissaoProperties.getThreads();
+        this.capacidade = threads + admissaoProperties.getCapacidadeFila();
+        if (threadsVirtuais) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("admissao-", 1).factory());
+            this.vagas = new Semaphore(capacidade);
+            this.execucoes = new Semaphore(threads);
+        } else {
+            AtomicInteger sequencia = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(admissaoProperties.getCapacidadeFila()),
+                    tarefa -> {
+                        Thread thread = new Thread(tarefa, "admissao-" + sequencia.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.vagas = null;
+            this.execucoes = null;
+        }
+        this.tempoMaximoFilaNanos = admissaoProperties.getTempoMaximoFila().toNanos();
+        this.timeoutRespostaNanos = admissaoProperties.getTimeoutResposta().toNanos();
+        this.retryAfter = admissaoProperties.getRetryAfter();
+        this.espera = Timer.builder("miniautorizador.admissao.espera")
+                .description("Tempo de espera na fila de admissão")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejeitadas = Counter.builder("miniautorizador.admissao.rejeitadas")
+                .description("Requisições recusadas com a fila de admissão cheia")
+                .register(meterRegistry);
+        this.expiradas = Counter.builder("miniautorizador.admissao.expiradas")
+                .description("Requisições descartadas por esperar além do tempo máximo na fila")
+                .register(meterRegistry);
+        this.indeterminadas = Counter.builder("miniautorizador.admissao.indeterminadas")
+                .description("Requisições já iniciadas sem resultado dentro do tempo máximo de resposta")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.admissao.fila", this, AdmissaoExecutor::naFila)
+                .description("Requisições aguardando na fila de admissão")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.admissao.ativas", this, AdmissaoExecutor::ativas)
+                .description("Requisições em processamento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admite a operação para processamento assíncrono.
+     *
+     * @param operacao Operação a executar no pool de admissão.
+     * @return Futuro com o resultado da operação; falha com {@link ServicoOcupadoException} se a requisição esperou
+     * além do tempo máximo na fila ou foi cancelada antes de começar, e com {@link ResultadoIndeterminadoException}
+     * se começou e não terminou dentro do tempo máximo de resposta.
+     * @throws ServicoOcupadoException Caso a fila de admissão esteja cheia.
+     */
+    public <T> CompletableFuture<T> submeter(Supplier<T> operacao) {
+        long enfileirada = System.nanoTime();
+        CompletableFuture<T> conclusao = new CompletableFuture<>();
+        AtomicInteger estado = new AtomicInteger(PENDENTE);
+        Supplier<T> medida = ServerTiming.propagar(() -> {
+            long aguardado = System.nanoTime() - enfileirada;
+            espera.record(aguardado, TimeUnit.NANOSECONDS);
+            ServerTiming.registrar("fila", aguardado);
+            if (aguardado > tempoMaximoFilaNanos) {
+                expiradas.increment();
+                throw new ServicoOcupadoException("Requisição expirou na fila de admissão.", retryAfter);
+            }
+            return operacao.get();
+        });
+        Runnable tarefa = () -> {
+            // Uma requisição cancelada pelo tempo máximo de resposta não chega a ser executada
+            if (!estado.compareAndSet(PENDENTE, INICIADA)) {
+                return;
+            }
+            try {
+                conclusao.complete(medida.get());
+            } catch (Throwable e) {
+                conclusao.completeExceptionally(e);
+            }
+        };
+        admitir(tarefa);
+        // O tempo máximo vale para a cópia devolvida; a conclusão real continua aberta até a tarefa terminar
+        return conclusao.copy().orTimeout(timeoutRespostaNanos, TimeUnit.NANOSECONDS).exceptionallyCompose(erro -> {
+            if (!(erro instanceof TimeoutException)) {
+                return CompletableFuture.failedFuture(erro);
+            }
+            if (estado.compareAndSet(PENDENTE, CANCELADA)) {
+                if (executor instanceof ThreadPoolExecutor pool) {
+                    pool.remove(tarefa);
+                }
+                return CompletableFuture.failedFuture(
+                        new ServicoOcupadoException("Requisição cancelada na fila de admissão.", retryAfter));
+            }
+            indeterminadas.increment();
+            return CompletableFuture.failedFuture(
+                    new ResultadoIndeterminadoException("Requisição sem resultado dentro do tempo máximo.",
+                            conclusao.minimalCompletionStage()));
+        });
+    }
+
+    private void admitir(Runnable tarefa) {
+        if (vagas == null) {
+            try {
+                executor.execute(tarefa);
+            } catch (RejectedExecutionException e) {
+                rejeitadas.increment();
+                throw new ServicoOcupadoException("Fila de admissão cheia.", retryAfter);
+            }
+            return;
+        }
+        if (!vagas.tryAcquire()) {
+            rejeitadas.increment();
+            throw new ServicoOcupadoException("Fila de admissão cheia.", retryAfter);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    execucoes.acquireUninterruptibly();
+                    try {
+                        tarefa.run();
+                    } finally {
+                        execucoes.release();
+                    }
+                } finally {
+                    vagas.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            vagas.release();
+            rejeitadas.increment();
+            throw new ServicoOcupadoException("Fila de admissão cheia.", retryAfter);
+        }
+    }
+
+    private double ativas() {
+        if (execucoes == null) {
+            return ((ThreadPoolExecutor) executor).getActiveCount();
+        }
+        return threads - execucoes.availablePermits();
+    }
+
+    private double naFila() {
+        if (vagas == null) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return Math.max(0, capacidade - vagas.availablePermits() - ativas());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.miniautorizador.infrastructure.concorrencia;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do controle de admissão das autorizações processadas de forma assíncrona.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.admissao")
+public class AdmissaoProperties {
+    /**
+     * Quantidade de autorizações admitidas processadas ao mesmo tempo: threads do pool ou, com
+     * {@code spring.threads.virtual.enabled}, threads virtuais em execução.
+     */
+    private int threads = 32;
+
+    /**
+     * Capacidade da fila de admissão. Com a fila cheia, novas requisições são recusadas imediatamente.
+     */
+    private int capacidadeFila = 1000;
+
+    /**
+     * Tempo máximo na fila. Requisições que esperaram mais do que isso são descartadas sem processamento, pois o
+     * cliente provavelmente já desistiu da resposta.
+     */
+    private Duration tempoMaximoFila = Duration.ofMillis(500);
+
+    /**
+     * Tempo máximo de resposta, menor que {@code spring.mvc.async.request-timeout}. Uma requisição que ainda está na
+     * fila é cancelada e recusada com Retry-After; uma que já começou termina com resultado indeterminado.
+     */
+    private Duration timeoutResposta = Duration.ofSeconds(9);
+
+    /**
+     * Tempo sugerido ao cliente no cabeçalho Retry-After quando a requisição é recusada.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,103 @@
+package br.com.miniautorizador.infrastructure.concorrencia;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Gerenciador de locks por cartão em stripes.
+ * <p>
+ * Serializa, dentro da JVM, as operações sobre o mesmo cartão antes que cheguem ao banco de dados, trocando a
+ * disputa pela linha do cartão por uma espera local curta. Cada cartão é mapeado para um stripe por hash do número,
+ * então cartões diferentes normalmente não se bloqueiam e a memória usada independe da quantidade de cartões. Como a
+ * operação protegida inclui idas ao banco de dados, a quantidade de stripes é bem maior que a de requisições
+ * simultâneas, para que a espera por um stripe compartilhado seja rara.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class CartaoLockManager {
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+    private final Timer espera;
+    private final Timer esperaExpirada;
+
+    @Autowired
+    public CartaoLockManager(CartaoLockProperties properties, MeterRegistry meterRegistry) {
+        int quantidade = calcularQuantidadeStripes(properties);
+        this.stripes = new ReentrantLock[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            stripes[i] = new ReentrantLock(properties.isJusto());
+        }
+        this.timeoutNanos = properties.getTimeout().toNanos();
+        this.espera = Timer.builder("miniautorizador.lock.espera")
+                .description("Tempo de espera pelo lock do cartão")
+                .tag("resultado", "adquirido")
+                .register(meterRegistry);
+        this.esperaExpirada = Timer.builder("miniautorizador.lock.espera")
+                .description("Tempo de espera pelo lock do cartão")
+                .tag("resultado", "timeout")
+                .register(meterRegistry);
+    }
+
+    public void executar(long numeroCartao, Runnable operacao) {
+        executar(numeroCartao, () -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    public <T> T executar(long numeroCartao, Supplier<T> operacao) {
+        ReentrantLock lock = stripes[indiceStripe(numeroCartao)];
+        adquirir(lock, numeroCartao);
+        try {
+            return operacao.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Índice do stripe responsável pelo cartão.
+     *
+     * @param numeroCartao Número do cartão.
+     * @return Índice do stripe.
+     */
+    public int indiceStripe(long numeroCartao) {
+        int hash = Long.hashCode(numeroCartao);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    public int getQuantidadeStripes() {
+        return stripes.length;
+    }
+
+    private void adquirir(ReentrantLock lock, long numeroCartao) {
+        long inicio = System.nanoTime();
+        boolean adquirido;
+        try {
+            adquirido = lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrompido aguardando o lock do cartão [" + numeroCartao + "].", e);
+        }
+        long decorrido = System.nanoTime() - inicio;
+        if (!adquirido) {
+            esperaExpirada.record(decorrido, TimeUnit.NANOSECONDS);
+            throw new CannotAcquireLockException("Tempo esgotado aguardando o lock do cartão [" + numeroCartao + "].");
+        }
+        espera.record(decorrido, TimeUnit.NANOSECONDS);
+    }
+
+    private static int calcularQuantidadeStripes(CartaoLockProperties properties) {
+        int desejado = properties.getStripes();
+        int quantidade = Integer.highestOneBit(Math.max(1, desejado));
+        return quantidade < desejado ? quantidade << 1 : quantidade;
+    }
+}
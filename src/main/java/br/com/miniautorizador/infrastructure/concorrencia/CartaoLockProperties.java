@@ -0,0 +1,34 @@
+package br.com.miniautorizador.infrastructure.concorrencia;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração dos locks por cartão usados para serializar débitos do mesmo cartão dentro da JVM.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.lock")
+public class CartaoLockProperties {
+    /**
+     * Quantidade de stripes, arredondada para potência de 2. O lock é mantido durante idas ao banco de dados, então a
+     * quantidade acompanha as requisições simultâneas (threads de admissão, inclusive virtuais), não os núcleos: com
+     * muito mais stripes do que requisições, cartões diferentes raramente caem no mesmo stripe.
+     */
+    private int stripes = 4096;
+
+    /**
+     * Atende as requisições na ordem de chegada (fila FIFO por stripe).
+     */
+    private boolean justo = true;
+
+    /**
+     * Tempo máximo de espera pelo lock do cartão.
+     */
+    private Duration timeout = Duration.ofMillis(200);
+}
@@ -0,0 +1,154 @@
+package br.com.miniautorizador.infrastructure.concorrencia;
+
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Limitador adaptativo de concorrência para as operações que acessam o banco de dados.
+ * <p>
+ * O limite de operações simultâneas é ajustado pelo gradiente entre a latência de referência (média longa) e a
+ * latência recente (média curta): enquanto as latências se mantêm, o limite cresce aos poucos; quando o banco de
+ * dados fica lento, o gradiente cai e o limite diminui na mesma proporção. Falhas de indisponibilidade ou timeout
+ * reduzem o limite multiplicativamente. Acima do limite, a operação é recusada na hora com
+ * {@link ServicoOcupadoException}, antes de ocupar uma conexão do pool, e o p99 das operações admitidas se mantém
+ * durante lentidões do banco de dados.
+ * <p>
+ * O limite e as médias de latência formam um estado imutável, trocado por compare-and-set a cada amostra, para que
+ * o registro das latências não serialize as operações em um lock.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class LimitadorConcorrencia {
+    private final LimitadorProperties properties;
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicReference<Estado> estado;
+    private final Counter rejeitadas;
+    private final Counter reducoes;
+
+    @Autowired
+    public LimitadorConcorrencia(LimitadorProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.estado = new AtomicReference<>(new Estado(properties.getLimiteInicial(), 0, 0));
+        this.rejeitadas = Counter.builder("miniautorizador.limitador.rejeitadas")
+                .description("Operações recusadas acima do limite de concorrência")
+                .register(meterRegistry);
+        this.reducoes = Counter.builder("miniautorizador.limitador.reducoes")
+                .description("Reduções do limite por falha de indisponibilidade ou timeout do banco de dados")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.limitador.limite", this, LimitadorConcorrencia::getLimite)
+                .description("Limite atual de operações simultâneas")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.limitador.em-andamento", emAndamento, AtomicInteger::get)
+                .description("Operações em andamento")
+                .register(meterRegistry);
+    }
+
+    public void executar(Runnable operacao) {
+        executar(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executa a operação se houver vaga dentro do limite atual.
+     *
+     * @param operacao Operação que acessa o banco de dados.
+     * @return Resultado da operação.
+     * @throws ServicoOcupadoException Caso o limite de operações simultâneas tenha sido atingido.
+     */
+    public <T> T executar(Supplier<T> operacao) {
+        if (!properties.isHabilitado()) {
+            return operacao.get();
+        }
+        int simultaneas = adquirir();
+        long inicio = System.nanoTime();
+        boolean falhaRecurso = false;
+        try {
+            return operacao.get();
+        } catch (DataAccessResourceFailureException | QueryTimeoutException
+                 | TransientDataAccessResourceException | CannotCreateTransactionException e) {
+            falhaRecurso = true;
+            throw e;
+        } finally {
+            emAndamento.decrementAndGet();
+            registrar(System.nanoTime() - inicio, simultaneas, falhaRecurso);
+        }
+    }
+
+    public int getLimite() {
+        return (int) estado.get().limite();
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    private int adquirir() {
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= getLimite()) {
+                rejeitadas.increment();
+                throw new ServicoOcupadoException("Limite de concorrência do banco de dados atingido.",
+                        properties.getRetryAfter());
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) {
+                return atual + 1;
+            }
+        }
+    }
+
+    private void registrar(long rtt, int simultaneas, boolean falhaRecurso) {
+        if (falhaRecurso) {
+            reducoes.increment();
+            estado.updateAndGet(atual -> new Estado(
+                    Math.max(properties.getLimiteMinimo(), atual.limite() * properties.getFatorReducao()),
+                    atual.rttCurto(), atual.rttLongo()));
+            return;
+        }
+        estado.updateAndGet(atual -> ajustar(atual, rtt, simultaneas));
+    }
+
+    private Estado ajustar(Estado atual, long rtt, int simultaneas) {
+        double limite = atual.limite();
+        if (atual.rttLongo() == 0) {
+            return new Estado(limite, rtt, rtt);
+        }
+        double rttCurto = media(atual.rttCurto(), rtt, properties.getJanelaCurta());
+        double rttLongo = media(atual.rttLongo(), rtt, properties.getJanelaLonga());
+        // Após uma lentidão prolongada a referência fica alta; volta mais rápido quando a latência se normaliza
+        if (rttLongo > 2 * rttCurto) {
+            rttLongo *= 0.95;
+        }
+        // Com poucas operações em andamento, a latência não diz nada sobre a capacidade do banco de dados
+        if (simultaneas < limite / 2) {
+            return new Estado(limite, rttCurto, rttLongo);
+        }
+        double gradiente = Math.max(0.5, Math.min(1.0, properties.getTolerancia() * rttLongo / rttCurto));
+        double novoLimite = limite * gradiente + Math.sqrt(limite);
+        novoLimite = limite * (1 - properties.getSuavizacao()) + novoLimite * properties.getSuavizacao();
+        return new Estado(Math.max(properties.getLimiteMinimo(), Math.min(properties.getLimiteMaximo(), novoLimite)),
+                rttCurto, rttLongo);
+    }
+
+    private static double media(double media, long amostra, int janela) {
+        double fator = 2.0 / (janela + 1);
+        return media + (amostra - media) * fator;
+    }
+
+    private record Estado(double limite, double rttCurto, double rttLongo) {
+    }
+}
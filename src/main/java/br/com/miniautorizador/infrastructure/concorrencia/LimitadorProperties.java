@@ -0,0 +1,67 @@
+package br.com.miniautorizador.infrastructure.concorrencia;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do limitador adaptativo de concorrência das operações que acessam o banco de dados.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.limitador")
+public class LimitadorProperties {
+    /**
+     * Liga o limitador. Desligado, as operações passam sem controle de concorrência.
+     */
+    private boolean habilitado = true;
+
+    /**
+     * Limite de operações simultâneas na inicialização, ajustado a partir das latências observadas.
+     */
+    private int limiteInicial = 20;
+
+    /**
+     * Menor limite possível, mantido mesmo com o banco de dados degradado.
+     */
+    private int limiteMinimo = 4;
+
+    /**
+     * Maior limite possível; deve ficar próximo do que o pool de conexões consegue atender.
+     */
+    private int limiteMaximo = 200;
+
+    /**
+     * Quanto a latência recente pode superar a latência de referência antes de o limite ser reduzido.
+     */
+    private double tolerancia = 2.0;
+
+    /**
+     * Peso de cada ajuste sobre o limite atual (entre 0 e 1).
+     */
+    private double suavizacao = 0.2;
+
+    /**
+     * Quantidade aproximada de amostras consideradas na latência recente.
+     */
+    private int janelaCurta = 10;
+
+    /**
+     * Quantidade aproximada de amostras consideradas na latência de referência.
+     */
+    private int janelaLonga = 600;
+
+    /**
+     * Fator aplicado ao limite quando uma operação falha por indisponibilidade ou timeout do banco de dados.
+     */
+    private double fatorReducao = 0.9;
+
+    /**
+     * Tempo sugerido ao cliente no cabeçalho Retry-After quando a operação é recusada.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
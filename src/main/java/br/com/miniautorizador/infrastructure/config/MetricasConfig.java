@@ -0,0 +1,39 @@
+package br.com.miniautorizador.infrastructure.config;
+
+import br.com.miniautorizador.infrastructure.metricas.ServerTimingFilter;
+import br.com.miniautorizador.infrastructure.metricas.ServerTimingInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra o filtro e o interceptor do cabeçalho {@code Server-Timing}, quando habilitado em
+ * {@code miniautorizador.metricas.server-timing}.
+ *
+ * @author Fabiana Costa
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "miniautorizador.metricas", name = "server-timing", havingValue = "true")
+public class MetricasConfig implements WebMvcConfigurer {
+
+    /**
+     * Registra o filtro antes da cadeia do Spring Security, para que a autenticação entre na medição.
+     *
+     * @return Registro do filtro.
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+        FilterRegistrationBean<ServerTimingFilter> registro = new FilterRegistrationBean<>(new ServerTimingFilter());
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ServerTimingInterceptor());
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.miniautorizador.infrastructure.config;
+
+import br.com.miniautorizador.infrastructure.pin.*;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Path;
+
+@Configuration
+public class PinConfig {
+
+    /**
+     * Define o verificador de PIN dos cartões.
+     * <p>
+     * Novos hashes usam a estratégia configurada; hashes da outra estratégia continuam aceitos e são migrados na
+     * próxima transação aprovada. Só o BCrypt roda no pool dedicado de PIN: o HMAC leva microssegundos, menos do que
+     * a troca de thread, e roda na thread chamadora.
+     *
+     * @param pinProperties   Configuração da verificação de PIN.
+     * @param passwordEncoder Encoder BCrypt usado pelos hashes legados.
+     * @param pinExecutor     Pool dedicado ao trabalho de CPU com hashes BCrypt.
+     * @return Instância de PinVerificador.
+     */
+    @Bean
+    public PinVerificador pinVerificador(PinProperties pinProperties, PasswordEncoder passwordEncoder,
+                                         PinExecutor pinExecutor) {
+        PinVerificador hmac = new HmacPinVerificador(ArquivoChavePin.carregar(
+                Path.of(pinProperties.getArquivoChave()), pinProperties.isGerarChaveAusente()));
+        PinVerificador bcrypt = new ExecutorPinVerificador(new BCryptPinVerificador(passwordEncoder), pinExecutor);
+        return pinProperties.getEstrategia() == PinProperties.Estrategia.BCRYPT
+                ? new MigracaoPinVerificador(bcrypt, hmac)
+                : new MigracaoPinVerificador(hmac, bcrypt);
+    }
+}
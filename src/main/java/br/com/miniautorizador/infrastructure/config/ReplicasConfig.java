@@ -0,0 +1,95 @@
+package br.com.miniautorizador.infrastructure.config;
+
+import br.com.miniautorizador.infrastructure.cache.SaldoCacheProperties;
+import br.com.miniautorizador.infrastructure.replicas.MonitorReplicas;
+import br.com.miniautorizador.infrastructure.replicas.ReplicasProperties;
+import br.com.miniautorizador.infrastructure.replicas.RoteadorDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Substitui o datasource da aplicação por um roteador entre o banco primário ({@code spring.datasource.*}) e as
+ * réplicas de leitura, quando habilitado em {@code miniautorizador.replicas.habilitado}.
+ * <p>
+ * Cada banco tem o seu pool Hikari, com as métricas {@code hikaricp.*} identificadas pelo nome do pool; o pool do
+ * primário recebe as propriedades {@code spring.datasource.hikari.*}.
+ *
+ * @author Fabiana Costa
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "miniautorizador.replicas", name = "habilitado", havingValue = "true")
+public class ReplicasConfig implements DisposableBean {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private HikariDataSource primario;
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+    @Bean
+    public MonitorReplicas monitorReplicas(
+            DataSourceProperties dataSourceProperties,
+            ReplicasProperties properties,
+            SaldoCacheProperties saldoCacheProperties,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        if (properties.getFontes().isEmpty()) {
+            throw new IllegalStateException("miniautorizador.replicas.fontes sem réplicas configuradas");
+        }
+        if (saldoCacheProperties.getJanelaPrimario().compareTo(properties.getDefasagemMaxima()) < 0) {
+            // Uma leitura na réplica logo após o débito poderia devolver o saldo anterior
+            throw new IllegalStateException(
+                    "miniautorizador.cache-saldo.janela-primario deve ser maior que a defasagem máxima das réplicas");
+        }
+        MicrometerMetricsTrackerFactory metricas = new MicrometerMetricsTrackerFactory(meterRegistry);
+        primario = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        primario.setPoolName(RoteadorDataSource.PRIMARIO);
+        primario.setMetricsTrackerFactory(metricas);
+        pools.add(primario);
+        for (ReplicasProperties.Fonte fonte : properties.getFontes()) {
+            String nome = fonte.getNome() != null ? fonte.getNome() : "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(nome);
+            replica.setJdbcUrl(fonte.getUrl());
+            replica.setUsername(fonte.getUsername());
+            replica.setPassword(fonte.getPassword());
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setMaximumPoolSize(properties.getTamanhoPool());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metricas);
+            pools.add(replica);
+            replicas.put(nome, replica);
+        }
+        return new MonitorReplicas(primario, replicas, properties, meterRegistry);
+    }
+
+    /**
+     * @param monitorReplicas Monitor da defasagem das réplicas.
+     * @return Datasource da aplicação (JPA, JDBC e Liquibase), com a conexão obtida só no primeiro comando.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(MonitorReplicas monitorReplicas) {
+        return new LazyConnectionDataSourceProxy(new RoteadorDataSource(primario, replicas, monitorReplicas));
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -1,7 +1,10 @@
 package br.com.miniautorizador.infrastructure.config;
 
+import br.com.miniautorizador.infrastructure.security.CredencialCacheAuthenticationProvider;
+import br.com.miniautorizador.infrastructure.security.CredencialCacheProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -72,4 +75,21 @@ public class SecurityConfig {
                 .build();
         return new InMemoryUserDetailsManager(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Define o provedor de autenticação com cache das credenciais já verificadas, evitando uma verificação BCrypt
+     * completa a cada requisição do mesmo cliente.
+     *
+     * @param userDetailsService Serviço de detalhes do usuário.
+     * @param passwordEncoder    Encoder de senhas para a verificação completa.
+     * @param properties         Configuração do cache de credenciais.
+     * @return Instância de AuthenticationProvider.
+     */
+    @Bean
+    public AuthenticationProvider authenticationProvider(
+            UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            CredencialCacheProperties properties) {
+        return new CredencialCacheAuthenticationProvider(userDetailsService, passwordEncoder, properties);
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.miniautorizador.infrastructure.config;
+
+import br.com.miniautorizador.infrastructure.cache.CoerenciaSaldoProperties;
+import br.com.miniautorizador.infrastructure.replicas.ReplicasProperties;
+import br.com.miniautorizador.infrastructure.shard.LiquibaseShards;
+import br.com.miniautorizador.infrastructure.shard.RebalanceadorShards;
+import br.com.miniautorizador.infrastructure.shard.RoteadorShards;
+import br.com.miniautorizador.infrastructure.shard.ShardsEndpoint;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Substitui o datasource da aplicação por um roteador entre os shards de cartões, quando habilitado em
+ * {@code miniautorizador.shards.habilitado}.
+ * <p>
+ * O banco principal ({@code spring.datasource.*}) é o primeiro shard e guarda também as tabelas que não são de
+ * cartões. O changelog do Liquibase é aplicado em todos os shards. A tabela de alterações de saldo, o motor em memória
+ * e as réplicas de leitura supõem um único banco de dados e não podem ser usados junto com os shards.
+ *
+ * @author Fabiana Costa
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "miniautorizador.shards", name = "habilitado", havingValue = "true")
+public class ShardsConfig implements DisposableBean {
+    static final String CHANGELOG = "classpath:/db/changelog/db.changelog-master.yaml";
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final Map<String, DataSource> shards = new LinkedHashMap<>();
+
+    /**
+     * @return Datasource da aplicação (JPA e JDBC), com a conexão obtida só no primeiro comando, no shard do contexto.
+     */
+    @Bean
+    @Primary
+    public DataSource shardsDataSource(
+            DataSourceProperties dataSourceProperties,
+            ShardsProperties properties,
+            TopologiaShards topologiaShards,
+            ReplicasProperties replicasProperties,
+            CoerenciaSaldoProperties coerenciaSaldoProperties,
+            MotorSaldoProperties motorSaldoProperties,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        if (replicasProperties.isHabilitado() || coerenciaSaldoProperties.isHabilitado()
+                || motorSaldoProperties.isHabilitado()) {
+            throw new IllegalStateException("miniautorizador.shards não pode ser usado com miniautorizador.replicas, "
+                    + "miniautorizador.cache-saldo.coerencia ou miniautorizador.motor-memoria habilitados");
+        }
+        MicrometerMetricsTrackerFactory metricas = new MicrometerMetricsTrackerFactory(meterRegistry);
+        HikariDataSource principal = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(principal));
+        principal.setPoolName(topologiaShards.principal());
+        principal.setMetricsTrackerFactory(metricas);
+        pools.add(principal);
+        shards.put(topologiaShards.principal(), principal);
+        for (ShardsProperties.Fonte fonte : properties.getFontes()) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName(fonte.getNome());
+            shard.setJdbcUrl(fonte.getUrl());
+            shard.setUsername(fonte.getUsername());
+            shard.setPassword(fonte.getPassword());
+            shard.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            shard.setMaximumPoolSize(properties.getTamanhoPool());
+            shard.setMetricsTrackerFactory(metricas);
+            pools.add(shard);
+            shards.put(fonte.getNome(), shard);
+        }
+        return new LazyConnectionDataSourceProxy(new RoteadorShards(shards));
+    }
+
+    /**
+     * @param shardsDataSource Datasource da aplicação, criado antes para que os pools dos shards existam.
+     * @return Liquibase aplicado em todos os shards, no lugar do configurado pelo Spring Boot.
+     */
+    @Bean
+    public SpringLiquibase liquibase(DataSource shardsDataSource) {
+        return new LiquibaseShards(shards, CHANGELOG);
+    }
+
+    @Bean
+    public RebalanceadorShards rebalanceadorShards(
+            TopologiaShards topologiaShards,
+            ShardsProperties properties,
+            SpringLiquibase liquibase) {
+        return new RebalanceadorShards(topologiaShards, shards, properties);
+    }
+
+    @Bean
+    public ShardsEndpoint shardsEndpoint(RebalanceadorShards rebalanceadorShards) {
+        return new ShardsEndpoint(rebalanceadorShards);
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
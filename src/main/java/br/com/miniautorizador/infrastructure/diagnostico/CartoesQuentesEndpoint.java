@@ -0,0 +1,27 @@
+package br.com.miniautorizador.infrastructure.diagnostico;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de diagnóstico dos cartões quentes ({@code /actuator/cartoesquentes}).
+ *
+ * @author Fabiana Costa
+ */
+@Component
+@Endpoint(id = "cartoesquentes")
+public class CartoesQuentesEndpoint {
+    private final RastreadorCartoesQuentes rastreadorCartoesQuentes;
+
+    @Autowired
+    public CartoesQuentesEndpoint(RastreadorCartoesQuentes rastreadorCartoesQuentes) {
+        this.rastreadorCartoesQuentes = rastreadorCartoesQuentes;
+    }
+
+    @ReadOperation
+    public RelatorioCartoesQuentes relatorio() {
+        return rastreadorCartoesQuentes.relatorio();
+    }
+}
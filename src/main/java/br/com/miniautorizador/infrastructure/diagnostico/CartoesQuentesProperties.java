@@ -0,0 +1,43 @@
+package br.com.miniautorizador.infrastructure.diagnostico;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do rastreamento dos cartões com mais requisições e conflitos de concorrência.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.cartoes-quentes")
+public class CartoesQuentesProperties {
+    /**
+     * Liga o rastreamento. Desligado, as chamadas de registro não fazem nada.
+     */
+    private boolean habilitado = true;
+
+    /**
+     * Quantidade de cartões mantidos em cada ranking (requisições e conflitos).
+     */
+    private int topK = 20;
+
+    /**
+     * Colunas de cada linha do count-min sketch, arredondadas para potência de 2. Quanto maior, menor a
+     * superestimação das contagens; a memória é {@code largura × profundidade × 8} bytes por sketch.
+     */
+    private int largura = 4096;
+
+    /**
+     * Linhas do count-min sketch (funções de hash independentes).
+     */
+    private int profundidade = 4;
+
+    /**
+     * Duração de cada janela de contagem. O relatório mostra a última janela completa.
+     */
+    private Duration janela = Duration.ofMinutes(1);
+}
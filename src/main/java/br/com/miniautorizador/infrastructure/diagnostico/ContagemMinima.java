@@ -0,0 +1,72 @@
+package br.com.miniautorizador.infrastructure.diagnostico;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch: estima a frequência de cada chave em memória fixa, independente da quantidade de chaves.
+ * <p>
+ * Cada chave incrementa um contador por linha, escolhido por uma função de hash da linha; a estimativa é o menor dos
+ * contadores da chave. Colisões só superestimam, nunca subestimam. Os incrementos são atômicos e sem lock.
+ *
+ * @author Fabiana Costa
+ */
+final class ContagemMinima {
+    private final AtomicLongArray contadores;
+    private final int profundidade;
+    private final int mascara;
+
+    ContagemMinima(int largura, int profundidade) {
+        int colunas = Integer.highestOneBit(Math.max(2, largura - 1)) << 1;
+        this.contadores = new AtomicLongArray(colunas * profundidade);
+        this.profundidade = profundidade;
+        this.mascara = colunas - 1;
+    }
+
+    /**
+     * Incrementa a contagem da chave.
+     *
+     * @param chave Chave contada.
+     * @return Frequência estimada da chave, já com o incremento.
+     */
+    long incrementar(long chave) {
+        int h1 = misturar(Long.hashCode(chave));
+        int h2 = misturar(h1 ^ 0x9E3779B9) | 1;
+        long estimativa = Long.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++) {
+            long valor = contadores.incrementAndGet(indice(linha, h1, h2));
+            estimativa = Math.min(estimativa, valor);
+        }
+        return estimativa;
+    }
+
+    /**
+     * Frequência estimada da chave.
+     *
+     * @param chave Chave consultada.
+     * @return Estimativa, maior ou igual à frequência real.
+     */
+    long estimar(long chave) {
+        int h1 = misturar(Long.hashCode(chave));
+        int h2 = misturar(h1 ^ 0x9E3779B9) | 1;
+        long estimativa = Long.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++) {
+            estimativa = Math.min(estimativa, contadores.get(indice(linha, h1, h2)));
+        }
+        return estimativa;
+    }
+
+    // Hash duplo (h1 + i·h2): uma função independente por linha a partir de dois hashes
+    private int indice(int linha, int h1, int h2) {
+        return linha * (mascara + 1) + ((h1 + linha * h2) & mascara);
+    }
+
+    // Finalizador do MurmurHash3, espalha os bits do hash de números de cartão parecidos
+    private static int misturar(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
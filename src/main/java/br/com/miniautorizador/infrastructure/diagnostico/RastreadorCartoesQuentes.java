@@ -0,0 +1,228 @@
+package br.com.miniautorizador.infrastructure.diagnostico;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Rastreador dos cartões quentes: os que recebem mais requisições de débito e os que mais sofrem conflitos de
+ * concorrência (conflito de versão, deadlock ou timeout de lock no banco de dados).
+ * <p>
+ * As contagens por cartão são estimadas por um count-min sketch ({@link ContagemMinima}) e apenas os
+ * {@link CartoesQuentesProperties#getTopK()} cartões com maior estimativa ficam em memória, de modo que o custo
+ * independe da quantidade de cartões. As contagens são feitas em janelas de tempo fixas; o relatório mostra a
+ * última janela completa, com os números dos cartões mascarados.
+ * <p>
+ * O registro de uma requisição custa alguns incrementos atômicos; o lock só é tomado quando um cartão entra no
+ * ranking.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class RastreadorCartoesQuentes {
+    private final CartoesQuentesProperties properties;
+    private final Counter requisicoes;
+    private final Counter conflitos;
+    private volatile Janela atual;
+    private volatile RelatorioCartoesQuentes ultimoRelatorio;
+    private ScheduledExecutorService rotacao;
+
+    @Autowired
+    public RastreadorCartoesQuentes(CartoesQuentesProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.atual = new Janela(properties);
+        this.requisicoes = Counter.builder("miniautorizador.cartoes-quentes.requisicoes")
+                .description("Requisições de débito registradas no rastreador de cartões quentes")
+                .register(meterRegistry);
+        this.conflitos = Counter.builder("miniautorizador.cartoes-quentes.conflitos")
+                .description("Tentativas de débito com conflito de concorrência")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.cartoes-quentes.maior-taxa", this, rastreador ->
+                        rastreador.maiorTaxa(RelatorioCartoesQuentes::porRequisicoes,
+                                RelatorioCartoesQuentes.CartaoQuente::requisicoesPorSegundo))
+                .description("Requisições por segundo do cartão mais requisitado na última janela")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.cartoes-quentes.maior-taxa-conflitos", this, rastreador ->
+                        rastreador.maiorTaxa(RelatorioCartoesQuentes::porConflitos,
+                                RelatorioCartoesQuentes.CartaoQuente::conflitosPorSegundo))
+                .description("Conflitos por segundo do cartão com mais conflitos na última janela")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!properties.isHabilitado()) {
+            return;
+        }
+        rotacao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "cartoes-quentes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long janela = properties.getJanela().toMillis();
+        rotacao.scheduleAtFixedRate(this::rotacionar, janela, janela, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (rotacao != null) {
+            rotacao.shutdownNow();
+        }
+    }
+
+    /**
+     * Registra uma requisição de débito do cartão.
+     *
+     * @param numeroCartao Número do cartão.
+     */
+    public void registrarRequisicao(long numeroCartao) {
+        if (properties.isHabilitado() && NumeroCartao.valido(numeroCartao)) {
+            atual.requisicoes.registrar(numeroCartao);
+            requisicoes.increment();
+        }
+    }
+
+    /**
+     * Registra uma tentativa de débito do cartão que falhou por conflito de concorrência.
+     *
+     * @param numeroCartao Número do cartão.
+     */
+    public void registrarConflito(long numeroCartao) {
+        if (properties.isHabilitado() && NumeroCartao.valido(numeroCartao)) {
+            atual.conflitos.registrar(numeroCartao);
+            conflitos.increment();
+        }
+    }
+
+    /**
+     * Relatório da última janela completa ou, antes que a primeira termine, da janela em andamento.
+     *
+     * @return Relatório dos cartões quentes.
+     */
+    public RelatorioCartoesQuentes relatorio() {
+        RelatorioCartoesQuentes relatorio = ultimoRelatorio;
+        return relatorio != null ? relatorio : atual.relatorio(properties.getTopK());
+    }
+
+    /**
+     * Encerra a janela atual, guardando o seu relatório, e inicia uma nova.
+     */
+    public void rotacionar() {
+        Janela encerrada = atual;
+        atual = new Janela(properties);
+        ultimoRelatorio = encerrada.relatorio(properties.getTopK());
+    }
+
+    private double maiorTaxa(Function<RelatorioCartoesQuentes, List<RelatorioCartoesQuentes.CartaoQuente>> ranking,
+                             ToDoubleFunction<RelatorioCartoesQuentes.CartaoQuente> taxa) {
+        RelatorioCartoesQuentes relatorio = ultimoRelatorio;
+        return relatorio == null ? 0 : ranking.apply(relatorio).stream().mapToDouble(taxa).max().orElse(0);
+    }
+
+    /**
+     * Contagens de uma janela de tempo.
+     */
+    private static final class Janela {
+        private final Instant inicio = Instant.now();
+        private final long inicioNanos = System.nanoTime();
+        private final Ranking requisicoes;
+        private final Ranking conflitos;
+
+        Janela(CartoesQuentesProperties properties) {
+            this.requisicoes = new Ranking(properties);
+            this.conflitos = new Ranking(properties);
+        }
+
+        RelatorioCartoesQuentes relatorio(int topK) {
+            Duration duracao = Duration.ofNanos(System.nanoTime() - inicioNanos);
+            double segundos = Math.max(duracao.toNanos() / 1e9, 1e-3);
+            return new RelatorioCartoesQuentes(inicio, duracao,
+                    requisicoes.total.sum(), conflitos.total.sum(),
+                    listar(requisicoes, topK, segundos), listar(conflitos, topK, segundos));
+        }
+
+        private List<RelatorioCartoesQuentes.CartaoQuente> listar(Ranking ranking, int topK, double segundos) {
+            return ranking.cartoes.keySet().stream()
+                    .map(cartao -> {
+                        long quantidadeRequisicoes = requisicoes.contagem.estimar(cartao);
+                        long quantidadeConflitos = conflitos.contagem.estimar(cartao);
+                        return new RelatorioCartoesQuentes.CartaoQuente(
+                                RelatorioCartoesQuentes.mascarar(cartao),
+                                quantidadeRequisicoes,
+                                quantidadeRequisicoes / segundos,
+                                quantidadeConflitos,
+                                quantidadeConflitos / segundos,
+                                taxaConflito(quantidadeConflitos, quantidadeRequisicoes));
+                    })
+                    .sorted(Comparator.comparingLong(ranking == requisicoes
+                            ? RelatorioCartoesQuentes.CartaoQuente::requisicoes
+                            : RelatorioCartoesQuentes.CartaoQuente::conflitos).reversed())
+                    .limit(topK)
+                    .toList();
+        }
+
+        // As duas estimativas superestimam de forma independente; a taxa é limitada a 100%
+        private static double taxaConflito(long conflitos, long requisicoes) {
+            return requisicoes == 0 ? 0 : Math.min(1.0, (double) conflitos / requisicoes);
+        }
+    }
+
+    /**
+     * Count-min sketch com os K cartões de maior estimativa.
+     */
+    private static final class Ranking {
+        private final ContagemMinima contagem;
+        private final Map<Long, Long> cartoes = new ConcurrentHashMap<>();
+        private final LongAdder total = new LongAdder();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int topK;
+        private volatile long minimo;
+
+        Ranking(CartoesQuentesProperties properties) {
+            this.contagem = new ContagemMinima(properties.getLargura(), properties.getProfundidade());
+            this.topK = properties.getTopK();
+        }
+
+        void registrar(long cartao) {
+            total.increment();
+            long estimativa = contagem.incrementar(cartao);
+            if (cartoes.computeIfPresent(cartao, (chave, anterior) -> Math.max(anterior, estimativa)) != null
+                    || (cartoes.size() >= topK && estimativa <= minimo)) {
+                return;
+            }
+            lock.lock();
+            try {
+                cartoes.merge(cartao, estimativa, Math::max);
+                if (cartoes.size() > topK) {
+                    cartoes.entrySet().stream()
+                            .min(Map.Entry.comparingByValue())
+                            .ifPresent(menor -> cartoes.remove(menor.getKey()));
+                }
+                if (cartoes.size() >= topK) {
+                    minimo = cartoes.values().stream().mapToLong(Long::longValue).min().orElse(0);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.miniautorizador.infrastructure.diagnostico;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Relatório de uma janela do {@link RastreadorCartoesQuentes}.
+ * <p>
+ * As contagens por cartão são estimativas do count-min sketch e podem estar levemente acima do valor real; os
+ * totais da janela são exatos.
+ *
+ * @param inicio         Início da janela.
+ * @param duracao        Duração da janela.
+ * @param requisicoes    Total de requisições de débito na janela.
+ * @param conflitos      Total de conflitos de concorrência na janela.
+ * @param porRequisicoes Cartões com mais requisições, em ordem decrescente.
+ * @param porConflitos   Cartões com mais conflitos, em ordem decrescente.
+ * @author Fabiana Costa
+ */
+public record RelatorioCartoesQuentes(
+        Instant inicio,
+        Duration duracao,
+        long requisicoes,
+        long conflitos,
+        List<CartaoQuente> porRequisicoes,
+        List<CartaoQuente> porConflitos) {
+
+    /**
+     * Mascara o número do cartão, mantendo os 6 primeiros e os 4 últimos dígitos.
+     *
+     * @param numeroCartao Número do cartão.
+     * @return Número mascarado.
+     */
+    static String mascarar(long numeroCartao) {
+        String numero = NumeroCartao.formatar(numeroCartao);
+        return numero.substring(0, 6)
+                + "*".repeat(numero.length() - 10)
+                + numero.substring(numero.length() - 4);
+    }
+
+    /**
+     * Contagens estimadas de um cartão na janela.
+     *
+     * @param cartao                Número do cartão mascarado.
+     * @param requisicoes           Requisições de débito estimadas.
+     * @param requisicoesPorSegundo Taxa de requisições na janela.
+     * @param conflitos             Conflitos de concorrência estimados.
+     * @param conflitosPorSegundo   Taxa de conflitos na janela.
+     * @param taxaConflito          Fração das requisições que sofreu conflito.
+     */
+    public record CartaoQuente(
+            String cartao,
+            long requisicoes,
+            double requisicoesPorSegundo,
+            long conflitos,
+            double conflitosPorSegundo,
+            double taxaConflito) {
+    }
+}
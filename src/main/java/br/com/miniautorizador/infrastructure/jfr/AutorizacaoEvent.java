@@ -0,0 +1,126 @@
+package br.com.miniautorizador.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR de uma autorização de débito, com a duração de cada etapa, o resultado, as tentativas e a espera pelo
+ * lock do cartão.
+ * <p>
+ * O evento é iniciado pelo caso de uso e fica associado à thread até {@link #concluir(long, String)}; as etapas
+ * medidas mais abaixo (busca do cartão, senha, débito e commit) são acumuladas com
+ * {@link #registrarEtapa(String, long)}, somando as tentativas. Só autorizações acima do limite (20 ms por padrão)
+ * são gravadas, o que permite deixar a gravação ligada em produção; o limite pode ser alterado na gravação, por
+ * exemplo com {@code br.com.miniautorizador.Autorizacao#threshold=5ms}.
+ *
+ * @author Fabiana Costa
+ */
+@Name(AutorizacaoEvent.NOME)
+@Label("Autorização")
+@Description("Autorização de uma transação de débito, com a duração de cada etapa")
+@Category({"Mini Autorizador"})
+@Threshold("20 ms")
+@StackTrace(false)
+public class AutorizacaoEvent extends Event {
+    public static final String NOME = "br.com.miniautorizador.Autorizacao";
+    private static final ThreadLocal<AutorizacaoEvent> ATUAL = new ThreadLocal<>();
+
+    @Label("Cartão")
+    @Description("Prefixo do SHA-256 do número do cartão")
+    String cartao;
+
+    @Label("Resultado")
+    String resultado;
+
+    @Label("Tentativas")
+    int tentativas;
+
+    @Label("Espera pelo lock do cartão")
+    @Timespan
+    long esperaLock;
+
+    @Label("Busca do cartão")
+    @Timespan
+    long buscaCartao;
+
+    @Label("Validação da senha")
+    @Timespan
+    long validacaoSenha;
+
+    @Label("Atualização do saldo")
+    @Timespan
+    long atualizacaoSaldo;
+
+    @Label("Commit")
+    @Timespan
+    long commitTransacao;
+
+    /**
+     * Inicia o evento e o associa à thread atual, se o evento estiver habilitado na gravação.
+     *
+     * @return Evento iniciado.
+     */
+    public static AutorizacaoEvent iniciar() {
+        AutorizacaoEvent evento = new AutorizacaoEvent();
+        if (evento.isEnabled()) {
+            evento.begin();
+            ATUAL.set(evento);
+        }
+        return evento;
+    }
+
+    /**
+     * Acumula a duração de uma etapa no evento associado à thread atual, se houver.
+     *
+     * @param etapa        Nome da etapa, o mesmo usado nas métricas.
+     * @param duracaoNanos Duração em nanossegundos.
+     */
+    public static void registrarEtapa(String etapa, long duracaoNanos) {
+        AutorizacaoEvent evento = ATUAL.get();
+        if (evento == null) {
+            return;
+        }
+        switch (etapa) {
+            case "buscar-cartao" -> evento.buscaCartao += duracaoNanos;
+            case "validar-senha" -> evento.validacaoSenha += duracaoNanos;
+            case "atualizar-saldo" -> evento.atualizacaoSaldo += duracaoNanos;
+            case "commit" -> evento.commitTransacao += duracaoNanos;
+            default -> {
+                // Etapas de outros fluxos não fazem parte da autorização
+            }
+        }
+    }
+
+    public void registrarTentativa() {
+        tentativas++;
+    }
+
+    public void registrarEsperaLock(long duracaoNanos) {
+        esperaLock += duracaoNanos;
+    }
+
+    /**
+     * Encerra o evento e o grava, se a duração passou do limite configurado.
+     *
+     * @param numeroCartao Número do cartão, gravado apenas como hash.
+     * @param resultado    Resultado da autorização.
+     */
+    public void concluir(long numeroCartao, String resultado) {
+        if (!isEnabled()) {
+            return;
+        }
+        ATUAL.remove();
+        end();
+        if (shouldCommit()) {
+            this.cartao = IdentificadorCartao.de(numeroCartao);
+            this.resultado = resultado;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.miniautorizador.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento JFR da aplicação de um bloco do endpoint de transações em lote em um shard, com um único commit.
+ * <p>
+ * Complementa o {@link AutorizacaoEvent}, que cobre as transações individuais: um bloco lento aparece com a
+ * quantidade de débitos, as tentativas e o shard, sem um evento por débito.
+ *
+ * @author Fabiana Costa
+ */
+@Name("br.com.miniautorizador.AutorizacaoLote")
+@Label("Autorização em lote")
+@Description("Aplicação de um bloco de transações de débito em um shard, com um único commit")
+@Category({"Mini Autorizador"})
+@Threshold("20 ms")
+@StackTrace(false)
+public class AutorizacaoLoteEvent extends Event {
+    @Label("Shard")
+    String shard;
+
+    @Label("Débitos")
+    int debitos;
+
+    @Label("Aprovados")
+    int aprovados;
+
+    @Label("Tentativas")
+    int tentativas;
+
+    @Label("Resultado")
+    String resultado;
+
+    /**
+     * Inicia o evento, se estiver habilitado na gravação.
+     *
+     * @return Evento iniciado.
+     */
+    public static AutorizacaoLoteEvent iniciar() {
+        AutorizacaoLoteEvent evento = new AutorizacaoLoteEvent();
+        if (evento.isEnabled()) {
+            evento.begin();
+        }
+        return evento;
+    }
+
+    public void registrarTentativa() {
+        tentativas++;
+    }
+
+    /**
+     * Encerra o evento e o grava, se a duração passou do limite configurado.
+     *
+     * @param shard     Shard em que o bloco foi aplicado.
+     * @param debitos   Quantidade de débitos do bloco.
+     * @param aprovados Quantidade de débitos aprovados.
+     * @param resultado Resultado do bloco.
+     */
+    public void concluir(String shard, int debitos, int aprovados, String resultado) {
+        if (!isEnabled()) {
+            return;
+        }
+        end();
+        if (shouldCommit()) {
+            this.shard = shard;
+            this.debitos = debitos;
+            this.aprovados = aprovados;
+            this.resultado = resultado;
+            commit();
+        }
+    }
+}
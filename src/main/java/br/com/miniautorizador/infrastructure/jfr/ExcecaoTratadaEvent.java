@@ -0,0 +1,66 @@
+package br.com.miniautorizador.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Evento JFR do tratamento de uma exceção pelo handler global, com a duração do tratamento (incluindo o log) e o
+ * status HTTP devolvido.
+ * <p>
+ * As recusas de negócio não passam mais por exceções, então estes eventos indicam falhas técnicas, sobrecarga ou
+ * requisições inválidas; por isso são gravados sem limite mínimo de duração por padrão.
+ *
+ * @author Fabiana Costa
+ */
+@Name("br.com.miniautorizador.ExcecaoTratada")
+@Label("Exceção tratada")
+@Description("Exceção convertida em resposta HTTP pelo handler global")
+@Category({"Mini Autorizador"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class ExcecaoTratadaEvent extends Event {
+
+    @Label("Exceção")
+    String excecao;
+
+    @Label("Status HTTP")
+    int status;
+
+    /**
+     * Inicia o evento, se estiver habilitado na gravação.
+     *
+     * @return Evento iniciado.
+     */
+    public static ExcecaoTratadaEvent iniciar() {
+        ExcecaoTratadaEvent evento = new ExcecaoTratadaEvent();
+        if (evento.isEnabled()) {
+            evento.begin();
+        }
+        return evento;
+    }
+
+    /**
+     * Encerra e grava o evento com a exceção tratada e o status da resposta.
+     *
+     * @param excecao  Exceção tratada.
+     * @param resposta Resposta montada pelo handler.
+     * @return A própria resposta.
+     */
+    public <T> ResponseEntity<T> concluir(Exception excecao, ResponseEntity<T> resposta) {
+        if (isEnabled()) {
+            end();
+            if (shouldCommit()) {
+                this.excecao = excecao.getClass().getName();
+                this.status = resposta.getStatusCode().value();
+                commit();
+            }
+        }
+        return resposta;
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.miniautorizador.infrastructure.jfr;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Identificador do cartão gravado nos eventos JFR: prefixo do SHA-256 do número, suficiente para correlacionar os
+ * eventos do mesmo cartão sem expor o número nas gravações.
+ *
+ * @author Fabiana Costa
+ */
+final class IdentificadorCartao {
+    private static final int BYTES = 8;
+
+    private IdentificadorCartao() {
+    }
+
+    /**
+     * @param numeroCartao Número do cartão; o hash é calculado sobre os 16 dígitos, como quando o número era texto.
+     * @return Identificador do cartão, ou nulo para um número inválido.
+     */
+    static String de(long numeroCartao) {
+        if (!NumeroCartao.valido(numeroCartao)) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(NumeroCartao.formatar(numeroCartao).getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash, 0, BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível.", e);
+        }
+    }
+}
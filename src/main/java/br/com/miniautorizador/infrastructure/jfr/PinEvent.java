@@ -0,0 +1,66 @@
+package br.com.miniautorizador.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento JFR da geração ou verificação de um hash BCrypt de PIN, incluindo a espera no pool dedicado de PIN.
+ * <p>
+ * As operações HMAC (microssegundos) rodam na thread chamadora e não geram o evento; com o limite padrão de 10 ms,
+ * aparecem os hashes BCrypt mais lentos e as operações que ficaram presas na fila do pool.
+ *
+ * @author Fabiana Costa
+ */
+@Name("br.com.miniautorizador.Pin")
+@Label("PIN")
+@Description("Geração ou verificação de hash de PIN, incluindo a espera no pool de PIN")
+@Category({"Mini Autorizador"})
+@Threshold("10 ms")
+@StackTrace(false)
+public class PinEvent extends Event {
+    public static final String GERACAO = "geracao";
+    public static final String VERIFICACAO = "verificacao";
+
+    @Label("Operação")
+    String operacao;
+
+    @Label("Cartão")
+    @Description("Prefixo do SHA-256 do número do cartão")
+    String cartao;
+
+    /**
+     * Inicia o evento, se estiver habilitado na gravação.
+     *
+     * @return Evento iniciado.
+     */
+    public static PinEvent iniciar() {
+        PinEvent evento = new PinEvent();
+        if (evento.isEnabled()) {
+            evento.begin();
+        }
+        return evento;
+    }
+
+    /**
+     * Encerra o evento e o grava, se a duração passou do limite configurado.
+     *
+     * @param operacao     {@link #GERACAO} ou {@link #VERIFICACAO}.
+     * @param numeroCartao Número do cartão, gravado apenas como hash.
+     */
+    public void concluir(String operacao, long numeroCartao) {
+        if (!isEnabled()) {
+            return;
+        }
+        end();
+        if (shouldCommit()) {
+            this.operacao = operacao;
+            this.cartao = IdentificadorCartao.de(numeroCartao);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Durações das etapas de uma única execução de um fluxo, publicadas por {@link MetricasAutorizacao} quando o
+ * resultado é conhecido.
+ * <p>
+ * Pertence à thread que executa o fluxo e não é thread-safe.
+ *
+ * @author Fabiana Costa
+ */
+public final class MedicaoEtapas {
+    private final String fluxo;
+    private final long inicio = System.nanoTime();
+    private final List<Etapa> etapas = new ArrayList<>(6);
+
+    MedicaoEtapas(String fluxo) {
+        this.fluxo = fluxo;
+    }
+
+    /**
+     * Executa e mede uma etapa do fluxo.
+     *
+     * @param etapa    Nome da etapa.
+     * @param operacao Operação da etapa.
+     * @return Resultado da operação.
+     */
+    public <T> T medir(String etapa, Supplier<T> operacao) {
+        long inicioEtapa = System.nanoTime();
+        try {
+            return operacao.get();
+        } finally {
+            registrar(etapa, System.nanoTime() - inicioEtapa);
+        }
+    }
+
+    void registrar(String etapa, long duracaoNanos) {
+        etapas.add(new Etapa(etapa, duracaoNanos));
+    }
+
+    String fluxo() {
+        return fluxo;
+    }
+
+    long inicio() {
+        return inicio;
+    }
+
+    List<Etapa> etapas() {
+        return etapas;
+    }
+
+    record Etapa(String nome, long duracaoNanos) {
+    }
+}
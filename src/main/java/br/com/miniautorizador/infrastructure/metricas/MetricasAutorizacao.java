@@ -0,0 +1,97 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import br.com.miniautorizador.infrastructure.jfr.AutorizacaoEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de latência por etapa dos fluxos de autorização e de consulta de saldo.
+ * <p>
+ * Cada etapa é publicada no timer {@code miniautorizador.autorizacao.etapa} e o fluxo inteiro no timer
+ * {@code miniautorizador.autorizacao}, ambos com as tags {@code fluxo} e {@code resultado} (o
+ * {@link br.com.miniautorizador.domain.transacao.StatusTransacao} ou {@link #ERRO}), e o primeiro também com a tag
+ * {@code etapa}. Os timers publicam histogramas, de modo que os percentis podem ser agregados entre instâncias.
+ * <p>
+ * Como o resultado só é conhecido no fim do fluxo, as durações ficam em uma {@link MedicaoEtapas} e são publicadas
+ * em {@link #concluir(MedicaoEtapas, String)}. Dentro de uma transação, a publicação espera o fim da transação e
+ * inclui a etapa {@code commit}; se ela for desfeita, o resultado passa a ser {@link #ERRO}. As mesmas durações
+ * alimentam o {@link AutorizacaoEvent} da thread, quando a gravação JFR está ativa.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class MetricasAutorizacao {
+    public static final String ERRO = "ERRO";
+    static final String ETAPA_COMMIT = "commit";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MetricasAutorizacao(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Inicia a medição de uma execução do fluxo.
+     *
+     * @param fluxo Nome do fluxo, usado na tag {@code fluxo}.
+     * @return Medição a ser preenchida com as etapas e concluída com o resultado.
+     */
+    public MedicaoEtapas iniciar(String fluxo) {
+        return new MedicaoEtapas(fluxo);
+    }
+
+    /**
+     * Conclui a medição com o resultado do fluxo.
+     *
+     * @param medicao   Medição iniciada em {@link #iniciar(String)}.
+     * @param resultado Resultado do fluxo, usado na tag {@code resultado}.
+     */
+    public void concluir(MedicaoEtapas medicao, String resultado) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicar(medicao, resultado);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long inicioCommit;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                inicioCommit = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (inicioCommit != 0) {
+                    medicao.registrar(ETAPA_COMMIT, System.nanoTime() - inicioCommit);
+                }
+                publicar(medicao, status == STATUS_COMMITTED ? resultado : ERRO);
+            }
+        });
+    }
+
+    private void publicar(MedicaoEtapas medicao, String resultado) {
+        for (MedicaoEtapas.Etapa etapa : medicao.etapas()) {
+            Timer.builder("miniautorizador.autorizacao.etapa")
+                    .description("Duração de cada etapa dos fluxos de autorização e consulta de saldo")
+                    .tags("fluxo", medicao.fluxo(), "etapa", etapa.nome(), "resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(etapa.duracaoNanos(), TimeUnit.NANOSECONDS);
+            ServerTiming.registrar(etapa.nome(), etapa.duracaoNanos());
+            AutorizacaoEvent.registrarEtapa(etapa.nome(), etapa.duracaoNanos());
+        }
+        Timer.builder("miniautorizador.autorizacao")
+                .description("Duração total dos fluxos de autorização e consulta de saldo")
+                .tags("fluxo", medicao.fluxo(), "resultado", resultado)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - medicao.inicio(), TimeUnit.NANOSECONDS);
+    }
+}
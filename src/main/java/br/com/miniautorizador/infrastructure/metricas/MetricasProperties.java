@@ -0,0 +1,21 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuração das métricas por etapa da autorização.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.metricas")
+public class MetricasProperties {
+    /**
+     * Devolve a duração de cada etapa no cabeçalho {@code Server-Timing} das respostas. Expõe detalhes internos ao
+     * cliente, por isso fica desligado por padrão.
+     */
+    private boolean serverTiming = false;
+}
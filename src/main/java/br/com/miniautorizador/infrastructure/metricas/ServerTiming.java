@@ -0,0 +1,83 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Durações acumuladas ao longo de uma requisição para o cabeçalho {@code Server-Timing}.
+ * <p>
+ * Criado pelo {@link ServerTimingFilter} apenas quando o cabeçalho está habilitado e associado à thread que atende a
+ * requisição. Como a autorização de transações roda em outra thread, a associação é levada junto com
+ * {@link #propagar(Supplier)}. Sem requisição associada, {@link #registrar(String, long)} não faz nada.
+ *
+ * @author Fabiana Costa
+ */
+public final class ServerTiming {
+    static final String ATRIBUTO = ServerTiming.class.getName();
+    private static final ThreadLocal<ServerTiming> ATUAL = new ThreadLocal<>();
+
+    private final long inicio = System.nanoTime();
+    private final Queue<String> metricas = new ConcurrentLinkedQueue<>();
+
+    static ServerTiming atual() {
+        return ATUAL.get();
+    }
+
+    static void associar(ServerTiming serverTiming) {
+        if (serverTiming == null) {
+            ATUAL.remove();
+        } else {
+            ATUAL.set(serverTiming);
+        }
+    }
+
+    /**
+     * Registra uma duração na requisição associada à thread atual, se houver.
+     *
+     * @param nome         Nome da métrica no cabeçalho.
+     * @param duracaoNanos Duração em nanossegundos.
+     */
+    public static void registrar(String nome, long duracaoNanos) {
+        ServerTiming serverTiming = ATUAL.get();
+        if (serverTiming != null) {
+            serverTiming.adicionar(nome, duracaoNanos);
+        }
+    }
+
+    /**
+     * Envolve a operação para que ela registre suas durações na requisição associada à thread que a criou, mesmo
+     * executando em outra thread.
+     *
+     * @param operacao Operação a ser executada em outra thread.
+     * @return Operação associada à requisição atual, ou a própria operação se não houver requisição associada.
+     */
+    public static <T> Supplier<T> propagar(Supplier<T> operacao) {
+        ServerTiming serverTiming = ATUAL.get();
+        if (serverTiming == null) {
+            return operacao;
+        }
+        return () -> {
+            ServerTiming anterior = ATUAL.get();
+            associar(serverTiming);
+            try {
+                return operacao.get();
+            } finally {
+                associar(anterior);
+            }
+        };
+    }
+
+    void adicionar(String nome, long duracaoNanos) {
+        metricas.add(String.format(Locale.ROOT, "%s;dur=%.3f", nome, duracaoNanos / 1e6));
+    }
+
+    long inicio() {
+        return inicio;
+    }
+
+    String cabecalho() {
+        return String.join(", ", metricas);
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Escreve o cabeçalho {@code Server-Timing} com as durações registradas durante a requisição, acrescidas do tempo
+ * total até a escrita da resposta.
+ *
+ * @author Fabiana Costa
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "miniautorizador.metricas", name = "server-timing", havingValue = "true")
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+    static final String CABECALHO = "Server-Timing";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(ServerTiming.ATRIBUTO)
+                instanceof ServerTiming serverTiming) {
+            serverTiming.adicionar("total", System.nanoTime() - serverTiming.inicio());
+            response.getHeaders().set(CABECALHO, serverTiming.cabecalho());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Associa um {@link ServerTiming} a cada requisição.
+ * <p>
+ * Deve ser registrado antes da cadeia de filtros do Spring Security, para que o tempo até o controlador inclua a
+ * autenticação. O cabeçalho é escrito pelo {@link ServerTimingAdvice}, pois nas respostas assíncronas o filtro já
+ * terminou quando o resultado fica pronto.
+ *
+ * @author Fabiana Costa
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServerTiming serverTiming = new ServerTiming();
+        request.setAttribute(ServerTiming.ATRIBUTO, serverTiming);
+        ServerTiming.associar(serverTiming);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ServerTiming.associar(null);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.miniautorizador.infrastructure.metricas;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Registra no {@code Server-Timing} o tempo entre a entrada da requisição e a chegada ao controlador, que corresponde
+ * essencialmente aos filtros de segurança (autenticação HTTP Basic).
+ *
+ * @author Fabiana Costa
+ */
+public class ServerTimingInterceptor implements HandlerInterceptor {
+    static final String ETAPA = "seguranca";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // No despacho assíncrono o interceptor é chamado de novo; só a primeira passagem mede os filtros
+        if (request.getDispatcherType() == DispatcherType.REQUEST
+                && request.getAttribute(ServerTiming.ATRIBUTO) instanceof ServerTiming serverTiming) {
+            serverTiming.adicionar(ETAPA, System.nanoTime() - serverTiming.inicio());
+        }
+        return true;
+    }
+}
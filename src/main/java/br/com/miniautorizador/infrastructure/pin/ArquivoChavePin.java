@@ -0,0 +1,98 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Leitura da chave secreta de verificação de PIN a partir de um arquivo local.
+ * <p>
+ * Uma chave diferente invalida todos os PINs já gravados, por isso a chave ausente impede a inicialização. A geração
+ * de uma chave nova só acontece quando habilitada explicitamente, em desenvolvimento e testes.
+ *
+ * @author Fabiana Costa
+ */
+public final class ArquivoChavePin {
+    private static final Logger logger = LoggerFactory.getLogger(ArquivoChavePin.class);
+    private static final int TAMANHO_CHAVE = 32;
+    private static final Set<PosixFilePermission> SOMENTE_DONO = PosixFilePermissions.fromString("rw-------");
+
+    private ArquivoChavePin() {
+    }
+
+    /**
+     * Carrega a chave do arquivo.
+     *
+     * @param arquivo        Caminho do arquivo da chave.
+     * @param gerarSeAusente Gera e grava uma chave aleatória caso o arquivo não exista (apenas desenvolvimento).
+     * @return Bytes da chave.
+     * @throws IllegalStateException Caso o arquivo não exista e a geração não esteja habilitada, ou o conteúdo não
+     *                               seja uma chave válida.
+     */
+    public static byte[] carregar(Path arquivo, boolean gerarSeAusente) {
+        try {
+            if (Files.exists(arquivo)) {
+                return ler(arquivo);
+            }
+            if (!gerarSeAusente) {
+                throw new IllegalStateException("Arquivo de chave de PIN [" + arquivo.toAbsolutePath()
+                        + "] não encontrado. Sem a chave original, os PINs gravados não podem ser verificados.");
+            }
+            return criar(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível carregar a chave de PIN [" + arquivo + "].", e);
+        }
+    }
+
+    private static byte[] criar(Path arquivo) throws IOException {
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        if (diretorio != null) {
+            Files.createDirectories(diretorio);
+        }
+        byte[] chave = new byte[TAMANHO_CHAVE];
+        new SecureRandom().nextBytes(chave);
+        // O arquivo nasce só com permissão do dono, sem intervalo em que outro usuário possa lê-lo
+        FileAttribute<?>[] atributos = FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(SOMENTE_DONO)}
+                : new FileAttribute<?>[0];
+        try {
+            Files.createFile(arquivo, atributos);
+        } catch (FileAlreadyExistsException e) {
+            // Outro processo criou a chave ao mesmo tempo; vale a dele
+            return ler(arquivo);
+        }
+        logger.warn("Arquivo de chave de PIN [{}] não encontrado; gerada uma nova chave. "
+                + "Use apenas em desenvolvimento.", arquivo.toAbsolutePath());
+        Files.writeString(arquivo, Base64.getEncoder().encodeToString(chave), StandardCharsets.US_ASCII,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return chave;
+    }
+
+    private static byte[] ler(Path arquivo) throws IOException {
+        byte[] chave;
+        try {
+            chave = Base64.getDecoder().decode(Files.readString(arquivo, StandardCharsets.US_ASCII).trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Arquivo de chave de PIN [" + arquivo + "] não está em Base64.", e);
+        }
+        if (chave.length < TAMANHO_CHAVE) {
+            throw new IllegalStateException("A chave de PIN em [" + arquivo + "] deve ter ao menos "
+                    + TAMANHO_CHAVE + " bytes.");
+        }
+        return chave;
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Verificação de PIN com BCrypt, formato usado originalmente para persistir as senhas dos cartões.
+ *
+ * @author Fabiana Costa
+ */
+public class BCryptPinVerificador implements PinVerificador {
+    private final PasswordEncoder passwordEncoder;
+
+    public BCryptPinVerificador(PasswordEncoder passwordEncoder) {
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    public String gerarHash(long numeroCartao, String pin) {
+        return passwordEncoder.encode(pin);
+    }
+
+    @Override
+    public boolean verificar(long numeroCartao, String pin, String hash) {
+        return passwordEncoder.matches(pin, hash);
+    }
+
+    @Override
+    public boolean reconhece(String hash) {
+        return hash != null && hash.startsWith("$2");
+    }
+}
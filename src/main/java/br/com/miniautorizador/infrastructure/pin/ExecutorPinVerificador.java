@@ -0,0 +1,52 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+import br.com.miniautorizador.infrastructure.jfr.PinEvent;
+
+/**
+ * Decorador que executa a geração e a verificação de hashes no {@link PinExecutor}, fora das threads de requisição.
+ * Usado apenas para estratégias caras, como o BCrypt; as operações baratas, que só inspecionam o prefixo do hash,
+ * continuam na thread chamadora.
+ * <p>
+ * A geração e a verificação emitem um {@link PinEvent}, medido na thread chamadora para incluir a espera no pool.
+ *
+ * @author Fabiana Costa
+ */
+public class ExecutorPinVerificador implements PinVerificador {
+    private final PinVerificador delegado;
+    private final PinExecutor pinExecutor;
+
+    public ExecutorPinVerificador(PinVerificador delegado, PinExecutor pinExecutor) {
+        this.delegado = delegado;
+        this.pinExecutor = pinExecutor;
+    }
+
+    @Override
+    public String gerarHash(long numeroCartao, String pin) {
+        PinEvent evento = PinEvent.iniciar();
+        try {
+            return pinExecutor.executar(() -> delegado.gerarHash(numeroCartao, pin));
+        } finally {
+            evento.concluir(PinEvent.GERACAO, numeroCartao);
+        }
+    }
+
+    @Override
+    public boolean verificar(long numeroCartao, String pin, String hash) {
+        PinEvent evento = PinEvent.iniciar();
+        try {
+            return pinExecutor.executar(() -> delegado.verificar(numeroCartao, pin, hash));
+        } finally {
+            evento.concluir(PinEvent.VERIFICACAO, numeroCartao);
+        }
+    }
+
+    @Override
+    public boolean reconhece(String hash) {
+        return delegado.reconhece(hash);
+    }
+
+    @Override
+    public boolean precisaMigrar(String hash) {
+        return delegado.precisaMigrar(hash);
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Verificação de PIN por valor de verificação com chave secreta do servidor (HMAC-SHA256).
+ * <p>
+ * Segue o modelo de PIN verification value de um HSM: o hash é o HMAC do número do cartão e do PIN com uma chave
+ * que não fica no banco de dados. Sem a chave, as 10.000 combinações possíveis de um PIN de 4 dígitos não podem ser
+ * testadas a partir do hash, e a verificação custa microssegundos em vez das dezenas de milissegundos do BCrypt.
+ *
+ * @author Fabiana Costa
+ */
+public class HmacPinVerificador implements PinVerificador {
+    static final String PREFIXO = "{hmac}";
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final SecretKeySpec chave;
+
+    public HmacPinVerificador(byte[] chave) {
+        this.chave = new SecretKeySpec(chave, ALGORITMO);
+    }
+
+    @Override
+    public String gerarHash(long numeroCartao, String pin) {
+        return PREFIXO + Base64.getEncoder().encodeToString(calcular(numeroCartao, pin));
+    }
+
+    @Override
+    public boolean verificar(long numeroCartao, String pin, String hash) {
+        if (!reconhece(hash)) {
+            return false;
+        }
+        byte[] esperado;
+        try {
+            esperado = Base64.getDecoder().decode(hash.substring(PREFIXO.length()));
+        } catch (IllegalArgumentException e) {
+            // Hash corrompido não confere com nenhum PIN
+            return false;
+        }
+        return MessageDigest.isEqual(esperado, calcular(numeroCartao, pin));
+    }
+
+    @Override
+    public boolean reconhece(String hash) {
+        return hash != null && hash.startsWith(PREFIXO);
+    }
+
+    private byte[] calcular(long numeroCartao, String pin) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(chave);
+            mac.update(prefixo(numeroCartao));
+            return mac.doFinal(pin.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Não foi possível calcular o valor de verificação do PIN.", e);
+        }
+    }
+
+    /**
+     * Os 16 dígitos do cartão em ASCII seguidos de {@code ':'}, os mesmos bytes de quando o número era texto, para
+     * que os hashes já gravados continuem válidos.
+     */
+    private static byte[] prefixo(long numeroCartao) {
+        byte[] bytes = new byte[NumeroCartao.DIGITOS + 1];
+        bytes[NumeroCartao.DIGITOS] = ':';
+        long restante = numeroCartao;
+        for (int i = NumeroCartao.DIGITOS - 1; i >= 0; i--) {
+            bytes[i] = (byte) ('0' + restante % 10);
+            restante /= 10;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+/**
+ * Verificador que gera hashes com a estratégia preferida e ainda aceita hashes da estratégia legada.
+ * <p>
+ * Hashes no formato legado são verificados pela estratégia de origem e sinalizados para migração, permitindo que
+ * cada cartão seja regerado no formato preferido na próxima transação bem-sucedida, sem janela de manutenção.
+ *
+ * @author Fabiana Costa
+ */
+public class MigracaoPinVerificador implements PinVerificador {
+    private final PinVerificador preferido;
+    private final PinVerificador legado;
+
+    public MigracaoPinVerificador(PinVerificador preferido, PinVerificador legado) {
+        this.preferido = preferido;
+        this.legado = legado;
+    }
+
+    @Override
+    public String gerarHash(long numeroCartao, String pin) {
+        return preferido.gerarHash(numeroCartao, pin);
+    }
+
+    @Override
+    public boolean verificar(long numeroCartao, String pin, String hash) {
+        return preferido.reconhece(hash)
+                ? preferido.verificar(numeroCartao, pin, hash)
+                : legado.verificar(numeroCartao, pin, hash);
+    }
+
+    @Override
+    public boolean reconhece(String hash) {
+        return preferido.reconhece(hash) || legado.reconhece(hash);
+    }
+
+    @Override
+    public boolean precisaMigrar(String hash) {
+        return !preferido.reconhece(hash);
+    }
+}
@@ -0,0 +1,192 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pool limitado de threads para o trabalho de CPU com PINs (geração e verificação de hashes).
+ * <p>
+ * O tamanho do pool acompanha a quantidade de núcleos e a fila é limitada, para que rajadas de criação de cartões ou
+ * de senhas erradas não ocupem as threads de requisição nem aumentem a latência de consultas baratas. Com a fila
+ * cheia, uma operação individual é recusada imediatamente com {@link ServicoOcupadoException}; já o processamento em
+ * lote executa a partição recusada na própria thread chamadora, que deixa de submeter trabalho até terminá-la.
+ * <p>
+ * Código que já está em uma thread do pool (ou executando uma partição recusada) roda diretamente, sem nova
+ * submissão, para que tarefas do pool nunca esperem por outras tarefas na mesma fila.
+ * <p>
+ * A espera por uma operação individual é limitada por {@link PinProperties#getTimeout()}: sem resultado nesse prazo,
+ * a tarefa é cancelada e a operação é recusada com {@link ServicoOcupadoException}, pois verificar um PIN não altera
+ * estado.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class PinExecutor {
+    private static final ThreadLocal<Boolean> EM_TAREFA = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final Timer espera;
+    private final Timer execucao;
+    private final Counter rejeitadas;
+    private final Counter expiradas;
+
+    @Autowired
+    public PinExecutor(PinProperties pinProperties, MeterRegistry meterRegistry) {
+        int threads = pinProperties.getThreads() > 0
+                ? pinProperties.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequencia = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pinProperties.getCapacidadeFila()),
+                tarefa -> {
+                    Thread thread = new Thread(() -> {
+                        EM_TAREFA.set(Boolean.TRUE);
+                        tarefa.run();
+                    }, "pin-" + sequencia.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutNanos = pinProperties.getTimeout().toNanos();
+        this.espera = Timer.builder("miniautorizador.pin.espera")
+                .description("Tempo de espera na fila do pool de PIN")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.execucao = Timer.builder("miniautorizador.pin.execucao")
+                .description("Tempo de execução das tarefas do pool de PIN")
+                .register(meterRegistry);
+        this.rejeitadas = Counter.builder("miniautorizador.pin.rejeitadas")
+                .description("Operações de PIN recusadas com o pool ocupado")
+                .register(meterRegistry);
+        this.expiradas = Counter.builder("miniautorizador.pin.expiradas")
+                .description("Operações de PIN sem resultado dentro do tempo máximo de espera")
+                .register(meterRegistry);
+        Gauge.builder("miniautorizador.pin.fila", executor, pool -> pool.getQueue().size())
+                .description("Tarefas aguardando na fila do pool de PIN")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executa a operação no pool e aguarda o resultado.
+     *
+     * @param operacao Operação de CPU com PIN.
+     * @return Resultado da operação.
+     * @throws ServicoOcupadoException Caso a fila do pool esteja cheia ou o resultado não chegue dentro do tempo
+     *                                 máximo de espera.
+     */
+    public <T> T executar(Supplier<T> operacao) {
+        if (EM_TAREFA.get()) {
+            return operacao.get();
+        }
+        try {
+            return aguardar(submeter(operacao::get), timeoutNanos);
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+            throw new ServicoOcupadoException("Pool de verificação de PIN ocupado.", RETRY_AFTER);
+        }
+    }
+
+    /**
+     * Aplica a função a todos os itens em paralelo, dividindo a lista em uma partição por thread do pool.
+     *
+     * @param itens  Itens de entrada.
+     * @param funcao Função a aplicar, sem estado compartilhado.
+     * @return Resultados na mesma ordem dos itens.
+     */
+    public <T, R> List<R> mapear(List<T> itens, Function<T, R> funcao) {
+        int particoes = Math.min(executor.getMaximumPoolSize(), itens.size());
+        if (particoes <= 1 || EM_TAREFA.get()) {
+            return emTarefa(() -> itens.stream().map(funcao).toList());
+        }
+        int tamanho = (itens.size() + particoes - 1) / particoes;
+        List<Future<List<R>>> futuros = new ArrayList<>(particoes);
+        for (int inicio = 0; inicio < itens.size(); inicio += tamanho) {
+            List<T> particao = itens.subList(inicio, Math.min(inicio + tamanho, itens.size()));
+            Callable<List<R>> tarefa = () -> particao.stream().map(funcao).toList();
+            try {
+                futuros.add(submeter(tarefa));
+            } catch (RejectedExecutionException e) {
+                futuros.add(CompletableFuture.completedFuture(emTarefa(() -> chamar(tarefa))));
+            }
+        }
+        List<R> resultados = new ArrayList<>(itens.size());
+        for (Future<List<R>> futuro : futuros) {
+            // As partições avançam sozinhas no pool ou na thread chamadora; o tempo de um lote não tem limite fixo
+            resultados.addAll(aguardar(futuro, Long.MAX_VALUE));
+        }
+        return resultados;
+    }
+
+    private <T> Future<T> submeter(Callable<T> tarefa) {
+        long enfileirada = System.nanoTime();
+        return executor.submit(() -> {
+            long inicio = System.nanoTime();
+            espera.record(inicio - enfileirada, TimeUnit.NANOSECONDS);
+            try {
+                return tarefa.call();
+            } finally {
+                execucao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private static <T> T emTarefa(Supplier<T> operacao) {
+        boolean anterior = EM_TAREFA.get();
+        EM_TAREFA.set(Boolean.TRUE);
+        try {
+            return operacao.get();
+        } finally {
+            EM_TAREFA.set(anterior);
+        }
+    }
+
+    private static <T> T chamar(Callable<T> tarefa) {
+        try {
+            return tarefa.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T aguardar(Future<T> futuro, long timeoutNanos) {
+        try {
+            return futuro.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            expiradas.increment();
+            throw new ServicoOcupadoException("Pool de verificação de PIN sem resultado dentro do tempo máximo.",
+                    RETRY_AFTER);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o pool de PIN.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+}
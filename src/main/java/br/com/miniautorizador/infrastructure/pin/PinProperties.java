@@ -0,0 +1,55 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração da verificação de PIN dos cartões.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.pin")
+public class PinProperties {
+    /**
+     * Estratégia usada para gerar novos hashes; hashes da outra estratégia continuam aceitos e são migrados.
+     */
+    private Estrategia estrategia = Estrategia.HMAC;
+
+    /**
+     * Arquivo com a chave secreta do HMAC em Base64, substituto local de uma chave guardada em HSM.
+     * Se não existir, a aplicação não inicia.
+     */
+    private String arquivoChave = "pin.key";
+
+    /**
+     * Gera uma chave aleatória quando o arquivo da chave não existe. Apenas para desenvolvimento e testes: uma chave
+     * nova invalida todos os PINs já gravados.
+     */
+    private boolean gerarChaveAusente = false;
+
+    /**
+     * Quantidade de threads do pool de geração e verificação de hashes. Zero usa a quantidade de núcleos disponíveis.
+     */
+    private int threads = 0;
+
+    /**
+     * Capacidade da fila do pool de PIN. Com a fila cheia, novas operações são recusadas com o serviço ocupado.
+     */
+    private int capacidadeFila = 256;
+
+    /**
+     * Tempo máximo de espera pelo resultado de uma operação individual no pool de PIN. Sem resultado nesse prazo, a
+     * operação é recusada com o serviço ocupado.
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+
+    public enum Estrategia {
+        HMAC,
+        BCRYPT
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.miniautorizador.infrastructure.pin;
+
+/**
+ * Estratégia de geração e verificação do hash da senha (PIN) do cartão.
+ *
+ * @author Fabiana Costa
+ */
+public interface PinVerificador {
+    /**
+     * Gera o valor de verificação do PIN a ser persistido.
+     *
+     * @param numeroCartao Número do cartão.
+     * @param pin          PIN em texto puro.
+     * @return Hash do PIN.
+     */
+    String gerarHash(long numeroCartao, String pin);
+
+    /**
+     * Verifica se o PIN informado corresponde ao hash persistido.
+     *
+     * @param numeroCartao Número do cartão.
+     * @param pin          PIN em texto puro.
+     * @param hash         Hash persistido.
+     * @return true se o PIN confere.
+     */
+    boolean verificar(long numeroCartao, String pin, String hash);
+
+    /**
+     * Indica se o hash foi gerado por esta estratégia.
+     *
+     * @param hash Hash persistido.
+     * @return true se esta estratégia reconhece o formato do hash.
+     */
+    boolean reconhece(String hash);
+
+    /**
+     * Indica se o hash está em um formato legado e deve ser regerado na próxima verificação bem-sucedida.
+     *
+     * @param hash Hash persistido.
+     * @return true se o hash deve ser migrado.
+     */
+    default boolean precisaMigrar(String hash) {
+        return false;
+    }
+}
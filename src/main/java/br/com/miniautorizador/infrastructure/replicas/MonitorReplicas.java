@@ -0,0 +1,136 @@
+package br.com.miniautorizador.infrastructure.replicas;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mede a defasagem das réplicas de leitura e escolhe a réplica de cada transação somente leitura.
+ * <p>
+ * A cada intervalo, o horário atual é gravado na tabela {@code heartbeat_replicacao} do banco primário e lido em cada
+ * réplica: a diferença é a defasagem da réplica, com erro para mais de até um intervalo. Uma réplica medida com
+ * defasagem {@code d} recebe leituras por no máximo {@code defasagemMaxima - d} após a medição, já que sem nova
+ * medição a defasagem pode ter crescido no mesmo ritmo do relógio. Sem réplicas dentro do limite, as leituras vão ao
+ * primário. Os relógios das instâncias devem estar sincronizados (NTP).
+ * <p>
+ * A defasagem de cada réplica é publicada no gauge {@code miniautorizador.replicas.defasagem}, com a tag
+ * {@code replica}; réplicas indisponíveis ficam sem valor.
+ *
+ * @author Fabiana Costa
+ */
+public class MonitorReplicas {
+    private static final Logger logger = LoggerFactory.getLogger(MonitorReplicas.class);
+
+    private final JdbcTemplate primario;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+    private final ReplicasProperties properties;
+    private final Map<String, Double> defasagens = new ConcurrentHashMap<>();
+    private final AtomicInteger proxima = new AtomicInteger();
+    private volatile List<Disponivel> disponiveis = List.of();
+    private ScheduledExecutorService agendador;
+
+    public MonitorReplicas(
+            DataSource primario,
+            Map<String, DataSource> replicas,
+            ReplicasProperties properties,
+            MeterRegistry meterRegistry) {
+        this.primario = new JdbcTemplate(primario);
+        this.properties = properties;
+        replicas.forEach((nome, dataSource) -> {
+            this.replicas.put(nome, new JdbcTemplate(dataSource));
+            defasagens.put(nome, Double.NaN);
+            Gauge.builder("miniautorizador.replicas.defasagem", defasagens, mapa -> mapa.get(nome))
+                    .description("Defasagem da réplica de leitura em relação ao banco primário")
+                    .baseUnit("seconds")
+                    .tag("replica", nome)
+                    .register(meterRegistry);
+        });
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "monitor-replicas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = properties.getIntervaloHeartbeat().toMillis();
+        agendador.scheduleWithFixedDelay(this::verificar, 0, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    /**
+     * Grava o heartbeat no banco primário e mede a defasagem de cada réplica. Executado periodicamente.
+     */
+    public void verificar() {
+        long agora = System.currentTimeMillis();
+        long medidoEm = System.nanoTime();
+        try {
+            primario.update("UPDATE heartbeat_replicacao SET atualizado_em = ? WHERE id = 1", agora);
+        } catch (DataAccessException e) {
+            // Sem heartbeat, a defasagem não pode ser medida: as réplicas saem de uso quando a última medição vencer
+            logger.warn("Falha ao gravar o heartbeat de replicação no banco primário", e);
+            return;
+        }
+        long limite = properties.getDefasagemMaxima().toMillis();
+        List<Disponivel> medidas = new ArrayList<>();
+        replicas.forEach((nome, replica) -> {
+            try {
+                Long replicado = replica.queryForObject(
+                        "SELECT atualizado_em FROM heartbeat_replicacao WHERE id = 1", Long.class);
+                long defasagem = Math.max(0, agora - (replicado == null ? 0 : replicado));
+                defasagens.put(nome, defasagem / 1000.0);
+                if (defasagem <= limite) {
+                    medidas.add(new Disponivel(nome, medidoEm + TimeUnit.MILLISECONDS.toNanos(limite - defasagem)));
+                }
+            } catch (DataAccessException e) {
+                defasagens.put(nome, Double.NaN);
+                logger.warn("Falha ao medir a defasagem da réplica {}", nome, e);
+            }
+        });
+        disponiveis = List.copyOf(medidas);
+    }
+
+    /**
+     * Escolhe, em rodízio, uma das réplicas dentro da defasagem máxima.
+     *
+     * @return Nome da réplica, ou {@link RoteadorDataSource#PRIMARIO} caso nenhuma esteja dentro do limite.
+     */
+    public String escolher() {
+        List<Disponivel> candidatas = disponiveis;
+        long agora = System.nanoTime();
+        int inicio = proxima.getAndIncrement();
+        for (int i = 0; i < candidatas.size(); i++) {
+            Disponivel candidata = candidatas.get(Math.floorMod(inicio + i, candidatas.size()));
+            if (agora - candidata.validaAte() <= 0) {
+                return candidata.nome();
+            }
+        }
+        return RoteadorDataSource.PRIMARIO;
+    }
+
+    private record Disponivel(String nome, long validaAte) {
+    }
+}
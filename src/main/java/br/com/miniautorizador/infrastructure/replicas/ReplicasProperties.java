@@ -0,0 +1,63 @@
+package br.com.miniautorizador.infrastructure.replicas;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuração das réplicas de leitura do banco de dados.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.replicas")
+public class ReplicasProperties {
+    /**
+     * Envia as transações somente leitura às réplicas. O banco primário continua em {@code spring.datasource.*}.
+     */
+    private boolean habilitado = false;
+
+    /**
+     * Conexões das réplicas, com o mesmo driver do banco primário.
+     */
+    private List<Fonte> fontes = new ArrayList<>();
+
+    /**
+     * Defasagem máxima de uma réplica em relação ao banco primário. Réplicas mais defasadas, ou sem medição recente,
+     * deixam de receber leituras até alcançarem o primário.
+     */
+    private Duration defasagemMaxima = Duration.ofSeconds(1);
+
+    /**
+     * Intervalo entre as gravações do heartbeat no banco primário e as medições da defasagem das réplicas.
+     */
+    private Duration intervaloHeartbeat = Duration.ofMillis(250);
+
+    /**
+     * Tamanho máximo do pool de conexões de cada réplica.
+     */
+    private int tamanhoPool = 10;
+
+    /**
+     * Conexão com uma réplica.
+     */
+    @Getter
+    @Setter
+    public static class Fonte {
+        /**
+         * Nome da réplica nos logs e métricas.
+         */
+        private String nome;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
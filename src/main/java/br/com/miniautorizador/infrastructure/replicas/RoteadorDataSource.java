@@ -0,0 +1,71 @@
+package br.com.miniautorizador.infrastructure.replicas;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Roteia as conexões entre o banco primário e as réplicas de leitura.
+ * <p>
+ * Transações somente leitura ({@code @Transactional(readOnly = true)}) vão a uma réplica escolhida pelo
+ * {@link MonitorReplicas}; escritas, acessos fora de transação e leituras dentro de {@link #noPrimario(Supplier)}
+ * vão ao primário. Deve ser envolvido por um {@code LazyConnectionDataSourceProxy}, para que a conexão só seja obtida
+ * depois que a transação marcou se é somente leitura.
+ *
+ * @author Fabiana Costa
+ */
+public class RoteadorDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARIO = "primario";
+    private static final ThreadLocal<Boolean> PRIMARIO_FORCADO = new ThreadLocal<>();
+
+    private final MonitorReplicas monitor;
+
+    public RoteadorDataSource(DataSource primario, Map<String, DataSource> replicas, MonitorReplicas monitor) {
+        this.monitor = monitor;
+        Map<Object, Object> destinos = new HashMap<>(replicas);
+        destinos.put(PRIMARIO, primario);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Executa as leituras no banco primário, mesmo em transações somente leitura. Usado para ler o que acabou de ser
+     * gravado e talvez ainda não tenha chegado às réplicas.
+     *
+     * @param leitura Leitura a ser executada.
+     * @return Resultado da leitura.
+     */
+    public static <T> T noPrimario(Supplier<T> leitura) {
+        Boolean anterior = PRIMARIO_FORCADO.get();
+        PRIMARIO_FORCADO.set(Boolean.TRUE);
+        try {
+            return leitura.get();
+        } finally {
+            if (anterior == null) {
+                PRIMARIO_FORCADO.remove();
+            } else {
+                PRIMARIO_FORCADO.set(anterior);
+            }
+        }
+    }
+
+    /**
+     * @return Se a thread corrente está dentro de {@link #noPrimario(Supplier)}.
+     */
+    public static boolean primarioForcado() {
+        return Boolean.TRUE.equals(PRIMARIO_FORCADO.get());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (primarioForcado() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIO;
+        }
+        return monitor.escolher();
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.miniautorizador.infrastructure.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro das alterações de saldo dos cartões, lido pelas instâncias para descartar os saldos em cache.
+ * <p>
+ * Cada alteração guarda o número do cartão e a versão da linha depois dela. O registro é feito na mesma transação
+ * do débito, então uma alteração só fica visível junto com o saldo novo.
+ *
+ * @author Fabiana Costa
+ */
+@Repository
+public class AlteracaoSaldoJdbcRepository {
+    private static final RowMapper<AlteracaoSaldo> MAPEADOR = (rs, linha) ->
+            new AlteracaoSaldo(rs.getLong("id"), rs.getLong("numero_cartao"), rs.getLong("versao"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AlteracaoSaldoJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra a alteração dos cartões com a versão atual de cada um, lida na transação corrente.
+     *
+     * @param numerosCartao Números dos cartões alterados.
+     */
+    public void registrar(Collection<Long> numerosCartao) {
+        jdbcTemplate.update("INSERT INTO cartoes_alteracoes (numero_cartao, versao, registrado_em) "
+                        + "SELECT numero_cartao, version, :registradoEm FROM cartoes WHERE numero_cartao IN (:numeros)",
+                Map.of("numeros", numerosCartao, "registradoEm", Timestamp.from(Instant.now())));
+    }
+
+    /**
+     * Busca as alterações registradas depois do identificador informado, em ordem.
+     *
+     * @param id     Maior identificador já lido.
+     * @param limite Quantidade máxima de alterações.
+     * @return Alterações com identificador maior que o informado.
+     */
+    public List<AlteracaoSaldo> buscarDesde(long id, int limite) {
+        return jdbcTemplate.query(
+                "SELECT id, numero_cartao, versao FROM cartoes_alteracoes WHERE id > :id ORDER BY id LIMIT :limite",
+                Map.of("id", id, "limite", limite), MAPEADOR);
+    }
+
+    /**
+     * Busca as alterações com os identificadores informados, que podem ainda não ter sido confirmadas.
+     *
+     * @param ids Identificadores das alterações.
+     * @return Alterações encontradas.
+     */
+    public List<AlteracaoSaldo> buscarPorIds(Collection<Long> ids) {
+        return jdbcTemplate.query("SELECT id, numero_cartao, versao FROM cartoes_alteracoes WHERE id IN (:ids)",
+                Map.of("ids", ids), MAPEADOR);
+    }
+
+    /**
+     * Maior identificador de alteração registrado.
+     *
+     * @return Maior identificador, ou zero sem alterações.
+     */
+    public long ultimoId() {
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM cartoes_alteracoes", Map.of(), Long.class);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * Remove as alterações antigas.
+     *
+     * @param registradoAntes Alterações registradas antes desse instante são removidas.
+     * @return Quantidade de alterações removidas.
+     */
+    public int removerAnteriores(Instant registradoAntes) {
+        return jdbcTemplate.update("DELETE FROM cartoes_alteracoes WHERE registrado_em < :limite",
+                Map.of("limite", Timestamp.from(registradoAntes)));
+    }
+
+    public record AlteracaoSaldo(long id, long numeroCartao, long versao) {
+    }
+}
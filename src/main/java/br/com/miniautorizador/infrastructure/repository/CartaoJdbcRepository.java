@@ -0,0 +1,168 @@
+package br.com.miniautorizador.infrastructure.repository;
+
+import br.com.miniautorizador.domain.cartao.Cartao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * Operações em lote na tabela de cartões, com JDBC direto para agrupar vários cartões em poucos comandos.
+ * <p>
+ * Os métodos de escrita não abrem transação: o chamador define a transação que agrupa os comandos.
+ *
+ * @author Fabiana Costa
+ */
+@Repository
+public class CartaoJdbcRepository {
+    /**
+     * Cartões por INSERT; mantém os parâmetros do comando bem abaixo do limite de 65535 do MySQL.
+     */
+    static final int LINHAS_POR_INSERT = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CartaoJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Busca o hash da senha de vários cartões em uma única consulta.
+     *
+     * @param numerosCartao Números dos cartões.
+     * @return Hash da senha por número de cartão; cartões inexistentes não aparecem no mapa.
+     */
+    public Map<Long, String> buscarSenhas(Collection<Long> numerosCartao) {
+        Map<Long, String> senhas = new HashMap<>();
+        if (numerosCartao.isEmpty()) {
+            return senhas;
+        }
+        jdbcTemplate.query("SELECT numero_cartao, senha FROM cartoes WHERE numero_cartao IN (:numeros)",
+                Map.of("numeros", numerosCartao),
+                rs -> {
+                    senhas.put(rs.getLong("numero_cartao"), rs.getString("senha"));
+                });
+        return senhas;
+    }
+
+    /**
+     * Executa os débitos em um único batch de UPDATEs condicionais, na ordem da lista.
+     * <p>
+     * Cada comando só altera a linha quando o saldo é suficiente, e é avaliado após os anteriores do mesmo batch,
+     * então vários débitos do mesmo cartão se comportam como débitos sequenciais.
+     *
+     * @param debitos Débitos a executar.
+     * @return Indicador de aprovação de cada débito, na ordem da lista.
+     */
+    public boolean[] debitarSaldos(List<Debito> debitos) {
+        boolean[] aprovados = new boolean[debitos.size()];
+        if (debitos.isEmpty()) {
+            return aprovados;
+        }
+        int[] linhas = jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "UPDATE cartoes SET saldo = saldo - ?, version = version + 1 WHERE numero_cartao = ? AND saldo >= ?",
+                debitos, debitos.size(),
+                (ps, debito) -> {
+                    ps.setBigDecimal(1, debito.valor());
+                    ps.setLong(2, debito.numeroCartao());
+                    ps.setBigDecimal(3, debito.valor());
+                })[0];
+        for (int i = 0; i < linhas.length; i++) {
+            if (linhas[i] == Statement.SUCCESS_NO_INFO) {
+                // Acontece quando o driver reescreve o batch (rewriteBatchedStatements no MySQL)
+                throw new IllegalStateException("O driver JDBC não informou as linhas afetadas pelo débito em lote.");
+            }
+            aprovados[i] = linhas[i] > 0;
+        }
+        return aprovados;
+    }
+
+    /**
+     * Substitui em batch o hash da senha dos cartões, desde que cada um ainda tenha o hash lido anteriormente.
+     *
+     * @param migracoes Hashes anterior e novo de cada cartão.
+     */
+    public void atualizarSenhas(List<MigracaoSenha> migracoes) {
+        if (migracoes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "UPDATE cartoes SET senha = ?, version = version + 1 WHERE numero_cartao = ? AND senha = ?",
+                migracoes, migracoes.size(),
+                (ps, migracao) -> {
+                    ps.setString(1, migracao.senha());
+                    ps.setLong(2, migracao.numeroCartao());
+                    ps.setString(3, migracao.senhaAnterior());
+                });
+    }
+
+    /**
+     * Busca quais dos cartões já existem, em uma única consulta.
+     *
+     * @param numerosCartao Números dos cartões.
+     * @return Números dos cartões existentes.
+     */
+    public Set<Long> buscarExistentes(Collection<Long> numerosCartao) {
+        if (numerosCartao.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT numero_cartao FROM cartoes WHERE numero_cartao IN (:numeros)",
+                Map.of("numeros", numerosCartao), Long.class));
+    }
+
+    /**
+     * Insere os cartões com INSERTs de várias linhas, até {@value #LINHAS_POR_INSERT} cartões por comando.
+     * <p>
+     * Um batch de INSERTs de uma linha só vira um comando no MySQL com {@code rewriteBatchedStatements}, que também
+     * faria o driver deixar de informar as linhas afetadas pelos UPDATEs em batch de {@link #debitarSaldos(List)};
+     * com o comando montado aqui, o bloco vai ao banco de dados em poucas idas sem depender da configuração do driver.
+     *
+     * @param cartoes Cartões a inserir.
+     * @throws org.springframework.dao.DuplicateKeyException Caso algum cartão já exista.
+     */
+    public void inserir(List<Cartao> cartoes) {
+        for (int inicio = 0; inicio < cartoes.size(); inicio += LINHAS_POR_INSERT) {
+            List<Cartao> linhas = cartoes.subList(inicio, Math.min(inicio + LINHAS_POR_INSERT, cartoes.size()));
+            jdbcTemplate.getJdbcTemplate().update(
+                    "INSERT INTO cartoes (numero_cartao, senha, saldo, version) VALUES "
+                            + String.join(", ", Collections.nCopies(linhas.size(), "(?, ?, ?, 0)")),
+                    ps -> {
+                        int parametro = 1;
+                        for (Cartao cartao : linhas) {
+                            ps.setLong(parametro++, cartao.getNumeroCartao());
+                            ps.setString(parametro++, cartao.getSenha());
+                            ps.setBigDecimal(parametro++, cartao.getSaldo());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Insere um cartão, tolerando que ele já exista.
+     *
+     * @param cartao Cartão a inserir.
+     * @return {@code true} se o cartão foi inserido, {@code false} se já existia.
+     */
+    public boolean inserirSeAusente(Cartao cartao) {
+        try {
+            jdbcTemplate.getJdbcTemplate().update(
+                    "INSERT INTO cartoes (numero_cartao, senha, saldo, version) VALUES (?, ?, ?, 0)",
+                    cartao.getNumeroCartao(), cartao.getSenha(), cartao.getSaldo());
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public record Debito(long numeroCartao, BigDecimal valor) {
+    }
+
+    public record MigracaoSenha(long numeroCartao, String senhaAnterior, String senha) {
+    }
+}
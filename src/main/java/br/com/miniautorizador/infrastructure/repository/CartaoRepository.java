@@ -1,14 +1,71 @@
 package br.com.miniautorizador.infrastructure.repository;
 
 import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.SaldoCartao;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
-public interface CartaoRepository extends JpaRepository<Cartao, String> {
-    Optional<Cartao> findByNumeroCartao(String numeroCartao);
+public interface CartaoRepository extends JpaRepository<Cartao, Long> {
+    Optional<Cartao> findByNumeroCartao(long numeroCartao);
 
-    boolean existsByNumeroCartao(String numeroCartao);
+    boolean existsByNumeroCartao(long numeroCartao);
+
+    /**
+     * Busca apenas o hash da senha do cartão, sem carregar a entidade no contexto de persistência.
+     *
+     * @param numeroCartao Número do cartão.
+     * @return Hash da senha, ou vazio caso o cartão não exista.
+     */
+    @Query("select c.senha from Cartao c where c.numeroCartao = :numeroCartao")
+    Optional<String> findSenhaByNumeroCartao(@Param("numeroCartao") long numeroCartao);
+
+    /**
+     * Busca apenas o saldo do cartão e a versão da linha, sem carregar a entidade no contexto de persistência. Executa
+     * em uma transação somente leitura, atendida por uma réplica quando habilitadas.
+     *
+     * @param numeroCartao Número do cartão.
+     * @return Saldo e versão do cartão, ou vazio caso o cartão não exista.
+     */
+    @Query("select new br.com.miniautorizador.domain.cartao.SaldoCartao(c.saldo, c.version) " +
+            "from Cartao c where c.numeroCartao = :numeroCartao")
+    @Transactional(readOnly = true)
+    Optional<SaldoCartao> findSaldoByNumeroCartao(@Param("numeroCartao") long numeroCartao);
+
+    /**
+     * Debita o valor do saldo do cartão em um único UPDATE condicional.
+     * <p>
+     * A linha só é alterada quando o saldo é suficiente, então a quantidade de linhas afetadas indica se o débito
+     * foi aprovado (1) ou recusado (0). A versão é incrementada para manter a semântica do {@code @Version}.
+     *
+     * @param numeroCartao Número do cartão.
+     * @param valor        Valor a ser debitado.
+     * @return Quantidade de linhas afetadas.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Cartao c set c.saldo = c.saldo - :valor, c.version = c.version + 1 " +
+            "where c.numeroCartao = :numeroCartao and c.saldo >= :valor")
+    int debitarSaldo(@Param("numeroCartao") long numeroCartao, @Param("valor") BigDecimal valor);
+
+    /**
+     * Substitui o hash da senha do cartão, desde que ele ainda seja o hash lido anteriormente.
+     *
+     * @param numeroCartao  Número do cartão.
+     * @param senhaAnterior Hash lido antes da alteração.
+     * @param senha         Novo hash da senha.
+     * @return Quantidade de linhas afetadas.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Cartao c set c.senha = :senha, c.version = c.version + 1 " +
+            "where c.numeroCartao = :numeroCartao and c.senha = :senhaAnterior")
+    int atualizarSenha(@Param("numeroCartao") long numeroCartao,
+                       @Param("senhaAnterior") String senhaAnterior,
+                       @Param("senha") String senha);
 }
@@ -0,0 +1,134 @@
+package br.com.miniautorizador.infrastructure.repository;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reservas e resultados de transações por chave de idempotência, gravados para sobreviver a reinícios e valer entre
+ * instâncias.
+ * <p>
+ * A chave é reservada antes da autorização, com a chave primária da tabela impedindo que duas instâncias autorizem a
+ * mesma chave; enquanto a transação está em andamento, o registro fica com o status {@value #EM_ANDAMENTO}. A chave e
+ * a impressão da requisição são gravadas como hashes SHA-256 em hexadecimal, calculados pelo chamador.
+ *
+ * @author Fabiana Costa
+ */
+@Repository
+public class IdempotenciaJdbcRepository {
+    public static final String EM_ANDAMENTO = "EM_ANDAMENTO";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdempotenciaJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Busca o registro da chave.
+     *
+     * @param chave        Hash da chave de idempotência.
+     * @param criadoDesde  Registros gravados antes desse instante são considerados expirados.
+     * @return Registro gravado, concluído ou em andamento, se existir e não estiver expirado.
+     */
+    public Optional<Registro> buscar(String chave, Instant criadoDesde) {
+        return jdbcTemplate.query(
+                "SELECT impressao, status FROM idempotencia_transacoes WHERE chave = :chave AND criado_em >= :desde",
+                Map.of("chave", chave, "desde", Timestamp.from(criadoDesde)),
+                (rs, linha) -> {
+                    String status = rs.getString("status");
+                    return new Registro(rs.getString("impressao"),
+                            EM_ANDAMENTO.equals(status) ? null : StatusTransacao.valueOf(status));
+                })
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Reserva a chave para uma nova transação, gravando-a como em andamento.
+     *
+     * @param chave     Hash da chave de idempotência.
+     * @param impressao Hash da requisição associada à chave.
+     * @return {@code true} se a chave foi reservada; {@code false} se já existe um registro para ela.
+     */
+    public boolean reservar(String chave, String impressao) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotencia_transacoes (chave, impressao, status, criado_em) "
+                            + "VALUES (:chave, :impressao, :status, :criadoEm)",
+                    Map.of("chave", chave,
+                            "impressao", impressao,
+                            "status", EM_ANDAMENTO,
+                            "criadoEm", Timestamp.from(Instant.now())));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Grava o resultado da transação na chave reservada. A expiração passa a contar a partir da conclusão.
+     *
+     * @param chave  Hash da chave de idempotência.
+     * @param status Resultado da transação.
+     */
+    public void concluir(String chave, StatusTransacao status) {
+        jdbcTemplate.update("UPDATE idempotencia_transacoes SET status = :status, criado_em = :criadoEm "
+                        + "WHERE chave = :chave AND status = :emAndamento",
+                Map.of("chave", chave,
+                        "status", status.name(),
+                        "criadoEm", Timestamp.from(Instant.now()),
+                        "emAndamento", EM_ANDAMENTO));
+    }
+
+    /**
+     * Libera a chave reservada por uma transação que falhou sem ser aplicada.
+     *
+     * @param chave Hash da chave de idempotência.
+     */
+    public void liberar(String chave) {
+        jdbcTemplate.update("DELETE FROM idempotencia_transacoes WHERE chave = :chave AND status = :emAndamento",
+                Map.of("chave", chave, "emAndamento", EM_ANDAMENTO));
+    }
+
+    /**
+     * Remove o registro expirado da chave, ainda não alcançado pela limpeza periódica.
+     *
+     * @param chave       Hash da chave de idempotência.
+     * @param criadoAntes O registro só é removido se foi gravado antes desse instante.
+     */
+    public void removerExpirada(String chave, Instant criadoAntes) {
+        jdbcTemplate.update("DELETE FROM idempotencia_transacoes WHERE chave = :chave AND criado_em < :limite",
+                Map.of("chave", chave, "limite", Timestamp.from(criadoAntes)));
+    }
+
+    /**
+     * Remove os registros expirados.
+     *
+     * @param criadoAntes Registros gravados antes desse instante são removidos.
+     * @return Quantidade de registros removidos.
+     */
+    public int removerExpirados(Instant criadoAntes) {
+        return jdbcTemplate.update("DELETE FROM idempotencia_transacoes WHERE criado_em < :limite",
+                Map.of("limite", Timestamp.from(criadoAntes)));
+    }
+
+    /**
+     * Registro de uma chave de idempotência.
+     *
+     * @param impressao Hash da requisição associada à chave.
+     * @param status    Resultado da transação, ou {@code null} enquanto ela está em andamento.
+     */
+    public record Registro(String impressao, StatusTransacao status) {
+        public boolean emAndamento() {
+            return status == null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.miniautorizador.infrastructure.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Executa operações com retentativas em falhas transitórias de concorrência.
+ * <p>
+ * São retentadas apenas as exceções de concorrência e transitórias do Spring (deadlock, timeout de lock,
+ * conflito de versão). O intervalo entre tentativas segue backoff exponencial com jitter completo, limitado pelo
+ * número máximo de tentativas e pelo orçamento de tempo da requisição, para evitar tempestades de retentativas.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class RetryExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RetryExecutor.class);
+
+    private final RetryProperties retryProperties;
+    private final Counter retentativas;
+    private final Counter recuperadas;
+    private final Counter esgotadas;
+
+    @Autowired
+    public RetryExecutor(RetryProperties retryProperties, MeterRegistry meterRegistry) {
+        this.retryProperties = retryProperties;
+        this.retentativas = Counter.builder("miniautorizador.retry.retentativas")
+                .description("Quantidade de retentativas executadas após falha transitória")
+                .register(meterRegistry);
+        this.recuperadas = Counter.builder("miniautorizador.retry.recuperadas")
+                .description("Operações concluídas com sucesso após ao menos uma retentativa")
+                .register(meterRegistry);
+        this.esgotadas = Counter.builder("miniautorizador.retry.esgotadas")
+                .description("Operações que falharam após esgotar tentativas ou orçamento de tempo")
+                .register(meterRegistry);
+    }
+
+    public void executar(Runnable operacao) {
+        executar(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    public <T> T executar(Supplier<T> operacao) {
+        long inicio = System.nanoTime();
+        long orcamentoNanos = retryProperties.getOrcamento().toNanos();
+        int tentativa = 1;
+        while (true) {
+            try {
+                T resultado = operacao.get();
+                if (tentativa > 1) {
+                    recuperadas.increment();
+                }
+                return resultado;
+            } catch (TransientDataAccessException e) {
+                // Inclui ConcurrencyFailureException: conflito de versão, deadlock e timeout de lock
+                long espera = calcularEspera(tentativa);
+                long decorrido = System.nanoTime() - inicio;
+                if (tentativa >= retryProperties.getMaxTentativas() || decorrido + espera > orcamentoNanos) {
+                    esgotadas.increment();
+                    throw e;
+                }
+                logger.warn("Falha transitória na tentativa {}, nova tentativa em {} µs: {}",
+                        tentativa, espera / 1_000, e.getMessage());
+                aguardar(espera, e);
+                retentativas.increment();
+                tentativa++;
+            }
+        }
+    }
+
+    /**
+     * Backoff exponencial com jitter completo: espera um valor aleatório entre zero e o teto da tentativa.
+     */
+    private long calcularEspera(int tentativa) {
+        double teto = retryProperties.getBackoffInicial().toNanos()
+                * Math.pow(retryProperties.getMultiplicador(), tentativa - 1);
+        long tetoNanos = (long) Math.min(teto, retryProperties.getBackoffMaximo().toNanos());
+        return tetoNanos <= 0 ? 0 : ThreadLocalRandom.current().nextLong(tetoNanos + 1);
+    }
+
+    private void aguardar(long nanos, RuntimeException causa) {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw causa;
+        }
+    }
+}
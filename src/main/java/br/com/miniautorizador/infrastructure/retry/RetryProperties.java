@@ -0,0 +1,42 @@
+package br.com.miniautorizador.infrastructure.retry;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração da política de retentativas para falhas transitórias de concorrência no débito.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.retry")
+public class RetryProperties {
+    /**
+     * Quantidade máxima de tentativas, incluindo a primeira execução.
+     */
+    private int maxTentativas = 3;
+
+    /**
+     * Intervalo base do backoff exponencial.
+     */
+    private Duration backoffInicial = Duration.ofMillis(10);
+
+    /**
+     * Intervalo máximo entre duas tentativas.
+     */
+    private Duration backoffMaximo = Duration.ofMillis(200);
+
+    /**
+     * Fator de crescimento do backoff a cada tentativa.
+     */
+    private double multiplicador = 2.0;
+
+    /**
+     * Tempo total que uma requisição pode gastar entre tentativas e esperas.
+     */
+    private Duration orcamento = Duration.ofMillis(500);
+}
@@ -0,0 +1,117 @@
+package br.com.miniautorizador.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Provedor de autenticação que guarda em cache as verificações de credenciais bem-sucedidas.
+ * <p>
+ * A primeira autenticação de um usuário faz a verificação completa com o {@link PasswordEncoder} (BCrypt); as
+ * seguintes, com o mesmo usuário e senha, são atendidas pelo cache. A chave do cache é um HMAC-SHA256 de usuário e
+ * senha com uma chave aleatória gerada a cada inicialização, então a senha em texto puro nunca é armazenada.
+ * <p>
+ * O usuário é sempre recarregado do {@link UserDetailsService}: se o hash da senha mudou desde a verificação em cache,
+ * a entrada é descartada, e o estado da conta (bloqueada, desativada, expirada) é checado em toda autenticação.
+ *
+ * @author Fabiana Costa
+ */
+public class CredencialCacheAuthenticationProvider implements AuthenticationProvider {
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final UserDetailsService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+    private final Cache<String, String> verificacoes;
+    private final SecretKeySpec chave;
+    private final UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+    public CredencialCacheAuthenticationProvider(
+            UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            CredencialCacheProperties properties) {
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+        this.verificacoes = Caffeine.newBuilder()
+                .maximumSize(properties.getTamanhoMaximo())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        this.chave = new SecretKeySpec(bytes, ALGORITMO);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credenciais = authentication.getCredentials();
+        if (credenciais == null) {
+            throw new BadCredentialsException("Credenciais não informadas.");
+        }
+        String senha = credenciais.toString();
+        UserDetails usuario = carregarUsuario(username);
+
+        String chaveCache = gerarChave(username, senha);
+        // O valor em cache é o hash verificado; se a senha do usuário mudou, a verificação completa é refeita
+        if (!usuario.getPassword().equals(verificacoes.getIfPresent(chaveCache))) {
+            if (!passwordEncoder.matches(senha, usuario.getPassword())) {
+                throw new BadCredentialsException("Credenciais inválidas.");
+            }
+            verificacoes.put(chaveCache, usuario.getPassword());
+        }
+        userDetailsChecker.check(usuario);
+
+        UsernamePasswordAuthenticationToken resultado =
+                UsernamePasswordAuthenticationToken.authenticated(usuario, null, usuario.getAuthorities());
+        resultado.setDetails(authentication.getDetails());
+        return resultado;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    /**
+     * Descarta todas as verificações em cache.
+     */
+    public void invalidar() {
+        verificacoes.invalidateAll();
+    }
+
+    private UserDetails carregarUsuario(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            throw new BadCredentialsException("Credenciais inválidas.");
+        }
+    }
+
+    private String gerarChave(String username, String senha) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(chave);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(senha.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Não foi possível gerar a chave do cache de credenciais.", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.miniautorizador.infrastructure.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do cache de credenciais verificadas na autenticação HTTP Basic.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.seguranca.cache-credenciais")
+public class CredencialCacheProperties {
+    /**
+     * Quantidade máxima de credenciais verificadas mantidas em cache. Zero desativa o cache.
+     */
+    private long tamanhoMaximo = 1_000;
+
+    /**
+     * Tempo de vida de uma verificação em cache, contado a partir da verificação completa.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
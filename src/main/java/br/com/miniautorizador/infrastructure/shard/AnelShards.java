@@ -0,0 +1,97 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Anel de hash consistente que define o shard de cada cartão.
+ * <p>
+ * Cada shard ocupa {@code nosVirtuais} posições no anel, e o cartão pertence ao shard da primeira posição a partir do
+ * hash do seu número. Ao incluir ou remover um shard, só os cartões das posições afetadas mudam de dono: com N
+ * shards, a inclusão de um move cerca de 1/(N+1) dos cartões. Imutável.
+ *
+ * @author Fabiana Costa
+ */
+public final class AnelShards {
+    private final List<String> shards;
+    private final long[] posicoes;
+    private final String[] donos;
+
+    /**
+     * @param shards      Nomes dos shards do anel.
+     * @param nosVirtuais Quantidade de posições de cada shard.
+     */
+    public AnelShards(List<String> shards, int nosVirtuais) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("O anel precisa de pelo menos um shard.");
+        }
+        this.shards = List.copyOf(shards);
+        int quantidade = Math.max(1, nosVirtuais);
+        long[][] pontos = new long[this.shards.size() * quantidade][];
+        for (int s = 0; s < this.shards.size(); s++) {
+            for (int v = 0; v < quantidade; v++) {
+                pontos[s * quantidade + v] = new long[]{hash(this.shards.get(s) + "#" + v), s};
+            }
+        }
+        Arrays.sort(pontos, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.posicoes = new long[pontos.length];
+        this.donos = new String[pontos.length];
+        for (int i = 0; i < pontos.length; i++) {
+            posicoes[i] = pontos[i][0];
+            donos[i] = this.shards.get((int) pontos[i][1]);
+        }
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    /**
+     * @param numeroCartao Número do cartão.
+     * @return Nome do shard dono do cartão.
+     */
+    public String dono(long numeroCartao) {
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        int indice = Arrays.binarySearch(posicoes, hash(numeroCartao));
+        if (indice < 0) {
+            indice = -indice - 1;
+        }
+        return donos[indice == posicoes.length ? 0 : indice];
+    }
+
+    /**
+     * Hash de 64 bits (FNV-1a com a finalização do MurmurHash3), estável entre versões da JVM.
+     */
+    public static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return finalizar(hash);
+    }
+
+    /**
+     * Hash dos 16 dígitos do número do cartão, sem criar o texto: igual a {@code hash(NumeroCartao.formatar(n))},
+     * então os cartões continuam nos shards em que foram gravados quando o número era texto.
+     */
+    public static long hash(long numeroCartao) {
+        long hash = 0xcbf29ce484222325L;
+        for (long divisor = 1_000_000_000_000_000L; divisor > 0; divisor /= 10) {
+            hash ^= '0' + numeroCartao / divisor % 10;
+            hash *= 0x100000001b3L;
+        }
+        return finalizar(hash);
+    }
+
+    private static long finalizar(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Shard usado pelas conexões abertas na thread corrente, lido pelo {@link RoteadorShards}.
+ * <p>
+ * Uma transação usa um único shard: trocar de shard com uma transação ativa é um erro de programação, já que a
+ * conexão pode já ter sido obtida no shard anterior.
+ *
+ * @author Fabiana Costa
+ */
+public final class ContextoShard {
+    private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+    private ContextoShard() {
+    }
+
+    /**
+     * @return Shard da thread corrente, ou nulo fora de {@link #executar(String, Supplier)}.
+     */
+    public static String atual() {
+        return SHARD.get();
+    }
+
+    /**
+     * Executa a operação com as conexões no shard informado.
+     *
+     * @param shard    Nome do shard.
+     * @param operacao Operação a executar.
+     * @return Resultado da operação.
+     */
+    public static <T> T executar(String shard, Supplier<T> operacao) {
+        String anterior = SHARD.get();
+        if (Objects.equals(anterior, shard)) {
+            return operacao.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Transação entre shards: " + anterior + " e " + shard);
+        }
+        SHARD.set(shard);
+        try {
+            return operacao.get();
+        } finally {
+            if (anterior == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(anterior);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Aplica o changelog do Liquibase em todos os shards, inclusive os que ainda não são membros do anel, para que
+ * estejam prontos para receber cartões no rebalanceamento.
+ *
+ * @author Fabiana Costa
+ */
+public class LiquibaseShards extends SpringLiquibase {
+    private final Map<String, DataSource> shards;
+
+    /**
+     * @param shards    Datasource de cada shard, sem roteamento.
+     * @param changeLog Caminho do changelog.
+     */
+    public LiquibaseShards(Map<String, DataSource> shards, String changeLog) {
+        this.shards = shards;
+        setChangeLog(changeLog);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (DataSource shard : shards.values()) {
+            setDataSource(shard);
+            super.afterPropertiesSet();
+        }
+    }
+}
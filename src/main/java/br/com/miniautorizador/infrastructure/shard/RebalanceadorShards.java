@@ -0,0 +1,299 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rebalanceamento online dos cartões entre os shards.
+ * <p>
+ * Ao mudar os membros do anel, os cartões de cada shard de origem são lidos em blocos, em ordem de número, e os que
+ * mudam de dono são copiados para o novo dono e removidos da origem. Durante a cópia de um bloco, as operações com
+ * cartões esperam (o bloqueio dura a cópia de {@code tamanho-bloco} cartões); fora disso, a aplicação continua
+ * atendendo, com cada cartão lido no dono antigo ou no novo conforme o cursor da origem.
+ * <p>
+ * Os membros, os membros de destino e os cursores ficam na tabela {@code shards_topologia} do shard principal. O
+ * cursor é gravado depois da cópia e antes da remoção na origem, então uma falha no meio de um bloco deixa no máximo
+ * cópias não usadas: na retomada, feita automaticamente na inicialização, a cópia apaga o que houver no destino antes
+ * de inserir. O rebalanceamento deve ser feito com o tráfego de cartões em uma única instância: as demais só leem a
+ * topologia na inicialização.
+ *
+ * @author Fabiana Costa
+ */
+public class RebalanceadorShards {
+    static final long FIM = Long.MAX_VALUE;
+    private static final long INICIO = -1L;
+    private static final String FIM_TEXTO = "~";
+    private static final Logger logger = LoggerFactory.getLogger(RebalanceadorShards.class);
+
+    private final TopologiaShards topologia;
+    private final Map<String, NamedParameterJdbcTemplate> jdbc = new LinkedHashMap<>();
+    private final Map<String, TransactionTemplate> transacoes = new LinkedHashMap<>();
+    private final JdbcTemplate principal;
+    private final int tamanhoBloco;
+    private final ReentrantLock execucao = new ReentrantLock();
+    private final AtomicLong movidos = new AtomicLong();
+    private volatile Thread thread;
+    private volatile String erro;
+
+    /**
+     * @param topologia Topologia dos shards.
+     * @param shards    Datasource de cada shard, sem roteamento; o primeiro é o principal.
+     * @param properties Configuração dos shards.
+     */
+    public RebalanceadorShards(TopologiaShards topologia, Map<String, DataSource> shards, ShardsProperties properties) {
+        this.topologia = topologia;
+        this.tamanhoBloco = Math.max(1, properties.getTamanhoBloco());
+        shards.forEach((nome, dataSource) -> {
+            jdbc.put(nome, new NamedParameterJdbcTemplate(dataSource));
+            transacoes.put(nome, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        });
+        this.principal = jdbc.get(topologia.principal()).getJdbcTemplate();
+    }
+
+    /**
+     * Carrega os membros do anel gravados no shard principal, ou grava os shards configurados na primeira
+     * inicialização, e retoma um rebalanceamento interrompido.
+     */
+    @PostConstruct
+    public void carregar() {
+        List<Map<String, Object>> linhas = principal.queryForList(
+                "SELECT membros, membros_destino, cursores FROM shards_topologia WHERE id = 1");
+        if (linhas.isEmpty()) {
+            principal.update("INSERT INTO shards_topologia (id, membros) VALUES (1, ?)",
+                    String.join(",", topologia.configurados()));
+            topologia.publicar(anel(topologia.configurados()), null);
+            return;
+        }
+        Map<String, Object> linha = linhas.get(0);
+        AnelShards anel = anel(nomes((String) linha.get("membros")));
+        String destino = (String) linha.get("membros_destino");
+        if (destino == null) {
+            topologia.publicar(anel, null);
+            return;
+        }
+        topologia.publicar(anel, new TopologiaShards.Migracao(
+                anel(nomes(destino)), cursores((String) linha.get("cursores"))));
+        logger.info("Retomando o rebalanceamento dos shards {} para {}", anel.shards(), destino);
+        iniciarThread();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        Thread atual = thread;
+        if (atual != null) {
+            atual.interrupt();
+        }
+    }
+
+    /**
+     * Inicia, em segundo plano, o rebalanceamento para os membros informados.
+     *
+     * @param membros Shards que passam a formar o anel.
+     * @throws IllegalStateException Caso haja um rebalanceamento em andamento.
+     * @throws IllegalArgumentException Caso algum shard não esteja configurado.
+     */
+    public void rebalancear(List<String> membros) {
+        AnelShards destino = anel(membros);
+        execucao.lock();
+        try {
+            if (emAndamento() || topologia.estado().migracao() != null) {
+                throw new IllegalStateException("Rebalanceamento dos shards em andamento.");
+            }
+            principal.update("UPDATE shards_topologia SET membros_destino = ?, cursores = NULL WHERE id = 1",
+                    String.join(",", destino.shards()));
+            // Sem cursores, nenhum cartão muda de dono até a cópia do primeiro bloco
+            topologia.publicar(topologia.estado().anel(), new TopologiaShards.Migracao(destino, Map.of()));
+            movidos.set(0);
+            erro = null;
+            iniciarThread();
+        } finally {
+            execucao.unlock();
+        }
+    }
+
+    /**
+     * @return Membros do anel e andamento do rebalanceamento.
+     */
+    public RelatorioShards relatorio() {
+        TopologiaShards.Estado estado = topologia.estado();
+        TopologiaShards.Migracao migracao = estado.migracao();
+        return new RelatorioShards(
+                estado.anel().shards(),
+                migracao == null ? null : migracao.destino().shards(),
+                migracao == null ? Map.of() : texto(migracao.cursores()),
+                emAndamento(),
+                movidos.get(),
+                erro);
+    }
+
+    /**
+     * @return Se a thread de rebalanceamento está em execução.
+     */
+    public boolean emAndamento() {
+        Thread atual = thread;
+        return atual != null && atual.isAlive();
+    }
+
+    private void iniciarThread() {
+        Thread nova = new Thread(this::migrar, "rebalanceamento-shards");
+        nova.setDaemon(true);
+        thread = nova;
+        nova.start();
+    }
+
+    private void migrar() {
+        try {
+            for (String origem : topologia.estado().anel().shards()) {
+                while (topologia.estado().migracao().cursores().getOrDefault(origem, INICIO) != FIM) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    migrarBloco(origem);
+                }
+            }
+            concluir();
+        } catch (RuntimeException e) {
+            erro = e.getMessage();
+            logger.error("Falha no rebalanceamento dos shards; será retomado na próxima inicialização", e);
+        }
+    }
+
+    private void migrarBloco(String origem) {
+        topologia.bloquearTodos();
+        try {
+            TopologiaShards.Estado estado = topologia.estado();
+            TopologiaShards.Migracao migracao = estado.migracao();
+            List<Linha> linhas = jdbc.get(origem).query(
+                    "SELECT numero_cartao, senha, saldo, version FROM cartoes WHERE numero_cartao > :cursor "
+                            + "ORDER BY numero_cartao LIMIT :limite",
+                    Map.of("cursor", migracao.cursores().getOrDefault(origem, INICIO), "limite", tamanhoBloco),
+                    (rs, numero) -> new Linha(rs.getLong("numero_cartao"), rs.getString("senha"),
+                            rs.getBigDecimal("saldo"), rs.getLong("version")));
+
+            Map<String, List<Linha>> porDestino = new LinkedHashMap<>();
+            List<Long> movidosBloco = new ArrayList<>();
+            for (Linha linha : linhas) {
+                String destino = migracao.destino().dono(linha.numeroCartao());
+                if (!destino.equals(origem)) {
+                    porDestino.computeIfAbsent(destino, shard -> new ArrayList<>()).add(linha);
+                    movidosBloco.add(linha.numeroCartao());
+                }
+            }
+            porDestino.forEach(this::copiar);
+
+            Map<String, Long> cursores = new LinkedHashMap<>(migracao.cursores());
+            cursores.put(origem, linhas.size() < tamanhoBloco ? FIM : linhas.get(linhas.size() - 1).numeroCartao());
+            principal.update("UPDATE shards_topologia SET cursores = ? WHERE id = 1", serializar(cursores));
+            topologia.publicar(estado.anel(), new TopologiaShards.Migracao(migracao.destino(), Map.copyOf(cursores)));
+
+            if (!movidosBloco.isEmpty()) {
+                transacoes.get(origem).executeWithoutResult(status -> jdbc.get(origem).update(
+                        "DELETE FROM cartoes WHERE numero_cartao IN (:numeros)", Map.of("numeros", movidosBloco)));
+                movidos.addAndGet(movidosBloco.size());
+            }
+        } finally {
+            topologia.liberarTodos();
+        }
+    }
+
+    /**
+     * Copia os cartões para o destino, substituindo cópias de uma execução interrompida.
+     */
+    private void copiar(String destino, List<Linha> linhas) {
+        List<Long> numeros = linhas.stream().map(Linha::numeroCartao).toList();
+        transacoes.get(destino).executeWithoutResult(status -> {
+            jdbc.get(destino).update("DELETE FROM cartoes WHERE numero_cartao IN (:numeros)",
+                    Map.of("numeros", numeros));
+            jdbc.get(destino).getJdbcTemplate().batchUpdate(
+                    "INSERT INTO cartoes (numero_cartao, senha, saldo, version) VALUES (?, ?, ?, ?)",
+                    linhas, linhas.size(),
+                    (ps, linha) -> {
+                        ps.setLong(1, linha.numeroCartao());
+                        ps.setString(2, linha.senha());
+                        ps.setBigDecimal(3, linha.saldo());
+                        ps.setLong(4, linha.version());
+                    });
+        });
+    }
+
+    private void concluir() {
+        topologia.bloquearTodos();
+        try {
+            AnelShards destino = topologia.estado().migracao().destino();
+            principal.update("UPDATE shards_topologia SET membros = ?, membros_destino = NULL, cursores = NULL "
+                    + "WHERE id = 1", String.join(",", destino.shards()));
+            topologia.publicar(destino, null);
+            logger.info("Rebalanceamento dos shards concluído: {} cartões movidos para {}", movidos.get(),
+                    destino.shards());
+        } finally {
+            topologia.liberarTodos();
+        }
+    }
+
+    private AnelShards anel(List<String> membros) {
+        if (membros.isEmpty() || new HashSet<>(membros).size() != membros.size()) {
+            throw new IllegalArgumentException("Membros do anel vazios ou repetidos: " + membros);
+        }
+        for (String membro : membros) {
+            if (!topologia.configurados().contains(membro)) {
+                throw new IllegalArgumentException("Shard não configurado: " + membro);
+            }
+        }
+        return new AnelShards(membros, topologia.nosVirtuais());
+    }
+
+    private static List<String> nomes(String valor) {
+        return List.of(valor.split(","));
+    }
+
+    /**
+     * Lê os cursores gravados no formato {@code shard=cursor;...}, com {@code ~} para o shard terminado, o mesmo de
+     * quando o número do cartão era texto.
+     */
+    private static Map<String, Long> cursores(String valor) {
+        Map<String, Long> cursores = new LinkedHashMap<>();
+        if (valor != null && !valor.isEmpty()) {
+            for (String par : valor.split(";")) {
+                String[] partes = par.split("=", 2);
+                cursores.put(partes[0], FIM_TEXTO.equals(partes[1]) ? FIM : Long.parseLong(partes[1]));
+            }
+        }
+        return Map.copyOf(cursores);
+    }
+
+    private static String serializar(Map<String, Long> cursores) {
+        List<String> pares = new ArrayList<>();
+        cursores.forEach((shard, cursor) -> pares.add(shard + "=" + texto(cursor)));
+        return String.join(";", pares);
+    }
+
+    private static Map<String, String> texto(Map<String, Long> cursores) {
+        Map<String, String> textos = new LinkedHashMap<>();
+        cursores.forEach((shard, cursor) -> textos.put(shard, texto(cursor)));
+        return textos;
+    }
+
+    private static String texto(long cursor) {
+        return cursor == FIM ? FIM_TEXTO : NumeroCartao.formatar(cursor);
+    }
+
+    private record Linha(long numeroCartao, String senha, BigDecimal saldo, long version) {
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Membros do anel de shards e andamento do rebalanceamento, exposto em {@code /actuator/shards}.
+ *
+ * @param membros         Shards do anel.
+ * @param destino         Shards do anel ao fim do rebalanceamento, ou nulo sem rebalanceamento.
+ * @param cursores        Último cartão lido de cada shard de origem, com só o BIN visível, ou {@code ~} ao terminar.
+ * @param emAndamento     Se a cópia está em execução nesta instância.
+ * @param cartoesMovidos  Cartões movidos desde o início do rebalanceamento nesta instância.
+ * @param erro            Mensagem da falha que interrompeu o rebalanceamento, ou nulo.
+ * @author Fabiana Costa
+ */
+public record RelatorioShards(
+        List<String> membros,
+        List<String> destino,
+        Map<String, String> cursores,
+        boolean emAndamento,
+        long cartoesMovidos,
+        String erro) {
+
+    public RelatorioShards {
+        Map<String, String> mascarados = new LinkedHashMap<>();
+        cursores.forEach((shard, cursor) -> mascarados.put(shard, mascarar(cursor)));
+        cursores = mascarados;
+    }
+
+    private static String mascarar(String cursor) {
+        if (cursor.length() <= 6) {
+            return cursor;
+        }
+        return cursor.substring(0, 6) + "*".repeat(cursor.length() - 6);
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Roteia as conexões para o shard do {@link ContextoShard}; fora de um contexto, para o shard principal.
+ * <p>
+ * Deve ser envolvido por um {@code LazyConnectionDataSourceProxy}, para que a conexão só seja obtida no primeiro
+ * comando, já dentro do contexto do cartão.
+ *
+ * @author Fabiana Costa
+ */
+public class RoteadorShards extends AbstractRoutingDataSource {
+
+    /**
+     * @param shards Datasource de cada shard; o primeiro é o principal.
+     */
+    public RoteadorShards(Map<String, DataSource> shards) {
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.values().iterator().next());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ContextoShard.atual();
+    }
+}
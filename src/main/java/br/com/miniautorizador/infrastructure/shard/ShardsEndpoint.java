@@ -0,0 +1,35 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.Arrays;
+
+/**
+ * Endpoint de consulta e rebalanceamento dos shards ({@code /actuator/shards}).
+ * <p>
+ * {@code POST /actuator/shards} com {@code {"membros": "shard-0,shard-1,shard-2"}} inicia o rebalanceamento para os
+ * membros informados; o andamento é acompanhado pelo {@code GET}.
+ *
+ * @author Fabiana Costa
+ */
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+    private final RebalanceadorShards rebalanceadorShards;
+
+    public ShardsEndpoint(RebalanceadorShards rebalanceadorShards) {
+        this.rebalanceadorShards = rebalanceadorShards;
+    }
+
+    @ReadOperation
+    public RelatorioShards relatorio() {
+        return rebalanceadorShards.relatorio();
+    }
+
+    @WriteOperation
+    public RelatorioShards rebalancear(String membros) {
+        rebalanceadorShards.rebalancear(Arrays.stream(membros.split(",")).map(String::trim).toList());
+        return rebalanceadorShards.relatorio();
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuração da distribuição dos cartões entre vários bancos de dados (shards).
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.shards")
+public class ShardsProperties {
+    /**
+     * Distribui os cartões entre o banco principal ({@code spring.datasource.*}) e os shards de {@link #fontes}.
+     */
+    private boolean habilitado = false;
+
+    /**
+     * Nome do shard do banco principal, que também guarda as tabelas que não são de cartões. Os nomes definem a
+     * posição dos shards no anel e não devem mudar depois que houver cartões.
+     */
+    private String nomePrincipal = "shard-0";
+
+    /**
+     * Conexões dos demais shards, com o mesmo driver do banco principal. Um shard novo só recebe cartões depois do
+     * rebalanceamento.
+     */
+    private List<Fonte> fontes = new ArrayList<>();
+
+    /**
+     * Quantidade de posições de cada shard no anel de hash consistente. Mais posições distribuem os cartões de forma
+     * mais uniforme, com um anel maior.
+     */
+    private int nosVirtuais = 128;
+
+    /**
+     * Tamanho máximo do pool de conexões de cada shard além do principal.
+     */
+    private int tamanhoPool = 10;
+
+    /**
+     * Quantidade de cartões lidos por bloco no rebalanceamento. As operações com cartões esperam a cópia de cada
+     * bloco.
+     */
+    private int tamanhoBloco = 500;
+
+    /**
+     * Conexão com um shard.
+     */
+    @Getter
+    @Setter
+    public static class Fonte {
+        /**
+         * Nome do shard, usado no anel, nos logs e no rebalanceamento.
+         */
+        private String nome;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
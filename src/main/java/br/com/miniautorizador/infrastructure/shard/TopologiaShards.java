@@ -0,0 +1,231 @@
+package br.com.miniautorizador.infrastructure.shard;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Define o shard de cada cartão e executa as operações com cartões no shard dono.
+ * <p>
+ * O dono vem do {@link AnelShards} dos shards membros. Durante um rebalanceamento, os cartões que mudam de dono são
+ * copiados em ordem de número, shard a shard: um cartão já copiado (número até o cursor do shard de origem) é lido no
+ * novo dono, e os demais continuam no antigo. As operações com cartões seguram o lock de leitura da faixa do cartão,
+ * e o rebalanceamento segura todos os locks de escrita enquanto copia um bloco, então nenhuma operação vê o cartão
+ * no meio da cópia.
+ * <p>
+ * Com os shards desabilitados, as operações são executadas diretamente, sem lock, no banco de dados único.
+ *
+ * @author Fabiana Costa
+ */
+@Component
+public class TopologiaShards {
+    public static final String UNICO = "unico";
+    static final int FAIXAS = 256;
+    private static final Pattern NOME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final boolean habilitado;
+    private final List<String> configurados;
+    private final int nosVirtuais;
+    private final ReentrantReadWriteLock[] faixas = new ReentrantReadWriteLock[FAIXAS];
+    private volatile Estado estado;
+
+    @Autowired
+    public TopologiaShards(ShardsProperties properties) {
+        this.habilitado = properties.isHabilitado();
+        this.nosVirtuais = properties.getNosVirtuais();
+        List<String> nomes = new ArrayList<>();
+        if (habilitado) {
+            nomes.add(properties.getNomePrincipal());
+            properties.getFontes().forEach(fonte -> nomes.add(fonte.getNome()));
+            for (String nome : nomes) {
+                if (nome == null || !NOME.matcher(nome).matches()) {
+                    throw new IllegalStateException("Nome de shard inválido: " + nome);
+                }
+            }
+            if (nomes.stream().distinct().count() != nomes.size()) {
+                throw new IllegalStateException("Nomes de shards repetidos: " + nomes);
+            }
+        } else {
+            nomes.add(UNICO);
+        }
+        this.configurados = List.copyOf(nomes);
+        this.estado = new Estado(new AnelShards(configurados, nosVirtuais), null);
+        Arrays.setAll(faixas, i -> new ReentrantReadWriteLock());
+    }
+
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    /**
+     * @return Shard principal, que guarda as tabelas que não são de cartões.
+     */
+    public String principal() {
+        return configurados.get(0);
+    }
+
+    /**
+     * @return Shards configurados, membros do anel ou não.
+     */
+    public List<String> configurados() {
+        return configurados;
+    }
+
+    /**
+     * @param numeroCartao Número do cartão.
+     * @return Shard onde o cartão está gravado, considerando o rebalanceamento em andamento; com número inválido,
+     * o principal.
+     */
+    public String dono(long numeroCartao) {
+        return NumeroCartao.valido(numeroCartao) ? estado.dono(numeroCartao) : principal();
+    }
+
+    /**
+     * Executa a operação no shard dono do cartão. Com número inválido (requisição nula ou sem 16 dígitos), a operação
+     * vai ao shard principal.
+     *
+     * @param numeroCartao Número do cartão.
+     * @param operacao     Operação a executar, com uma única transação ou nenhuma.
+     * @return Resultado da operação.
+     */
+    public <T> T executar(long numeroCartao, Supplier<T> operacao) {
+        if (!habilitado) {
+            return operacao.get();
+        }
+        if (!NumeroCartao.valido(numeroCartao)) {
+            return ContextoShard.executar(principal(), operacao);
+        }
+        ReentrantReadWriteLock.ReadLock lock = faixa(numeroCartao).readLock();
+        lock.lock();
+        try {
+            return ContextoShard.executar(dono(numeroCartao), operacao);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Separa os itens pelo shard dono de cada cartão e executa a operação uma vez por shard, no próprio shard.
+     * Os itens de cada grupo mantêm a ordem recebida; itens com número inválido vão ao shard principal.
+     *
+     * @param itens        Itens a separar.
+     * @param numeroCartao Número do cartão de cada item.
+     * @param operacao     Operação a executar com o nome do shard e os itens do shard.
+     */
+    public <T> void porShard(Collection<T> itens, ToLongFunction<T> numeroCartao,
+                             BiConsumer<String, List<T>> operacao) {
+        if (itens.isEmpty()) {
+            return;
+        }
+        if (!habilitado) {
+            operacao.accept(UNICO, List.copyOf(itens));
+            return;
+        }
+        // Os locks são tomados em ordem crescente, a mesma do rebalanceamento, para não haver deadlock
+        boolean[] usadas = new boolean[FAIXAS];
+        itens.forEach(item -> usadas[indiceFaixa(numeroCartao.applyAsLong(item))] = true);
+        List<ReentrantReadWriteLock.ReadLock> locks = new ArrayList<>();
+        for (int i = 0; i < FAIXAS; i++) {
+            if (usadas[i]) {
+                locks.add(faixas[i].readLock());
+            }
+        }
+        locks.forEach(ReentrantReadWriteLock.ReadLock::lock);
+        try {
+            Map<String, List<T>> grupos = new LinkedHashMap<>();
+            itens.forEach(item -> grupos
+                    .computeIfAbsent(dono(numeroCartao.applyAsLong(item)), shard -> new ArrayList<>())
+                    .add(item));
+            grupos.forEach((shard, grupo) -> ContextoShard.executar(shard, () -> {
+                operacao.accept(shard, grupo);
+                return null;
+            }));
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    Estado estado() {
+        return estado;
+    }
+
+    /**
+     * Publica os membros do anel e o andamento do rebalanceamento. Chamado pelo rebalanceamento.
+     */
+    void publicar(AnelShards anel, Migracao migracao) {
+        estado = new Estado(anel, migracao);
+    }
+
+    int nosVirtuais() {
+        return nosVirtuais;
+    }
+
+    /**
+     * Bloqueia todas as operações com cartões, esperando as que estão em andamento.
+     */
+    void bloquearTodos() {
+        for (ReentrantReadWriteLock faixa : faixas) {
+            faixa.writeLock().lock();
+        }
+    }
+
+    void liberarTodos() {
+        for (int i = FAIXAS - 1; i >= 0; i--) {
+            faixas[i].writeLock().unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock faixa(long numeroCartao) {
+        return faixas[indiceFaixa(numeroCartao)];
+    }
+
+    private static int indiceFaixa(long numeroCartao) {
+        int hash = Long.hashCode(numeroCartao);
+        return (hash ^ hash >>> 16) & (FAIXAS - 1);
+    }
+
+    /**
+     * Membros do anel e rebalanceamento em andamento.
+     *
+     * @param anel     Anel dos shards membros.
+     * @param migracao Rebalanceamento em andamento, ou nulo.
+     */
+    record Estado(AnelShards anel, Migracao migracao) {
+
+        String dono(long numeroCartao) {
+            String atual = anel.dono(numeroCartao);
+            if (migracao == null) {
+                return atual;
+            }
+            String destino = migracao.destino().dono(numeroCartao);
+            if (destino.equals(atual)) {
+                return atual;
+            }
+            Long cursor = migracao.cursores().get(atual);
+            return cursor != null && numeroCartao <= cursor ? destino : atual;
+        }
+    }
+
+    /**
+     * Rebalanceamento em andamento.
+     *
+     * @param destino  Anel dos novos membros.
+     * @param cursores Último número de cartão copiado de cada shard de origem.
+     */
+    record Migracao(AnelShards destino, Map<String, Long> cursores) {
+    }
+}
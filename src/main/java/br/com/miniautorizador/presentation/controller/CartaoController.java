@@ -1,10 +1,14 @@
 package br.com.miniautorizador.presentation.controller;
 
 import br.com.miniautorizador.application.cartao.CriarCartaoUseCase;
+import br.com.miniautorizador.application.cartao.CriarCartoesEmLoteUseCase;
 import br.com.miniautorizador.application.cartao.ObterSaldoUseCase;
 import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+import br.com.miniautorizador.presentation.dto.CartaoLoteRequest;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.presentation.dto.CartaoResponse;
+import br.com.miniautorizador.presentation.dto.ResultadoCartaoResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -14,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Tag(name = "Cartões", description = "Operações relacionadas ao gerenciamento de cartões, incluindo criação e consulta de saldo.")
 @RestController
@@ -21,14 +26,17 @@ import java.math.BigDecimal;
 public class CartaoController {
     private final CriarCartaoUseCase criarCartaoUseCase;
     private final ObterSaldoUseCase obterSaldoUseCase;
+    private final CriarCartoesEmLoteUseCase criarCartoesEmLoteUseCase;
 
     @Autowired
     public CartaoController(
             ObterSaldoUseCase obterSaldoUseCase,
-            CriarCartaoUseCase criarCartaoUseCase
+            CriarCartaoUseCase criarCartaoUseCase,
+            CriarCartoesEmLoteUseCase criarCartoesEmLoteUseCase
     ) {
         this.criarCartaoUseCase = criarCartaoUseCase;
         this.obterSaldoUseCase = obterSaldoUseCase;
+        this.criarCartoesEmLoteUseCase = criarCartoesEmLoteUseCase;
     }
 
     @Operation(
@@ -38,10 +46,20 @@ public class CartaoController {
     @PostMapping
     public ResponseEntity<CartaoResponse> criarCartao(@Valid @RequestBody CartaoRequest cartaoRequest) {
         Cartao cartao = criarCartaoUseCase.criarCartao(cartaoRequest);
-        CartaoResponse response = new CartaoResponse(cartao.getNumeroCartao(), cartaoRequest.getSenha());
+        CartaoResponse response =
+                new CartaoResponse(NumeroCartao.formatar(cartao.getNumeroCartao()), cartaoRequest.getSenha());
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @Operation(
+            summary = "Criar cartões em lote",
+            description = "Cria vários cartões e devolve o resultado de cada um, na ordem recebida."
+    )
+    @PostMapping("/lote")
+    public ResponseEntity<List<ResultadoCartaoResponse>> criarCartoes(@Valid @RequestBody CartaoLoteRequest cartaoLoteRequest) {
+        return ResponseEntity.ok(criarCartoesEmLoteUseCase.criarCartoes(cartaoLoteRequest));
+    }
+
     @Operation(
             summary = "Obter saldo do cartão",
             description = "Recupera as informações de saldo de um cartão com base no número do cartão."
@@ -1,36 +1,95 @@
 package br.com.miniautorizador.presentation.controller;
 
 import br.com.miniautorizador.application.transacao.RealizarTransacaoUseCase;
+import br.com.miniautorizador.application.transacao.RealizarTransacoesEmLoteUseCase;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.concorrencia.AdmissaoExecutor;
+import br.com.miniautorizador.presentation.dto.ResultadoTransacaoResponse;
+import br.com.miniautorizador.presentation.dto.TransacaoLoteRequest;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.idempotencia.IdempotenciaService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Tag(name = "Transações", description = "Operações relacionadas a transações de débito dos cartões.")
 @RestController
 @RequestMapping("/transacoes")
 public class TransacaoController {
+    // Respostas montadas uma única vez por status: recusas custam o mesmo que aprovações, sem exceção nem log de erro
+    private static final Map<StatusTransacao, ResponseEntity<String>> RESPOSTAS = criarRespostas();
+
     private final RealizarTransacaoUseCase realizarTransacaoUseCase;
+    private final RealizarTransacoesEmLoteUseCase realizarTransacoesEmLoteUseCase;
+    private final AdmissaoExecutor admissaoExecutor;
+    private final IdempotenciaService idempotenciaService;
 
     @Autowired
-    public TransacaoController(RealizarTransacaoUseCase realizarTransacaoUseCase) {
+    public TransacaoController(
+            RealizarTransacaoUseCase realizarTransacaoUseCase,
+            RealizarTransacoesEmLoteUseCase realizarTransacoesEmLoteUseCase,
+            AdmissaoExecutor admissaoExecutor,
+            IdempotenciaService idempotenciaService) {
         this.realizarTransacaoUseCase = realizarTransacaoUseCase;
+        this.realizarTransacoesEmLoteUseCase = realizarTransacoesEmLoteUseCase;
+        this.admissaoExecutor = admissaoExecutor;
+        this.idempotenciaService = idempotenciaService;
     }
 
     @Operation(
             summary = "Transação de débito",
-            description = "Realiza uma transação de débito de saldo no cartão."
+            description = "Realiza uma transação de débito de saldo no cartão. Com o cabeçalho Idempotency-Key, "
+                    + "retentativas com a mesma chave devolvem o resultado original sem novo débito."
     )
     @PostMapping
-    public ResponseEntity<String> realizarTransacao(@Valid @RequestBody TransacaoRequest transacaoRequest) {
-        realizarTransacaoUseCase.realizarTransacao(transacaoRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body("OK");
+    public CompletableFuture<ResponseEntity<String>> realizarTransacao(
+            @Valid @RequestBody TransacaoRequest transacaoRequest,
+            @Parameter(description = "Chave única da transação, gerada pelo cliente e repetida nas retentativas.")
+            @RequestHeader(name = "Idempotency-Key", required = false) String chaveIdempotencia) {
+        if (!StringUtils.hasText(chaveIdempotencia)) {
+            // A autorização roda no pool de admissão; a thread do servlet é liberada enquanto a requisição aguarda
+            return admissaoExecutor.submeter(() ->
+                    RESPOSTAS.get(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)));
+        }
+        return idempotenciaService.executar(chaveIdempotencia, transacaoRequest, () ->
+                        admissaoExecutor.submeter(() -> realizarTransacaoUseCase.realizarTransacao(transacaoRequest)))
+                .thenApply(RESPOSTAS::get);
+    }
+
+    @Operation(
+            summary = "Transações de débito em lote",
+            description = "Realiza até " + TransacaoLoteRequest.MAXIMO_TRANSACOES + " transações de débito e "
+                    + "devolve o resultado de cada uma, na ordem recebida; lotes maiores são recusados com 400 e "
+                    + "devem ser divididos pelo cliente. Se um bloco falhar depois de outros já aplicados, as "
+                    + "transações não aplicadas vêm com o erro NAO_PROCESSADA e podem ser reenviadas."
+    )
+    @PostMapping("/lote")
+    public ResponseEntity<List<ResultadoTransacaoResponse>> realizarTransacoes(
+            @Valid @RequestBody TransacaoLoteRequest transacaoLoteRequest) {
+        return ResponseEntity.ok(realizarTransacoesEmLoteUseCase.realizarTransacoes(transacaoLoteRequest));
+    }
+
+    private static Map<StatusTransacao, ResponseEntity<String>> criarRespostas() {
+        Map<StatusTransacao, ResponseEntity<String>> respostas = new EnumMap<>(StatusTransacao.class);
+        for (StatusTransacao status : StatusTransacao.values()) {
+            HttpStatus httpStatus = status == StatusTransacao.OK ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY;
+            respostas.put(status, ResponseEntity.status(httpStatus).body(status.name()));
+        }
+        return respostas;
     }
 }
@@ -0,0 +1,19 @@
+package br.com.miniautorizador.presentation.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartaoLoteRequest {
+    @NotNull(message = "Os cartões são obrigatórios.")
+    @Size(min = 1, max = 10_000, message = "O lote deve ter entre 1 e 10000 cartões.")
+    private List<@NotNull(message = "O cartão é obrigatório.") @Valid CartaoRequest> cartoes;
+}
@@ -1,16 +1,16 @@
 package br.com.miniautorizador.presentation.dto;
 
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
-@AllArgsConstructor
 public class CartaoRequest {
     @NotBlank(message = "O número do cartão é obrigatório.")
     @NotNull(message = "O número do cartão é obrigatório.")
@@ -23,4 +23,29 @@ public class CartaoRequest {
     @Size(min = 4, max = 4, message = "A senha do cartão deve ter 4 dígitos.")
     @Pattern(regexp = "\\d{4}", message = "A senha do cartão deve conter apenas dígitos.")
     private String senha;
+
+    /**
+     * Número do cartão no formato compacto, convertido uma única vez a partir de {@link #numeroCartao}.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long numero;
+
+    public CartaoRequest(String numeroCartao, String senha) {
+        this.numeroCartao = numeroCartao;
+        this.numero = NumeroCartao.converter(numeroCartao);
+        this.senha = senha;
+    }
+
+    public void setNumeroCartao(String numeroCartao) {
+        this.numeroCartao = numeroCartao;
+        this.numero = NumeroCartao.converter(numeroCartao);
+    }
+
+    /**
+     * @return Número do cartão no formato compacto, ou {@link NumeroCartao#INVALIDO} caso não tenha 16 dígitos.
+     */
+    public long numero() {
+        return numero;
+    }
 }
@@ -0,0 +1,12 @@
+package br.com.miniautorizador.presentation.dto;
+
+import br.com.miniautorizador.domain.cartao.StatusCriacaoCartao;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ResultadoCartaoResponse {
+    private String numeroCartao;
+    private StatusCriacaoCartao status;
+}
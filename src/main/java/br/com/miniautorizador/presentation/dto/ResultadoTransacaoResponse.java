@@ -0,0 +1,33 @@
+package br.com.miniautorizador.presentation.dto;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoTransacaoResponse {
+    /**
+     * A transação não foi aplicada e pode ser reenviada.
+     */
+    public static final String NAO_PROCESSADA = "NAO_PROCESSADA";
+
+    /**
+     * A transação pode ter sido aplicada; não deve ser reenviada sem conferir o saldo.
+     */
+    public static final String RESULTADO_INDETERMINADO = "RESULTADO_INDETERMINADO";
+
+    private String numeroCartao;
+    private StatusTransacao status;
+    private String erro;
+
+    public ResultadoTransacaoResponse(String numeroCartao, StatusTransacao status) {
+        this(numeroCartao, status, null);
+    }
+
+    public static ResultadoTransacaoResponse falha(String numeroCartao, String erro) {
+        return new ResultadoTransacaoResponse(numeroCartao, null, erro);
+    }
+}
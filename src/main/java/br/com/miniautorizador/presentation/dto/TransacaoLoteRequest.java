@@ -0,0 +1,25 @@
+package br.com.miniautorizador.presentation.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransacaoLoteRequest {
+    /**
+     * Máximo de transações por lote; os resultados são montados em memória antes da resposta.
+     */
+    public static final int MAXIMO_TRANSACOES = 1_000;
+
+    @NotNull(message = "As transações são obrigatórias.")
+    @Size(min = 1, max = MAXIMO_TRANSACOES,
+            message = "O lote deve ter entre 1 e " + MAXIMO_TRANSACOES + " transações.")
+    private List<@NotNull(message = "A transação é obrigatória.") @Valid TransacaoRequest> transacoes;
+}
@@ -1,13 +1,17 @@
 package br.com.miniautorizador.presentation.dto;
 
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
 import jakarta.validation.constraints.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 
 @Data
-@AllArgsConstructor
 public class TransacaoRequest {
     @NotBlank(message = "O número do cartão é obrigatório.")
     @NotNull(message = "O número do cartão é obrigatório.")
@@ -24,4 +28,32 @@ public class TransacaoRequest {
     @NotNull(message = "O valor da transação é obrigatório.")
     @DecimalMin(value = "0.01", inclusive = true, message = "O valor da transação deve ser maior que 0.")
     private BigDecimal valor;
+
+    /**
+     * Número do cartão no formato compacto, convertido uma única vez a partir de {@link #numeroCartao}.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private long numero;
+
+    public TransacaoRequest(String numeroCartao, String senhaCartao, BigDecimal valor) {
+        this.numeroCartao = numeroCartao;
+        this.numero = NumeroCartao.converter(numeroCartao);
+        this.senhaCartao = senhaCartao;
+        this.valor = valor;
+    }
+
+    public void setNumeroCartao(String numeroCartao) {
+        this.numeroCartao = numeroCartao;
+        this.numero = NumeroCartao.converter(numeroCartao);
+    }
+
+    /**
+     * @return Número do cartão no formato compacto, ou {@link NumeroCartao#INVALIDO} caso não tenha 16 dígitos.
+     */
+    public long numero() {
+        return numero;
+    }
 }
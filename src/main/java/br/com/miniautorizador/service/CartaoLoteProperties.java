@@ -0,0 +1,20 @@
+package br.com.miniautorizador.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuração do provisionamento de cartões em lote.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.cartao-lote")
+public class CartaoLoteProperties {
+    /**
+     * Quantidade de cartões inseridos em cada batch JDBC, com um único commit.
+     */
+    private int tamanhoBloco = 1_000;
+}
@@ -0,0 +1,131 @@
+package br.com.miniautorizador.service;
+
+import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.StatusCriacaoCartao;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.pin.PinExecutor;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
+import br.com.miniautorizador.infrastructure.repository.CartaoJdbcRepository;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.presentation.dto.CartaoRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Serviço de provisionamento de cartões em lote.
+ * <p>
+ * Os cartões são tratados em blocos: os já existentes são identificados em uma única consulta, os hashes das senhas
+ * dos novos são gerados em paralelo no {@link PinExecutor} e a inserção é feita em um batch JDBC com um único commit.
+ * Um cartão repetido, no banco de dados ou no próprio lote, é informado como existente, sem interromper os demais.
+ * Com os cartões distribuídos em shards, cada bloco é separado por shard, com uma consulta e um commit em cada um.
+ *
+ * @author Fabiana Costa
+ */
+@Service
+public class CartaoLoteService {
+    private static final Logger logger = LoggerFactory.getLogger(CartaoLoteService.class);
+
+    private final CartaoJdbcRepository cartaoJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PinVerificador pinVerificador;
+    private final PinExecutor pinExecutor;
+    private final CartaoLoteProperties cartaoLoteProperties;
+    private final SaldoCache saldoCache;
+    private final TopologiaShards topologiaShards;
+
+    @Autowired
+    public CartaoLoteService(
+            CartaoJdbcRepository cartaoJdbcRepository,
+            TransactionTemplate transactionTemplate,
+            PinVerificador pinVerificador,
+            PinExecutor pinExecutor,
+            CartaoLoteProperties cartaoLoteProperties,
+            SaldoCache saldoCache,
+            TopologiaShards topologiaShards) {
+        this.cartaoJdbcRepository = cartaoJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.pinVerificador = pinVerificador;
+        this.pinExecutor = pinExecutor;
+        this.cartaoLoteProperties = cartaoLoteProperties;
+        this.saldoCache = saldoCache;
+        this.topologiaShards = topologiaShards;
+    }
+
+    /**
+     * Cria os cartões informados.
+     *
+     * @param cartoes Cartões a criar, já validados.
+     * @return Resultado de cada cartão, na ordem da lista.
+     */
+    public List<StatusCriacaoCartao> criarCartoes(List<CartaoRequest> cartoes) {
+        Objects.requireNonNull(cartoes, "Os cartões devem ser informados");
+        StatusCriacaoCartao[] resultados = new StatusCriacaoCartao[cartoes.size()];
+        Set<Long> vistos = new HashSet<>();
+        int tamanhoBloco = Math.max(1, cartaoLoteProperties.getTamanhoBloco());
+        for (int inicio = 0; inicio < cartoes.size(); inicio += tamanhoBloco) {
+            criarBloco(cartoes, inicio, Math.min(inicio + tamanhoBloco, cartoes.size()), vistos, resultados);
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private void criarBloco(List<CartaoRequest> cartoes, int inicio, int fim, Set<Long> vistos,
+                            StatusCriacaoCartao[] resultados) {
+        List<Integer> bloco = new ArrayList<>(fim - inicio);
+        for (int i = inicio; i < fim; i++) {
+            bloco.add(i);
+        }
+        // Números repetidos têm o mesmo shard, então a primeira ocorrência continua sendo a criada
+        topologiaShards.porShard(bloco, indice -> cartoes.get(indice).numero(),
+                (shard, doShard) -> criarNoShard(cartoes, doShard, vistos, resultados));
+    }
+
+    private void criarNoShard(List<CartaoRequest> cartoes, List<Integer> doShard, Set<Long> vistos,
+                              StatusCriacaoCartao[] resultados) {
+        Set<Long> numeros = new HashSet<>();
+        for (int indice : doShard) {
+            numeros.add(cartoes.get(indice).numero());
+        }
+        Set<Long> existentes = cartaoJdbcRepository.buscarExistentes(numeros);
+
+        List<Integer> indices = new ArrayList<>(doShard.size());
+        for (int i : doShard) {
+            long numeroCartao = cartoes.get(i).numero();
+            if (existentes.contains(numeroCartao) || !vistos.add(numeroCartao)) {
+                resultados[i] = StatusCriacaoCartao.CARTAO_EXISTENTE;
+            } else {
+                indices.add(i);
+            }
+        }
+        if (indices.isEmpty()) {
+            return;
+        }
+
+        // O hash é o trabalho caro da criação; só é gerado para os cartões que serão inseridos
+        List<Cartao> novos = pinExecutor.mapear(indices, indice -> {
+            CartaoRequest cartaoRequest = cartoes.get(indice);
+            return new Cartao(
+                    cartaoRequest.numero(),
+                    pinVerificador.gerarHash(cartaoRequest.numero(), cartaoRequest.getSenha()),
+                    Cartao.SALDO_INICIAL);
+        });
+        try {
+            transactionTemplate.executeWithoutResult(status -> cartaoJdbcRepository.inserir(novos));
+            indices.forEach(indice -> resultados[indice] = StatusCriacaoCartao.CRIADO);
+        } catch (DataIntegrityViolationException e) {
+            // Outro cliente criou algum dos cartões depois da consulta: insere um a um para isolar os repetidos
+            logger.warn("Cartão criado concorrentemente no lote, inserindo {} cartões individualmente", novos.size());
+            for (int i = 0; i < novos.size(); i++) {
+                resultados[indices.get(i)] = cartaoJdbcRepository.inserirSeAusente(novos.get(i))
+                        ? StatusCriacaoCartao.CRIADO
+                        : StatusCriacaoCartao.CARTAO_EXISTENTE;
+            }
+        }
+        saldoCache.invalidarAposCommit(novos.stream().map(Cartao::getNumeroCartao).toList());
+    }
+}
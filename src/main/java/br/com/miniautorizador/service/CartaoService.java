@@ -1,16 +1,17 @@
 package br.com.miniautorizador.service;
 
 import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
 import br.com.miniautorizador.domain.cartao.exception.CartaoExistenteException;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
 import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.Objects;
 
 /**
@@ -24,27 +25,31 @@ import java.util.Objects;
 @Service
 public class CartaoService {
     private final CartaoRepository cartaoRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PinVerificador pinVerificador;
+    private final SaldoCache saldoCache;
 
     @Autowired
-    public CartaoService(CartaoRepository cartaoRepository, PasswordEncoder passwordEncoder) {
+    public CartaoService(CartaoRepository cartaoRepository, PinVerificador pinVerificador, SaldoCache saldoCache) {
         this.cartaoRepository = cartaoRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.pinVerificador = pinVerificador;
+        this.saldoCache = saldoCache;
     }
 
     @Transactional
     public Cartao criarCartao(CartaoRequest cartaoRequest) {
         try {
             validarCartaoRequest(cartaoRequest);
-            String senhaHash = passwordEncoder.encode(cartaoRequest.getSenha());
+            String senhaHash = pinVerificador.gerarHash(cartaoRequest.numero(), cartaoRequest.getSenha());
 
             Cartao cartao = new Cartao(
-                    cartaoRequest.getNumeroCartao(),
+                    cartaoRequest.numero(),
                     senhaHash,
-                    BigDecimal.valueOf(500.00)
+                    Cartao.SALDO_INICIAL
             );
 
-            return cartaoRepository.saveAndFlush(cartao);
+            Cartao salvo = cartaoRepository.saveAndFlush(cartao);
+            saldoCache.invalidarAposCommit(cartaoRequest.numero());
+            return salvo;
         } catch (DataIntegrityViolationException e) {
             throw new CartaoExistenteException(cartaoRequest.getSenha(), cartaoRequest.getNumeroCartao());
         }
@@ -53,6 +58,9 @@ public class CartaoService {
     private void validarCartaoRequest(CartaoRequest cartaoRequest) {
         Objects.requireNonNull(cartaoRequest, "Request não pode ser nula");
         Objects.requireNonNull(cartaoRequest.getNumeroCartao(), "O número do cartão deve ser informado");
+        if (!NumeroCartao.valido(cartaoRequest.numero())) {
+            throw new IllegalArgumentException("O número do cartão deve ter 16 dígitos");
+        }
         Objects.requireNonNull(cartaoRequest.getSenha(), "A senha do cartão deve ser informada");
     }
 }
\ No newline at end of file
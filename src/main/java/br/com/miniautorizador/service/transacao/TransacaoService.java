@@ -1,19 +1,19 @@
 package br.com.miniautorizador.service.transacao;
 
-import br.com.miniautorizador.domain.cartao.Cartao;
-import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteTransacaoException;
-import br.com.miniautorizador.domain.cartao.exception.SaldoInsuficienteException;
-import br.com.miniautorizador.domain.cartao.exception.SenhaInvalidaException;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.metricas.MedicaoEtapas;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
 import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.Objects;
+import java.util.Optional;
 
 
 /**
@@ -21,29 +21,63 @@ import java.util.Objects;
  * <p>
  * Essa classe é responsável por realizar operações de transação de débito do cartão.
  * Além disso, ela também é responsável por garantir a integridade das transações e aplicar as regras de negócios relacionadas a transações.
+ * <p>
+ * As recusas de negócio são devolvidas como {@link StatusTransacao}, sem exceção: são parte do tráfego normal e
+ * custam o mesmo que uma aprovação. Exceções ficam para falhas de fato (banco de dados, dados nulos).
+ * <p>
+ * Cada etapa (busca do cartão, validação da senha, atualização do saldo e commit) é medida pelo
+ * {@link MetricasAutorizacao}, com o resultado da autorização como tag.
  *
  * @author Fabiana Costa
  */
 @Service
 public class TransacaoService {
     private final CartaoRepository cartaoRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PinVerificador pinVerificador;
+    private final MetricasAutorizacao metricasAutorizacao;
+    private final SaldoCache saldoCache;
 
     @Autowired
     public TransacaoService(
             CartaoRepository cartaoRepository,
-            PasswordEncoder passwordEncoder) {
+            PinVerificador pinVerificador,
+            MetricasAutorizacao metricasAutorizacao,
+            SaldoCache saldoCache) {
         this.cartaoRepository = cartaoRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.pinVerificador = pinVerificador;
+        this.metricasAutorizacao = metricasAutorizacao;
+        this.saldoCache = saldoCache;
     }
 
     @Transactional
-    public void realizarTransacao(TransacaoRequest transacaoRequest) {
+    public StatusTransacao realizarTransacao(TransacaoRequest transacaoRequest) {
         validarRequest(transacaoRequest);
-        Cartao cartao = buscarCartao(transacaoRequest.getNumeroCartao());
-        validarSenha(cartao, transacaoRequest.getSenhaCartao());
-        validarSaldo(cartao, transacaoRequest.getValor());
-        atualizarSaldo(cartao, transacaoRequest.getValor());
+        MedicaoEtapas medicao = metricasAutorizacao.iniciar("transacao");
+        StatusTransacao status = null;
+        try {
+            status = autorizar(transacaoRequest, medicao);
+            return status;
+        } finally {
+            metricasAutorizacao.concluir(medicao, status == null ? MetricasAutorizacao.ERRO : status.name());
+        }
+    }
+
+    private StatusTransacao autorizar(TransacaoRequest transacaoRequest, MedicaoEtapas medicao) {
+        long numeroCartao = transacaoRequest.numero();
+        Optional<String> senhaHash = medicao.medir("buscar-cartao",
+                () -> cartaoRepository.findSenhaByNumeroCartao(numeroCartao));
+        if (senhaHash.isEmpty()) {
+            return StatusTransacao.CARTAO_INEXISTENTE;
+        }
+        if (!medicao.medir("validar-senha",
+                () -> pinVerificador.verificar(numeroCartao, transacaoRequest.getSenhaCartao(), senhaHash.get()))) {
+            return StatusTransacao.SENHA_INVALIDA;
+        }
+        if (!medicao.medir("atualizar-saldo", () -> debitarSaldo(numeroCartao, transacaoRequest.getValor()))) {
+            return StatusTransacao.SALDO_INSUFICIENTE;
+        }
+        migrarSenha(numeroCartao, senhaHash.get(), transacaoRequest.getSenhaCartao());
+        return StatusTransacao.OK;
     }
 
     private void validarRequest(TransacaoRequest transacaoRequest) {
@@ -53,29 +87,25 @@ public class TransacaoService {
         Objects.requireNonNull(transacaoRequest.getValor(), "O valor a ser debitado deve ser informado.");
     }
 
-    private Cartao buscarCartao(String numeroCartao) {
-        return cartaoRepository.findByNumeroCartao(numeroCartao)
-                .orElseThrow(() -> new CartaoInexistenteTransacaoException(numeroCartao));
-    }
-
-    private void validarSenha(Cartao cartao, String senhaCartao) {
-        if (!passwordEncoder.matches(senhaCartao, cartao.getSenha())) {
-            throw new SenhaInvalidaException();
+    /**
+     * Debita o saldo com um UPDATE condicional: a validação de saldo e a escrita acontecem no mesmo comando,
+     * sem conflito de versão entre transações concorrentes do mesmo cartão. A alteração é registrada no cache de
+     * saldos.
+     */
+    private boolean debitarSaldo(long numeroCartao, BigDecimal valor) {
+        if (cartaoRepository.debitarSaldo(numeroCartao, valor) == 0) {
+            return false;
         }
+        saldoCache.registrarAlteracao(numeroCartao);
+        return true;
     }
 
-    private void validarSaldo(Cartao cartao, BigDecimal valor) {
-        if (cartao.getSaldo().compareTo(valor) < 0) {
-            throw new SaldoInsuficienteException();
-        }
-    }
-
-    private void atualizarSaldo(Cartao cartao, BigDecimal valor) {
-        cartao.setSaldo(cartao.getSaldo().subtract(valor));
-        try {
-            cartaoRepository.save(cartao);
-        } catch (OptimisticLockingFailureException e) {
-            throw new RuntimeException("Conflito de concorrência ao atualizar o saldo do cartão.", e);
+    /**
+     * Regera no formato atual o hash de senha legado, aproveitando a senha já validada nesta transação.
+     */
+    private void migrarSenha(long numeroCartao, String senhaHash, String senhaCartao) {
+        if (pinVerificador.precisaMigrar(senhaHash)) {
+            cartaoRepository.atualizarSenha(numeroCartao, senhaHash, pinVerificador.gerarHash(numeroCartao, senhaCartao));
         }
     }
 }
@@ -0,0 +1,37 @@
+package br.com.miniautorizador.service.transacao.idempotencia;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração das chaves de idempotência das transações de débito.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.idempotencia")
+public class IdempotenciaProperties {
+    /**
+     * Quantidade máxima de resultados mantidos em memória.
+     */
+    private long tamanhoMaximo = 100_000;
+
+    /**
+     * Tempo durante o qual uma chave devolve o mesmo resultado, contado a partir da conclusão da transação.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Reserva as chaves e grava os resultados também no banco de dados, para valerem após reinícios e entre instâncias.
+     */
+    private boolean persistente = false;
+
+    /**
+     * Intervalo da remoção dos resultados expirados no banco de dados.
+     */
+    private Duration intervaloLimpeza = Duration.ofMinutes(10);
+}
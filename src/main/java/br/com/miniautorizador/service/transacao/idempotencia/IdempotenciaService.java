@@ -0,0 +1,311 @@
+package br.com.miniautorizador.service.transacao.idempotencia;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.repository.IdempotenciaJdbcRepository;
+import br.com.miniautorizador.infrastructure.repository.IdempotenciaJdbcRepository.Registro;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.shared.exception.ChaveIdempotenciaConflitanteException;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.TransacaoEmAndamentoException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotência das transações de débito por chave informada pelo cliente (cabeçalho Idempotency-Key).
+ * <p>
+ * O resultado de cada transação concluída fica em um cache limitado e com expiração. Uma retentativa com a mesma chave
+ * recebe o resultado original sem nova autorização; uma retentativa que chega à mesma instância enquanto a primeira
+ * ainda está em andamento aguarda o mesmo resultado, sem ocupar uma thread. Apenas resultados de negócio são
+ * guardados: falhas técnicas liberam a chave para uma nova tentativa.
+ * <p>
+ * Uma transação com resultado indeterminado (sem resposta no tempo máximo, mas ainda em execução) mantém a chave
+ * reservada: a retentativa recebe {@link TransacaoEmAndamentoException} até a transação original terminar, quando o
+ * seu resultado é guardado, ou até a expiração, se a conclusão não chegar.
+ * <p>
+ * No modo persistente, a chave é reservada no banco de dados antes da autorização, e a chave primária da tabela impede
+ * que outra instância autorize a mesma chave: a retentativa recebe o resultado gravado ou, enquanto a original não
+ * termina, {@link TransacaoEmAndamentoException}. Uma transação com resultado indeterminado, ou interrompida pela
+ * queda da instância, mantém a chave reservada até a expiração, pois o débito pode ter sido aplicado.
+ * <p>
+ * A chave só pode ser reutilizada com o mesmo cartão e valor; a senha não faz parte da comparação e não é guardada.
+ *
+ * @author Fabiana Costa
+ */
+@Service
+public class IdempotenciaService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    private final IdempotenciaProperties properties;
+    private final IdempotenciaJdbcRepository idempotenciaJdbcRepository;
+    private final Cache<String, Registro> concluidas;
+    private final ConcurrentHashMap<String, EmAndamento> emAndamento = new ConcurrentHashMap<>();
+    private final Counter repetidas;
+    private final Counter coalescidas;
+    private ScheduledExecutorService limpeza;
+
+    @Autowired
+    public IdempotenciaService(
+            IdempotenciaProperties properties,
+            IdempotenciaJdbcRepository idempotenciaJdbcRepository,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.idempotenciaJdbcRepository = idempotenciaJdbcRepository;
+        this.concluidas = Caffeine.newBuilder()
+                .maximumSize(properties.getTamanhoMaximo())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.repetidas = Counter.builder("miniautorizador.idempotencia.repetidas")
+                .description("Retentativas atendidas com o resultado de uma transação concluída")
+                .register(meterRegistry);
+        this.coalescidas = Counter.builder("miniautorizador.idempotencia.coalescidas")
+                .description("Retentativas que aguardaram a transação original ainda em andamento")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!properties.isPersistente()) {
+            return;
+        }
+        limpeza = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "idempotencia-limpeza");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = properties.getIntervaloLimpeza().toMillis();
+        limpeza.scheduleWithFixedDelay(this::removerExpirados, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (limpeza != null) {
+            limpeza.shutdownNow();
+        }
+    }
+
+    /**
+     * Executa a autorização uma única vez por chave.
+     *
+     * @param chave            Chave de idempotência informada pelo cliente.
+     * @param transacaoRequest Transação associada à chave.
+     * @param autorizacao      Autorização assíncrona da transação, chamada apenas se a chave ainda não tem resultado.
+     * @return Resultado da transação, original ou recém-autorizado.
+     * @throws ChaveIdempotenciaConflitanteException Caso a chave já tenha sido usada com outro cartão ou valor.
+     * @throws TransacaoEmAndamentoException         Caso a chave esteja reservada por uma transação em andamento em
+     *                                               outra instância ou com resultado indeterminado.
+     */
+    public CompletableFuture<StatusTransacao> executar(
+            String chave,
+            TransacaoRequest transacaoRequest,
+            Supplier<CompletableFuture<StatusTransacao>> autorizacao) {
+        String impressao = impressao(transacaoRequest);
+        Registro concluida = concluidas.getIfPresent(chave);
+        if (concluida != null) {
+            repetidas.increment();
+            return CompletableFuture.completedFuture(validar(concluida, impressao).status());
+        }
+        EmAndamento nova = new EmAndamento(impressao, new CompletableFuture<>());
+        EmAndamento existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente != null) {
+            coalescidas.increment();
+            validar(existente.impressao(), impressao);
+            return existente.resultado().copy();
+        }
+        // A original pode ter concluído entre a consulta ao cache e o registro em andamento
+        Registro concluidaNoIntervalo = concluidas.getIfPresent(chave);
+        if (concluidaNoIntervalo != null) {
+            emAndamento.remove(chave, nova);
+            repetidas.increment();
+            return CompletableFuture.completedFuture(validar(concluidaNoIntervalo, impressao).status());
+        }
+        Optional<Registro> gravada;
+        try {
+            gravada = properties.isPersistente() ? reservar(chave, impressao) : Optional.empty();
+        } catch (RuntimeException e) {
+            emAndamento.remove(chave, nova);
+            nova.resultado().completeExceptionally(e);
+            throw e;
+        }
+        if (gravada.isPresent()) {
+            emAndamento.remove(chave, nova);
+            return repetir(gravada.get(), chave, impressao, nova);
+        }
+        CompletableFuture<StatusTransacao> autorizada;
+        try {
+            autorizada = autorizacao.get();
+        } catch (RuntimeException e) {
+            liberar(chave, e);
+            emAndamento.remove(chave, nova);
+            nova.resultado().completeExceptionally(e);
+            throw e;
+        }
+        autorizada.whenComplete((status, erro) -> {
+            if (erro == null) {
+                concluir(chave, new Registro(impressao, status));
+            } else if (causa(erro) instanceof ResultadoIndeterminadoException indeterminada) {
+                reservarAteConcluir(chave, nova, indeterminada);
+            } else {
+                liberar(chave, erro);
+            }
+            // O registro em andamento só sai depois do resultado ir para o cache
+            emAndamento.remove(chave, nova);
+            if (erro == null) {
+                nova.resultado().complete(status);
+            } else {
+                nova.resultado().completeExceptionally(erro);
+            }
+        });
+        return nova.resultado().copy();
+    }
+
+    /**
+     * Reserva a chave no banco de dados.
+     *
+     * @return Vazio se a chave foi reservada para esta requisição; senão, o registro já gravado para a chave.
+     */
+    private Optional<Registro> reservar(String chave, String impressao) {
+        String hash = hash(chave);
+        Instant criadoDesde = Instant.now().minus(properties.getTtl());
+        for (int tentativa = 0; tentativa < 2; tentativa++) {
+            if (idempotenciaJdbcRepository.reservar(hash, impressao)) {
+                return Optional.empty();
+            }
+            Optional<Registro> gravada = idempotenciaJdbcRepository.buscar(hash, criadoDesde);
+            if (gravada.isPresent()) {
+                return gravada;
+            }
+            // Registro expirado ainda não removido pela limpeza periódica
+            idempotenciaJdbcRepository.removerExpirada(hash, criadoDesde);
+        }
+        // Outra instância reservou a chave entre a remoção do registro expirado e a nova tentativa
+        return Optional.of(idempotenciaJdbcRepository.buscar(hash, criadoDesde)
+                .orElse(new Registro(impressao, null)));
+    }
+
+    private CompletableFuture<StatusTransacao> repetir(
+            Registro gravada, String chave, String impressao, EmAndamento nova) {
+        RuntimeException recusa = null;
+        if (!gravada.impressao().equals(impressao)) {
+            recusa = new ChaveIdempotenciaConflitanteException();
+        } else if (gravada.emAndamento()) {
+            recusa = new TransacaoEmAndamentoException();
+        }
+        if (recusa != null) {
+            nova.resultado().completeExceptionally(recusa);
+            throw recusa;
+        }
+        concluidas.put(chave, gravada);
+        repetidas.increment();
+        nova.resultado().complete(gravada.status());
+        return CompletableFuture.completedFuture(gravada.status());
+    }
+
+    private void concluir(String chave, Registro registro) {
+        concluidas.put(chave, registro);
+        if (!properties.isPersistente()) {
+            return;
+        }
+        try {
+            idempotenciaJdbcRepository.concluir(hash(chave), registro.status());
+        } catch (RuntimeException e) {
+            // O débito já foi feito e a chave continua reservada; a retentativa é atendida pelo cache desta instância
+            logger.error("Falha ao gravar o resultado da chave de idempotência: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Mantém a chave reservada enquanto a transação original, sem resposta no tempo máximo, continua em execução. O
+     * registro em andamento passa a recusar as retentativas e só sai com a conclusão real (guardando o resultado ou
+     * liberando a chave após uma falha técnica) ou com a expiração.
+     */
+    private void reservarAteConcluir(String chave, EmAndamento nova, ResultadoIndeterminadoException indeterminada) {
+        EmAndamento reservada = new EmAndamento(nova.impressao(),
+                CompletableFuture.failedFuture(new TransacaoEmAndamentoException()));
+        if (!emAndamento.replace(chave, nova, reservada)) {
+            return;
+        }
+        indeterminada.getConclusao().whenComplete((resultado, erro) -> {
+            if (erro == null && resultado instanceof StatusTransacao status) {
+                concluir(chave, new Registro(nova.impressao(), status));
+            } else if (erro == null || causa(erro) instanceof ResultadoIndeterminadoException) {
+                // O débito ainda pode ser aplicado: a chave fica reservada até a expiração
+                return;
+            } else {
+                liberar(chave, erro);
+            }
+            emAndamento.remove(chave, reservada);
+        });
+        CompletableFuture.delayedExecutor(properties.getTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> emAndamento.remove(chave, reservada));
+    }
+
+    private void liberar(String chave, Throwable erro) {
+        // Com resultado indeterminado, o débito pode ter sido aplicado: a chave continua reservada
+        if (!properties.isPersistente() || causa(erro) instanceof ResultadoIndeterminadoException) {
+            return;
+        }
+        try {
+            idempotenciaJdbcRepository.liberar(hash(chave));
+        } catch (RuntimeException e) {
+            logger.error("Falha ao liberar a chave de idempotência: {}", e.getMessage(), e);
+        }
+    }
+
+    private void removerExpirados() {
+        try {
+            int removidos = idempotenciaJdbcRepository.removerExpirados(Instant.now().minus(properties.getTtl()));
+            logger.debug("Resultados de idempotência expirados removidos: {}", removidos);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao remover resultados de idempotência expirados: {}", e.getMessage(), e);
+        }
+    }
+
+    private static Throwable causa(Throwable erro) {
+        return erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+    }
+
+    private static Registro validar(Registro registro, String impressao) {
+        validar(registro.impressao(), impressao);
+        return registro;
+    }
+
+    private static void validar(String impressaoOriginal, String impressao) {
+        if (!impressaoOriginal.equals(impressao)) {
+            throw new ChaveIdempotenciaConflitanteException();
+        }
+    }
+
+    private static String impressao(TransacaoRequest transacaoRequest) {
+        return hash(transacaoRequest.getNumeroCartao() + ":"
+                + transacaoRequest.getValor().stripTrailingZeros().toPlainString());
+    }
+
+    private static String hash(String valor) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(valor.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record EmAndamento(String impressao, CompletableFuture<StatusTransacao> resultado) {
+    }
+}
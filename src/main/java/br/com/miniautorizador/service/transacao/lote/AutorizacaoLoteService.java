@@ -0,0 +1,109 @@
+package br.com.miniautorizador.service.transacao.lote;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.pin.PinExecutor;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
+import br.com.miniautorizador.infrastructure.repository.CartaoJdbcRepository;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Serviço responsável por autorizar um conjunto de débitos com poucas idas ao banco de dados.
+ * <p>
+ * As senhas de todos os cartões são lidas em uma única consulta e validadas em paralelo, fora da transação. Os débitos
+ * autorizados são aplicados em uma única transação, com um batch de UPDATEs condicionais agrupados por cartão. Com
+ * os cartões distribuídos em shards, quem chama separa os débitos por shard ({@code TopologiaShards.porShard}), e
+ * cada chamada acessa um único shard.
+ *
+ * @author Fabiana Costa
+ */
+@Service
+public class AutorizacaoLoteService {
+    private final CartaoJdbcRepository cartaoJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PinVerificador pinVerificador;
+    private final PinExecutor pinExecutor;
+    private final SaldoCache saldoCache;
+
+    @Autowired
+    public AutorizacaoLoteService(
+            CartaoJdbcRepository cartaoJdbcRepository,
+            TransactionTemplate transactionTemplate,
+            PinVerificador pinVerificador,
+            PinExecutor pinExecutor,
+            SaldoCache saldoCache) {
+        this.cartaoJdbcRepository = cartaoJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.pinVerificador = pinVerificador;
+        this.pinExecutor = pinExecutor;
+        this.saldoCache = saldoCache;
+    }
+
+    /**
+     * Autoriza os débitos com um único commit. Débitos do mesmo cartão são aplicados na ordem recebida.
+     *
+     * @param transacoes Débitos a autorizar, já validados.
+     * @return Resultado de cada débito, na ordem da lista.
+     */
+    public StatusTransacao[] autorizar(List<TransacaoRequest> transacoes) {
+        Set<Long> numeros = new HashSet<>();
+        transacoes.forEach(transacao -> numeros.add(transacao.numero()));
+        Map<Long, String> senhas = cartaoJdbcRepository.buscarSenhas(numeros);
+
+        // As senhas são verificadas em paralelo no pool de PIN, uma partição por núcleo; nulo indica senha conferida,
+        // com o débito ainda a aplicar
+        List<StatusTransacao> verificacoes = pinExecutor.mapear(transacoes, transacao -> {
+            String senhaHash = senhas.get(transacao.numero());
+            if (senhaHash == null) {
+                return StatusTransacao.CARTAO_INEXISTENTE;
+            }
+            return pinVerificador.verificar(transacao.numero(), transacao.getSenhaCartao(), senhaHash)
+                    ? null
+                    : StatusTransacao.SENHA_INVALIDA;
+        });
+        StatusTransacao[] resultados = verificacoes.toArray(new StatusTransacao[0]);
+        List<Integer> indices = new ArrayList<>(transacoes.size());
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == null) {
+                indices.add(i);
+            }
+        }
+        if (indices.isEmpty()) {
+            return resultados;
+        }
+        // A ordenação estável agrupa os débitos do mesmo cartão sem mudar a ordem entre eles, e faz lotes
+        // concorrentes travarem as linhas na mesma ordem, sem deadlock entre si
+        indices.sort(Comparator.comparingLong(indice -> transacoes.get(indice).numero()));
+        List<CartaoJdbcRepository.Debito> debitos = indices.stream()
+                .map(indice -> new CartaoJdbcRepository.Debito(
+                        transacoes.get(indice).numero(), transacoes.get(indice).getValor()))
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean[] aprovados = cartaoJdbcRepository.debitarSaldos(debitos);
+            Map<Long, CartaoJdbcRepository.MigracaoSenha> migracoes = new LinkedHashMap<>();
+            Set<Long> debitados = new HashSet<>();
+            for (int i = 0; i < aprovados.length; i++) {
+                int indice = indices.get(i);
+                TransacaoRequest transacao = transacoes.get(indice);
+                resultados[indice] = aprovados[i] ? StatusTransacao.OK : StatusTransacao.SALDO_INSUFICIENTE;
+                if (aprovados[i]) {
+                    debitados.add(transacao.numero());
+                }
+                String senhaHash = senhas.get(transacao.numero());
+                if (aprovados[i] && pinVerificador.precisaMigrar(senhaHash)) {
+                    migracoes.computeIfAbsent(transacao.numero(), numero -> new CartaoJdbcRepository.MigracaoSenha(
+                            numero, senhaHash, pinVerificador.gerarHash(numero, transacao.getSenhaCartao())));
+                }
+            }
+            cartaoJdbcRepository.atualizarSenhas(new ArrayList<>(migracoes.values()));
+            saldoCache.registrarAlteracao(debitados);
+        });
+        return resultados;
+    }
+}
@@ -0,0 +1,211 @@
+package br.com.miniautorizador.service.transacao.lote;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Agrupa débitos concorrentes em lotes aplicados em uma única transação (group commit).
+ * <p>
+ * Uma thread dedicada espera o primeiro débito, reúne os que chegarem dentro da janela configurada (ou até o tamanho
+ * máximo do lote) e aplica todos pelo {@link AutorizacaoLoteService}, com um único commit.
+ * Cada chamador recebe o resultado do seu próprio débito. Sob carga, a quantidade de commits por segundo cai na
+ * proporção do tamanho médio dos lotes, sem mudar o contrato da API. Com os cartões distribuídos em shards, o lote é
+ * separado por shard, com um commit em cada um.
+ * <p>
+ * Um débito sem resultado dentro de {@link DebitoLoteProperties#getTimeoutResposta()} é retirado do lote se ainda não
+ * foi reivindicado pela thread do lote, e recusado com {@link ServicoOcupadoException}; se já foi, pode ter sido
+ * aplicado, e termina com {@link ResultadoIndeterminadoException}.
+ *
+ * @author Fabiana Costa
+ */
+@Service
+@ConditionalOnProperty(prefix = "miniautorizador.lote-debito", name = "habilitado", havingValue = "true")
+public class DebitoEmLoteService implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(DebitoEmLoteService.class);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final DebitoLoteProperties properties;
+    private final AutorizacaoLoteService autorizacaoLoteService;
+    private final TopologiaShards topologiaShards;
+    private final BlockingQueue<Pedido> fila;
+    private final DistributionSummary tamanhoLote;
+    private final Thread thread;
+    private volatile boolean ativo = true;
+
+    @Autowired
+    public DebitoEmLoteService(
+            DebitoLoteProperties properties,
+            AutorizacaoLoteService autorizacaoLoteService,
+            MeterRegistry meterRegistry,
+            TopologiaShards topologiaShards) {
+        this.properties = properties;
+        this.autorizacaoLoteService = autorizacaoLoteService;
+        this.topologiaShards = topologiaShards;
+        this.fila = new ArrayBlockingQueue<>(properties.getCapacidadeFila());
+        this.tamanhoLote = DistributionSummary.builder("miniautorizador.lote-debito.tamanho")
+                .description("Quantidade de débitos aplicados por commit")
+                .register(meterRegistry);
+        this.thread = new Thread(this, "debito-lote");
+        this.thread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        thread.start();
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        ativo = false;
+        thread.join();
+    }
+
+    /**
+     * Realiza o débito no próximo lote.
+     *
+     * @param transacaoRequest Dados da transação.
+     * @return Resultado da autorização.
+     */
+    public StatusTransacao debitar(TransacaoRequest transacaoRequest) {
+        Objects.requireNonNull(transacaoRequest, "Request não pode ser nula.");
+        Objects.requireNonNull(transacaoRequest.getNumeroCartao(), "O número do cartão deve ser informado.");
+        Objects.requireNonNull(transacaoRequest.getSenhaCartao(), "A senha do cartão deve ser informada.");
+        Objects.requireNonNull(transacaoRequest.getValor(), "O valor a ser debitado deve ser informado.");
+        Pedido pedido = new Pedido(transacaoRequest);
+        try {
+            if (!ativo || !fila.offer(pedido, properties.getTimeoutFila().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new CannotAcquireLockException("Fila de débitos em lote cheia.");
+            }
+            return pedido.resultado.get(properties.getTimeoutResposta().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o débito em lote.", e);
+        } catch (TimeoutException e) {
+            if (pedido.reivindicar()) {
+                // A thread do lote ainda não pegou o débito e não vai mais aplicá-lo
+                throw new ServicoOcupadoException("Tempo esgotado aguardando o débito em lote.", RETRY_AFTER);
+            }
+            throw new ResultadoIndeterminadoException("Débito em lote sem resultado dentro do tempo máximo.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Pedido> lote = new ArrayList<>(properties.getTamanhoMaximo());
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Pedido primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                reunir(lote);
+                processar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ativo = false;
+            } catch (RuntimeException e) {
+                // Uma falha inesperada não pode encerrar a thread do lote e deixar a fila sem consumidor
+                logger.error("Falha inesperada ao processar lote de {} débitos", lote.size(), e);
+                lote.forEach(pedido -> pedido.resultado.completeExceptionally(e));
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Completa o lote com os débitos que chegarem até o fim da janela ou até o tamanho máximo.
+     */
+    private void reunir(List<Pedido> lote) throws InterruptedException {
+        long limite = System.nanoTime() + properties.getJanela().toNanos();
+        while (lote.size() < properties.getTamanhoMaximo()) {
+            if (fila.drainTo(lote, properties.getTamanhoMaximo() - lote.size()) > 0) {
+                continue;
+            }
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                return;
+            }
+            Pedido pedido = fila.poll(restante, TimeUnit.NANOSECONDS);
+            if (pedido == null) {
+                return;
+            }
+            lote.add(pedido);
+        }
+    }
+
+    private void processar(List<Pedido> lote) {
+        // Débitos cujo chamador já desistiu ficam fora do lote
+        lote.removeIf(pedido -> !pedido.reivindicar());
+        if (lote.isEmpty()) {
+            return;
+        }
+        // Cada shard tem o seu commit; a falha em um shard não afeta os débitos já aplicados nos outros
+        topologiaShards.porShard(lote, pedido -> pedido.transacao.numero(),
+                (shard, grupo) -> processarShard(grupo));
+    }
+
+    private void processarShard(List<Pedido> lote) {
+        try {
+            StatusTransacao[] resultados = autorizacaoLoteService.autorizar(
+                    lote.stream().map(pedido -> pedido.transacao).toList());
+            tamanhoLote.record(lote.size());
+            for (int i = 0; i < lote.size(); i++) {
+                lote.get(i).resultado.complete(resultados[i]);
+            }
+        } catch (TransientDataAccessException e) {
+            // Nenhum débito do lote foi aplicado; cada chamador decide pela retentativa
+            lote.forEach(pedido -> pedido.resultado.completeExceptionally(e));
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                lote.get(0).resultado.completeExceptionally(e);
+                return;
+            }
+            // Isola o débito que causou a falha para não recusar os demais
+            logger.warn("Falha ao aplicar lote de {} débitos, reaplicando individualmente", lote.size(), e);
+            lote.forEach(pedido -> processarShard(List.of(pedido)));
+        }
+    }
+
+    private static final class Pedido {
+        private final TransacaoRequest transacao;
+        private final CompletableFuture<StatusTransacao> resultado = new CompletableFuture<>();
+        private final AtomicBoolean reivindicado = new AtomicBoolean();
+
+        private Pedido(TransacaoRequest transacao) {
+            this.transacao = transacao;
+        }
+
+        /**
+         * Reivindica o débito para a thread do lote ou para o chamador que desistiu; só o primeiro consegue.
+         */
+        private boolean reivindicar() {
+            return !resultado.isDone() && reivindicado.compareAndSet(false, true);
+        }
+    }
+}
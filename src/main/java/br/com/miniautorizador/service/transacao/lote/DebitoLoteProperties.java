@@ -0,0 +1,52 @@
+package br.com.miniautorizador.service.transacao.lote;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do agrupamento de débitos em lotes gravados em uma única transação (group commit).
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.lote-debito")
+public class DebitoLoteProperties {
+    /**
+     * Habilita o agrupamento de débitos.
+     */
+    private boolean habilitado = false;
+
+    /**
+     * Tempo máximo de espera por mais débitos depois que o primeiro débito do lote chega.
+     */
+    private Duration janela = Duration.ofMillis(2);
+
+    /**
+     * Quantidade máxima de débitos por lote; o lote é fechado antes da janela quando atinge esse tamanho.
+     */
+    private int tamanhoMaximo = 64;
+
+    /**
+     * Capacidade da fila de débitos aguardando lote.
+     */
+    private int capacidadeFila = 4_096;
+
+    /**
+     * Tempo máximo para enfileirar um débito com a fila cheia.
+     */
+    private Duration timeoutFila = Duration.ofMillis(100);
+
+    /**
+     * Tempo máximo de espera pelo resultado do lote.
+     */
+    private Duration timeoutResposta = Duration.ofSeconds(5);
+
+    /**
+     * Quantidade de transações do endpoint de lote aplicadas em cada commit. Vale mesmo sem o agrupamento habilitado.
+     */
+    private int tamanhoBloco = 1_000;
+}
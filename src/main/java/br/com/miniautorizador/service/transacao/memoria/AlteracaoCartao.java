@@ -0,0 +1,18 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import java.math.BigDecimal;
+
+/**
+ * Cópia imutável do estado de um cartão alterado, a ser gravada no banco de dados.
+ *
+ * @param numeroCartao  Número do cartão.
+ * @param saldo         Saldo absoluto do cartão.
+ * @param senhaAnterior Hash legado da senha, quando houver migração pendente.
+ * @param senha         Novo hash da senha, quando houver migração pendente.
+ */
+record AlteracaoCartao(long numeroCartao, BigDecimal saldo, String senhaAnterior, String senha) {
+
+    boolean migraSenha() {
+        return senhaAnterior != null;
+    }
+}
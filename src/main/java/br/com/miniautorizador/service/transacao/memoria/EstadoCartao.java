@@ -0,0 +1,43 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Estado de um cartão mantido pela thread dona do shard. Não deve ser compartilhado com outras threads.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+class EstadoCartao {
+    private String senha;
+    private BigDecimal saldo;
+    /**
+     * Hash legado ainda gravado no banco de dados, enquanto a senha migrada não é persistida.
+     */
+    private String senhaAnterior;
+
+    EstadoCartao(String senha, BigDecimal saldo) {
+        this.senha = senha;
+        this.saldo = saldo;
+    }
+
+    EstadoCartao copiar() {
+        EstadoCartao copia = new EstadoCartao(senha, saldo);
+        copia.setSenhaAnterior(senhaAnterior);
+        return copia;
+    }
+
+    void restaurar(EstadoCartao anterior) {
+        this.senha = anterior.senha;
+        this.saldo = anterior.saldo;
+        this.senhaAnterior = anterior.senhaAnterior;
+    }
+
+    AlteracaoCartao paraAlteracao(long numeroCartao) {
+        return new AlteracaoCartao(numeroCartao, saldo, senhaAnterior, senhaAnterior == null ? null : senha);
+    }
+}
@@ -0,0 +1,164 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Journal em segmentos com o saldo absoluto de cada débito aprovado por um shard.
+ * <p>
+ * Cada linha guarda o número do cartão e o saldo resultante. Como o saldo é absoluto, reaplicar um segmento já
+ * gravado no banco de dados é idempotente: na recuperação basta aplicar o último saldo de cada cartão, em ordem de
+ * segmento. Um segmento é rotacionado quando seus saldos são entregues para gravação e apagado após o commit.
+ *
+ * @author Fabiana Costa
+ */
+class JournalSaldo implements AutoCloseable {
+    private static final String EXTENSAO = ".journal";
+
+    private final Path diretorio;
+    private final int shard;
+    private final boolean sincronizar;
+    private long sequencia;
+    private Path segmentoAtual;
+    private FileChannel canal;
+
+    JournalSaldo(Path diretorio, int shard, boolean sincronizar) {
+        this.diretorio = diretorio;
+        this.shard = shard;
+        this.sincronizar = sincronizar;
+        abrirSegmento();
+    }
+
+    /**
+     * Grava as linhas do lote no segmento atual, forçando a escrita em disco quando configurado.
+     *
+     * @param alteracoes Saldos resultantes dos débitos aprovados no lote.
+     * @throws IOException Caso a escrita falhe; os débitos do lote não devem ser confirmados.
+     */
+    void registrar(List<AlteracaoCartao> alteracoes) throws IOException {
+        if (alteracoes.isEmpty()) {
+            return;
+        }
+        StringBuilder linhas = new StringBuilder(alteracoes.size() * 32);
+        for (AlteracaoCartao alteracao : alteracoes) {
+            linhas.append(alteracao.numeroCartao()).append(';').append(alteracao.saldo().toPlainString()).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(linhas.toString().getBytes(StandardCharsets.US_ASCII));
+        long posicao = canal.size();
+        try {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            if (sincronizar) {
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            // Descarta a escrita parcial para que o próximo lote não fique colado a uma linha incompleta
+            try {
+                canal.truncate(posicao);
+            } catch (IOException suprimida) {
+                e.addSuppressed(suprimida);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fecha o segmento atual e abre o próximo.
+     *
+     * @return Caminho do segmento fechado.
+     */
+    Path rotacionar() {
+        Path fechado = segmentoAtual;
+        fecharCanal();
+        abrirSegmento();
+        return fechado;
+    }
+
+    @Override
+    public void close() {
+        fecharCanal();
+        try {
+            if (Files.size(segmentoAtual) == 0) {
+                Files.delete(segmentoAtual);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lê todos os segmentos do diretório e devolve o último saldo registrado de cada cartão.
+     *
+     * @param diretorio Diretório do journal.
+     * @return Segmentos encontrados e o último saldo de cada cartão.
+     */
+    static Recuperacao recuperar(Path diretorio) {
+        try {
+            Files.createDirectories(diretorio);
+            List<Path> segmentos = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio, "*" + EXTENSAO)) {
+                stream.forEach(segmentos::add);
+            }
+            // O nome do segmento tem shard e sequência com zeros à esquerda, então a ordem lexicográfica é a de escrita
+            segmentos.sort(Comparator.comparing(Path::toString));
+            Map<Long, BigDecimal> saldos = new HashMap<>();
+            for (Path segmento : segmentos) {
+                String conteudo = Files.readString(segmento, StandardCharsets.US_ASCII);
+                // Só linhas terminadas são consideradas: uma escrita interrompida nunca foi confirmada ao cliente
+                int inicio = 0;
+                int fim;
+                while ((fim = conteudo.indexOf('\n', inicio)) >= 0) {
+                    String linha = conteudo.substring(inicio, fim);
+                    int separador = linha.indexOf(';');
+                    // Segmentos anteriores ao número compacto têm o número com 16 dígitos; o valor é o mesmo
+                    saldos.put(Long.parseLong(linha.substring(0, separador)),
+                            new BigDecimal(linha.substring(separador + 1)));
+                    inicio = fim + 1;
+                }
+            }
+            return new Recuperacao(segmentos, saldos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o journal de saldos [" + diretorio + "].", e);
+        }
+    }
+
+    static void apagar(Path segmento) {
+        try {
+            Files.deleteIfExists(segmento);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void abrirSegmento() {
+        try {
+            Files.createDirectories(diretorio);
+            segmentoAtual = diretorio.resolve(String.format("shard-%04d-%019d%s", shard, sequencia++, EXTENSAO));
+            canal = FileChannel.open(segmentoAtual, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o segmento de journal do shard " + shard + ".", e);
+        }
+    }
+
+    private void fecharCanal() {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record Recuperacao(List<Path> segmentos, Map<Long, BigDecimal> saldos) {
+    }
+}
@@ -0,0 +1,321 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Motor de autorização com saldo em memória, particionado em shards com uma única thread escritora cada.
+ * <p>
+ * Cada cartão pertence sempre ao mesmo shard, cuja thread é a única a ler e alterar seu saldo. Débitos do mesmo
+ * cartão ficam em fila, sem locks de linha nem retentativas, e o banco de dados deixa de ficar no caminho crítico:
+ * a resposta é dada após o registro do lote no journal local, e os saldos são gravados na tabela de cartões em
+ * segundo plano (write-behind). Na inicialização, saldos do journal ainda não gravados são aplicados antes de
+ * qualquer débito.
+ * <p>
+ * A senha é verificada na thread do chamador, antes do débito entrar na fila do shard, e os cartões fora da memória dos
+ * shards também são lidos do banco de dados na thread do chamador. Um débito sem resposta dentro de
+ * {@link MotorSaldoProperties#getTimeoutResposta()} é descartado se o shard ainda não o pegou, e recusado com
+ * {@link ServicoOcupadoException}; se já pegou, pode ter sido aplicado, e termina com
+ * {@link ResultadoIndeterminadoException}.
+ * <p>
+ * O motor assume ser o único escritor de saldos na tabela de cartões, portanto só deve ser habilitado com uma única
+ * instância da aplicação.
+ *
+ * @author Fabiana Costa
+ */
+@Service
+@ConditionalOnProperty(prefix = "miniautorizador.motor-memoria", name = "habilitado", havingValue = "true")
+public class MotorSaldoMemoria {
+    private static final Logger logger = LoggerFactory.getLogger(MotorSaldoMemoria.class);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+    private static final int MAXIMO_CARGAS = 3;
+
+    private final MotorSaldoProperties properties;
+    private final PersistenciaSaldo persistencia;
+    private final PinVerificador pinVerificador;
+    private final Queue<ShardSaldo.LoteGravacao> pendentes = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService gravador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "motor-saldo-gravador");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ShardSaldo[] shards;
+
+    @Autowired
+    public MotorSaldoMemoria(
+            MotorSaldoProperties properties,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PinVerificador pinVerificador) {
+        this.properties = properties;
+        this.persistencia = new PersistenciaSaldo(jdbcTemplate, transactionTemplate);
+        this.pinVerificador = pinVerificador;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        recuperarJournal();
+        int quantidade = properties.getShards() > 0
+                ? properties.getShards()
+                : Runtime.getRuntime().availableProcessors();
+        shards = new ShardSaldo[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            shards[i] = new ShardSaldo(i, properties, pinVerificador, pendentes::add);
+            shards[i].iniciar();
+        }
+        long intervalo = properties.getIntervaloFlush().toMillis();
+        gravador.scheduleWithFixedDelay(this::gravarPendentes, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        logger.info("Motor de saldo em memória iniciado com {} shards", quantidade);
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        for (ShardSaldo shard : shards) {
+            shard.encerrar();
+        }
+        gravador.shutdown();
+        gravador.awaitTermination(properties.getTimeoutResposta().toMillis(), TimeUnit.MILLISECONDS);
+        gravarPendentes();
+        if (!pendentes.isEmpty()) {
+            logger.warn("{} lotes de saldo não foram gravados e serão recuperados do journal", pendentes.size());
+        }
+    }
+
+    /**
+     * Realiza o débito no shard dono do cartão.
+     *
+     * @param transacaoRequest Dados da transação.
+     * @return Resultado da autorização.
+     */
+    public StatusTransacao debitar(TransacaoRequest transacaoRequest) {
+        Objects.requireNonNull(transacaoRequest, "Request não pode ser nula.");
+        Objects.requireNonNull(transacaoRequest.getNumeroCartao(), "O número do cartão deve ser informado.");
+        Objects.requireNonNull(transacaoRequest.getSenhaCartao(), "A senha do cartão deve ser informada.");
+        Objects.requireNonNull(transacaoRequest.getValor(), "O valor a ser debitado deve ser informado.");
+        return debitar(transacaoRequest.numero(), transacaoRequest.getSenhaCartao(), transacaoRequest.getValor());
+    }
+
+    /**
+     * Realiza o débito no shard dono do cartão.
+     *
+     * @return Resultado da autorização.
+     */
+    public StatusTransacao debitar(long numeroCartao, String senha, BigDecimal valor) {
+        Optional<String> hash = executar(numeroCartao, carga -> new ShardSaldo.ConsultaSenha(numeroCartao, carga),
+                Optional.empty(), properties.getTimeoutFila());
+        ShardSaldo.Debito debito = preparar(numeroCartao, senha, valor, hash);
+        if (debito.resultado.isDone()) {
+            return aguardar(debito);
+        }
+        return executar(numeroCartao, debito::comCarga, StatusTransacao.CARTAO_INEXISTENTE,
+                properties.getTimeoutFila());
+    }
+
+    /**
+     * Realiza vários débitos, enfileirando todos antes de aguardar as respostas para que os shards os processem em
+     * poucos lotes.
+     *
+     * @param transacoes Débitos a realizar, já validados.
+     * @return Resultado de cada débito, na ordem da lista. Um débito que falhou termina com a exceção, sem afetar os
+     * demais: {@link ResultadoIndeterminadoException} se pode ter sido aplicado; qualquer outra se não foi.
+     */
+    public List<CompletableFuture<StatusTransacao>> debitar(List<TransacaoRequest> transacoes) {
+        // Com a fila cheia, espera o shard consumir em vez de recusar um débito no meio da lista
+        List<ShardSaldo.ConsultaSenha> consultas = new ArrayList<>(transacoes.size());
+        for (TransacaoRequest transacao : transacoes) {
+            ShardSaldo.ConsultaSenha consulta = new ShardSaldo.ConsultaSenha(transacao.numero(), null);
+            try {
+                enfileirar(consulta, properties.getTimeoutResposta());
+            } catch (RuntimeException e) {
+                consulta.falhar(e);
+            }
+            consultas.add(consulta);
+        }
+        List<ShardSaldo.Debito> debitos = new ArrayList<>(transacoes.size());
+        for (int i = 0; i < transacoes.size(); i++) {
+            TransacaoRequest transacao = transacoes.get(i);
+            long numeroCartao = transacao.numero();
+            ShardSaldo.Debito debito;
+            try {
+                Optional<String> hash = aguardarCarregando(consultas.get(i),
+                        carga -> new ShardSaldo.ConsultaSenha(numeroCartao, carga), Optional.empty(),
+                        properties.getTimeoutResposta());
+                debito = preparar(numeroCartao, transacao.getSenhaCartao(), transacao.getValor(), hash);
+                if (!debito.resultado.isDone()) {
+                    enfileirar(debito, properties.getTimeoutResposta());
+                }
+            } catch (RuntimeException e) {
+                debito = ShardSaldo.Debito.falho(transacao.numero(), e);
+            }
+            debitos.add(debito);
+        }
+        List<CompletableFuture<StatusTransacao>> resultados = new ArrayList<>(debitos.size());
+        for (ShardSaldo.Debito debito : debitos) {
+            try {
+                resultados.add(CompletableFuture.completedFuture(aguardarCarregando(debito, debito::comCarga,
+                        StatusTransacao.CARTAO_INEXISTENTE, properties.getTimeoutResposta())));
+            } catch (RuntimeException e) {
+                resultados.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Consulta o saldo corrente do cartão, incluindo débitos ainda não gravados no banco de dados.
+     *
+     * @return Saldo do cartão, ou vazio se o cartão não existir.
+     */
+    public Optional<BigDecimal> consultarSaldo(long numeroCartao) {
+        return executar(numeroCartao, carga -> new ShardSaldo.Consulta(numeroCartao, carga), Optional.empty(),
+                properties.getTimeoutFila());
+    }
+
+    /**
+     * Executa um evento no shard do cartão. Se o cartão está fora da memória do shard, ele é lido do banco de dados
+     * nesta thread e enviado em um novo evento, para que a leitura não atrase os demais cartões do shard.
+     *
+     * @param criar       Cria o evento, com o cartão lido do banco de dados ou, na primeira tentativa, sem ele.
+     * @param inexistente Resultado quando o cartão não existe no banco de dados.
+     */
+    private <T> T executar(long numeroCartao, Function<ShardSaldo.Carga, ShardSaldo.Evento<T>> criar, T inexistente,
+                           Duration timeoutFila) {
+        ShardSaldo.Evento<T> evento = criar.apply(null);
+        enfileirar(evento, timeoutFila);
+        return aguardarCarregando(evento, criar, inexistente, timeoutFila);
+    }
+
+    /**
+     * Aguarda o evento já enfileirado e o repete com o cartão lido do banco de dados se ele estava fora da memória.
+     * Cada nova falta só acontece se outro cartão do mesmo grupo foi descartado durante a leitura.
+     */
+    private <T> T aguardarCarregando(ShardSaldo.Evento<T> evento,
+                                     Function<ShardSaldo.Carga, ShardSaldo.Evento<T>> criar, T inexistente,
+                                     Duration timeoutFila) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return aguardar(evento);
+            } catch (ShardSaldo.CartaoNaoCarregadoException e) {
+                if (tentativa > MAXIMO_CARGAS) {
+                    throw new ServicoOcupadoException("Cartão descartado da memória do motor de saldo durante a "
+                            + "leitura.", RETRY_AFTER);
+                }
+                Optional<EstadoCartao> estado = persistencia.carregar(evento.numeroCartao);
+                if (estado.isEmpty()) {
+                    // Cartões inexistentes não ficam em memória, pois podem ser criados depois por outra requisição
+                    return inexistente;
+                }
+                evento = criar.apply(new ShardSaldo.Carga(estado.get(), e.marca));
+                enfileirar(evento, timeoutFila);
+            }
+        }
+    }
+
+    private void enfileirar(ShardSaldo.Evento<?> evento, Duration timeout) {
+        ShardSaldo shard = shards[Math.floorMod(Long.hashCode(evento.numeroCartao), shards.length)];
+        boolean aceito;
+        try {
+            aceito = shard.enfileirar(evento, timeout.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrompido ao enfileirar a transação do cartão.", e);
+        }
+        if (!aceito) {
+            throw new CannotAcquireLockException("Fila de transações do cartão cheia.");
+        }
+    }
+
+    /**
+     * Verifica a senha contra o hash consultado no shard, fora da thread do shard, e gera o novo hash se o atual
+     * precisa ser migrado.
+     *
+     * @return Débito a enfileirar, ou débito já recusado.
+     */
+    private ShardSaldo.Debito preparar(long numeroCartao, String senha, BigDecimal valor, Optional<String> hash) {
+        if (hash.isEmpty()) {
+            return ShardSaldo.Debito.recusado(numeroCartao, StatusTransacao.CARTAO_INEXISTENTE);
+        }
+        if (!pinVerificador.verificar(numeroCartao, senha, hash.get())) {
+            return ShardSaldo.Debito.recusado(numeroCartao, StatusTransacao.SENHA_INVALIDA);
+        }
+        String senhaMigrada = pinVerificador.precisaMigrar(hash.get())
+                ? pinVerificador.gerarHash(numeroCartao, senha)
+                : null;
+        return new ShardSaldo.Debito(numeroCartao, null, senha, hash.get(), senhaMigrada, valor);
+    }
+
+    private <T> T aguardar(ShardSaldo.Evento<T> evento) {
+        try {
+            return evento.resultado.get(properties.getTimeoutResposta().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando a resposta do motor de saldo.", e);
+        } catch (TimeoutException e) {
+            // Consultas podem ser repetidas; um débito só pode se ainda não foi pego pelo shard
+            if (!(evento instanceof ShardSaldo.Debito) || evento.reivindicar()) {
+                throw new ServicoOcupadoException("Tempo esgotado aguardando a resposta do motor de saldo.",
+                        RETRY_AFTER);
+            }
+            throw new ResultadoIndeterminadoException("Débito sem resposta do motor de saldo dentro do tempo máximo.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Grava os lotes pendentes em ordem de chegada. Em caso de falha, o lote permanece na fila e a gravação é
+     * retentada no próximo ciclo, preservando a ordem dos saldos de cada cartão.
+     */
+    private void gravarPendentes() {
+        ShardSaldo.LoteGravacao lote;
+        while ((lote = pendentes.peek()) != null) {
+            try {
+                persistencia.gravar(lote.alteracoes());
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao gravar {} saldos do motor em memória; nova tentativa no próximo ciclo",
+                        lote.alteracoes().size(), e);
+                return;
+            }
+            JournalSaldo.apagar(lote.segmento());
+            pendentes.poll();
+            lote.gravacao().complete(null);
+        }
+    }
+
+    private void recuperarJournal() {
+        Path diretorio = Path.of(properties.getDiretorioJournal());
+        JournalSaldo.Recuperacao recuperacao = JournalSaldo.recuperar(diretorio);
+        if (!recuperacao.saldos().isEmpty()) {
+            persistencia.gravarSaldos(recuperacao.saldos());
+            logger.info("Recuperados {} saldos do journal em {}", recuperacao.saldos().size(), diretorio);
+        }
+        recuperacao.segmentos().forEach(JournalSaldo::apagar);
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuração do motor de autorização com saldo em memória.
+ *
+ * @author Fabiana Costa
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "miniautorizador.motor-memoria")
+public class MotorSaldoProperties {
+    /**
+     * Habilita o motor. Deve ser usado com uma única instância da aplicação escrevendo na tabela de cartões.
+     */
+    private boolean habilitado = false;
+
+    /**
+     * Quantidade de shards, cada um com uma thread dona. Zero usa a quantidade de núcleos disponíveis.
+     */
+    private int shards = 0;
+
+    /**
+     * Quantidade máxima de cartões em memória em cada shard. Acima dela, os menos usados já gravados no banco de dados
+     * são descartados e lidos de novo quando voltam a ser usados.
+     */
+    private int cartoesPorShard = 100_000;
+
+    /**
+     * Capacidade da fila de eventos de cada shard.
+     */
+    private int capacidadeFila = 4_096;
+
+    /**
+     * Quantidade máxima de eventos processados por lote, com uma única escrita no journal.
+     */
+    private int tamanhoLote = 256;
+
+    /**
+     * Tempo máximo para enfileirar um evento em um shard com a fila cheia.
+     */
+    private Duration timeoutFila = Duration.ofMillis(100);
+
+    /**
+     * Tempo máximo de espera pela resposta do shard.
+     */
+    private Duration timeoutResposta = Duration.ofSeconds(5);
+
+    /**
+     * Intervalo de gravação em lote dos saldos alterados na tabela de cartões.
+     */
+    private Duration intervaloFlush = Duration.ofMillis(100);
+
+    /**
+     * Diretório dos segmentos de journal com os saldos ainda não gravados no banco de dados.
+     */
+    private String diretorioJournal = "journal";
+
+    /**
+     * Força a gravação do journal em disco (fsync) a cada lote antes de responder.
+     */
+    private boolean sincronizarJournal = true;
+}
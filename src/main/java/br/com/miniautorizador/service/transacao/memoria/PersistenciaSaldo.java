@@ -0,0 +1,72 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Acesso JDBC do motor de saldo em memória à tabela de cartões.
+ *
+ * @author Fabiana Costa
+ */
+class PersistenciaSaldo {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    PersistenciaSaldo(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    Optional<EstadoCartao> carregar(long numeroCartao) {
+        List<EstadoCartao> cartoes = jdbcTemplate.query(
+                "SELECT senha, saldo FROM cartoes WHERE numero_cartao = ?",
+                (rs, linha) -> new EstadoCartao(rs.getString("senha"), rs.getBigDecimal("saldo")),
+                numeroCartao);
+        return cartoes.stream().findFirst();
+    }
+
+    /**
+     * Grava, em uma única transação e com batch JDBC, o estado absoluto dos cartões alterados.
+     *
+     * @param alteracoes Estado dos cartões a gravar.
+     */
+    void gravar(Collection<AlteracaoCartao> alteracoes) {
+        List<AlteracaoCartao> migracoes = alteracoes.stream().filter(AlteracaoCartao::migraSenha).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE cartoes SET saldo = ?, version = version + 1 WHERE numero_cartao = ?",
+                    alteracoes, alteracoes.size(),
+                    (ps, alteracao) -> {
+                        ps.setBigDecimal(1, alteracao.saldo());
+                        ps.setLong(2, alteracao.numeroCartao());
+                    });
+            if (!migracoes.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "UPDATE cartoes SET senha = ?, version = version + 1 WHERE numero_cartao = ? AND senha = ?",
+                        migracoes, migracoes.size(),
+                        (ps, alteracao) -> {
+                            ps.setString(1, alteracao.senha());
+                            ps.setLong(2, alteracao.numeroCartao());
+                            ps.setString(3, alteracao.senhaAnterior());
+                        });
+            }
+        });
+    }
+
+    /**
+     * Grava os saldos recuperados do journal.
+     *
+     * @param saldos Último saldo de cada cartão.
+     */
+    void gravarSaldos(Map<Long, BigDecimal> saldos) {
+        gravar(saldos.entrySet().stream()
+                .map(saldo -> new AlteracaoCartao(saldo.getKey(), saldo.getValue(), null, null))
+                .toList());
+    }
+}
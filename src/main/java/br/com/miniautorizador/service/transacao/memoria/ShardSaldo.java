@@ -0,0 +1,386 @@
+package br.com.miniautorizador.service.transacao.memoria;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Shard do motor de saldo em memória, com uma única thread dona do estado dos seus cartões.
+ * <p>
+ * Os eventos chegam por uma fila circular limitada e são consumidos em lotes: a thread aplica todos os eventos do
+ * lote, grava os saldos aprovados no journal com uma única escrita e só então responde aos chamadores. Como apenas
+ * essa thread lê e altera o estado, não há locks nem conflitos entre débitos do mesmo cartão.
+ * <p>
+ * A senha é verificada pelo chamador antes do débito entrar na fila, contra o hash consultado no shard, para que o
+ * custo da verificação não bloqueie os demais cartões do shard. Pelo mesmo motivo, um cartão fora da memória não é
+ * lido do banco de dados pela thread do shard: o evento falha com {@link CartaoNaoCarregadoException} e o chamador
+ * lê o cartão e o envia em um novo evento.
+ * <p>
+ * A memória é limitada a {@link MotorSaldoProperties#getCartoesPorShard()} cartões; acima disso, os menos usados são
+ * descartados, exceto os com saldo ainda não gravado no banco de dados. Cada descarte incrementa a marca do seu
+ * grupo de cartões, e um cartão lido pelo chamador só é aceito se a marca do grupo não mudou desde a falta: caso
+ * contrário, o cartão pode ter sido carregado, debitado, gravado e descartado depois da leitura, que está defasada.
+ *
+ * @author Fabiana Costa
+ */
+class ShardSaldo implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(ShardSaldo.class);
+    private static final int BITS_GRUPO_DESCARTE = 10;
+    private static final int MAXIMO_VERIFICACOES_DESCARTE = 64;
+
+    private final int id;
+    private final BlockingQueue<Evento<?>> fila;
+    // Em ordem de acesso, do menos para o mais usado
+    private final Map<Long, EstadoCartao> cartoes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, EstadoCartao> alterados = new HashMap<>();
+    // Último lote entregue para gravação com cada cartão, enquanto a gravação não termina
+    private final Map<Long, LoteGravacao> emGravacao = new HashMap<>();
+    private final Deque<LoteGravacao> entregues = new ArrayDeque<>();
+    private final long[] marcasDescarte = new long[1 << BITS_GRUPO_DESCARTE];
+    private final JournalSaldo journal;
+    private final PinVerificador pinVerificador;
+    private final Consumer<LoteGravacao> destinoGravacao;
+    private final int tamanhoLote;
+    private final int maximoCartoes;
+    private final long intervaloFlushNanos;
+    private final Thread thread;
+    private volatile boolean ativo = true;
+
+    ShardSaldo(int id, MotorSaldoProperties properties, PinVerificador pinVerificador,
+               Consumer<LoteGravacao> destinoGravacao) {
+        this.id = id;
+        this.fila = new ArrayBlockingQueue<>(properties.getCapacidadeFila());
+        this.journal = new JournalSaldo(Path.of(properties.getDiretorioJournal()), id, properties.isSincronizarJournal());
+        this.pinVerificador = pinVerificador;
+        this.destinoGravacao = destinoGravacao;
+        this.tamanhoLote = properties.getTamanhoLote();
+        this.maximoCartoes = Math.max(1, properties.getCartoesPorShard());
+        this.intervaloFlushNanos = properties.getIntervaloFlush().toNanos();
+        this.thread = new Thread(this, "motor-saldo-shard-" + id);
+        this.thread.setDaemon(true);
+    }
+
+    void iniciar() {
+        thread.start();
+    }
+
+    boolean enfileirar(Evento<?> evento, long timeoutNanos) throws InterruptedException {
+        return ativo && fila.offer(evento, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Para de aceitar eventos, processa os pendentes e entrega os saldos alterados para gravação.
+     */
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        List<Evento<?>> lote = new ArrayList<>(tamanhoLote);
+        long ultimaRotacao = System.nanoTime();
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Evento primeiro = fila.poll(intervaloFlushNanos, TimeUnit.NANOSECONDS);
+                if (primeiro != null) {
+                    lote.add(primeiro);
+                    fila.drainTo(lote, tamanhoLote - 1);
+                    processar(lote);
+                    lote.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ativo = false;
+            } catch (RuntimeException e) {
+                logger.error("Erro inesperado no shard {} do motor de saldo", id, e);
+                lote.forEach(evento -> evento.falhar(e));
+                lote.clear();
+            }
+            if (System.nanoTime() - ultimaRotacao >= intervaloFlushNanos) {
+                entregarAlterados();
+                ultimaRotacao = System.nanoTime();
+            }
+        }
+        entregarAlterados();
+        journal.close();
+    }
+
+    private void processar(List<Evento<?>> lote) {
+        List<AlteracaoCartao> aprovados = new ArrayList<>();
+        List<Runnable> respostas = new ArrayList<>(lote.size());
+        // Estado de cada cartão antes do primeiro débito do lote, para desfazer o lote se o journal falhar
+        Map<Long, EstadoCartao> anteriores = new HashMap<>();
+        Set<Long> alteradosAntes = new HashSet<>();
+        for (Evento<?> evento : lote) {
+            if (!evento.reivindicar()) {
+                // O chamador desistiu por tempo esgotado antes do processamento
+                continue;
+            }
+            EstadoCartao estado;
+            try {
+                estado = obterEstado(evento);
+            } catch (RuntimeException e) {
+                // Cartão fora da memória afeta só o evento do cartão; os demais eventos do lote seguem normalmente
+                respostas.add(() -> evento.falhar(e));
+                continue;
+            }
+            if (evento instanceof Consulta consulta) {
+                Optional<BigDecimal> saldo = Optional.of(estado.getSaldo());
+                respostas.add(() -> consulta.resultado.complete(saldo));
+            } else if (evento instanceof ConsultaSenha consulta) {
+                Optional<String> senha = Optional.of(estado.getSenha());
+                respostas.add(() -> consulta.resultado.complete(senha));
+            } else if (evento instanceof Debito debito) {
+                if (!anteriores.containsKey(debito.numeroCartao)) {
+                    anteriores.put(debito.numeroCartao, estado.copiar());
+                    if (alterados.containsKey(debito.numeroCartao)) {
+                        alteradosAntes.add(debito.numeroCartao);
+                    }
+                }
+                StatusTransacao status;
+                try {
+                    status = debitar(estado, debito);
+                } catch (RuntimeException e) {
+                    // Ex.: pool de PIN ocupado na nova verificação; o débito falha antes de alterar o estado do cartão
+                    respostas.add(() -> debito.falhar(e));
+                    continue;
+                }
+                if (status == StatusTransacao.OK) {
+                    aprovados.add(estado.paraAlteracao(debito.numeroCartao));
+                }
+                respostas.add(() -> debito.resultado.complete(status));
+            }
+        }
+        try {
+            journal.registrar(aprovados);
+        } catch (IOException e) {
+            // Sem o journal os débitos não seriam recuperáveis: desfaz o lote em memória e falha os chamadores
+            anteriores.forEach((numeroCartao, anterior) -> {
+                // Um cartão descartado no lote não foi alterado, pois cartões alterados não são descartados
+                EstadoCartao estado = cartoes.get(numeroCartao);
+                if (estado != null) {
+                    estado.restaurar(anterior);
+                }
+                if (!alteradosAntes.contains(numeroCartao)) {
+                    alterados.remove(numeroCartao);
+                }
+            });
+            logger.error("Falha ao gravar o journal do shard {}", id, e);
+            lote.forEach(evento -> evento.falhar(new IllegalStateException("Falha ao gravar o journal de saldos.", e)));
+            return;
+        }
+        respostas.forEach(Runnable::run);
+    }
+
+    private StatusTransacao debitar(EstadoCartao estado, Debito debito) {
+        // O hash verificado pelo chamador só deixa de ser o atual pela migração, que mantém o mesmo PIN; se a
+        // migração já foi gravada, a senha é verificada de novo contra o novo hash
+        if (!debito.hashVerificado.equals(estado.getSenha())
+                && !debito.hashVerificado.equals(estado.getSenhaAnterior())
+                && !pinVerificador.verificar(debito.numeroCartao, debito.senha, estado.getSenha())) {
+            return StatusTransacao.SENHA_INVALIDA;
+        }
+        if (estado.getSaldo().compareTo(debito.valor) < 0) {
+            return StatusTransacao.SALDO_INSUFICIENTE;
+        }
+        estado.setSaldo(estado.getSaldo().subtract(debito.valor));
+        // O novo hash foi gerado pelo chamador; só é aplicado se o hash legado verificado ainda é o atual
+        if (debito.senhaMigrada != null && estado.getSenhaAnterior() == null
+                && debito.hashVerificado.equals(estado.getSenha())) {
+            estado.setSenhaAnterior(estado.getSenha());
+            estado.setSenha(debito.senhaMigrada);
+        }
+        alterados.put(debito.numeroCartao, estado);
+        return StatusTransacao.OK;
+    }
+
+    private EstadoCartao obterEstado(Evento<?> evento) {
+        EstadoCartao estado = cartoes.get(evento.numeroCartao);
+        if (estado != null) {
+            return estado;
+        }
+        long marca = marcasDescarte[grupo(evento.numeroCartao)];
+        if (evento.carga == null || evento.carga.marca() != marca) {
+            throw new CartaoNaoCarregadoException(marca);
+        }
+        cartoes.put(evento.numeroCartao, evento.carga.estado());
+        descartarExcedentes();
+        return evento.carga.estado();
+    }
+
+    /**
+     * Descarta os cartões menos usados acima do limite, exceto os com saldo ainda não gravado no banco de dados.
+     * Verifica poucos cartões por chamada; o limite pode ser excedido enquanto os mais antigos aguardam gravação.
+     */
+    private void descartarExcedentes() {
+        if (cartoes.size() <= maximoCartoes) {
+            return;
+        }
+        liberarGravados();
+        Iterator<Long> iterator = cartoes.keySet().iterator();
+        for (int i = 0; i < MAXIMO_VERIFICACOES_DESCARTE && cartoes.size() > maximoCartoes && iterator.hasNext(); i++) {
+            long numeroCartao = iterator.next();
+            if (!alterados.containsKey(numeroCartao) && !emGravacao.containsKey(numeroCartao)) {
+                iterator.remove();
+                marcasDescarte[grupo(numeroCartao)]++;
+            }
+        }
+    }
+
+    private void liberarGravados() {
+        while (!entregues.isEmpty() && entregues.peek().gravacao().isDone()) {
+            LoteGravacao lote = entregues.poll();
+            lote.alteracoes().forEach(alteracao -> emGravacao.remove(alteracao.numeroCartao(), lote));
+        }
+    }
+
+    private static int grupo(long numeroCartao) {
+        // Hash multiplicativo: os bits altos não se correlacionam com a escolha do shard pelo número do cartão
+        return (int) ((numeroCartao * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - BITS_GRUPO_DESCARTE));
+    }
+
+    private void entregarAlterados() {
+        if (alterados.isEmpty()) {
+            return;
+        }
+        List<AlteracaoCartao> alteracoes = new ArrayList<>(alterados.size());
+        alterados.forEach((numeroCartao, estado) -> {
+            alteracoes.add(estado.paraAlteracao(numeroCartao));
+            // A migração de senha segue na cópia; a partir daqui o banco de dados passa a ter o novo hash
+            estado.setSenhaAnterior(null);
+        });
+        alterados.clear();
+        LoteGravacao lote = new LoteGravacao(journal.rotacionar(), alteracoes, new CompletableFuture<>());
+        liberarGravados();
+        alteracoes.forEach(alteracao -> emGravacao.put(alteracao.numeroCartao(), lote));
+        entregues.add(lote);
+        destinoGravacao.accept(lote);
+    }
+
+    /**
+     * Saldos alterados desde a última rotação, com o segmento de journal que pode ser apagado após a gravação.
+     *
+     * @param gravacao Concluída pelo gravador quando os saldos estão no banco de dados; até lá, os cartões do lote
+     *                 não são descartados da memória.
+     */
+    record LoteGravacao(Path segmento, List<AlteracaoCartao> alteracoes, CompletableFuture<Void> gravacao) {
+    }
+
+    /**
+     * Estado de um cartão lido do banco de dados pelo chamador, com a marca do grupo do cartão no momento da falta.
+     */
+    record Carga(EstadoCartao estado, long marca) {
+    }
+
+    /**
+     * O cartão não está na memória do shard, ou foi lido antes de um descarte no seu grupo; o evento não foi
+     * aplicado e pode ser repetido com o cartão lido do banco de dados.
+     */
+    static final class CartaoNaoCarregadoException extends RuntimeException {
+        final long marca;
+
+        CartaoNaoCarregadoException(long marca) {
+            super("Cartão fora da memória do shard.", null, false, false);
+            this.marca = marca;
+        }
+    }
+
+    abstract static class Evento<T> {
+        final long numeroCartao;
+        final Carga carga;
+        final CompletableFuture<T> resultado = new CompletableFuture<>();
+        private final AtomicBoolean reivindicado = new AtomicBoolean();
+
+        /**
+         * @param carga Estado lido do banco de dados, se o cartão estava fora da memória do shard.
+         */
+        Evento(long numeroCartao, Carga carga) {
+            this.numeroCartao = numeroCartao;
+            this.carga = carga;
+        }
+
+        /**
+         * Reivindica o evento para a thread do shard ou para o chamador que desistiu; só o primeiro consegue.
+         */
+        boolean reivindicar() {
+            return reivindicado.compareAndSet(false, true);
+        }
+
+        void falhar(Throwable erro) {
+            resultado.completeExceptionally(erro);
+        }
+    }
+
+    static final class Debito extends Evento<StatusTransacao> {
+        final String senha;
+        final String hashVerificado;
+        final String senhaMigrada;
+        final BigDecimal valor;
+
+        /**
+         * @param hashVerificado Hash do cartão contra o qual o chamador já verificou a senha.
+         * @param senhaMigrada   Novo hash da senha, se o hash verificado precisa ser migrado.
+         */
+        Debito(long numeroCartao, Carga carga, String senha, String hashVerificado, String senhaMigrada,
+               BigDecimal valor) {
+            super(numeroCartao, carga);
+            this.senha = senha;
+            this.hashVerificado = hashVerificado;
+            this.senhaMigrada = senhaMigrada;
+            this.valor = valor;
+        }
+
+        /**
+         * Novo evento com o mesmo débito, para repetir o que falhou com o cartão fora da memória.
+         */
+        Debito comCarga(Carga carga) {
+            return new Debito(numeroCartao, carga, senha, hashVerificado, senhaMigrada, valor);
+        }
+
+        /**
+         * Débito recusado pelo chamador antes de chegar ao shard.
+         */
+        static Debito recusado(long numeroCartao, StatusTransacao status) {
+            Debito debito = new Debito(numeroCartao, null, null, null, null, null);
+            debito.resultado.complete(status);
+            return debito;
+        }
+
+        /**
+         * Débito que falhou antes de chegar ao shard.
+         */
+        static Debito falho(long numeroCartao, Throwable erro) {
+            Debito debito = new Debito(numeroCartao, null, null, null, null, null);
+            debito.falhar(erro);
+            return debito;
+        }
+    }
+
+    static final class Consulta extends Evento<Optional<BigDecimal>> {
+        Consulta(long numeroCartao, Carga carga) {
+            super(numeroCartao, carga);
+        }
+    }
+
+    /**
+     * Consulta do hash da senha, para a verificação feita pelo chamador antes do débito.
+     */
+    static final class ConsultaSenha extends Evento<Optional<String>> {
+        ConsultaSenha(long numeroCartao, Carga carga) {
+            super(numeroCartao, carga);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.miniautorizador.shared.exception;
+
+public class ChaveIdempotenciaConflitanteException extends RuntimeException {
+    public ChaveIdempotenciaConflitanteException() {
+        super("Chave de idempotência já usada em uma transação diferente.");
+    }
+}
@@ -1,17 +1,21 @@
 package br.com.miniautorizador.shared.exception;
 
 import br.com.miniautorizador.domain.cartao.exception.*;
+import br.com.miniautorizador.infrastructure.jfr.ExcecaoTratadaEvent;
 import br.com.miniautorizador.presentation.dto.CartaoResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -19,69 +23,108 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(CartaoExistenteException.class)
     public ResponseEntity<CartaoResponse> handleCartaoExistenteException(CartaoExistenteException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
         logger.error("Erro ao criar cartão: {}", e.getMessage());
         CartaoResponse response = new CartaoResponse(e.getNumeroCartao(), e.getSenha());
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response));
     }
 
     @ExceptionHandler(CartaoInexistenteException.class)
     public ResponseEntity<Void> handleCartaoInexistenteException(CartaoInexistenteException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
         logger.error("Cartão inexistente: {}", e.getNumeroCartao());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
-    @ExceptionHandler(CartaoInexistenteTransacaoException.class)
-    public ResponseEntity<String> handleCartaoInexistenteTransacaoException(CartaoInexistenteTransacaoException e) {
-        logger.error("Cartão inexistente: {}", e.getNumeroCartao());
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("CARTAO_INEXISTENTE");
+    // Tratamento para OptimisticLockingFailureException
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.error("Conflito de concorrência: {}", e.getMessage());
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.CONFLICT).body("CONFLITO_DE_CONCORRENCIA"));
     }
 
-    // Tratamento para SenhaInvalidaException
-    @ExceptionHandler(SenhaInvalidaException.class)
-    public ResponseEntity<String> handleSenhaInvalidaException(SenhaInvalidaException e) {
-        logger.error("Senha inválida: {}", e.getMessage());
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("SENHA_INVALIDA");
+    // Tratamento para demais falhas de concorrência (deadlock, timeout de lock) após esgotar as retentativas
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<String> handleConcurrencyFailure(ConcurrencyFailureException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.error("Conflito de concorrência: {}", e.getMessage());
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.CONFLICT).body("CONFLITO_DE_CONCORRENCIA"));
     }
 
-    // Tratamento para SaldoInsuficienteException
-    @ExceptionHandler(SaldoInsuficienteException.class)
-    public ResponseEntity<String> handleSaldoInsuficienteException(SaldoInsuficienteException e) {
-        logger.error("Saldo insuficiente: {}", e.getMessage());
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("SALDO_INSUFICIENTE");
+    // Tratamento para chave de idempotência reutilizada com outro cartão ou valor
+    @ExceptionHandler(ChaveIdempotenciaConflitanteException.class)
+    public ResponseEntity<String> handleChaveIdempotenciaConflitanteException(ChaveIdempotenciaConflitanteException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.warn("Chave de idempotência conflitante: {}", e.getMessage());
+        return evento.concluir(e,
+                ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("CHAVE_IDEMPOTENCIA_CONFLITANTE"));
     }
 
-    // Tratamento para OptimisticLockingFailureException
-    @ExceptionHandler(OptimisticLockingFailureException.class)
-    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
-        logger.error("Conflito de concorrência: {}", e.getMessage());
-        return ResponseEntity.status(HttpStatus.CONFLICT).body("CONFLITO_DE_CONCORRENCIA");
+    // Retentativa com a chave reservada por uma transação em andamento ou com resultado indeterminado
+    @ExceptionHandler(TransacaoEmAndamentoException.class)
+    public ResponseEntity<String> handleTransacaoEmAndamentoException(TransacaoEmAndamentoException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.warn("Transação em andamento: {}", e.getMessage());
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.CONFLICT).body("TRANSACAO_EM_ANDAMENTO"));
+    }
+
+    // Tratamento para recusas por sobrecarga, com o tempo sugerido para nova tentativa
+    @ExceptionHandler(ServicoOcupadoException.class)
+    public ResponseEntity<String> handleServicoOcupadoException(ServicoOcupadoException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.warn("Serviço ocupado: {}", e.getMessage());
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body("SERVICO_OCUPADO"));
+    }
+
+    // Requisição iniciada sem resultado dentro do tempo máximo: pode ter sido aplicada, sem convite à retentativa
+    @ExceptionHandler(ResultadoIndeterminadoException.class)
+    public ResponseEntity<String> handleResultadoIndeterminadoException(ResultadoIndeterminadoException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.warn("Resultado indeterminado: {}", e.getMessage());
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("RESULTADO_INDETERMINADO"));
+    }
+
+    // Tratamento para requisições assíncronas sem resposta dentro do tempo limite (spring.mvc.async.request-timeout)
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<String> handleAsyncRequestTimeoutException(AsyncRequestTimeoutException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
+        logger.warn("Tempo limite da requisição assíncrona esgotado");
+        // A operação pode ter sido aplicada depois do tempo limite; o resultado é desconhecido
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("RESULTADO_INDETERMINADO"));
     }
 
     // Tratamento para DataIntegrityViolationException
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<String> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
         logger.error("Violação de integridade de dados: {}", e.getMessage());
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("DADOS_INVALIDOS");
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("DADOS_INVALIDOS"));
     }
 
     // Tratamento para MethodArgumentNotValidException
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> handleGenericException(MethodArgumentNotValidException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
         logger.error("Validação de dados inválida: {}", e.getMessage(), e);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("DADOS_INVALIDOS");
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.BAD_REQUEST).body("DADOS_INVALIDOS"));
     }
 
     // Tratamento para HttpMessageNotReadableException
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<String> handleGenericException(HttpMessageNotReadableException e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
         logger.error("Validação de dados inválida: {}", e.getMessage(), e);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("REQUEST_INVALIDA");
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.BAD_REQUEST).body("REQUEST_INVALIDA"));
     }
 
     // Tratamento para outras exceções genéricas
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGenericException(Exception e) {
+        ExcecaoTratadaEvent evento = ExcecaoTratadaEvent.iniciar();
         logger.error("Erro interno do servidor: {}", e.getMessage(), e);
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("ERRO_INTERNO");
+        return evento.concluir(e, ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("ERRO_INTERNO"));
     }
 }
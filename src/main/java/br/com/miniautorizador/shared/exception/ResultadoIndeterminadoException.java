@@ -0,0 +1,24 @@
+package br.com.miniautorizador.shared.exception;
+
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+@Getter
+public class ResultadoIndeterminadoException extends RuntimeException {
+    /**
+     * Conclusão real da operação, que continua em andamento depois do tempo máximo; pode terminar com o resultado, com
+     * a falha, ou nunca terminar.
+     */
+    private final transient CompletionStage<?> conclusao;
+
+    public ResultadoIndeterminadoException(String message) {
+        this(message, new CompletableFuture<>());
+    }
+
+    public ResultadoIndeterminadoException(String message, CompletionStage<?> conclusao) {
+        super(message);
+        this.conclusao = conclusao;
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.miniautorizador.shared.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class ServicoOcupadoException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServicoOcupadoException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.miniautorizador.shared.exception;
+
+public class TransacaoEmAndamentoException extends RuntimeException {
+    public TransacaoEmAndamentoException() {
+        super("Transação com a mesma chave de idempotência em andamento.");
+    }
+}
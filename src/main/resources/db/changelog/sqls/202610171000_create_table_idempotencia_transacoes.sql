@@ -0,0 +1,8 @@
+CREATE TABLE idempotencia_transacoes(
+    chave CHAR(64) NOT NULL,
+    impressao CHAR(64) NOT NULL,
+    status VARCHAR(30) NOT NULL,
+    criado_em TIMESTAMP NOT NULL,
+    PRIMARY KEY (chave)
+);
+CREATE INDEX idx_idempotencia_transacoes_criado_em ON idempotencia_transacoes (criado_em);
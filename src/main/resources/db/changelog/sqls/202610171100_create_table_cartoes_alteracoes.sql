@@ -0,0 +1,8 @@
+CREATE TABLE cartoes_alteracoes(
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    numero_cartao VARCHAR(16) NOT NULL,
+    versao BIGINT NOT NULL,
+    registrado_em TIMESTAMP NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_cartoes_alteracoes_registrado_em ON cartoes_alteracoes (registrado_em);
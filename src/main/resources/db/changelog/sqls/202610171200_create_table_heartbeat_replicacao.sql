@@ -0,0 +1,6 @@
+CREATE TABLE heartbeat_replicacao(
+    id INT NOT NULL,
+    atualizado_em BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+INSERT INTO heartbeat_replicacao (id, atualizado_em) VALUES (1, 0);
@@ -0,0 +1,7 @@
+CREATE TABLE shards_topologia(
+    id INT NOT NULL,
+    membros VARCHAR(1000) NOT NULL,
+    membros_destino VARCHAR(1000),
+    cursores VARCHAR(4000),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,10 @@
+ALTER TABLE cartoes
+    MODIFY numero BIGINT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (numero),
+    ALGORITHM=INPLACE, LOCK=NONE;
+DROP TRIGGER cartoes_numero_insert;
+ALTER TABLE cartoes
+    DROP COLUMN numero_cartao,
+    CHANGE COLUMN numero numero_cartao BIGINT NOT NULL,
+    ALGORITHM=INPLACE, LOCK=NONE;
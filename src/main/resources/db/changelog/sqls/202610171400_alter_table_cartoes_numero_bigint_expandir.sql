@@ -0,0 +1,3 @@
+ALTER TABLE cartoes ADD COLUMN numero BIGINT NULL, ALGORITHM=INSTANT;
+CREATE TRIGGER cartoes_numero_insert BEFORE INSERT ON cartoes
+    FOR EACH ROW SET NEW.numero = CAST(NEW.numero_cartao AS UNSIGNED);
@@ -0,0 +1,7 @@
+ALTER TABLE cartoes ADD COLUMN numero BIGINT;
+UPDATE cartoes SET numero = CAST(numero_cartao AS BIGINT);
+ALTER TABLE cartoes ALTER COLUMN numero SET NOT NULL;
+ALTER TABLE cartoes DROP PRIMARY KEY;
+ALTER TABLE cartoes DROP COLUMN numero_cartao;
+ALTER TABLE cartoes ALTER COLUMN numero RENAME TO numero_cartao;
+ALTER TABLE cartoes ADD PRIMARY KEY (numero_cartao);
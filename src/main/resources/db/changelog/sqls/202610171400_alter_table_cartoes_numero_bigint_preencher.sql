@@ -0,0 +1,20 @@
+DROP PROCEDURE IF EXISTS preencher_numero_cartoes//
+CREATE PROCEDURE preencher_numero_cartoes()
+BEGIN
+    DECLARE cursor_bloco VARCHAR(16) DEFAULT '';
+    DECLARE ultimo VARCHAR(16);
+    REPEAT
+        SET ultimo = NULL;
+        SELECT MAX(numero_cartao) INTO ultimo FROM (
+            SELECT numero_cartao FROM cartoes WHERE numero_cartao > cursor_bloco ORDER BY numero_cartao LIMIT 5000
+        ) bloco;
+        IF ultimo IS NOT NULL THEN
+            UPDATE cartoes SET numero = CAST(numero_cartao AS UNSIGNED)
+            WHERE numero_cartao > cursor_bloco AND numero_cartao <= ultimo AND numero IS NULL;
+            COMMIT;
+            SET cursor_bloco = ultimo;
+        END IF;
+    UNTIL ultimo IS NULL END REPEAT;
+END//
+CALL preencher_numero_cartoes()//
+DROP PROCEDURE preencher_numero_cartoes//
@@ -0,0 +1 @@
+ALTER TABLE cartoes_alteracoes ALTER COLUMN numero_cartao SET DATA TYPE BIGINT;
@@ -0,0 +1,323 @@
+package br.com.miniautorizador.benchmark;
+
+import br.com.miniautorizador.MiniautorizadorApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de carga da API REST com tráfego misto de criação de cartões, consulta de saldo e débitos.
+ * <p>
+ * Sobe a aplicação com um banco H2 próprio e gera requisições em modelo aberto: as chegadas seguem um processo de
+ * Poisson com a taxa configurada, independente do tempo de resposta, e a latência é medida a partir do instante
+ * planejado de cada chegada. Assim, quando a aplicação satura, o atraso acumulado aparece nos percentis em vez de
+ * reduzir a carga (omissão coordenada). Os cartões de consulta e débito são sorteados por uma distribuição de Zipf,
+ * concentrando o tráfego em poucos cartões quentes.
+ * <p>
+ * Ao final, registra vazão, p50, p99, p99,9 e erros por operação, e grava em {@code target/carga} os histogramas
+ * por intervalo de 1 segundo ({@code intervalos.hlog}) e a distribuição de percentis de cada operação
+ * ({@code <operacao>.hgrm}), no formato do HdrHistogram. Não roda no build padrão; executar com
+ * {@code mvn test -Pcarga}. A carga pode ser ajustada com {@code -Dcarga.taxa}, {@code -Dcarga.duracao},
+ * {@code -Dcarga.aquecimento}, {@code -Dcarga.cartoes}, {@code -Dcarga.zipf}, {@code -Dcarga.percentual-criacao} e
+ * {@code -Dcarga.percentual-saldo}; com {@code -Dcarga.p99-maximo-ms}, o teste falha se o p99 de alguma operação
+ * ultrapassar o limite.
+ *
+ * @author Fabiana Costa
+ */
+@Tag("carga")
+class CargaApiTest {
+    private static final Logger logger = LoggerFactory.getLogger(CargaApiTest.class);
+
+    private static final int TAXA = Integer.getInteger("carga.taxa", 500);
+    private static final int DURACAO = Integer.getInteger("carga.duracao", 30);
+    private static final int AQUECIMENTO = Integer.getInteger("carga.aquecimento", 5);
+    private static final int CARTOES = Integer.getInteger("carga.cartoes", 1_000);
+    private static final double EXPOENTE_ZIPF = Double.parseDouble(System.getProperty("carga.zipf", "1.1"));
+    private static final int PERCENTUAL_CRIACAO = Integer.getInteger("carga.percentual-criacao", 5);
+    private static final int PERCENTUAL_SALDO = Integer.getInteger("carga.percentual-saldo", 45);
+    private static final Long P99_MAXIMO_MS = Long.getLong("carga.p99-maximo-ms");
+    private static final Path DIRETORIO = Path.of("target", "carga");
+    private static final String AUTENTICACAO = "Basic " + Base64.getEncoder()
+            .encodeToString("username:password".getBytes(StandardCharsets.US_ASCII));
+
+    private final AtomicInteger proximoCartaoNovo = new AtomicInteger();
+
+    private enum Operacao {
+        CRIACAO, SALDO, DEBITO
+    }
+
+    @DisplayName("Teste de carga da API com chegadas em modelo aberto e cartões quentes")
+    @Test
+    void testCargaMista() throws Exception {
+        // Argumentos de linha de comando têm precedência sobre o application.properties de teste
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(MiniautorizadorApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1",
+                        "--miniautorizador.pin.arquivo-chave=target/pin-carga.key");
+             HttpClient cliente = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            String base = "http://localhost:" + porta;
+            criarCartoes(cliente, base);
+            Zipf zipf = new Zipf(CARTOES, EXPOENTE_ZIPF);
+            logger.info("Carga: {} req/s por {} s, {} cartões, o mais quente recebe {}% das consultas e débitos",
+                    TAXA, DURACAO, CARTOES, String.format("%.1f", zipf.participacao(0) * 100));
+
+            // Aquecimento do JIT, do pool de conexões e do cache de credenciais, sem registrar latências
+            gerar(cliente, base, zipf, AQUECIMENTO, new Medicao());
+
+            Files.createDirectories(DIRETORIO);
+            Medicao medicao = new Medicao();
+            ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor();
+            try (PrintStream log = new PrintStream(DIRETORIO.resolve("intervalos.hlog").toFile(),
+                    StandardCharsets.UTF_8)) {
+                HistogramLogWriter escritor = new HistogramLogWriter(log);
+                escritor.outputLogFormatVersion();
+                escritor.outputStartTime(System.currentTimeMillis());
+                escritor.outputLegend();
+                agendador.scheduleAtFixedRate(() -> medicao.fecharIntervalo(escritor), 1, 1, TimeUnit.SECONDS);
+                long inicio = System.nanoTime();
+                gerar(cliente, base, zipf, DURACAO, medicao);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                agendador.shutdown();
+                agendador.awaitTermination(5, TimeUnit.SECONDS);
+                medicao.fecharIntervalo(escritor);
+                relatar(medicao, segundos);
+            } finally {
+                agendador.shutdownNow();
+            }
+        }
+    }
+
+    private void criarCartoes(HttpClient cliente, String base) throws Exception {
+        String cartoes = IntStream.range(0, CARTOES)
+                .mapToObj(i -> "{\"numeroCartao\":\"" + numeroCartao(i) + "\",\"senha\":\"1234\"}")
+                .collect(Collectors.joining(",", "{\"cartoes\":[", "]}"));
+        HttpResponse<String> resposta = cliente.send(post(base + "/cartoes/lote", cartoes),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(resposta.statusCode()).isEqualTo(200);
+    }
+
+    /**
+     * Gera chegadas de Poisson na taxa {@link #TAXA} durante o tempo informado.
+     * <p>
+     * O intervalo entre chegadas é sorteado de uma distribuição exponencial e cada requisição é enviada em uma thread
+     * virtual própria, sem limite de requisições em andamento, para que uma aplicação lenta não reduza a taxa
+     * oferecida.
+     */
+    private void gerar(HttpClient cliente, String base, Zipf zipf, int segundos, Medicao medicao) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        double intervaloMedio = 1e9 / TAXA;
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        long chegada = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (chegada < fim) {
+                long espera = chegada - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                Operacao operacao = sortearOperacao(aleatorio);
+                HttpRequest requisicao = requisicao(operacao, base, zipf.sortear(aleatorio));
+                long planejada = chegada;
+                executor.submit(() -> enviar(cliente, requisicao, operacao, planejada, medicao));
+                chegada += (long) (-Math.log(1 - aleatorio.nextDouble()) * intervaloMedio);
+            }
+        }
+    }
+
+    private static void enviar(HttpClient cliente, HttpRequest requisicao, Operacao operacao, long planejada,
+                               Medicao medicao) {
+        boolean sucesso;
+        try {
+            int status = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+            sucesso = esperado(operacao, status);
+        } catch (Exception e) {
+            sucesso = false;
+        }
+        medicao.registrar(operacao, System.nanoTime() - planejada, sucesso);
+    }
+
+    /**
+     * Recusas de negócio (saldo insuficiente) são respostas válidas; 503 por sobrecarga e falhas de conexão contam
+     * como erro.
+     */
+    private static boolean esperado(Operacao operacao, int status) {
+        return switch (operacao) {
+            case CRIACAO -> status == 201;
+            case SALDO -> status == 200;
+            case DEBITO -> status == 201 || status == 422;
+        };
+    }
+
+    private static Operacao sortearOperacao(ThreadLocalRandom aleatorio) {
+        int sorteio = aleatorio.nextInt(100);
+        if (sorteio < PERCENTUAL_CRIACAO) {
+            return Operacao.CRIACAO;
+        }
+        return sorteio < PERCENTUAL_CRIACAO + PERCENTUAL_SALDO ? Operacao.SALDO : Operacao.DEBITO;
+    }
+
+    private HttpRequest requisicao(Operacao operacao, String base, int cartao) {
+        return switch (operacao) {
+            case CRIACAO -> post(base + "/cartoes", "{\"numeroCartao\":\""
+                    + String.format("5000%012d", proximoCartaoNovo.getAndIncrement()) + "\",\"senha\":\"1234\"}");
+            case SALDO -> HttpRequest.newBuilder(URI.create(base + "/cartoes/" + numeroCartao(cartao)))
+                    .header("Authorization", AUTENTICACAO)
+                    .GET()
+                    .build();
+            case DEBITO -> post(base + "/transacoes", "{\"numeroCartao\":\"" + numeroCartao(cartao)
+                    + "\",\"senhaCartao\":\"1234\",\"valor\":0.01}");
+        };
+    }
+
+    private static HttpRequest post(String url, String corpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Authorization", AUTENTICACAO)
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+
+    private static String numeroCartao(int indice) {
+        return String.format("4000%012d", indice);
+    }
+
+    private static void relatar(Medicao medicao, double segundos) throws Exception {
+        logger.info("Operação | req/s   | p50 (ms) | p99 (ms) | p99,9 (ms) | máx (ms) | erros");
+        for (Operacao operacao : Operacao.values()) {
+            Histogram histograma = medicao.acumulado(operacao);
+            try (PrintStream saida = new PrintStream(
+                    DIRETORIO.resolve(operacao.name().toLowerCase() + ".hgrm").toFile(), StandardCharsets.UTF_8)) {
+                histograma.outputPercentileDistribution(saida, 1000.0);
+            }
+            logger.info(String.format("%-8s | %7.0f | %8.2f | %8.2f | %10.2f | %8.2f | %d", operacao,
+                    histograma.getTotalCount() / segundos,
+                    histograma.getValueAtPercentile(50) / 1000.0,
+                    histograma.getValueAtPercentile(99) / 1000.0,
+                    histograma.getValueAtPercentile(99.9) / 1000.0,
+                    histograma.getMaxValue() / 1000.0,
+                    medicao.erros(operacao)));
+        }
+        logger.info("Histogramas gravados em {}", DIRETORIO.toAbsolutePath());
+
+        assertThat(Arrays.stream(Operacao.values()).mapToLong(op -> medicao.acumulado(op).getTotalCount()).sum())
+                .isPositive();
+        if (P99_MAXIMO_MS != null) {
+            for (Operacao operacao : Operacao.values()) {
+                assertThat(medicao.acumulado(operacao).getValueAtPercentile(99) / 1000.0)
+                        .as("p99 de %s (ms)", operacao)
+                        .isLessThanOrEqualTo(P99_MAXIMO_MS);
+            }
+        }
+    }
+
+    /**
+     * Latências em microssegundos por operação.
+     * <p>
+     * As threads de envio gravam em um {@link Recorder}; a cada intervalo, o histograma do intervalo é gravado no log
+     * e somado ao acumulado, que só é lido após o fim da carga.
+     */
+    private static final class Medicao {
+        private final Map<Operacao, Recorder> gravadores = new EnumMap<>(Operacao.class);
+        private final Map<Operacao, Histogram> acumulados = new EnumMap<>(Operacao.class);
+        private final Map<Operacao, LongAdder> erros = new EnumMap<>(Operacao.class);
+
+        Medicao() {
+            for (Operacao operacao : Operacao.values()) {
+                gravadores.put(operacao, new Recorder(3));
+                acumulados.put(operacao, new Histogram(3));
+                erros.put(operacao, new LongAdder());
+            }
+        }
+
+        void registrar(Operacao operacao, long latenciaNanos, boolean sucesso) {
+            gravadores.get(operacao).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latenciaNanos)));
+            if (!sucesso) {
+                erros.get(operacao).increment();
+            }
+        }
+
+        synchronized void fecharIntervalo(HistogramLogWriter escritor) {
+            for (Operacao operacao : Operacao.values()) {
+                Histogram intervalo = gravadores.get(operacao).getIntervalHistogram();
+                intervalo.setTag(operacao.name());
+                escritor.outputIntervalHistogram(intervalo);
+                acumulados.get(operacao).add(intervalo);
+            }
+        }
+
+        synchronized Histogram acumulado(Operacao operacao) {
+            return acumulados.get(operacao);
+        }
+
+        long erros(Operacao operacao) {
+            return erros.get(operacao).sum();
+        }
+    }
+
+    /**
+     * Sorteio de cartões pela distribuição de Zipf: o cartão de índice {@code i} tem peso {@code 1 / (i + 1)^s}.
+     */
+    private static final class Zipf {
+        private final double[] acumulada;
+
+        Zipf(int cartoes, double expoente) {
+            acumulada = new double[cartoes];
+            double soma = 0;
+            for (int i = 0; i < cartoes; i++) {
+                soma += 1 / Math.pow(i + 1, expoente);
+                acumulada[i] = soma;
+            }
+            for (int i = 0; i < cartoes; i++) {
+                acumulada[i] /= soma;
+            }
+        }
+
+        int sortear(ThreadLocalRandom aleatorio) {
+            int indice = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+            return indice >= 0 ? indice : Math.min(-indice - 1, acumulada.length - 1);
+        }
+
+        double participacao(int indice) {
+            return indice == 0 ? acumulada[0] : acumulada[indice] - acumulada[indice - 1];
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package br.com.miniautorizador.benchmark;
+
+import br.com.miniautorizador.MiniautorizadorApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark comparativo entre o modo padrão (pool de threads do Tomcat) e o modo de threads virtuais.
+ * <p>
+ * Sobe a aplicação em cada modo, com um banco H2 próprio, e dispara débitos concorrentes em um conjunto de cartões,
+ * medindo vazão e latências. Não roda no build padrão; executar com {@code mvn test -Pbenchmark}. A carga pode ser
+ * ajustada com {@code -Dbenchmark.requisicoes}, {@code -Dbenchmark.concorrencia} e {@code -Dbenchmark.cartoes}.
+ *
+ * @author Fabiana Costa
+ */
+@Tag("benchmark")
+class ModoThreadsBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(ModoThreadsBenchmarkTest.class);
+
+    private static final int REQUISICOES = Integer.getInteger("benchmark.requisicoes", 20_000);
+    private static final int CONCORRENCIA = Integer.getInteger("benchmark.concorrencia", 1_000);
+    private static final int CARTOES = Integer.getInteger("benchmark.cartoes", 1_000);
+    private static final String AUTENTICACAO = "Basic " + Base64.getEncoder()
+            .encodeToString("username:password".getBytes(StandardCharsets.US_ASCII));
+
+    @DisplayName("Benchmark de débitos concorrentes: pool de threads x threads virtuais")
+    @Test
+    void testCompararModos() throws Exception {
+        Resultado plataforma = executar("plataforma", false);
+        Resultado virtual = executar("virtual", true);
+
+        logger.info("Modo       | req/s     | p50 (ms) | p99 (ms) | máx (ms) | erros");
+        logger.info(plataforma.formatar());
+        logger.info(virtual.formatar());
+        assertThat(plataforma.erros()).isZero();
+        assertThat(virtual.erros()).isZero();
+    }
+
+    private Resultado executar(String modo, boolean threadsVirtuais) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(MiniautorizadorApplication.class);
+        if (threadsVirtuais) {
+            builder.profiles("virtual");
+        }
+        // Argumentos de linha de comando têm precedência sobre o application.properties de teste
+        try (ConfigurableApplicationContext contexto = builder.run(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + modo + ";DB_CLOSE_DELAY=-1",
+                "--miniautorizador.pin.arquivo-chave=target/pin-benchmark.key");
+             HttpClient cliente = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            String base = "http://localhost:" + porta;
+            criarCartoes(cliente, base);
+            // Aquecimento do JIT e do cache de credenciais antes da medição
+            disparar(cliente, base, Math.min(REQUISICOES / 10, 2_000));
+            long inicio = System.nanoTime();
+            long[] latencias = disparar(cliente, base, REQUISICOES);
+            long duracao = System.nanoTime() - inicio;
+            return Resultado.de(modo, latencias, duracao);
+        }
+    }
+
+    private void criarCartoes(HttpClient cliente, String base) throws Exception {
+        String cartoes = IntStream.range(0, CARTOES)
+                .mapToObj(i -> "{\"numeroCartao\":\"" + numeroCartao(i) + "\",\"senha\":\"1234\"}")
+                .collect(Collectors.joining(",", "{\"cartoes\":[", "]}"));
+        HttpResponse<String> resposta = cliente.send(requisicao(base + "/cartoes/lote", cartoes),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(resposta.statusCode()).isEqualTo(200);
+    }
+
+    /**
+     * Dispara as requisições com no máximo {@link #CONCORRENCIA} em andamento.
+     *
+     * @return Latência de cada requisição, em nanossegundos; requisições com erro têm latência negativa.
+     */
+    private long[] disparar(HttpClient cliente, String base, int quantidade) throws Exception {
+        Semaphore emAndamento = new Semaphore(CONCORRENCIA);
+        List<Future<Long>> futuros = new ArrayList<>(quantidade);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < quantidade; i++) {
+                String corpo = "{\"numeroCartao\":\"" + numeroCartao(i % CARTOES)
+                        + "\",\"senhaCartao\":\"1234\",\"valor\":0.01}";
+                emAndamento.acquire();
+                futuros.add(executor.submit(() -> {
+                    try {
+                        long inicio = System.nanoTime();
+                        HttpResponse<Void> resposta = cliente.send(requisicao(base + "/transacoes", corpo),
+                                HttpResponse.BodyHandlers.discarding());
+                        long latencia = System.nanoTime() - inicio;
+                        return resposta.statusCode() == 201 ? latencia : -latencia;
+                    } finally {
+                        emAndamento.release();
+                    }
+                }));
+            }
+        }
+        long[] latencias = new long[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            latencias[i] = futuros.get(i).get();
+        }
+        return latencias;
+    }
+
+    private static HttpRequest requisicao(String url, String corpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Authorization", AUTENTICACAO)
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+
+    private static String numeroCartao(int indice) {
+        return String.format("4000%012d", indice);
+    }
+
+    private record Resultado(String modo, double vazao, double p50, double p99, double maximo, long erros) {
+
+        static Resultado de(String modo, long[] latencias, long duracaoNanos) {
+            long erros = Arrays.stream(latencias).filter(latencia -> latencia < 0).count();
+            long[] ordenadas = Arrays.stream(latencias).map(Math::abs).sorted().toArray();
+            return new Resultado(modo,
+                    latencias.length / (duracaoNanos / 1e9),
+                    percentil(ordenadas, 0.50),
+                    percentil(ordenadas, 0.99),
+                    ordenadas[ordenadas.length - 1] / 1e6,
+                    erros);
+        }
+
+        private static double percentil(long[] ordenadas, double percentil) {
+            int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, indice)] / 1e6;
+        }
+
+        String formatar() {
+            return String.format("%-10s | %9.0f | %8.2f | %8.2f | %8.2f | %d", modo, vazao, p50, p99, maximo, erros);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.miniautorizador.benchmark.jmh;
+
+import br.com.miniautorizador.MiniautorizadorApplication;
+import br.com.miniautorizador.application.transacao.RealizarTransacaoUseCase;
+import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
+import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.TransacaoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das etapas da autorização que passam pelo banco de dados, com a aplicação completa em H2 em memória.
+ * <p>
+ * Compara a leitura do cartão pelo JPA, o débito por leitura e gravação da entidade, o débito em um UPDATE
+ * condicional e o fluxo completo pelo {@link TransacaoService} e pelo {@link RealizarTransacaoUseCase}. O saldo do
+ * cartão é restaurado a cada iteração para que nenhuma operação passe a ser recusada durante a medição.
+ * <p>
+ * Executar com {@code mvn test -Pjmh -Djmh.args=AutorizacaoBanco}.
+ *
+ * @author Fabiana Costa
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutorizacaoBancoBenchmark {
+    private static final long NUMERO_CARTAO = 6549873025634501L;
+    private static final String SENHA = "1234";
+    private static final BigDecimal SALDO = new BigDecimal("99999999.99");
+    private static final BigDecimal VALOR = new BigDecimal("0.01");
+
+    private ConfigurableApplicationContext context;
+    private CartaoRepository cartaoRepository;
+    private TransacaoService transacaoService;
+    private RealizarTransacaoUseCase realizarTransacaoUseCase;
+    private TransactionTemplate transactionTemplate;
+    private TransacaoRequest transacaoRequest;
+    private TransacaoRequest transacaoSenhaInvalida;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        context = new SpringApplicationBuilder(MiniautorizadorApplication.class).run(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                "--miniautorizador.pin.arquivo-chave=target/pin-jmh.key");
+        cartaoRepository = context.getBean(CartaoRepository.class);
+        transacaoService = context.getBean(TransacaoService.class);
+        realizarTransacaoUseCase = context.getBean(RealizarTransacaoUseCase.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        String hash = context.getBean(PinVerificador.class).gerarHash(NUMERO_CARTAO, SENHA);
+        cartaoRepository.save(new Cartao(NUMERO_CARTAO, hash, SALDO));
+        transacaoRequest = new TransacaoRequest(String.valueOf(NUMERO_CARTAO), SENHA, VALOR);
+        transacaoSenhaInvalida = new TransacaoRequest(String.valueOf(NUMERO_CARTAO), "9999", VALOR);
+    }
+
+    @Setup(Level.Iteration)
+    public void restaurarSaldo() {
+        transactionTemplate.executeWithoutResult(status -> cartaoRepository.findByNumeroCartao(NUMERO_CARTAO)
+                .ifPresent(cartao -> cartao.setSaldo(SALDO)));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        context.close();
+    }
+
+    @Benchmark
+    public Cartao buscarCartao() {
+        return transactionTemplate.execute(status -> cartaoRepository.findByNumeroCartao(NUMERO_CARTAO).orElseThrow());
+    }
+
+    @Benchmark
+    public Cartao debitarPorEntidade() {
+        return transactionTemplate.execute(status -> {
+            Cartao cartao = cartaoRepository.findByNumeroCartao(NUMERO_CARTAO).orElseThrow();
+            cartao.setSaldo(cartao.getSaldo().subtract(VALOR));
+            return cartaoRepository.save(cartao);
+        });
+    }
+
+    @Benchmark
+    public Integer debitarPorUpdate() {
+        return transactionTemplate.execute(status -> cartaoRepository.debitarSaldo(NUMERO_CARTAO, VALOR));
+    }
+
+    @Benchmark
+    public StatusTransacao realizarTransacaoService() {
+        return transacaoService.realizarTransacao(transacaoRequest);
+    }
+
+    @Benchmark
+    public StatusTransacao realizarTransacaoUseCase() {
+        return realizarTransacaoUseCase.realizarTransacao(transacaoRequest);
+    }
+
+    @Benchmark
+    public StatusTransacao recusarSenhaInvalida() {
+        return realizarTransacaoUseCase.realizarTransacao(transacaoSenhaInvalida);
+    }
+}
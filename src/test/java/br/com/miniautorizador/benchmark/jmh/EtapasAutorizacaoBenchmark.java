@@ -0,0 +1,109 @@
+package br.com.miniautorizador.benchmark.jmh;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.pin.HmacPinVerificador;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das etapas da autorização que não dependem do banco de dados.
+ * <p>
+ * Mede separadamente a validação do {@link TransacaoRequest}, a verificação de senha (BCrypt legado e HMAC atual), a
+ * aritmética de saldo com {@link BigDecimal} e a recusa por status com resposta pronta.
+ * <p>
+ * Executar com {@code mvn test -Pjmh -Djmh.args=EtapasAutorizacao}; a alocação por operação aparece nas métricas
+ * {@code gc.alloc.rate.norm} do profiler {@code gc}.
+ *
+ * @author Fabiana Costa
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EtapasAutorizacaoBenchmark {
+    private static final long NUMERO_CARTAO = 1234567890123456L;
+    private static final String SENHA = "1234";
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private TransacaoRequest transacaoRequest;
+    private PasswordEncoder passwordEncoder;
+    private String hashBcrypt;
+    private HmacPinVerificador hmacPinVerificador;
+    private String hashHmac;
+    private BigDecimal saldo;
+    private BigDecimal valor;
+    private Map<StatusTransacao, ResponseEntity<String>> respostas;
+
+    @Setup
+    public void preparar() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        transacaoRequest = new TransacaoRequest(String.valueOf(NUMERO_CARTAO), SENHA, new BigDecimal("10.00"));
+
+        passwordEncoder = new BCryptPasswordEncoder();
+        hashBcrypt = passwordEncoder.encode(SENHA);
+        byte[] chave = new byte[32];
+        new SecureRandom().nextBytes(chave);
+        hmacPinVerificador = new HmacPinVerificador(chave);
+        hashHmac = hmacPinVerificador.gerarHash(NUMERO_CARTAO, SENHA);
+
+        saldo = new BigDecimal("500.00");
+        valor = new BigDecimal("10.00");
+
+        respostas = new EnumMap<>(StatusTransacao.class);
+        for (StatusTransacao status : StatusTransacao.values()) {
+            HttpStatus httpStatus = status == StatusTransacao.OK ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY;
+            respostas.put(status, ResponseEntity.status(httpStatus).body(status.name()));
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TransacaoRequest>> validarRequest() {
+        return validator.validate(transacaoRequest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean verificarSenhaBcrypt() {
+        return passwordEncoder.matches(SENHA, hashBcrypt);
+    }
+
+    @Benchmark
+    public boolean verificarSenhaHmac() {
+        return hmacPinVerificador.verificar(NUMERO_CARTAO, SENHA, hashHmac);
+    }
+
+    @Benchmark
+    public BigDecimal debitarSaldo() {
+        BigDecimal novoSaldo = saldo.subtract(valor);
+        return novoSaldo.signum() >= 0 ? novoSaldo : saldo;
+    }
+
+    @Benchmark
+    public ResponseEntity<String> recusarPorStatus() {
+        return respostas.get(StatusTransacao.SALDO_INSUFICIENTE);
+    }
+}
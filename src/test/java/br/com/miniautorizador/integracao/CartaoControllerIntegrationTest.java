@@ -1,7 +1,9 @@
 package br.com.miniautorizador.integracao;
 
+import br.com.miniautorizador.presentation.dto.CartaoLoteRequest;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.presentation.dto.CartaoResponse;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,6 +16,8 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -150,4 +154,36 @@ class CartaoControllerIntegrationTest {
 
         assertThat(response.getStatusCode().value()).isEqualTo(401);
     }
-}
\ No newline at end of file
+
+    @DisplayName("Teste de criação de cartões em lote com cartões existentes e repetidos")
+    @Test
+    void testCriarCartoesEmLote_ResultadoPorItem() throws Exception {
+        CartaoRequest cartaoExistente = new CartaoRequest("8529637410852963", "1234");
+        HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(cartaoExistente), headers);
+        restTemplate.exchange("http://localhost:" + port + "/cartoes", HttpMethod.POST, entity, CartaoResponse.class);
+
+        CartaoLoteRequest cartaoLoteRequest = new CartaoLoteRequest(List.of(
+                cartaoExistente,
+                new CartaoRequest("8529637410852964", "1234"),
+                new CartaoRequest("8529637410852964", "4321"),
+                new CartaoRequest("8529637410852965", "1234")));
+        HttpEntity<String> entity2 = new HttpEntity<>(objectMapper.writeValueAsString(cartaoLoteRequest), headers);
+
+        String url = "http://localhost:" + port + "/cartoes/lote";
+        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity2, String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        JsonNode resultados = objectMapper.readTree(response.getBody());
+        assertThat(resultados).hasSize(4);
+        assertThat(resultados.get(0).get("status").asText()).isEqualTo("CARTAO_EXISTENTE");
+        assertThat(resultados.get(1).get("status").asText()).isEqualTo("CRIADO");
+        assertThat(resultados.get(2).get("status").asText()).isEqualTo("CARTAO_EXISTENTE");
+        assertThat(resultados.get(3).get("status").asText()).isEqualTo("CRIADO");
+
+        HttpEntity<String> entity3 = new HttpEntity<>(headers);
+        ResponseEntity<String> saldo = restTemplate.exchange(
+                "http://localhost:" + port + "/cartoes/8529637410852965", HttpMethod.GET, entity3, String.class);
+        assertThat(saldo.getStatusCode().value()).isEqualTo(200);
+        assertThat(saldo.getBody()).isEqualTo("500.00");
+    }
+}
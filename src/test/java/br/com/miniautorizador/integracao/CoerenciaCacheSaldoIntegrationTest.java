@@ -0,0 +1,193 @@
+package br.com.miniautorizador.integracao;
+
+import br.com.miniautorizador.MiniautorizadorApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de integração da coerência do cache de saldos entre duas instâncias da aplicação.
+ * <p>
+ * Duas aplicações completas sobem no mesmo processo, com o mesmo banco de dados H2. Uma thread debita um cartão pela
+ * instância A enquanto outras consultam o saldo pela instância B, que tem o saldo em cache. Cada consulta deve
+ * devolver um saldo que já reflete todos os débitos respondidos mais de {@code coerencia.limite-ms} milissegundos
+ * antes do seu início (500 por padrão, configurável por propriedade de sistema).
+ * <p>
+ * Como o teste de carga, é lento e sensível ao tempo, por isso não roda no build padrão; executar com
+ * {@code mvn test -Pcarga}.
+ *
+ * @author Fabiana Costa
+ */
+@Tag("carga")
+class CoerenciaCacheSaldoIntegrationTest {
+    private static final String NUMERO_CARTAO = "4000000000000001";
+    private static final String AUTENTICACAO = "Basic " + Base64.getEncoder()
+            .encodeToString("username:password".getBytes(StandardCharsets.UTF_8));
+    private static final String DEBITO =
+            "{\"numeroCartao\":\"" + NUMERO_CARTAO + "\",\"senhaCartao\":\"1234\",\"valor\":1.00}";
+    private static final int DEBITOS = 200;
+    private static final int LEITORES = 4;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("500.00");
+
+    private final long limiteMs = Long.getLong("coerencia.limite-ms", 500);
+
+    @DisplayName("Teste de saldo servido pelo cache de outra instância dentro da defasagem máxima")
+    @Test
+    void testCoerenciaEntreInstancias() throws Exception {
+        try (ConfigurableApplicationContext instanciaA = iniciar();
+             ConfigurableApplicationContext instanciaB = iniciar();
+             HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()) {
+            String baseA = base(instanciaA);
+            String baseB = base(instanciaB);
+            assertThat(enviar(cliente, post(baseA + "/cartoes",
+                    "{\"numeroCartao\":\"" + NUMERO_CARTAO + "\",\"senha\":\"1234\"}")).statusCode()).isEqualTo(201);
+            aguardarCache(cliente, baseB, instanciaB);
+
+            List<Debito> debitos = new CopyOnWriteArrayList<>();
+            List<Leitura> leituras = new CopyOnWriteArrayList<>();
+            ExecutorService executor = Executors.newFixedThreadPool(LEITORES + 1);
+            try {
+                Future<?> escritor = executor.submit(() -> {
+                    BigDecimal saldo = SALDO_INICIAL;
+                    for (int i = 0; i < DEBITOS; i++) {
+                        HttpResponse<String> resposta = enviar(cliente, post(baseA + "/transacoes", DEBITO));
+                        assertThat(resposta.body()).isEqualTo("OK");
+                        saldo = saldo.subtract(BigDecimal.ONE);
+                        debitos.add(new Debito(System.nanoTime(), saldo));
+                    }
+                    return null;
+                });
+                List<Future<?>> leitores = new ArrayList<>();
+                for (int i = 0; i < LEITORES; i++) {
+                    leitores.add(executor.submit(() -> {
+                        while (!escritor.isDone()) {
+                            long inicio = System.nanoTime();
+                            leituras.add(new Leitura(inicio, consultarSaldo(cliente, baseB)));
+                        }
+                        return null;
+                    }));
+                }
+                escritor.get(2, TimeUnit.MINUTES);
+                for (Future<?> leitor : leitores) {
+                    leitor.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            long limite = TimeUnit.MILLISECONDS.toNanos(limiteMs);
+            for (Leitura leitura : leituras) {
+                BigDecimal saldoMaximo = ultimoSaldoAntes(debitos, leitura.inicio() - limite);
+                assertThat(leitura.saldo())
+                        .as("saldo na instância B anterior a um débito respondido há mais de %d ms", limiteMs)
+                        .isLessThanOrEqualTo(saldoMaximo);
+            }
+            assertThat(leituras).hasSizeGreaterThan(LEITORES);
+
+            // Depois do limite, a instância B devolve o saldo final
+            Thread.sleep(limiteMs);
+            assertThat(consultarSaldo(cliente, baseB))
+                    .isEqualByComparingTo(SALDO_INICIAL.subtract(BigDecimal.valueOf(DEBITOS)));
+        }
+    }
+
+    private ConfigurableApplicationContext iniciar() {
+        return new SpringApplicationBuilder(MiniautorizadorApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:coerencia;DB_CLOSE_DELAY=-1",
+                        "--miniautorizador.cache-saldo.ttl=10m",
+                        "--miniautorizador.cache-saldo.coerencia.habilitado=true",
+                        "--miniautorizador.cache-saldo.coerencia.intervalo=50ms",
+                        "--miniautorizador.cache-saldo.coerencia.defasagem-maxima=" + limiteMs + "ms",
+                        "--miniautorizador.cache-saldo.coerencia.tempo-lacuna=200ms");
+    }
+
+    /**
+     * Consulta o saldo na instância B até que ela passe a atender pelo cache.
+     */
+    private void aguardarCache(HttpClient cliente, String base, ConfigurableApplicationContext instancia)
+            throws InterruptedException {
+        MeterRegistry meterRegistry = instancia.getBean(MeterRegistry.class);
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (acertos(meterRegistry) == 0) {
+            assertThat(System.nanoTime()).as("instância B sem acertos no cache").isLessThan(limite);
+            consultarSaldo(cliente, base);
+            Thread.sleep(20);
+        }
+    }
+
+    private static double acertos(MeterRegistry meterRegistry) {
+        return meterRegistry.get("cache.gets").tags("cache", "saldo", "result", "hit").functionCounter().count();
+    }
+
+    private static BigDecimal ultimoSaldoAntes(List<Debito> debitos, long instante) {
+        BigDecimal saldo = SALDO_INICIAL;
+        for (Debito debito : debitos) {
+            if (debito.respondidoEm() > instante) {
+                break;
+            }
+            saldo = debito.saldo();
+        }
+        return saldo;
+    }
+
+    private static String base(ConfigurableApplicationContext contexto) {
+        return "http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort();
+    }
+
+    private static BigDecimal consultarSaldo(HttpClient cliente, String base) {
+        HttpResponse<String> resposta = enviar(cliente, HttpRequest.newBuilder(
+                        URI.create(base + "/cartoes/" + NUMERO_CARTAO))
+                .header("Authorization", AUTENTICACAO)
+                .GET()
+                .build());
+        assertThat(resposta.statusCode()).isEqualTo(200);
+        return new BigDecimal(resposta.body());
+    }
+
+    private static HttpRequest post(String url, String corpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Authorization", AUTENTICACAO)
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+
+    private static HttpResponse<String> enviar(HttpClient cliente, HttpRequest requisicao) {
+        try {
+            return cliente.send(requisicao, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new IllegalStateException("Falha na requisição " + requisicao.uri(), e);
+        }
+    }
+
+    private record Debito(long respondidoEm, BigDecimal saldo) {
+    }
+
+    private record Leitura(long inicio, BigDecimal saldo) {
+    }
+}
@@ -2,7 +2,9 @@ package br.com.miniautorizador.integracao;
 
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.presentation.dto.CartaoResponse;
+import br.com.miniautorizador.presentation.dto.TransacaoLoteRequest;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +18,8 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -154,4 +158,62 @@ class TransacaoControllerIntegrationTest {
         ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
         assertThat(response.getStatusCode().value()).isEqualTo(401);
     }
-}
\ No newline at end of file
+
+    @DisplayName("Teste de transações de débito em lote com resultado por item")
+    @Test
+    void testExecutarTransacoesEmLote_ResultadoPorItem() throws Exception {
+        // Cadastrar um cartão
+        CartaoRequest cartaoRequest = new CartaoRequest("3692581470258147", "1234");
+        HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(cartaoRequest), headers);
+
+        String url = "http://localhost:" + port + "/cartoes";
+        restTemplate.exchange(url, HttpMethod.POST, entity, CartaoResponse.class);
+
+        // Executar débitos em lote, com dois débitos do mesmo cartão que juntos excedem o saldo
+        TransacaoLoteRequest transacaoLoteRequest = new TransacaoLoteRequest(List.of(
+                new TransacaoRequest("3692581470258147", "1234", BigDecimal.valueOf(300.00)),
+                new TransacaoRequest("3692581470258147", "4321", BigDecimal.valueOf(10.00)),
+                new TransacaoRequest("1472583690147258", "1234", BigDecimal.valueOf(10.00)),
+                new TransacaoRequest("3692581470258147", "1234", BigDecimal.valueOf(300.00))));
+        HttpEntity<String> entity2 = new HttpEntity<>(objectMapper.writeValueAsString(transacaoLoteRequest), headers);
+
+        String url2 = "http://localhost:" + port + "/transacoes/lote";
+        ResponseEntity<String> response = restTemplate.exchange(url2, HttpMethod.POST, entity2, String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        JsonNode resultados = objectMapper.readTree(response.getBody());
+        assertThat(resultados).hasSize(4);
+        assertThat(resultados.get(0).get("status").asText()).isEqualTo("OK");
+        assertThat(resultados.get(1).get("status").asText()).isEqualTo("SENHA_INVALIDA");
+        assertThat(resultados.get(2).get("status").asText()).isEqualTo("CARTAO_INEXISTENTE");
+        assertThat(resultados.get(3).get("status").asText()).isEqualTo("SALDO_INSUFICIENTE");
+    }
+
+    @DisplayName("Teste de transações de débito em lote vazio")
+    @Test
+    void testExecutarTransacoesEmLote_LoteVazio() throws Exception {
+        HttpEntity<String> entity = new HttpEntity<>(
+                objectMapper.writeValueAsString(new TransacaoLoteRequest(List.of())), headers);
+
+        String url = "http://localhost:" + port + "/transacoes/lote";
+        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(response.getBody()).isEqualTo("DADOS_INVALIDOS");
+    }
+
+    @DisplayName("Teste de transações de débito em lote acima do limite")
+    @Test
+    void testExecutarTransacoesEmLote_AcimaDoLimite() throws Exception {
+        List<TransacaoRequest> transacoes = Collections.nCopies(TransacaoLoteRequest.MAXIMO_TRANSACOES + 1,
+                new TransacaoRequest("1234567890123456", "1234", BigDecimal.TEN));
+        HttpEntity<String> entity = new HttpEntity<>(
+                objectMapper.writeValueAsString(new TransacaoLoteRequest(transacoes)), headers);
+
+        String url = "http://localhost:" + port + "/transacoes/lote";
+        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(response.getBody()).isEqualTo("DADOS_INVALIDOS");
+    }
+}
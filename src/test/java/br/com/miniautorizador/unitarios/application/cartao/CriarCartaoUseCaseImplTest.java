@@ -3,6 +3,8 @@ package br.com.miniautorizador.unitarios.application.cartao;
 import br.com.miniautorizador.application.cartao.CriarCartaoUseCaseImpl;
 import br.com.miniautorizador.domain.cartao.Cartao;
 import br.com.miniautorizador.domain.cartao.exception.CartaoExistenteException;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.service.CartaoService;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,13 +44,13 @@ class CriarCartaoUseCaseImplTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         cartaoRequest = new CartaoRequest("1234567890123456", "senha123");
-        criarCartaoUseCaseImpl = new CriarCartaoUseCaseImpl(cartaoService);
+        criarCartaoUseCaseImpl = new CriarCartaoUseCaseImpl(cartaoService, new TopologiaShards(new ShardsProperties()));
     }
 
     @DisplayName("Teste de criação de cartão com sucesso")
     @Test
     void testCriarCartao_Sucesso() {
-        Cartao cartaoEsperado = new Cartao(cartaoRequest.getNumeroCartao(), "senhaHash", BigDecimal.valueOf(500.00));
+        Cartao cartaoEsperado = new Cartao(cartaoRequest.numero(), "senhaHash", BigDecimal.valueOf(500.00));
         when(cartaoService.criarCartao(cartaoRequest)).thenReturn(cartaoEsperado);
 
         Cartao cartaoResultado = criarCartaoUseCaseImpl.criarCartao(cartaoRequest);
@@ -0,0 +1,60 @@
+package br.com.miniautorizador.unitarios.application.cartao;
+
+import br.com.miniautorizador.application.cartao.CriarCartoesEmLoteUseCaseImpl;
+import br.com.miniautorizador.domain.cartao.StatusCriacaoCartao;
+import br.com.miniautorizador.presentation.dto.CartaoLoteRequest;
+import br.com.miniautorizador.presentation.dto.CartaoRequest;
+import br.com.miniautorizador.presentation.dto.ResultadoCartaoResponse;
+import br.com.miniautorizador.service.CartaoLoteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+/**
+ * Classe de teste para a implementação do caso de uso de criar cartões em lote.
+ *
+ * @author Fabiana Costa
+ */
+@ExtendWith(MockitoExtension.class)
+class CriarCartoesEmLoteUseCaseImplTest {
+    @Mock
+    private CartaoLoteService cartaoLoteService;
+
+    private CriarCartoesEmLoteUseCaseImpl useCase;
+
+    @BeforeEach
+    void setUp() {
+        useCase = new CriarCartoesEmLoteUseCaseImpl(cartaoLoteService);
+    }
+
+    @DisplayName("Teste de criação de cartões em lote com resultado por cartão")
+    @Test
+    void testCriarCartoes_ResultadoPorCartao() {
+        List<CartaoRequest> cartoes = List.of(
+                new CartaoRequest("1234567890123456", "1234"),
+                new CartaoRequest("6549873025634501", "1234"));
+        when(cartaoLoteService.criarCartoes(cartoes))
+                .thenReturn(List.of(StatusCriacaoCartao.CRIADO, StatusCriacaoCartao.CARTAO_EXISTENTE));
+
+        List<ResultadoCartaoResponse> resultados = useCase.criarCartoes(new CartaoLoteRequest(cartoes));
+
+        assertThat(resultados).containsExactly(
+                new ResultadoCartaoResponse("1234567890123456", StatusCriacaoCartao.CRIADO),
+                new ResultadoCartaoResponse("6549873025634501", StatusCriacaoCartao.CARTAO_EXISTENTE));
+    }
+
+    @DisplayName("Teste de criação de cartões em lote com request nula")
+    @Test
+    void testCriarCartoes_RequestNula() {
+        assertThrows(NullPointerException.class, () -> useCase.criarCartoes(null));
+    }
+}
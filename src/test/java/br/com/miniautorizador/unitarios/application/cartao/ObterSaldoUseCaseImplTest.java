@@ -2,8 +2,20 @@ package br.com.miniautorizador.unitarios.application.cartao;
 
 import br.com.miniautorizador.application.cartao.ObterSaldoUseCaseImpl;
 import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.SaldoCartao;
 import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteException;
+import br.com.miniautorizador.infrastructure.cache.CoerenciaSaldoProperties;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.cache.SaldoCacheProperties;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorProperties;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
 import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,39 +39,100 @@ class ObterSaldoUseCaseImplTest {
     @InjectMocks
     private ObterSaldoUseCaseImpl obterSaldoUseCaseImpl;
 
+    private LimitadorConcorrencia limitadorConcorrencia;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SaldoCache saldoCache;
+
     private Cartao cartao;
     private final String numeroCartaoValido = "1234567890123456";
     private final String numeroCartaoInvalido = "9999999999999999";
+    private final long numeroValido = 1234567890123456L;
+    private final long numeroInvalido = 9999999999999999L;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        obterSaldoUseCaseImpl = new ObterSaldoUseCaseImpl(cartaoRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        limitadorConcorrencia = new LimitadorConcorrencia(new LimitadorProperties(), meterRegistry);
+        saldoCache = new SaldoCache(new SaldoCacheProperties(), new CoerenciaSaldoProperties(),
+                mock(AlteracaoSaldoJdbcRepository.class), meterRegistry);
+        obterSaldoUseCaseImpl = new ObterSaldoUseCaseImpl(cartaoRepository, limitadorConcorrencia, Optional.empty(),
+                new MetricasAutorizacao(meterRegistry), saldoCache, new TopologiaShards(new ShardsProperties()));
 
-        cartao = new Cartao(numeroCartaoValido, "senhaHash", BigDecimal.valueOf(500.00));
+        cartao = new Cartao(numeroValido, "senhaHash", BigDecimal.valueOf(500.00));
     }
 
     @DisplayName("Teste de obtenção de saldo com sucesso")
     @Test
     void testObterSaldo_Sucesso() {
-        when(cartaoRepository.findByNumeroCartao(numeroCartaoValido)).thenReturn(Optional.of(cartao));
+        when(cartaoRepository.findSaldoByNumeroCartao(numeroValido))
+                .thenReturn(Optional.of(new SaldoCartao(cartao.getSaldo(), 0L)));
         BigDecimal saldo = obterSaldoUseCaseImpl.obterSaldo(numeroCartaoValido);
 
         assertNotNull(saldo);
         assertEquals(BigDecimal.valueOf(500.00), saldo);
 
-        verify(cartaoRepository, times(1)).findByNumeroCartao(numeroCartaoValido);
+        verify(cartaoRepository, times(1)).findSaldoByNumeroCartao(numeroValido);
     }
 
     @DisplayName("Teste de obtenção de saldo com cartão inexistente")
     @Test
     void testObterSaldo_CartaoInexistente() {
-        when(cartaoRepository.findByNumeroCartao(numeroCartaoInvalido)).thenReturn(Optional.empty());
+        when(cartaoRepository.findSaldoByNumeroCartao(numeroInvalido)).thenReturn(Optional.empty());
 
         CartaoInexistenteException exception = assertThrows(CartaoInexistenteException.class, () ->
                 obterSaldoUseCaseImpl.obterSaldo(numeroCartaoInvalido));
 
         assertEquals(numeroCartaoInvalido, exception.getNumeroCartao());
-        verify(cartaoRepository, times(1)).findByNumeroCartao(numeroCartaoInvalido);
+        verify(cartaoRepository, times(1)).findSaldoByNumeroCartao(numeroInvalido);
+        assertEquals(1, meterRegistry.get("miniautorizador.autorizacao.etapa")
+                .tags("fluxo", "saldo", "etapa", "buscar-cartao", "resultado", "CARTAO_INEXISTENTE").timer().count());
+    }
+
+    @DisplayName("Teste de obtenção de saldo pelo cache, até o débito descartá-lo")
+    @Test
+    void testObterSaldo_Cache() {
+        when(cartaoRepository.findSaldoByNumeroCartao(numeroValido))
+                .thenReturn(Optional.of(new SaldoCartao(BigDecimal.valueOf(500.00), 0L)),
+                        Optional.of(new SaldoCartao(BigDecimal.valueOf(400.00), 1L)));
+
+        assertEquals(BigDecimal.valueOf(500.00), obterSaldoUseCaseImpl.obterSaldo(numeroCartaoValido));
+        assertEquals(BigDecimal.valueOf(500.00), obterSaldoUseCaseImpl.obterSaldo(numeroCartaoValido));
+        verify(cartaoRepository, times(1)).findSaldoByNumeroCartao(numeroValido);
+
+        saldoCache.invalidarAposCommit(numeroValido);
+
+        assertEquals(BigDecimal.valueOf(400.00), obterSaldoUseCaseImpl.obterSaldo(numeroCartaoValido));
+        verify(cartaoRepository, times(2)).findSaldoByNumeroCartao(numeroValido);
+        assertEquals(2, meterRegistry.get("cache.gets").tags("cache", "saldo", "result", "miss")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "saldo", "result", "hit")
+                .functionCounter().count());
+    }
+
+    @DisplayName("Teste de obtenção de saldo pelo motor de saldo em memória")
+    @Test
+    void testObterSaldo_MotorSaldoMemoria() {
+        MotorSaldoMemoria motorSaldoMemoria = mock(MotorSaldoMemoria.class);
+        when(motorSaldoMemoria.consultarSaldo(numeroValido)).thenReturn(Optional.of(BigDecimal.valueOf(450.00)));
+        ObterSaldoUseCaseImpl useCase = new ObterSaldoUseCaseImpl(
+                cartaoRepository, limitadorConcorrencia, Optional.of(motorSaldoMemoria),
+                new MetricasAutorizacao(meterRegistry), saldoCache, new TopologiaShards(new ShardsProperties()));
+
+        assertEquals(BigDecimal.valueOf(450.00), useCase.obterSaldo(numeroCartaoValido));
+
+        verifyNoInteractions(cartaoRepository);
+    }
+
+    @DisplayName("Teste de obtenção de saldo com número de cartão sem 16 dígitos")
+    @Test
+    void testObterSaldo_NumeroSemDezesseisDigitos() {
+        CartaoInexistenteException exception = assertThrows(CartaoInexistenteException.class, () ->
+                obterSaldoUseCaseImpl.obterSaldo("12345678901234x6"));
+
+        assertEquals("12345678901234x6", exception.getNumeroCartao());
+        verifyNoInteractions(cartaoRepository);
     }
 }
@@ -1,11 +1,22 @@
 package br.com.miniautorizador.unitarios.application.transacao;
 
 import br.com.miniautorizador.application.transacao.RealizarTransacaoUseCaseImpl;
-import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteTransacaoException;
-import br.com.miniautorizador.domain.cartao.exception.SaldoInsuficienteException;
-import br.com.miniautorizador.domain.cartao.exception.SenhaInvalidaException;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.concorrencia.CartaoLockManager;
+import br.com.miniautorizador.infrastructure.concorrencia.CartaoLockProperties;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorProperties;
+import br.com.miniautorizador.infrastructure.diagnostico.CartoesQuentesProperties;
+import br.com.miniautorizador.infrastructure.diagnostico.RastreadorCartoesQuentes;
+import br.com.miniautorizador.infrastructure.retry.RetryExecutor;
+import br.com.miniautorizador.infrastructure.retry.RetryProperties;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
 import br.com.miniautorizador.service.transacao.TransacaoService;
+import br.com.miniautorizador.service.transacao.lote.DebitoEmLoteService;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,11 +25,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 /**
@@ -42,7 +54,14 @@ class RealizarTransacaoUseCaseImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        realizarTransacaoUseCaseImpl = new RealizarTransacaoUseCaseImpl(transacaoService);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RetryExecutor retryExecutor = new RetryExecutor(new RetryProperties(), meterRegistry);
+        CartaoLockManager cartaoLockManager = new CartaoLockManager(new CartaoLockProperties(), meterRegistry);
+        realizarTransacaoUseCaseImpl = new RealizarTransacaoUseCaseImpl(
+                transacaoService, retryExecutor, cartaoLockManager,
+                new LimitadorConcorrencia(new LimitadorProperties(), meterRegistry), Optional.empty(), Optional.empty(),
+                new RastreadorCartoesQuentes(new CartoesQuentesProperties(), meterRegistry),
+                new TopologiaShards(new ShardsProperties()));
 
         transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
     }
@@ -50,49 +69,107 @@ class RealizarTransacaoUseCaseImplTest {
     @DisplayName("Teste de realização de transação de débito com sucesso")
     @Test
     void testRealizarTransacao_Sucesso() {
-        doNothing().when(transacaoService).realizarTransacao(transacaoRequest);
+        when(transacaoService.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.OK);
 
-        realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest);
+        StatusTransacao status = realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest);
 
+        assertEquals(StatusTransacao.OK, status);
         verify(transacaoService, times(1)).realizarTransacao(transacaoRequest);
     }
 
     @DisplayName("Teste de realização de transação de débito com cartão inexistente")
     @Test
     void testRealizarTransacao_CartaoInexistente() {
-        doThrow(new CartaoInexistenteTransacaoException(transacaoRequest.getNumeroCartao())).when(transacaoService).realizarTransacao(transacaoRequest);
+        when(transacaoService.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.CARTAO_INEXISTENTE);
 
-        CartaoInexistenteTransacaoException exception = assertThrows(CartaoInexistenteTransacaoException.class, () ->
-                realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest));
-
-        assertEquals("O cartão [" + transacaoRequest.getNumeroCartao() + "] não foi encontrado.", exception.getMessage());
+        StatusTransacao status = realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest);
 
+        assertEquals(StatusTransacao.CARTAO_INEXISTENTE, status);
         verify(transacaoService, times(1)).realizarTransacao(transacaoRequest);
     }
 
     @DisplayName("Teste de realização de transação de débito com senha inválida")
     @Test
     void testRealizarTransacao_SenhaInvalida() {
-        doThrow(new SenhaInvalidaException()).when(transacaoService).realizarTransacao(transacaoRequest);
-
-        SenhaInvalidaException exception = assertThrows(SenhaInvalidaException.class, () ->
-                realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest));
+        when(transacaoService.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.SENHA_INVALIDA);
 
-        assertEquals("Senha inválida.", exception.getMessage());
+        StatusTransacao status = realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest);
 
+        assertEquals(StatusTransacao.SENHA_INVALIDA, status);
         verify(transacaoService, times(1)).realizarTransacao(transacaoRequest);
     }
 
     @DisplayName("Teste de realização de transação de débito com saldo insuficiente")
     @Test
     void testRealizarTransacao_SaldoInsuficiente() {
-        doThrow(new SaldoInsuficienteException()).when(transacaoService).realizarTransacao(transacaoRequest);
+        when(transacaoService.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.SALDO_INSUFICIENTE);
 
-        SaldoInsuficienteException exception = assertThrows(SaldoInsuficienteException.class, () ->
-                realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest));
-
-        assertEquals("Saldo insuficiente no cartão.", exception.getMessage());
+        StatusTransacao status = realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest);
 
+        assertEquals(StatusTransacao.SALDO_INSUFICIENTE, status);
         verify(transacaoService, times(1)).realizarTransacao(transacaoRequest);
     }
+
+    @DisplayName("Teste de realização de transação de débito com retentativa após falha de concorrência")
+    @Test
+    void testRealizarTransacao_RetentativaAposConflito() {
+        when(transacaoService.realizarTransacao(transacaoRequest))
+                .thenThrow(new CannotAcquireLockException("Deadlock"))
+                .thenReturn(StatusTransacao.OK);
+
+        assertEquals(StatusTransacao.OK, realizarTransacaoUseCaseImpl.realizarTransacao(transacaoRequest));
+
+        verify(transacaoService, times(2)).realizarTransacao(transacaoRequest);
+    }
+
+    @DisplayName("Teste de realização de transação de débito pelo motor de saldo em memória")
+    @Test
+    void testRealizarTransacao_MotorSaldoMemoria() {
+        MotorSaldoMemoria motorSaldoMemoria = mock(MotorSaldoMemoria.class);
+        when(motorSaldoMemoria.debitar(transacaoRequest)).thenReturn(StatusTransacao.SALDO_INSUFICIENTE);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RealizarTransacaoUseCaseImpl useCase = new RealizarTransacaoUseCaseImpl(
+                transacaoService,
+                new RetryExecutor(new RetryProperties(), meterRegistry),
+                new CartaoLockManager(new CartaoLockProperties(), meterRegistry),
+                new LimitadorConcorrencia(new LimitadorProperties(), meterRegistry),
+                Optional.of(motorSaldoMemoria),
+                Optional.empty(),
+                new RastreadorCartoesQuentes(new CartoesQuentesProperties(), meterRegistry),
+                new TopologiaShards(new ShardsProperties()));
+
+        assertEquals(StatusTransacao.SALDO_INSUFICIENTE, useCase.realizarTransacao(transacaoRequest));
+
+        verify(motorSaldoMemoria, times(1)).debitar(transacaoRequest);
+        verifyNoInteractions(transacaoService);
+    }
+
+    @DisplayName("Teste de realização de transação de débito em lote com retentativa")
+    @Test
+    void testRealizarTransacao_DebitoEmLote() {
+        DebitoEmLoteService debitoEmLoteService = mock(DebitoEmLoteService.class);
+        when(debitoEmLoteService.debitar(transacaoRequest))
+                .thenThrow(new CannotAcquireLockException("Deadlock"))
+                .thenReturn(StatusTransacao.OK);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RastreadorCartoesQuentes rastreadorCartoesQuentes =
+                new RastreadorCartoesQuentes(new CartoesQuentesProperties(), meterRegistry);
+        RealizarTransacaoUseCaseImpl useCase = new RealizarTransacaoUseCaseImpl(
+                transacaoService,
+                new RetryExecutor(new RetryProperties(), meterRegistry),
+                new CartaoLockManager(new CartaoLockProperties(), meterRegistry),
+                new LimitadorConcorrencia(new LimitadorProperties(), meterRegistry),
+                Optional.empty(),
+                Optional.of(debitoEmLoteService),
+                rastreadorCartoesQuentes,
+                new TopologiaShards(new ShardsProperties()));
+
+        assertEquals(StatusTransacao.OK, useCase.realizarTransacao(transacaoRequest));
+
+        verify(debitoEmLoteService, times(2)).debitar(transacaoRequest);
+        verifyNoInteractions(transacaoService);
+        // A tentativa com deadlock conta como conflito do cartão
+        assertEquals(1, rastreadorCartoesQuentes.relatorio().requisicoes());
+        assertEquals(1, rastreadorCartoesQuentes.relatorio().conflitos());
+    }
 }
@@ -0,0 +1,162 @@
+package br.com.miniautorizador.unitarios.application.transacao;
+
+import br.com.miniautorizador.application.transacao.RealizarTransacoesEmLoteUseCaseImpl;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorProperties;
+import br.com.miniautorizador.infrastructure.diagnostico.CartoesQuentesProperties;
+import br.com.miniautorizador.infrastructure.diagnostico.RastreadorCartoesQuentes;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.retry.RetryExecutor;
+import br.com.miniautorizador.infrastructure.retry.RetryProperties;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.presentation.dto.ResultadoTransacaoResponse;
+import br.com.miniautorizador.presentation.dto.TransacaoLoteRequest;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.lote.AutorizacaoLoteService;
+import br.com.miniautorizador.service.transacao.lote.DebitoLoteProperties;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de teste para a implementação do caso de uso de realizar transações em lote.
+ * <p>
+ * Os testes verificam a divisão do lote em blocos, a ordem dos resultados, a retentativa de blocos e o resultado de
+ * cada transação quando um bloco falha depois de outros já aplicados.
+ *
+ * @author Fabiana Costa
+ */
+@ExtendWith(MockitoExtension.class)
+class RealizarTransacoesEmLoteUseCaseImplTest {
+    @Mock
+    private AutorizacaoLoteService autorizacaoLoteService;
+
+    private RealizarTransacoesEmLoteUseCaseImpl useCase;
+    private SimpleMeterRegistry meterRegistry;
+    private RastreadorCartoesQuentes rastreadorCartoesQuentes;
+
+    private final TransacaoRequest transacao1 = new TransacaoRequest("1234567890123456", "1234", BigDecimal.TEN);
+    private final TransacaoRequest transacao2 = new TransacaoRequest("1234567890123456", "4321", BigDecimal.TEN);
+    private final TransacaoRequest transacao3 = new TransacaoRequest("6549873025634501", "1234", BigDecimal.TEN);
+
+    @BeforeEach
+    void setUp() {
+        useCase = criar(Optional.empty());
+    }
+
+    @DisplayName("Teste de transações em lote divididas em blocos")
+    @Test
+    void testRealizarTransacoes_Blocos() {
+        when(autorizacaoLoteService.autorizar(List.of(transacao1, transacao2)))
+                .thenReturn(new StatusTransacao[]{StatusTransacao.OK, StatusTransacao.SENHA_INVALIDA});
+        when(autorizacaoLoteService.autorizar(List.of(transacao3)))
+                .thenReturn(new StatusTransacao[]{StatusTransacao.CARTAO_INEXISTENTE});
+
+        List<ResultadoTransacaoResponse> resultados = useCase.realizarTransacoes(
+                new TransacaoLoteRequest(List.of(transacao1, transacao2, transacao3)));
+
+        assertThat(resultados).containsExactly(
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.OK),
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.SENHA_INVALIDA),
+                new ResultadoTransacaoResponse("6549873025634501", StatusTransacao.CARTAO_INEXISTENTE));
+        verify(autorizacaoLoteService, times(2)).autorizar(anyList());
+    }
+
+    @DisplayName("Teste de retentativa de bloco após falha de concorrência")
+    @Test
+    void testRealizarTransacoes_RetentativaAposConflito() {
+        when(autorizacaoLoteService.autorizar(List.of(transacao1)))
+                .thenThrow(new CannotAcquireLockException("Deadlock"))
+                .thenReturn(new StatusTransacao[]{StatusTransacao.OK});
+
+        List<ResultadoTransacaoResponse> resultados = useCase.realizarTransacoes(
+                new TransacaoLoteRequest(List.of(transacao1)));
+
+        assertThat(resultados).containsExactly(new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.OK));
+        verify(autorizacaoLoteService, times(2)).autorizar(anyList());
+    }
+
+    @DisplayName("Teste de resultado por transação quando um bloco falha depois de outro já aplicado")
+    @Test
+    void testRealizarTransacoes_FalhaAposBlocoAplicado() {
+        when(autorizacaoLoteService.autorizar(List.of(transacao1, transacao2)))
+                .thenReturn(new StatusTransacao[]{StatusTransacao.OK, StatusTransacao.SENHA_INVALIDA});
+        when(autorizacaoLoteService.autorizar(List.of(transacao3)))
+                .thenThrow(new DataAccessResourceFailureException("Conexão perdida"));
+
+        List<ResultadoTransacaoResponse> resultados = useCase.realizarTransacoes(
+                new TransacaoLoteRequest(List.of(transacao1, transacao2, transacao3)));
+
+        // O primeiro bloco já tem commit; só a transação do bloco que falhou deve ser reenviada
+        assertThat(resultados).containsExactly(
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.OK),
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.SENHA_INVALIDA),
+                ResultadoTransacaoResponse.falha("6549873025634501", ResultadoTransacaoResponse.NAO_PROCESSADA));
+        assertThat(rastreadorCartoesQuentes.relatorio().requisicoes()).isEqualTo(3);
+    }
+
+    @DisplayName("Teste de falha sem nenhuma transação aplicada")
+    @Test
+    void testRealizarTransacoes_FalhaNoPrimeiroBloco() {
+        when(autorizacaoLoteService.autorizar(List.of(transacao1, transacao2)))
+                .thenThrow(new DataAccessResourceFailureException("Conexão perdida"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> useCase.realizarTransacoes(
+                new TransacaoLoteRequest(List.of(transacao1, transacao2, transacao3))));
+        // Os blocos seguintes não são enviados depois da falha
+        verify(autorizacaoLoteService, times(1)).autorizar(anyList());
+    }
+
+    @DisplayName("Teste de resultado indeterminado no motor de saldo em memória")
+    @Test
+    void testRealizarTransacoes_MotorResultadoIndeterminado() {
+        MotorSaldoMemoria motorSaldoMemoria = mock(MotorSaldoMemoria.class);
+        when(motorSaldoMemoria.debitar(List.of(transacao1, transacao2))).thenReturn(List.of(
+                CompletableFuture.completedFuture(StatusTransacao.OK),
+                CompletableFuture.failedFuture(new ResultadoIndeterminadoException("Sem resposta"))));
+        useCase = criar(Optional.of(motorSaldoMemoria));
+
+        List<ResultadoTransacaoResponse> resultados = useCase.realizarTransacoes(
+                new TransacaoLoteRequest(List.of(transacao1, transacao2, transacao3)));
+
+        assertThat(resultados).containsExactly(
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.OK),
+                ResultadoTransacaoResponse.falha("1234567890123456",
+                        ResultadoTransacaoResponse.RESULTADO_INDETERMINADO),
+                ResultadoTransacaoResponse.falha("6549873025634501", ResultadoTransacaoResponse.NAO_PROCESSADA));
+        verifyNoInteractions(autorizacaoLoteService);
+    }
+
+    private RealizarTransacoesEmLoteUseCaseImpl criar(Optional<MotorSaldoMemoria> motorSaldoMemoria) {
+        DebitoLoteProperties properties = new DebitoLoteProperties();
+        properties.setTamanhoBloco(2);
+        meterRegistry = new SimpleMeterRegistry();
+        rastreadorCartoesQuentes = new RastreadorCartoesQuentes(new CartoesQuentesProperties(), meterRegistry);
+        return new RealizarTransacoesEmLoteUseCaseImpl(autorizacaoLoteService,
+                new RetryExecutor(new RetryProperties(), meterRegistry), properties, motorSaldoMemoria,
+                new TopologiaShards(new ShardsProperties()),
+                new LimitadorConcorrencia(new LimitadorProperties(), meterRegistry),
+                rastreadorCartoesQuentes,
+                new MetricasAutorizacao(meterRegistry));
+    }
+}
@@ -26,14 +26,14 @@ class CartaoTest {
     @BeforeEach
     void setUp() {
         // Cria um cartão para ser usado nos testes
-        cartao = new Cartao("1234567890123456", "1234", BigDecimal.valueOf(500.00));
+        cartao = new Cartao(1234567890123456L, "1234", BigDecimal.valueOf(500.00));
     }
 
     @DisplayName("Teste para construir um cartão")
     @Test
     void testConstrutor() {
         // Verifica se o construtor inicializa os campos corretamente
-        assertThat(cartao.getNumeroCartao()).isEqualTo("1234567890123456");
+        assertThat(cartao.getNumeroCartao()).isEqualTo(1234567890123456L);
         assertThat(cartao.getSenha()).isEqualTo("1234");
         assertThat(cartao.getSaldo()).isEqualTo(BigDecimal.valueOf(500.00));
     }
@@ -42,11 +42,11 @@ class CartaoTest {
     @Test
     void testSettersEGetters() {
         // Testa os setters e getters
-        cartao.setNumeroCartao("9876543210987654");
+        cartao.setNumeroCartao(9876543210987654L);
         cartao.setSenha("4321");
         cartao.setSaldo(BigDecimal.valueOf(1000.00));
 
-        assertThat(cartao.getNumeroCartao()).isEqualTo("9876543210987654");
+        assertThat(cartao.getNumeroCartao()).isEqualTo(9876543210987654L);
         assertThat(cartao.getSenha()).isEqualTo("4321");
         assertThat(cartao.getSaldo()).isEqualTo(BigDecimal.valueOf(1000.00));
     }
@@ -0,0 +1,55 @@
+package br.com.miniautorizador.unitarios.domain.cartao;
+
+import br.com.miniautorizador.domain.cartao.NumeroCartao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de teste para a conversão do número do cartão entre o formato da API e o formato compacto.
+ *
+ * @author Fabiana Costa
+ */
+class NumeroCartaoTest {
+
+    @DisplayName("Teste de conversão de número com 16 dígitos")
+    @Test
+    void testConverter_NumeroValido() {
+        assertThat(NumeroCartao.converter("1234567890123456")).isEqualTo(1234567890123456L);
+        assertThat(NumeroCartao.converter("9999999999999999")).isEqualTo(9999999999999999L);
+        assertThat(NumeroCartao.converter("0000000000000000")).isZero();
+    }
+
+    @DisplayName("Teste de conversão e formatação de número com zeros à esquerda")
+    @Test
+    void testFormatar_ZerosAEsquerda() {
+        long numero = NumeroCartao.converter("0012345678901234");
+
+        assertThat(numero).isEqualTo(12345678901234L);
+        assertThat(NumeroCartao.formatar(numero)).isEqualTo("0012345678901234");
+        assertThat(NumeroCartao.formatar(0L)).isEqualTo("0000000000000000");
+    }
+
+    @DisplayName("Teste de conversão de número inválido")
+    @Test
+    void testConverter_NumeroInvalido() {
+        assertThat(NumeroCartao.converter(null)).isEqualTo(NumeroCartao.INVALIDO);
+        assertThat(NumeroCartao.converter("")).isEqualTo(NumeroCartao.INVALIDO);
+        assertThat(NumeroCartao.converter("123456789012345")).isEqualTo(NumeroCartao.INVALIDO);
+        assertThat(NumeroCartao.converter("12345678901234567")).isEqualTo(NumeroCartao.INVALIDO);
+        assertThat(NumeroCartao.converter("12345678901234x6")).isEqualTo(NumeroCartao.INVALIDO);
+        assertThat(NumeroCartao.converter("-123456789012345")).isEqualTo(NumeroCartao.INVALIDO);
+        assertThat(NumeroCartao.valido(NumeroCartao.INVALIDO)).isFalse();
+    }
+
+    @DisplayName("Teste de formatação de número fora do intervalo")
+    @Test
+    void testFormatar_NumeroInvalido() {
+        assertThatThrownBy(() -> NumeroCartao.formatar(NumeroCartao.INVALIDO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NumeroCartao.formatar(10_000_000_000_000_000L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,300 @@
+package br.com.miniautorizador.unitarios.infrastructure.cache;
+
+import br.com.miniautorizador.domain.cartao.SaldoCartao;
+import br.com.miniautorizador.infrastructure.cache.CoerenciaSaldoProperties;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.cache.SaldoCacheProperties;
+import br.com.miniautorizador.infrastructure.replicas.RoteadorDataSource;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o cache de saldos.
+ * <p>
+ * Os testes verificam a leitura pelo cache, a invalidação no fim da transação, que uma leitura iniciada antes do
+ * commit não deixa o saldo antigo em cache, a coerência entre duas instâncias pela tabela de alterações, inclusive
+ * com commits fora da ordem dos identificadores, e a leitura no banco primário logo após uma alteração.
+ *
+ * @author Fabiana Costa
+ */
+class SaldoCacheTest {
+    private static final long NUMERO_CARTAO = 1234567890123456L;
+    private static final long OUTRO_CARTAO = 6543210987654321L;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SaldoCache saldoCache;
+    private AtomicInteger leituras;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202412190906_create_table_cartao.sql")
+                .addScript("db/changelog/sqls/202610171400_alter_table_cartoes_numero_bigint_h2.sql")
+                .addScript("db/changelog/sqls/202610171100_create_table_cartoes_alteracoes.sql")
+                .addScript("db/changelog/sqls/202610171410_alter_table_cartoes_alteracoes_numero_bigint_h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        for (long numero : new long[]{NUMERO_CARTAO, OUTRO_CARTAO}) {
+            jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)",
+                    numero, "hash", new BigDecimal("500.00"));
+        }
+        saldoCache = instancia(new SaldoCacheProperties(), new CoerenciaSaldoProperties());
+        leituras = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        database.shutdown();
+    }
+
+    @DisplayName("Teste de leitura pelo cache, sem guardar cartões inexistentes")
+    @Test
+    void testObter_LeituraPeloCache() {
+        assertThat(obter(saldoCache, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+        jdbcTemplate.update("UPDATE cartoes SET saldo = 400.00 WHERE numero_cartao = ?", NUMERO_CARTAO);
+        assertThat(obter(saldoCache, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+        assertThat(leituras).hasValue(1);
+
+        assertThat(saldoCache.obter(0L, Optional::empty)).isEmpty();
+        assertThat(saldoCache.obter(0L, () -> Optional.of(new SaldoCartao(BigDecimal.ONE, 0L))))
+                .contains(BigDecimal.ONE);
+    }
+
+    @DisplayName("Teste de invalidação somente no fim da transação")
+    @Test
+    void testRegistrarAlteracao_Transacao() {
+        obter(saldoCache, NUMERO_CARTAO);
+        TransactionSynchronizationManager.initSynchronization();
+        jdbcTemplate.update("UPDATE cartoes SET saldo = 400.00 WHERE numero_cartao = ?", NUMERO_CARTAO);
+        saldoCache.registrarAlteracao(NUMERO_CARTAO);
+
+        // Antes do commit, o saldo em cache continua sendo servido
+        assertThat(obter(saldoCache, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacao -> sincronizacao.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(obter(saldoCache, NUMERO_CARTAO)).contains(new BigDecimal("400.00"));
+        assertThat(leituras).hasValue(2);
+    }
+
+    @DisplayName("Teste de invalidação durante a leitura do saldo no banco de dados")
+    @Test
+    void testInvalidarAposCommit_LeituraEmAndamento() throws Exception {
+        CountDownLatch lendo = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<Optional<BigDecimal>> leitura = CompletableFuture.supplyAsync(() ->
+                saldoCache.obter(NUMERO_CARTAO, () -> {
+                    lendo.countDown();
+                    aguardar(liberar);
+                    return Optional.of(new SaldoCartao(new BigDecimal("500.00"), 0L));
+                }));
+        assertThat(lendo.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // O commit do débito acontece enquanto o saldo antigo está sendo lido
+        jdbcTemplate.update("UPDATE cartoes SET saldo = 400.00 WHERE numero_cartao = ?", NUMERO_CARTAO);
+        CompletableFuture<Void> invalidacao = CompletableFuture.runAsync(
+                () -> saldoCache.invalidarAposCommit(NUMERO_CARTAO));
+        liberar.countDown();
+
+        assertThat(leitura.get(5, TimeUnit.SECONDS)).contains(new BigDecimal("500.00"));
+        invalidacao.get(5, TimeUnit.SECONDS);
+        assertThat(obter(saldoCache, NUMERO_CARTAO)).contains(new BigDecimal("400.00"));
+    }
+
+    @DisplayName("Teste de cache desativado com tamanho máximo zero")
+    @Test
+    void testObter_Desativado() {
+        SaldoCacheProperties properties = new SaldoCacheProperties();
+        properties.setTamanhoMaximo(0);
+        saldoCache = instancia(properties, new CoerenciaSaldoProperties());
+
+        obter(saldoCache, NUMERO_CARTAO);
+        obter(saldoCache, NUMERO_CARTAO);
+        assertThat(leituras).hasValue(2);
+    }
+
+    @DisplayName("Teste de débito em outra instância descartando o saldo em cache na leitura das alterações")
+    @Test
+    void testSincronizar_AlteracaoDeOutraInstancia() {
+        SaldoCache instanciaA = instancia(new SaldoCacheProperties(), coerencia());
+        SaldoCache instanciaB = instancia(new SaldoCacheProperties(), coerencia());
+        instanciaA.sincronizar();
+        instanciaB.sincronizar();
+        assertThat(obter(instanciaB, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+        assertThat(obter(instanciaB, OUTRO_CARTAO)).contains(new BigDecimal("500.00"));
+
+        debitar(instanciaA, NUMERO_CARTAO, new BigDecimal("100.00"));
+        assertThat(obter(instanciaA, NUMERO_CARTAO)).contains(new BigDecimal("400.00"));
+        assertThat(obter(instanciaB, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+
+        instanciaB.sincronizar();
+        int antes = leituras.get();
+        assertThat(obter(instanciaB, NUMERO_CARTAO)).contains(new BigDecimal("400.00"));
+        // Só o cartão alterado é lido de novo
+        assertThat(obter(instanciaB, OUTRO_CARTAO)).contains(new BigDecimal("500.00"));
+        assertThat(leituras.get() - antes).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de alteração confirmada fora da ordem dos identificadores")
+    @Test
+    void testSincronizar_CommitForaDeOrdem() throws Exception {
+        SaldoCache instanciaB = instancia(new SaldoCacheProperties(), coerencia());
+        instanciaB.sincronizar();
+        assertThat(obter(instanciaB, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+        assertThat(obter(instanciaB, OUTRO_CARTAO)).contains(new BigDecimal("500.00"));
+
+        try (Connection lenta = database.getConnection()) {
+            // A primeira transação reserva o menor identificador, mas confirma por último
+            lenta.setAutoCommit(false);
+            try (PreparedStatement debito = lenta.prepareStatement(
+                    "UPDATE cartoes SET saldo = saldo - 50, version = version + 1 WHERE numero_cartao = ?");
+                 PreparedStatement alteracao = lenta.prepareStatement(
+                         "INSERT INTO cartoes_alteracoes (numero_cartao, versao, registrado_em) "
+                                 + "SELECT numero_cartao, version, CURRENT_TIMESTAMP FROM cartoes "
+                                 + "WHERE numero_cartao = ?")) {
+                debito.setLong(1, NUMERO_CARTAO);
+                debito.executeUpdate();
+                alteracao.setLong(1, NUMERO_CARTAO);
+                alteracao.executeUpdate();
+            }
+            debitar(instancia(new SaldoCacheProperties(), coerencia()), OUTRO_CARTAO, new BigDecimal("100.00"));
+
+            instanciaB.sincronizar();
+            assertThat(obter(instanciaB, OUTRO_CARTAO)).contains(new BigDecimal("400.00"));
+
+            lenta.commit();
+        }
+        assertThat(obter(instanciaB, NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+        instanciaB.sincronizar();
+        assertThat(obter(instanciaB, NUMERO_CARTAO)).contains(new BigDecimal("450.00"));
+    }
+
+    @DisplayName("Teste de leitura no banco de dados sem leitura recente das alterações")
+    @Test
+    void testObter_SemCoerencia() throws InterruptedException {
+        CoerenciaSaldoProperties coerencia = coerencia();
+        coerencia.setDefasagemMaxima(Duration.ofMillis(50));
+        SaldoCache instanciaB = instancia(new SaldoCacheProperties(), coerencia);
+
+        // Antes da primeira leitura das alterações, nada é servido pelo cache
+        obter(instanciaB, NUMERO_CARTAO);
+        obter(instanciaB, NUMERO_CARTAO);
+        assertThat(leituras).hasValue(2);
+
+        instanciaB.sincronizar();
+        obter(instanciaB, NUMERO_CARTAO);
+        obter(instanciaB, NUMERO_CARTAO);
+        assertThat(leituras).hasValue(3);
+
+        // Sem novas leituras das alterações, a defasagem máxima é ultrapassada
+        Thread.sleep(100);
+        obter(instanciaB, NUMERO_CARTAO);
+        assertThat(leituras).hasValue(4);
+    }
+
+    @DisplayName("Teste de leitura no banco primário dentro da janela após a alteração do saldo")
+    @Test
+    void testObter_PrimarioAposAlteracao() throws InterruptedException {
+        SaldoCacheProperties properties = new SaldoCacheProperties();
+        properties.setJanelaPrimario(Duration.ofMillis(100));
+        SaldoCache instanciaA = instancia(properties, coerencia());
+        SaldoCache instanciaB = instancia(properties, coerencia());
+        instanciaA.sincronizar();
+        instanciaB.sincronizar();
+        assertThat(lerNoPrimario(instanciaB, OUTRO_CARTAO)).isFalse();
+
+        debitar(instanciaA, NUMERO_CARTAO, new BigDecimal("100.00"));
+        assertThat(lerNoPrimario(instanciaA, NUMERO_CARTAO)).isTrue();
+        instanciaB.sincronizar();
+        assertThat(lerNoPrimario(instanciaB, NUMERO_CARTAO)).isTrue();
+        assertThat(lerNoPrimario(instanciaB, OUTRO_CARTAO)).isFalse();
+
+        Thread.sleep(150);
+        instanciaB.invalidar();
+        assertThat(lerNoPrimario(instanciaB, NUMERO_CARTAO)).isFalse();
+    }
+
+    private SaldoCache instancia(SaldoCacheProperties properties, CoerenciaSaldoProperties coerencia) {
+        return new SaldoCache(properties, coerencia,
+                new AlteracaoSaldoJdbcRepository(new NamedParameterJdbcTemplate(database)), new SimpleMeterRegistry());
+    }
+
+    private static CoerenciaSaldoProperties coerencia() {
+        CoerenciaSaldoProperties coerencia = new CoerenciaSaldoProperties();
+        coerencia.setHabilitado(true);
+        coerencia.setDefasagemMaxima(Duration.ofMinutes(1));
+        coerencia.setTempoLacuna(Duration.ZERO);
+        return coerencia;
+    }
+
+    private void debitar(SaldoCache instancia, long numeroCartao, BigDecimal valor) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE cartoes SET saldo = saldo - ?, version = version + 1 WHERE numero_cartao = ?",
+                    valor, numeroCartao);
+            instancia.registrarAlteracao(numeroCartao);
+        });
+    }
+
+    /**
+     * @return Se o saldo foi lido no banco de dados com o banco primário forçado.
+     */
+    private static boolean lerNoPrimario(SaldoCache instancia, long numeroCartao) {
+        AtomicBoolean primario = new AtomicBoolean();
+        instancia.obter(numeroCartao, () -> {
+            primario.set(RoteadorDataSource.primarioForcado());
+            return Optional.of(new SaldoCartao(BigDecimal.ONE, Long.MAX_VALUE));
+        });
+        return primario.get();
+    }
+
+    private Optional<BigDecimal> obter(SaldoCache instancia, long numeroCartao) {
+        return instancia.obter(numeroCartao, () -> {
+            leituras.incrementAndGet();
+            return jdbcTemplate.query("SELECT saldo, version FROM cartoes WHERE numero_cartao = ?",
+                    (rs, linha) -> new SaldoCartao(rs.getBigDecimal("saldo"), rs.getLong("version")),
+                    numeroCartao).stream().findFirst();
+        });
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
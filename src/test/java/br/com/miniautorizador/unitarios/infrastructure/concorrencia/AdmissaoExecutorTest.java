@@ -0,0 +1,187 @@
+package br.com.miniautorizador.unitarios.infrastructure.concorrencia;
+
+import br.com.miniautorizador.infrastructure.concorrencia.AdmissaoExecutor;
+import br.com.miniautorizador.infrastructure.concorrencia.AdmissaoProperties;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para o controle de admissão das requisições assíncronas.
+ * <p>
+ * Os testes verificam o processamento fora da thread chamadora, a recusa imediata com a fila cheia e o descarte das
+ * requisições que esperaram além do tempo máximo na fila ou que não terminaram dentro do tempo máximo de resposta.
+ *
+ * @author Fabiana Costa
+ */
+class AdmissaoExecutorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissaoExecutor admissaoExecutor;
+
+    @AfterEach
+    void tearDown() {
+        admissaoExecutor.encerrar();
+    }
+
+    @DisplayName("Teste de processamento no pool de admissão")
+    @Test
+    void testSubmeter_Sucesso() throws Exception {
+        admissaoExecutor = criar(2, 10, Duration.ofSeconds(5));
+
+        String thread = admissaoExecutor.submeter(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(thread).startsWith("admissao-");
+        assertThat(meterRegistry.get("miniautorizador.admissao.espera").timer().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de recusa imediata com a fila de admissão cheia")
+    @Test
+    void testSubmeter_FilaCheia() throws Exception {
+        admissaoExecutor = criar(1, 1, Duration.ofSeconds(5));
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            // Uma requisição ocupa a única thread e outra ocupa a única posição da fila
+            CompletableFuture<Boolean> ocupando = admissaoExecutor.submeter(() -> aguardar(liberar));
+            CompletableFuture<Boolean> enfileirada = admissaoExecutor.submeter(() -> Boolean.TRUE);
+
+            ServicoOcupadoException exception = assertThrows(ServicoOcupadoException.class, () ->
+                    admissaoExecutor.submeter(() -> Boolean.TRUE));
+
+            assertThat(exception.getRetryAfter()).isEqualTo(Duration.ofSeconds(1));
+            assertThat(meterRegistry.get("miniautorizador.admissao.fila").gauge().value()).isEqualTo(1);
+            assertThat(meterRegistry.get("miniautorizador.admissao.rejeitadas").counter().count()).isEqualTo(1);
+            liberar.countDown();
+            assertThat(ocupando.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(enfileirada.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @DisplayName("Teste de descarte da requisição que esperou além do tempo máximo na fila")
+    @Test
+    void testSubmeter_Expirada() throws Exception {
+        admissaoExecutor = criar(1, 10, Duration.ofMillis(50));
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<Boolean> ocupando = admissaoExecutor.submeter(() -> aguardar(liberar));
+        CompletableFuture<Boolean> expirada = admissaoExecutor.submeter(() -> Boolean.TRUE);
+
+        Thread.sleep(100);
+        liberar.countDown();
+
+        assertThat(ocupando.get(5, TimeUnit.SECONDS)).isTrue();
+        ExecutionException exception = assertThrows(ExecutionException.class, () ->
+                expirada.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(ServicoOcupadoException.class);
+        assertThat(meterRegistry.get("miniautorizador.admissao.expiradas").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de cancelamento da requisição sem resposta antes de começar")
+    @Test
+    void testSubmeter_TimeoutAntesDeComecar() throws Exception {
+        admissaoExecutor = criar(1, 10, Duration.ofSeconds(5), Duration.ofMillis(100), false);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicBoolean executada = new AtomicBoolean();
+        try {
+            CompletableFuture<Boolean> ocupando = admissaoExecutor.submeter(() -> aguardar(liberar));
+            CompletableFuture<Boolean> cancelada = admissaoExecutor.submeter(() -> executada.getAndSet(true));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () ->
+                    cancelada.get(5, TimeUnit.SECONDS));
+            liberar.countDown();
+
+            // A requisição cancelada ainda na fila pode ser repetida: ela nunca será executada. A que ocupava a thread
+            // também passou do tempo máximo de resposta, mas já tinha começado e termina como indeterminada
+            assertThat(exception.getCause()).isInstanceOf(ServicoOcupadoException.class);
+            ExecutionException indeterminada = assertThrows(ExecutionException.class, () ->
+                    ocupando.get(5, TimeUnit.SECONDS));
+            assertThat(indeterminada.getCause()).isInstanceOf(ResultadoIndeterminadoException.class);
+            assertThat(admissaoExecutor.submeter(() -> Boolean.TRUE).get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(executada).isFalse();
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @DisplayName("Teste de resultado indeterminado da requisição sem resposta depois de começar")
+    @Test
+    void testSubmeter_TimeoutDepoisDeComecar() throws Exception {
+        admissaoExecutor = criar(1, 10, Duration.ofSeconds(5), Duration.ofMillis(100), false);
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> iniciada = admissaoExecutor.submeter(() -> aguardar(liberar));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () ->
+                    iniciada.get(5, TimeUnit.SECONDS));
+
+            assertThat(exception.getCause()).isInstanceOf(ResultadoIndeterminadoException.class);
+            assertThat(meterRegistry.get("miniautorizador.admissao.indeterminadas").counter().count()).isEqualTo(1);
+
+            // A exceção expõe a conclusão real, que chega quando a requisição termina
+            CompletableFuture<?> conclusao = ((ResultadoIndeterminadoException) exception.getCause())
+                    .getConclusao().toCompletableFuture();
+            assertThat(conclusao).isNotDone();
+            liberar.countDown();
+            assertThat(conclusao.get(5, TimeUnit.SECONDS)).isEqualTo(Boolean.TRUE);
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @DisplayName("Teste de admissão em threads virtuais com concorrência limitada")
+    @Test
+    void testSubmeter_ThreadsVirtuais() throws Exception {
+        admissaoExecutor = criar(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(5), true);
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> ocupando = admissaoExecutor.submeter(() -> aguardar(liberar));
+            CompletableFuture<Boolean> enfileirada =
+                    admissaoExecutor.submeter(() -> Thread.currentThread().isVirtual());
+
+            assertThrows(ServicoOcupadoException.class, () -> admissaoExecutor.submeter(() -> Boolean.TRUE));
+            assertThat(meterRegistry.get("miniautorizador.admissao.ativas").gauge().value()).isLessThanOrEqualTo(1);
+            liberar.countDown();
+            assertThat(ocupando.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(enfileirada.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    private AdmissaoExecutor criar(int threads, int capacidadeFila, Duration tempoMaximoFila) {
+        return criar(threads, capacidadeFila, tempoMaximoFila, Duration.ofSeconds(9), false);
+    }
+
+    private AdmissaoExecutor criar(int threads, int capacidadeFila, Duration tempoMaximoFila,
+                                   Duration timeoutResposta, boolean threadsVirtuais) {
+        meterRegistry = new SimpleMeterRegistry();
+        AdmissaoProperties admissaoProperties = new AdmissaoProperties();
+        admissaoProperties.setThreads(threads);
+        admissaoProperties.setCapacidadeFila(capacidadeFila);
+        admissaoProperties.setTempoMaximoFila(tempoMaximoFila);
+        admissaoProperties.setTimeoutResposta(timeoutResposta);
+        return new AdmissaoExecutor(admissaoProperties, meterRegistry, threadsVirtuais);
+    }
+
+    private static Boolean aguardar(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Boolean.FALSE;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package br.com.miniautorizador.unitarios.infrastructure.concorrencia;
+
+import br.com.miniautorizador.infrastructure.concorrencia.CartaoLockManager;
+import br.com.miniautorizador.infrastructure.concorrencia.CartaoLockProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para o gerenciador de locks por cartão.
+ * <p>
+ * Os testes verificam a serialização de operações do mesmo cartão, o paralelismo entre cartões de stripes
+ * diferentes, inclusive sob carga, e o timeout de espera pelo lock.
+ *
+ * @author Fabiana Costa
+ */
+class CartaoLockManagerTest {
+    private CartaoLockProperties properties;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CartaoLockProperties();
+        properties.setStripes(16);
+        properties.setTimeout(Duration.ofSeconds(5));
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("Teste de arredondamento da quantidade de stripes para potência de 2")
+    @Test
+    void testQuantidadeStripes_PotenciaDeDois() {
+        properties.setStripes(10);
+        CartaoLockManager lockManager = new CartaoLockManager(properties, new SimpleMeterRegistry());
+
+        assertThat(lockManager.getQuantidadeStripes()).isEqualTo(16);
+    }
+
+    @DisplayName("Teste de serialização de operações do mesmo cartão")
+    @Test
+    void testExecutar_MesmoCartaoSerializado() throws Exception {
+        CartaoLockManager lockManager = new CartaoLockManager(properties, new SimpleMeterRegistry());
+        int[] contador = {0};
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            tarefas.add(executor.submit(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    lockManager.executar(1234567890123456L, () -> contador[0]++);
+                }
+            }));
+        }
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(10, TimeUnit.SECONDS);
+        }
+
+        // Sem o lock, incrementos concorrentes seriam perdidos
+        assertThat(contador[0]).isEqualTo(8_000);
+    }
+
+    @DisplayName("Teste de paralelismo entre cartões de stripes diferentes")
+    @Test
+    void testExecutar_CartoesDiferentesEmParalelo() throws Exception {
+        CartaoLockManager lockManager = new CartaoLockManager(properties, new SimpleMeterRegistry());
+        long cartaoA = 1234567890123456L;
+        long cartaoB = encontrarCartaoEmOutroStripe(lockManager, cartaoA);
+        CountDownLatch ambosDentro = new CountDownLatch(2);
+
+        Future<?> tarefaA = executor.submit(() -> lockManager.executar(cartaoA, () -> aguardar(ambosDentro)));
+        Future<?> tarefaB = executor.submit(() -> lockManager.executar(cartaoB, () -> aguardar(ambosDentro)));
+
+        // As duas operações precisam estar dentro do lock ao mesmo tempo para concluir
+        tarefaA.get(5, TimeUnit.SECONDS);
+        tarefaB.get(5, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("Teste de cartões diferentes sem timeout com muitas requisições simultâneas e idas ao banco")
+    @Test
+    void testExecutar_CartoesDiferentesSobCarga() throws Exception {
+        // Configuração padrão, com tantas requisições simultâneas quanto as threads de admissão do perfil virtual,
+        // cada uma segurando o lock pelo tempo de idas ao banco de dados
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CartaoLockManager lockManager = new CartaoLockManager(new CartaoLockProperties(), meterRegistry);
+        ExecutorService requisicoes = Executors.newFixedThreadPool(200);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                long primeiroCartao = 4000000000000000L + i * 1_000L;
+                tarefas.add(requisicoes.submit(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        lockManager.executar(primeiroCartao + j, () -> LockSupport.parkNanos(
+                                TimeUnit.MILLISECONDS.toNanos(20)));
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            requisicoes.shutdownNow();
+        }
+
+        assertThat(meterRegistry.get("miniautorizador.lock.espera").tag("resultado", "timeout").timer().count())
+                .isZero();
+        assertThat(meterRegistry.get("miniautorizador.lock.espera").tag("resultado", "adquirido").timer().count())
+                .isEqualTo(200 * 10);
+    }
+
+    @DisplayName("Teste de timeout aguardando o lock do cartão")
+    @Test
+    void testExecutar_TimeoutAguardandoLock() throws Exception {
+        properties.setTimeout(Duration.ofMillis(50));
+        CartaoLockManager lockManager = new CartaoLockManager(properties, new SimpleMeterRegistry());
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<?> dono = executor.submit(() -> lockManager.executar(1234567890123456L, () -> {
+            dentro.countDown();
+            esperar(liberar);
+        }));
+        assertThat(dentro.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThrows(CannotAcquireLockException.class,
+                () -> lockManager.executar(1234567890123456L, () -> { }));
+
+        liberar.countDown();
+        dono.get(5, TimeUnit.SECONDS);
+    }
+
+    private static long encontrarCartaoEmOutroStripe(CartaoLockManager lockManager, long cartao) {
+        long candidato = cartao;
+        do {
+            candidato++;
+        } while (lockManager.indiceStripe(candidato) == lockManager.indiceStripe(cartao));
+        return candidato;
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        latch.countDown();
+        esperar(latch);
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.miniautorizador.unitarios.infrastructure.concorrencia;
+
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorConcorrencia;
+import br.com.miniautorizador.infrastructure.concorrencia.LimitadorProperties;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para o limitador adaptativo de concorrência.
+ * <p>
+ * Os testes verificam a recusa acima do limite, a redução por falhas do banco de dados e o ajuste do limite a partir
+ * das latências observadas.
+ *
+ * @author Fabiana Costa
+ */
+class LimitadorConcorrenciaTest {
+    private SimpleMeterRegistry meterRegistry;
+    private LimitadorProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new LimitadorProperties();
+        properties.setLimiteInicial(4);
+        properties.setLimiteMinimo(2);
+        properties.setLimiteMaximo(50);
+    }
+
+    @DisplayName("Teste de recusa imediata acima do limite de concorrência")
+    @Test
+    void testExecutar_LimiteAtingido() throws Exception {
+        LimitadorConcorrencia limitador = new LimitadorConcorrencia(properties, meterRegistry);
+        CountDownLatch ocupadas = new CountDownLatch(4);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futuros = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futuros.add(clientes.submit(() -> limitador.executar(() -> {
+                    ocupadas.countDown();
+                    return aguardar(liberar);
+                })));
+            }
+            assertThat(ocupadas.await(5, TimeUnit.SECONDS)).isTrue();
+
+            ServicoOcupadoException exception = assertThrows(ServicoOcupadoException.class, () ->
+                    limitador.executar(() -> Boolean.TRUE));
+
+            assertThat(exception.getRetryAfter()).isPositive();
+            assertThat(meterRegistry.get("miniautorizador.limitador.rejeitadas").counter().count()).isEqualTo(1);
+            liberar.countDown();
+            for (Future<Boolean> futuro : futuros) {
+                assertThat(futuro.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+            assertThat(limitador.getEmAndamento()).isZero();
+        } finally {
+            liberar.countDown();
+            clientes.shutdownNow();
+        }
+    }
+
+    @DisplayName("Teste de redução do limite por timeout do banco de dados")
+    @Test
+    void testExecutar_FalhaRecursoReduzLimite() {
+        properties.setLimiteInicial(20);
+        LimitadorConcorrencia limitador = new LimitadorConcorrencia(properties, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(QueryTimeoutException.class, () -> limitador.executar(() -> {
+                throw new QueryTimeoutException("Timeout");
+            }));
+        }
+
+        assertThat(limitador.getLimite()).isLessThan(20).isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("miniautorizador.limitador.reducoes").counter().count()).isEqualTo(10);
+    }
+
+    @DisplayName("Teste de crescimento do limite com latência estável e redução quando o banco de dados fica lento")
+    @Test
+    void testExecutar_AjustePelaLatencia() throws Exception {
+        LimitadorConcorrencia limitador = new LimitadorConcorrencia(properties, meterRegistry);
+
+        // Latência estável com o limite ocupado: o limite cresce
+        executarConcorrente(limitador, 4, 400, 200_000);
+        int limiteEstavel = limitador.getLimite();
+        assertThat(limiteEstavel).isGreaterThan(4);
+
+        // Latência dez vezes maior: o gradiente cai e o limite diminui
+        executarConcorrente(limitador, limiteEstavel, 100, 2_000_000);
+        assertThat(limitador.getLimite()).isLessThan(limiteEstavel);
+    }
+
+    private static void executarConcorrente(LimitadorConcorrencia limitador, int clientes, int operacoes,
+                                            long latenciaNanos) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        try {
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int i = 0; i < clientes; i++) {
+                futuros.add(executor.submit(() -> {
+                    for (int j = 0; j < operacoes / clientes; j++) {
+                        try {
+                            limitador.executar(() -> LockSupport.parkNanos(latenciaNanos));
+                        } catch (ServicoOcupadoException e) {
+                            // Recusas fazem parte do ajuste; o cliente segue com a próxima operação
+                        }
+                    }
+                }));
+            }
+            for (Future<?> futuro : futuros) {
+                futuro.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Boolean aguardar(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Boolean.FALSE;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.miniautorizador.unitarios.infrastructure.diagnostico;
+
+import br.com.miniautorizador.infrastructure.diagnostico.CartoesQuentesProperties;
+import br.com.miniautorizador.infrastructure.diagnostico.RastreadorCartoesQuentes;
+import br.com.miniautorizador.infrastructure.diagnostico.RelatorioCartoesQuentes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o rastreador de cartões quentes.
+ * <p>
+ * Os testes verificam a identificação dos cartões mais requisitados entre muitos cartões frios, a taxa de conflitos
+ * por cartão, a rotação das janelas e o mascaramento dos números no relatório.
+ *
+ * @author Fabiana Costa
+ */
+class RastreadorCartoesQuentesTest {
+    private static final long CARTAO_QUENTE = 4000000000000001L;
+    private static final long CARTAO_MORNO = 4000000000000002L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartoesQuentesProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CartoesQuentesProperties();
+        properties.setTopK(5);
+        properties.setLargura(1024);
+    }
+
+    @DisplayName("Teste de identificação dos cartões mais requisitados entre muitos cartões frios")
+    @Test
+    void testRelatorio_CartoesMaisRequisitados() {
+        RastreadorCartoesQuentes rastreador = new RastreadorCartoesQuentes(properties, meterRegistry);
+        for (int i = 0; i < 10_000; i++) {
+            rastreador.registrarRequisicao(5_000_000_000_000_000L + i);
+            if (i % 20 == 0) {
+                rastreador.registrarRequisicao(CARTAO_QUENTE);
+            }
+            if (i % 50 == 0) {
+                rastreador.registrarRequisicao(CARTAO_MORNO);
+            }
+        }
+
+        RelatorioCartoesQuentes relatorio = rastreador.relatorio();
+
+        assertThat(relatorio.requisicoes()).isEqualTo(10_000 + 500 + 200);
+        assertThat(relatorio.porRequisicoes()).hasSizeLessThanOrEqualTo(5);
+        assertThat(relatorio.porRequisicoes().get(0).cartao()).isEqualTo("400000******0001");
+        assertThat(relatorio.porRequisicoes().get(0).requisicoes()).isGreaterThanOrEqualTo(500);
+        assertThat(relatorio.porRequisicoes().get(1).cartao()).isEqualTo("400000******0002");
+        assertThat(relatorio.porRequisicoes().get(1).requisicoes()).isGreaterThanOrEqualTo(200);
+    }
+
+    @DisplayName("Teste de taxa de conflitos por cartão e rotação da janela")
+    @Test
+    void testRelatorio_ConflitosERotacao() {
+        RastreadorCartoesQuentes rastreador = new RastreadorCartoesQuentes(properties, meterRegistry);
+        for (int i = 0; i < 100; i++) {
+            rastreador.registrarRequisicao(CARTAO_QUENTE);
+            if (i % 4 == 0) {
+                rastreador.registrarConflito(CARTAO_QUENTE);
+            }
+        }
+
+        rastreador.rotacionar();
+        rastreador.registrarRequisicao(CARTAO_MORNO);
+        RelatorioCartoesQuentes relatorio = rastreador.relatorio();
+
+        // O relatório é o da janela encerrada, sem a requisição da janela nova
+        assertThat(relatorio.requisicoes()).isEqualTo(100);
+        assertThat(relatorio.conflitos()).isEqualTo(25);
+        assertThat(relatorio.porConflitos()).hasSize(1);
+        assertThat(relatorio.porConflitos().get(0).taxaConflito()).isEqualTo(0.25);
+        assertThat(meterRegistry.get("miniautorizador.cartoes-quentes.conflitos").counter().count()).isEqualTo(25);
+        assertThat(meterRegistry.get("miniautorizador.cartoes-quentes.maior-taxa").gauge().value()).isPositive();
+    }
+
+    @DisplayName("Teste do rastreador desabilitado")
+    @Test
+    void testRelatorio_Desabilitado() {
+        properties.setHabilitado(false);
+        RastreadorCartoesQuentes rastreador = new RastreadorCartoesQuentes(properties, meterRegistry);
+
+        rastreador.registrarRequisicao(CARTAO_QUENTE);
+        rastreador.registrarConflito(CARTAO_QUENTE);
+
+        assertThat(rastreador.relatorio().requisicoes()).isZero();
+        assertThat(rastreador.relatorio().porRequisicoes()).isEmpty();
+    }
+}
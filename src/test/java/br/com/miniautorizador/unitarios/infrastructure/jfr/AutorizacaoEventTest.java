@@ -0,0 +1,79 @@
+package br.com.miniautorizador.unitarios.infrastructure.jfr;
+
+import br.com.miniautorizador.infrastructure.jfr.AutorizacaoEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o evento JFR de autorização.
+ * <p>
+ * Os testes gravam o evento em uma gravação JFR real e verificam as etapas acumuladas entre tentativas, o cartão
+ * gravado apenas como hash e o descarte de autorizações abaixo do limite de duração.
+ *
+ * @author Fabiana Costa
+ */
+class AutorizacaoEventTest {
+    private static final long NUMERO_CARTAO = 1234567890123456L;
+
+    @TempDir
+    Path diretorio;
+
+    @DisplayName("Teste de gravação do evento de autorização com etapas e tentativas")
+    @Test
+    void testConcluir_GravaEtapas() throws Exception {
+        List<RecordedEvent> eventos = gravar(Duration.ZERO, () -> {
+            AutorizacaoEvent evento = AutorizacaoEvent.iniciar();
+            evento.registrarEsperaLock(500);
+            for (int tentativa = 0; tentativa < 2; tentativa++) {
+                evento.registrarTentativa();
+                AutorizacaoEvent.registrarEtapa("buscar-cartao", 1_000);
+                AutorizacaoEvent.registrarEtapa("validar-senha", 2_000);
+            }
+            evento.concluir(NUMERO_CARTAO, "OK");
+            // Após a conclusão, a thread não tem mais evento associado
+            AutorizacaoEvent.registrarEtapa("buscar-cartao", 1_000);
+        });
+
+        assertThat(eventos).hasSize(1);
+        RecordedEvent evento = eventos.get(0);
+        assertThat(evento.getString("resultado")).isEqualTo("OK");
+        assertThat(evento.getInt("tentativas")).isEqualTo(2);
+        assertThat(evento.getDuration("esperaLock")).isEqualTo(Duration.ofNanos(500));
+        assertThat(evento.getDuration("buscaCartao")).isEqualTo(Duration.ofNanos(2_000));
+        assertThat(evento.getDuration("validacaoSenha")).isEqualTo(Duration.ofNanos(4_000));
+        assertThat(evento.getString("cartao")).hasSize(16).doesNotContain(String.valueOf(NUMERO_CARTAO));
+    }
+
+    @DisplayName("Teste de descarte do evento de autorização abaixo do limite de duração")
+    @Test
+    void testConcluir_AbaixoDoLimite() throws Exception {
+        List<RecordedEvent> eventos = gravar(Duration.ofSeconds(10), () ->
+                AutorizacaoEvent.iniciar().concluir(NUMERO_CARTAO, "OK"));
+
+        assertThat(eventos).isEmpty();
+    }
+
+    private List<RecordedEvent> gravar(Duration limite, Runnable acao) throws Exception {
+        Path arquivo = diretorio.resolve("autorizacao.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(AutorizacaoEvent.NOME).withThreshold(limite);
+            recording.start();
+            acao.run();
+            recording.stop();
+            recording.dump(arquivo);
+        }
+        return RecordingFile.readAllEvents(arquivo).stream()
+                .filter(evento -> evento.getEventType().getName().equals(AutorizacaoEvent.NOME))
+                .toList();
+    }
+}
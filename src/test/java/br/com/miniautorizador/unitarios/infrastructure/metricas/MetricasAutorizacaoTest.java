@@ -0,0 +1,123 @@
+package br.com.miniautorizador.unitarios.infrastructure.metricas;
+
+import br.com.miniautorizador.infrastructure.metricas.MedicaoEtapas;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.metricas.ServerTiming;
+import br.com.miniautorizador.infrastructure.metricas.ServerTimingAdvice;
+import br.com.miniautorizador.infrastructure.metricas.ServerTimingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para as métricas por etapa da autorização.
+ * <p>
+ * Os testes verificam a medição do commit e o resultado de erro quando a transação é desfeita, além do cabeçalho
+ * {@code Server-Timing} com etapas executadas em outra thread.
+ *
+ * @author Fabiana Costa
+ */
+class MetricasAutorizacaoTest {
+    private SimpleMeterRegistry meterRegistry;
+    private MetricasAutorizacao metricasAutorizacao;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metricasAutorizacao = new MetricasAutorizacao(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @DisplayName("Teste de publicação das etapas após o commit, com a etapa de commit")
+    @Test
+    void testConcluir_Commit() {
+        TransactionSynchronizationManager.initSynchronization();
+        MedicaoEtapas medicao = metricasAutorizacao.iniciar("transacao");
+        medicao.medir("buscar-cartao", () -> Boolean.TRUE);
+        metricasAutorizacao.concluir(medicao, "OK");
+
+        // Nada é publicado antes do fim da transação
+        assertThat(meterRegistry.find("miniautorizador.autorizacao").timer()).isNull();
+        finalizarTransacao(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(meterRegistry.get("miniautorizador.autorizacao.etapa")
+                .tags("etapa", "buscar-cartao", "resultado", "OK").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("miniautorizador.autorizacao.etapa")
+                .tags("etapa", "commit", "resultado", "OK").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("miniautorizador.autorizacao")
+                .tags("fluxo", "transacao", "resultado", "OK").timer().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de resultado de erro quando a transação é desfeita")
+    @Test
+    void testConcluir_Rollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        MedicaoEtapas medicao = metricasAutorizacao.iniciar("transacao");
+        medicao.medir("atualizar-saldo", () -> Boolean.TRUE);
+        metricasAutorizacao.concluir(medicao, "OK");
+
+        finalizarTransacao(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(meterRegistry.get("miniautorizador.autorizacao")
+                .tags("resultado", MetricasAutorizacao.ERRO).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("miniautorizador.autorizacao").tags("resultado", "OK").timer()).isNull();
+    }
+
+    @DisplayName("Teste do cabeçalho Server-Timing com etapas medidas em outra thread")
+    @Test
+    void testServerTiming_PropagadoEntreThreads() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transacoes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new ServerTimingFilter().doFilter(request, response, (req, res) -> CompletableFuture.supplyAsync(
+                    ServerTiming.propagar(() -> {
+                        MedicaoEtapas medicao = metricasAutorizacao.iniciar("transacao");
+                        medicao.medir("validar-senha", () -> Boolean.TRUE);
+                        metricasAutorizacao.concluir(medicao, "OK");
+                        return medicao;
+                    }), executor).orTimeout(5, TimeUnit.SECONDS).join());
+        } finally {
+            executor.shutdown();
+        }
+
+        ServletServerHttpResponse httpResponse = new ServletServerHttpResponse(response);
+        new ServerTimingAdvice().beforeBodyWrite("OK", null, null, null,
+                new ServletServerHttpRequest(request), httpResponse);
+        httpResponse.flush();
+
+        assertThat(response.getHeader("Server-Timing"))
+                .contains("validar-senha;dur=")
+                .contains("total;dur=");
+    }
+
+    private static void finalizarTransacao(int status) {
+        var sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            sincronizacoes.forEach(sincronizacao -> sincronizacao.beforeCommit(false));
+        }
+        sincronizacoes.forEach(sincronizacao -> sincronizacao.afterCompletion(status));
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.miniautorizador.unitarios.infrastructure.pin;
+
+import br.com.miniautorizador.infrastructure.pin.ArquivoChavePin;
+import br.com.miniautorizador.infrastructure.pin.HmacPinVerificador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para a verificação de PIN por HMAC.
+ * <p>
+ * Os testes verificam a geração e a verificação do valor de verificação do PIN e a leitura da chave secreta.
+ *
+ * @author Fabiana Costa
+ */
+class HmacPinVerificadorTest {
+    private HmacPinVerificador verificador;
+
+    @BeforeEach
+    void setUp() {
+        verificador = new HmacPinVerificador("chave-de-teste-com-32-bytes-1234".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @DisplayName("Teste de verificação de PIN correto")
+    @Test
+    void testVerificar_PinCorreto() {
+        String hash = verificador.gerarHash(1234567890123456L, "1234");
+
+        assertThat(hash).startsWith("{hmac}").hasSizeLessThanOrEqualTo(60);
+        assertThat(verificador.verificar(1234567890123456L, "1234", hash)).isTrue();
+    }
+
+    @DisplayName("Teste de verificação de PIN incorreto")
+    @Test
+    void testVerificar_PinIncorreto() {
+        String hash = verificador.gerarHash(1234567890123456L, "1234");
+
+        assertThat(verificador.verificar(1234567890123456L, "4321", hash)).isFalse();
+    }
+
+    @DisplayName("Teste de hash vinculado ao número do cartão")
+    @Test
+    void testGerarHash_VinculadoAoCartao() {
+        String hash = verificador.gerarHash(1234567890123456L, "1234");
+
+        // O mesmo PIN em outro cartão gera outro hash e não é aceito com o hash do primeiro
+        assertThat(verificador.gerarHash(6549873025634501L, "1234")).isNotEqualTo(hash);
+        assertThat(verificador.verificar(6549873025634501L, "1234", hash)).isFalse();
+    }
+
+    @DisplayName("Teste de hash igual ao calculado sobre o número do cartão em texto")
+    @Test
+    void testGerarHash_CompativelComNumeroEmTexto() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        byte[] chave = "chave-de-teste-com-32-bytes-1234".getBytes(StandardCharsets.US_ASCII);
+        mac.init(new SecretKeySpec(chave, "HmacSHA256"));
+        byte[] esperado = mac.doFinal("0012345678901234:1234".getBytes(StandardCharsets.US_ASCII));
+
+        // Os hashes gravados antes da troca da coluna para BIGINT continuam válidos, com os zeros à esquerda
+        assertThat(verificador.gerarHash(12345678901234L, "1234"))
+                .isEqualTo("{hmac}" + Base64.getEncoder().encodeToString(esperado));
+    }
+
+    @DisplayName("Teste de hash gerado com outra chave")
+    @Test
+    void testVerificar_OutraChave() {
+        HmacPinVerificador outro = new HmacPinVerificador("outra-chave-de-teste-com-32-byte".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(outro.verificar(1234567890123456L, "1234", verificador.gerarHash(1234567890123456L, "1234"))).isFalse();
+    }
+
+    @DisplayName("Teste de reconhecimento do formato do hash")
+    @Test
+    void testReconhece() {
+        assertThat(verificador.reconhece(verificador.gerarHash(1234567890123456L, "1234"))).isTrue();
+        assertThat(verificador.reconhece("$2a$10$abcdefghijklmnopqrstuv")).isFalse();
+        assertThat(verificador.verificar(1234567890123456L, "1234", "$2a$10$abcdefghijklmnopqrstuv")).isFalse();
+    }
+
+    @DisplayName("Teste de hash com Base64 inválido")
+    @Test
+    void testVerificar_HashCorrompido() {
+        assertThat(verificador.verificar(1234567890123456L, "1234", "{hmac}não-é-base64!")).isFalse();
+    }
+
+    @DisplayName("Teste de criação e releitura do arquivo de chave")
+    @Test
+    void testArquivoChave_CriaEReutiliza(@TempDir Path diretorio) throws Exception {
+        Path arquivo = diretorio.resolve("chaves").resolve("pin.key");
+
+        byte[] criada = ArquivoChavePin.carregar(arquivo, true);
+        byte[] lida = ArquivoChavePin.carregar(arquivo, true);
+
+        assertThat(criada).hasSize(32);
+        assertThat(lida).isEqualTo(criada);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertThat(Files.getPosixFilePermissions(arquivo)).isEqualTo(PosixFilePermissions.fromString("rw-------"));
+        }
+    }
+
+    @DisplayName("Teste de arquivo de chave ausente sem geração habilitada")
+    @Test
+    void testArquivoChave_AusenteFalha(@TempDir Path diretorio) {
+        Path arquivo = diretorio.resolve("pin.key");
+
+        assertThrows(IllegalStateException.class, () -> ArquivoChavePin.carregar(arquivo, false));
+        assertThat(arquivo).doesNotExist();
+    }
+
+    @DisplayName("Teste de arquivo de chave com conteúdo inválido")
+    @Test
+    void testArquivoChave_ConteudoInvalido(@TempDir Path diretorio) throws Exception {
+        Path arquivo = Files.writeString(diretorio.resolve("pin.key"), "chave curta", StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalStateException.class, () -> ArquivoChavePin.carregar(arquivo, true));
+    }
+}
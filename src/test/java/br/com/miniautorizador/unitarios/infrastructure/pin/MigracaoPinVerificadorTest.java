@@ -0,0 +1,53 @@
+package br.com.miniautorizador.unitarios.infrastructure.pin;
+
+import br.com.miniautorizador.infrastructure.pin.BCryptPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.HmacPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.MigracaoPinVerificador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o verificador de PIN com migração de formato.
+ * <p>
+ * Os testes verificam que hashes BCrypt legados continuam aceitos e são sinalizados para migração para HMAC.
+ *
+ * @author Fabiana Costa
+ */
+class MigracaoPinVerificadorTest {
+    private BCryptPinVerificador bcrypt;
+    private MigracaoPinVerificador verificador;
+
+    @BeforeEach
+    void setUp() {
+        bcrypt = new BCryptPinVerificador(new BCryptPasswordEncoder(4));
+        HmacPinVerificador hmac = new HmacPinVerificador("chave-de-teste-com-32-bytes-1234".getBytes(StandardCharsets.US_ASCII));
+        verificador = new MigracaoPinVerificador(hmac, bcrypt);
+    }
+
+    @DisplayName("Teste de geração de hash na estratégia preferida")
+    @Test
+    void testGerarHash_EstrategiaPreferida() {
+        String hash = verificador.gerarHash(1234567890123456L, "1234");
+
+        assertThat(hash).startsWith("{hmac}");
+        assertThat(verificador.precisaMigrar(hash)).isFalse();
+        assertThat(verificador.verificar(1234567890123456L, "1234", hash)).isTrue();
+    }
+
+    @DisplayName("Teste de verificação de hash BCrypt legado")
+    @Test
+    void testVerificar_HashLegado() {
+        String legado = bcrypt.gerarHash(1234567890123456L, "1234");
+
+        assertThat(verificador.reconhece(legado)).isTrue();
+        assertThat(verificador.precisaMigrar(legado)).isTrue();
+        assertThat(verificador.verificar(1234567890123456L, "1234", legado)).isTrue();
+        assertThat(verificador.verificar(1234567890123456L, "4321", legado)).isFalse();
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.miniautorizador.unitarios.infrastructure.pin;
+
+import br.com.miniautorizador.infrastructure.pin.PinExecutor;
+import br.com.miniautorizador.infrastructure.pin.PinProperties;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para o pool dedicado de geração e verificação de PIN.
+ * <p>
+ * Os testes verificam a execução fora da thread chamadora, o mapeamento em paralelo, a recusa com a fila cheia ou sem
+ * resultado no tempo máximo e as métricas do pool.
+ *
+ * @author Fabiana Costa
+ */
+class PinExecutorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private PinExecutor pinExecutor;
+
+    @BeforeEach
+    void setUp() {
+        pinExecutor = criar(4, 256);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pinExecutor.encerrar();
+    }
+
+    @DisplayName("Teste de execução no pool, fora da thread chamadora")
+    @Test
+    void testExecutar_ThreadDoPool() {
+        String thread = pinExecutor.executar(() -> Thread.currentThread().getName());
+
+        assertThat(thread).startsWith("pin-");
+        assertThat(meterRegistry.get("miniautorizador.pin.espera").timer().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de execução aninhada sem nova submissão ao pool")
+    @Test
+    void testExecutar_Aninhado() {
+        String thread = pinExecutor.executar(() -> pinExecutor.executar(() -> Thread.currentThread().getName()));
+
+        assertThat(thread).startsWith("pin-");
+        assertThat(meterRegistry.get("miniautorizador.pin.espera").timer().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de mapeamento paralelo preservando a ordem")
+    @Test
+    void testMapear_PreservaOrdem() {
+        List<Integer> itens = IntStream.range(0, 1_000).boxed().toList();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> resultados = pinExecutor.mapear(itens, item -> {
+            threads.add(Thread.currentThread().getName());
+            return item * 2;
+        });
+
+        assertThat(resultados).isEqualTo(itens.stream().map(item -> item * 2).toList());
+        assertThat(threads).hasSizeGreaterThan(1);
+    }
+
+    @DisplayName("Teste de propagação de erro da função")
+    @Test
+    void testMapear_Erro() {
+        List<Integer> itens = IntStream.range(0, 100).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> pinExecutor.mapear(itens, item -> {
+            if (item == 42) {
+                throw new IllegalArgumentException("Item inválido");
+            }
+            return item;
+        }));
+    }
+
+    @DisplayName("Teste de recusa imediata com a fila do pool cheia")
+    @Test
+    void testExecutar_FilaCheia() throws Exception {
+        pinExecutor.encerrar();
+        pinExecutor = criar(1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(2);
+        try {
+            // Uma tarefa ocupa a única thread e outra ocupa a única posição da fila
+            Future<Boolean> ocupando = clientes.submit(() -> pinExecutor.executar(() -> aguardar(liberar)));
+            Future<Boolean> enfileirada = clientes.submit(() -> pinExecutor.executar(() -> Boolean.TRUE));
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("miniautorizador.pin.fila").gauge().value() < 1 && System.nanoTime() < limite) {
+                Thread.onSpinWait();
+            }
+
+            ServicoOcupadoException exception = assertThrows(ServicoOcupadoException.class, () ->
+                    pinExecutor.executar(() -> Boolean.TRUE));
+
+            assertThat(exception.getRetryAfter()).isPositive();
+            assertThat(meterRegistry.get("miniautorizador.pin.rejeitadas").counter().count()).isEqualTo(1);
+            liberar.countDown();
+            assertThat(ocupando.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(enfileirada.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            liberar.countDown();
+            clientes.shutdownNow();
+        }
+    }
+
+    @DisplayName("Teste de recusa sem resultado dentro do tempo máximo de espera")
+    @Test
+    void testExecutar_Timeout() {
+        pinExecutor.encerrar();
+        pinExecutor = criar(1, 1, Duration.ofMillis(200));
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            ServicoOcupadoException exception = assertThrows(ServicoOcupadoException.class, () ->
+                    pinExecutor.executar(() -> aguardar(liberar)));
+
+            assertThat(exception.getRetryAfter()).isPositive();
+            assertThat(meterRegistry.get("miniautorizador.pin.expiradas").counter().count()).isEqualTo(1);
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @DisplayName("Teste de mapeamento com execução aninhada sem nova submissão ao pool")
+    @Test
+    void testMapear_Aninhado() {
+        pinExecutor.encerrar();
+        pinExecutor = criar(2, 1);
+        List<Integer> itens = IntStream.range(0, 100).boxed().toList();
+
+        // Cada item chama o pool de novo; sem a execução direta, a fila de uma posição recusaria as chamadas
+        List<Integer> resultados = pinExecutor.mapear(itens, item -> pinExecutor.executar(() -> item + 1));
+
+        assertThat(resultados).isEqualTo(itens.stream().map(item -> item + 1).toList());
+        assertThat(meterRegistry.get("miniautorizador.pin.rejeitadas").counter().count()).isZero();
+        assertThat(meterRegistry.get("miniautorizador.pin.espera").timer().count()).isEqualTo(2);
+    }
+
+    private PinExecutor criar(int threads, int capacidadeFila) {
+        return criar(threads, capacidadeFila, Duration.ofSeconds(5));
+    }
+
+    private PinExecutor criar(int threads, int capacidadeFila, Duration timeout) {
+        // Registro novo a cada pool, para que as métricas não apontem para um pool encerrado
+        meterRegistry = new SimpleMeterRegistry();
+        PinProperties pinProperties = new PinProperties();
+        pinProperties.setThreads(threads);
+        pinProperties.setCapacidadeFila(capacidadeFila);
+        pinProperties.setTimeout(timeout);
+        return new PinExecutor(pinProperties, meterRegistry);
+    }
+
+    private static Boolean aguardar(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Boolean.FALSE;
+        }
+    }
+}
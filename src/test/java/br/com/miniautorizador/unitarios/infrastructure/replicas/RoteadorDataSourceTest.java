@@ -0,0 +1,158 @@
+package br.com.miniautorizador.unitarios.infrastructure.replicas;
+
+import br.com.miniautorizador.infrastructure.replicas.MonitorReplicas;
+import br.com.miniautorizador.infrastructure.replicas.ReplicasProperties;
+import br.com.miniautorizador.infrastructure.replicas.RoteadorDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o roteamento entre o banco primário e as réplicas de leitura.
+ * <p>
+ * Dois bancos H2 fazem o papel do primário e da réplica. A replicação é simulada copiando o heartbeat do primário
+ * para a réplica, e o saldo do cartão é diferente em cada banco para identificar onde a leitura foi feita.
+ *
+ * @author Fabiana Costa
+ */
+class RoteadorDataSourceTest {
+    private static final long NUMERO_CARTAO = 1234567890123456L;
+    private static final BigDecimal SALDO_PRIMARIO = new BigDecimal("400.00");
+    private static final BigDecimal SALDO_REPLICA = new BigDecimal("500.00");
+
+    private EmbeddedDatabase primario;
+    private EmbeddedDatabase replica;
+    private SimpleMeterRegistry meterRegistry;
+    private MonitorReplicas monitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        primario = banco(SALDO_PRIMARIO);
+        replica = banco(SALDO_REPLICA);
+        ReplicasProperties properties = new ReplicasProperties();
+        properties.setDefasagemMaxima(Duration.ofMillis(200));
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new MonitorReplicas(primario, Map.of("replica-1", replica), properties, meterRegistry);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new RoteadorDataSource(primario, Map.of("replica-1", replica), monitor));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        primario.shutdown();
+        replica.shutdown();
+    }
+
+    @DisplayName("Teste de transação somente leitura na réplica e escritas no primário")
+    @Test
+    void testRotear_LeituraNaReplica() {
+        replicar();
+
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_REPLICA);
+        BigDecimal saldoEmTransacao = transactionTemplate.execute(status -> saldo());
+        assertThat(saldoEmTransacao).isEqualByComparingTo(SALDO_PRIMARIO);
+        assertThat(saldo()).isEqualByComparingTo(SALDO_PRIMARIO);
+        assertThat(meterRegistry.get("miniautorizador.replicas.defasagem").tag("replica", "replica-1").gauge().value())
+                .isLessThan(0.2);
+    }
+
+    @DisplayName("Teste de leitura no primário com a réplica acima da defasagem máxima")
+    @Test
+    void testRotear_DefasagemAcimaDoLimite() throws InterruptedException {
+        replicar();
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_REPLICA);
+
+        // Sem nova medição, a réplica sai de uso quando a defasagem pode ter passado do limite
+        Thread.sleep(250);
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_PRIMARIO);
+
+        // A réplica parou de receber o heartbeat
+        monitor.verificar();
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_PRIMARIO);
+        assertThat(meterRegistry.get("miniautorizador.replicas.defasagem").tag("replica", "replica-1").gauge().value())
+                .isGreaterThan(0.2);
+
+        replicar();
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_REPLICA);
+    }
+
+    @DisplayName("Teste de leitura no primário sem medição e com a réplica indisponível")
+    @Test
+    void testRotear_SemMedicao() {
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_PRIMARIO);
+
+        replicar();
+        replica.shutdown();
+        monitor.verificar();
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_PRIMARIO);
+        assertThat(meterRegistry.get("miniautorizador.replicas.defasagem").tag("replica", "replica-1").gauge().value())
+                .isNaN();
+    }
+
+    @DisplayName("Teste de leitura forçada no primário logo após uma escrita")
+    @Test
+    void testNoPrimario() {
+        replicar();
+
+        assertThat(RoteadorDataSource.noPrimario(this::lerSomenteLeitura)).isEqualByComparingTo(SALDO_PRIMARIO);
+        assertThat(RoteadorDataSource.primarioForcado()).isFalse();
+        assertThat(lerSomenteLeitura()).isEqualByComparingTo(SALDO_REPLICA);
+    }
+
+    /**
+     * Grava o heartbeat no primário, copia para a réplica e mede a defasagem de novo.
+     */
+    private void replicar() {
+        monitor.verificar();
+        Long heartbeat = new JdbcTemplate(primario)
+                .queryForObject("SELECT atualizado_em FROM heartbeat_replicacao WHERE id = 1", Long.class);
+        new JdbcTemplate(replica).update("UPDATE heartbeat_replicacao SET atualizado_em = ? WHERE id = 1", heartbeat);
+        monitor.verificar();
+    }
+
+    private BigDecimal lerSomenteLeitura() {
+        transactionTemplate.setReadOnly(true);
+        try {
+            return transactionTemplate.execute(status -> saldo());
+        } finally {
+            transactionTemplate.setReadOnly(false);
+        }
+    }
+
+    private BigDecimal saldo() {
+        return jdbcTemplate.queryForObject(
+                "SELECT saldo FROM cartoes WHERE numero_cartao = ?", BigDecimal.class, NUMERO_CARTAO);
+    }
+
+    private static EmbeddedDatabase banco(BigDecimal saldo) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202412190906_create_table_cartao.sql")
+                .addScript("db/changelog/sqls/202610171400_alter_table_cartoes_numero_bigint_h2.sql")
+                .addScript("db/changelog/sqls/202610171200_create_table_heartbeat_replicacao.sql")
+                .build();
+        new JdbcTemplate(database).update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)",
+                NUMERO_CARTAO, "hash", saldo);
+        return database;
+    }
+}
@@ -36,7 +36,7 @@ class CartaoRepositoryTest {
     @BeforeEach
     void setUp() {
         // Cria um cartão para ser usado nos testes
-        cartao = new Cartao("1234567890123456", "1234", BigDecimal.valueOf(500.00));
+        cartao = new Cartao(1234567890123456L, "1234", BigDecimal.valueOf(500.00));
         entityManager.persistAndFlush(cartao);
     }
 
@@ -44,11 +44,11 @@ class CartaoRepositoryTest {
     @Test
     void testFindByNumeroCartao_CartaoExiste() {
         // Busca o cartão pelo número
-        Optional<Cartao> encontrado = cartaoRepository.findByNumeroCartao("1234567890123456");
+        Optional<Cartao> encontrado = cartaoRepository.findByNumeroCartao(1234567890123456L);
 
         // Verifica se o cartão foi encontrado
         assertThat(encontrado).isPresent();
-        assertThat(encontrado.get().getNumeroCartao()).isEqualTo("1234567890123456");
+        assertThat(encontrado.get().getNumeroCartao()).isEqualTo(1234567890123456L);
         assertThat(encontrado.get().getSenha()).isEqualTo("1234");
         assertThat(encontrado.get().getSaldo()).isEqualTo(BigDecimal.valueOf(500.00));
     }
@@ -56,17 +56,25 @@ class CartaoRepositoryTest {
     @DisplayName("Teste de busca de cartão pelo número - Cartão inexistente")
     @Test
     void testFindByNumeroCartao_CartaoNaoExiste() {
-        Optional<Cartao> encontrado = cartaoRepository.findByNumeroCartao("0000000000000000");
+        Optional<Cartao> encontrado = cartaoRepository.findByNumeroCartao(0L);
 
         // Verifica que o cartão não foi encontrado
         assertThat(encontrado).isNotPresent();
     }
 
+    @DisplayName("Teste de busca apenas do saldo do cartão pelo número")
+    @Test
+    void testFindSaldoByNumeroCartao() {
+        assertThat(cartaoRepository.findSaldoByNumeroCartao(1234567890123456L))
+                .hasValueSatisfying(saldo -> assertThat(saldo.saldo()).isEqualByComparingTo("500.00"));
+        assertThat(cartaoRepository.findSaldoByNumeroCartao(0L)).isNotPresent();
+    }
+
     @DisplayName("Teste de verificação de existência de cartão pelo número")
     @Test
     void testExistsByNumeroCartao_CartaoExiste() {
         // Verifica se o cartão existe pelo número
-        boolean existe = cartaoRepository.existsByNumeroCartao("1234567890123456");
+        boolean existe = cartaoRepository.existsByNumeroCartao(1234567890123456L);
 
         // Verifica que o cartão existe
         assertThat(existe).isTrue();
@@ -76,7 +84,7 @@ class CartaoRepositoryTest {
     @Test
     void testExistsByNumeroCartao_CartaoNaoExiste() {
         // Verifica se um cartão não existe
-        boolean existe = cartaoRepository.existsByNumeroCartao("0000000000000000");
+        boolean existe = cartaoRepository.existsByNumeroCartao(0L);
 
         // Verifica que o cartão não existe
         assertThat(existe).isFalse();
@@ -86,14 +94,14 @@ class CartaoRepositoryTest {
     @Test
     void testSaveCartao() {
         // Cria um novo cartão
-        Cartao novoCartao = new Cartao("9876543210987654", "4321", BigDecimal.valueOf(1000.00));
+        Cartao novoCartao = new Cartao(9876543210987654L, "4321", BigDecimal.valueOf(1000.00));
 
         // Salva o cartão no repositório
         Cartao salvo = cartaoRepository.save(novoCartao);
 
         // Verifica se o cartão foi salvo corretamente
         assertThat(salvo).isNotNull();
-        assertThat(salvo.getNumeroCartao()).isEqualTo("9876543210987654");
+        assertThat(salvo.getNumeroCartao()).isEqualTo(9876543210987654L);
         assertThat(salvo.getSenha()).isEqualTo("4321");
         assertThat(salvo.getSaldo()).isEqualTo(BigDecimal.valueOf(1000.00));
     }
@@ -105,7 +113,44 @@ class CartaoRepositoryTest {
         cartaoRepository.delete(cartao);
 
         // Verifica se o cartão foi removido
-        Optional<Cartao> encontrado = cartaoRepository.findByNumeroCartao("1234567890123456");
+        Optional<Cartao> encontrado = cartaoRepository.findByNumeroCartao(1234567890123456L);
         assertThat(encontrado).isNotPresent();
     }
+
+    @DisplayName("Teste de busca da senha do cartão pelo número")
+    @Test
+    void testFindSenhaByNumeroCartao() {
+        assertThat(cartaoRepository.findSenhaByNumeroCartao(1234567890123456L)).contains("1234");
+        assertThat(cartaoRepository.findSenhaByNumeroCartao(0L)).isNotPresent();
+    }
+
+    @DisplayName("Teste de débito condicional com saldo suficiente")
+    @Test
+    void testDebitarSaldo_SaldoSuficiente() {
+        int linhasAfetadas = cartaoRepository.debitarSaldo(1234567890123456L, BigDecimal.valueOf(100.00));
+
+        // Verifica que o débito foi aplicado e a versão incrementada
+        assertThat(linhasAfetadas).isEqualTo(1);
+        Cartao atualizado = entityManager.find(Cartao.class, 1234567890123456L);
+        assertThat(atualizado.getSaldo()).isEqualByComparingTo(BigDecimal.valueOf(400.00));
+        assertThat(atualizado.getVersion()).isEqualTo(cartao.getVersion() + 1);
+    }
+
+    @DisplayName("Teste de débito condicional com saldo insuficiente")
+    @Test
+    void testDebitarSaldo_SaldoInsuficiente() {
+        int linhasAfetadas = cartaoRepository.debitarSaldo(1234567890123456L, BigDecimal.valueOf(500.01));
+
+        // Verifica que nenhuma linha foi alterada
+        assertThat(linhasAfetadas).isZero();
+        Cartao atualizado = entityManager.find(Cartao.class, 1234567890123456L);
+        assertThat(atualizado.getSaldo()).isEqualByComparingTo(BigDecimal.valueOf(500.00));
+    }
+
+    @DisplayName("Teste de débito condicional do saldo inteiro")
+    @Test
+    void testDebitarSaldo_SaldoExato() {
+        assertThat(cartaoRepository.debitarSaldo(1234567890123456L, BigDecimal.valueOf(500.00))).isEqualTo(1);
+        assertThat(cartaoRepository.debitarSaldo(1234567890123456L, BigDecimal.valueOf(0.01))).isZero();
+    }
 }
@@ -0,0 +1,100 @@
+package br.com.miniautorizador.unitarios.infrastructure.retry;
+
+import br.com.miniautorizador.domain.cartao.exception.CartaoExistenteException;
+import br.com.miniautorizador.infrastructure.retry.RetryExecutor;
+import br.com.miniautorizador.infrastructure.retry.RetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para o executor de retentativas.
+ * <p>
+ * Os testes verificam quais falhas são retentadas, os limites de tentativas e de orçamento e as métricas registradas.
+ *
+ * @author Fabiana Costa
+ */
+class RetryExecutorTest {
+    private RetryProperties retryProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private RetryExecutor retryExecutor;
+
+    @BeforeEach
+    void setUp() {
+        retryProperties = new RetryProperties();
+        retryProperties.setBackoffInicial(Duration.ofMillis(1));
+        retryProperties.setBackoffMaximo(Duration.ofMillis(2));
+        meterRegistry = new SimpleMeterRegistry();
+        retryExecutor = new RetryExecutor(retryProperties, meterRegistry);
+    }
+
+    @DisplayName("Teste de sucesso após falha transitória")
+    @Test
+    void testExecutar_SucessoAposFalhaTransitoria() {
+        AtomicInteger chamadas = new AtomicInteger();
+
+        String resultado = retryExecutor.executar(() -> {
+            if (chamadas.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("Conflito");
+            }
+            return "OK";
+        });
+
+        assertThat(resultado).isEqualTo("OK");
+        assertThat(chamadas.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("miniautorizador.retry.retentativas").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("miniautorizador.retry.recuperadas").count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de falha após esgotar as tentativas")
+    @Test
+    void testExecutar_TentativasEsgotadas() {
+        AtomicInteger chamadas = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> retryExecutor.executar(() -> {
+            chamadas.incrementAndGet();
+            throw new CannotAcquireLockException("Deadlock");
+        }));
+
+        assertThat(chamadas.get()).isEqualTo(retryProperties.getMaxTentativas());
+        assertThat(meterRegistry.counter("miniautorizador.retry.esgotadas").count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de falha ao estourar o orçamento de tempo")
+    @Test
+    void testExecutar_OrcamentoEsgotado() {
+        retryProperties.setMaxTentativas(100);
+        retryProperties.setOrcamento(Duration.ZERO);
+        AtomicInteger chamadas = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> retryExecutor.executar(() -> {
+            chamadas.incrementAndGet();
+            throw new CannotAcquireLockException("Deadlock");
+        }));
+
+        assertThat(chamadas.get()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de exceção de negócio sem retentativa")
+    @Test
+    void testExecutar_ExcecaoDeNegocio() {
+        AtomicInteger chamadas = new AtomicInteger();
+
+        assertThrows(CartaoExistenteException.class, () -> retryExecutor.executar(() -> {
+            chamadas.incrementAndGet();
+            throw new CartaoExistenteException("1234", "1234567890123456");
+        }));
+
+        assertThat(chamadas.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("miniautorizador.retry.retentativas").count()).isZero();
+    }
+}
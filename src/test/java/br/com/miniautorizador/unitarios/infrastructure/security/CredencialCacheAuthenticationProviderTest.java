@@ -0,0 +1,109 @@
+package br.com.miniautorizador.unitarios.infrastructure.security;
+
+import br.com.miniautorizador.infrastructure.security.CredencialCacheAuthenticationProvider;
+import br.com.miniautorizador.infrastructure.security.CredencialCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de teste para o provedor de autenticação com cache de credenciais.
+ * <p>
+ * Os testes verificam que apenas a primeira autenticação faz a verificação completa da senha e que alterações no
+ * usuário invalidam a verificação em cache.
+ *
+ * @author Fabiana Costa
+ */
+class CredencialCacheAuthenticationProviderTest {
+    private PasswordEncoder passwordEncoder;
+    private InMemoryUserDetailsManager userDetailsManager;
+    private CredencialCacheAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        passwordEncoder = spy(new BCryptPasswordEncoder(4));
+        userDetailsManager = new InMemoryUserDetailsManager(User.builder()
+                .username("username")
+                .password(passwordEncoder.encode("password"))
+                .roles("USER")
+                .build());
+        provider = new CredencialCacheAuthenticationProvider(userDetailsManager, passwordEncoder, new CredencialCacheProperties());
+    }
+
+    @DisplayName("Teste de autenticação repetida atendida pelo cache")
+    @Test
+    void testAuthenticate_SegundaChamadaUsaCache() {
+        Authentication primeira = provider.authenticate(token("username", "password"));
+        Authentication segunda = provider.authenticate(token("username", "password"));
+
+        assertThat(primeira.isAuthenticated()).isTrue();
+        assertThat(segunda.isAuthenticated()).isTrue();
+        assertThat(segunda.getCredentials()).isNull();
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+    }
+
+    @DisplayName("Teste de autenticação com senha inválida")
+    @Test
+    void testAuthenticate_SenhaInvalida() {
+        provider.authenticate(token("username", "password"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("username", "outra")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("username", "outra")));
+        // Falhas não entram no cache e sempre fazem a verificação completa
+        verify(passwordEncoder, times(3)).matches(anyString(), anyString());
+    }
+
+    @DisplayName("Teste de autenticação com usuário inexistente")
+    @Test
+    void testAuthenticate_UsuarioInexistente() {
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("outro", "password")));
+    }
+
+    @DisplayName("Teste de invalidação do cache ao alterar a senha do usuário")
+    @Test
+    void testAuthenticate_SenhaAlterada() {
+        provider.authenticate(token("username", "password"));
+
+        userDetailsManager.updateUser(User.builder()
+                .username("username")
+                .password(passwordEncoder.encode("nova"))
+                .roles("USER")
+                .build());
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("username", "password")));
+        assertThat(provider.authenticate(token("username", "nova")).isAuthenticated()).isTrue();
+    }
+
+    @DisplayName("Teste de autenticação com usuário desativado após verificação em cache")
+    @Test
+    void testAuthenticate_UsuarioDesativado() {
+        String hash = userDetailsManager.loadUserByUsername("username").getPassword();
+        provider.authenticate(token("username", "password"));
+
+        userDetailsManager.updateUser(User.builder()
+                .username("username")
+                .password(hash)
+                .roles("USER")
+                .disabled(true)
+                .build());
+
+        assertThrows(DisabledException.class, () -> provider.authenticate(token("username", "password")));
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String senha) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, senha);
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.miniautorizador.unitarios.infrastructure.shard;
+
+import br.com.miniautorizador.infrastructure.shard.AnelShards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de teste para o anel de hash consistente dos shards.
+ *
+ * @author Fabiana Costa
+ */
+class AnelShardsTest {
+    private static final int CARTOES = 30_000;
+
+    @DisplayName("Teste de dono igual para anéis com os mesmos membros")
+    @Test
+    void testDono_Deterministico() {
+        AnelShards anel = new AnelShards(List.of("shard-0", "shard-1", "shard-2"), 128);
+        AnelShards outro = new AnelShards(List.of("shard-0", "shard-1", "shard-2"), 128);
+
+        for (long numeroCartao : cartoes(1_000)) {
+            assertThat(outro.dono(numeroCartao)).isEqualTo(anel.dono(numeroCartao));
+        }
+        assertThat(new AnelShards(List.of("shard-0"), 128).dono(1234567890123456L)).isEqualTo("shard-0");
+    }
+
+    @DisplayName("Teste de distribuição uniforme dos cartões entre os shards")
+    @Test
+    void testDono_Distribuicao() {
+        AnelShards anel = new AnelShards(List.of("shard-0", "shard-1", "shard-2"), 128);
+
+        Map<String, Integer> quantidades = new HashMap<>();
+        cartoes(CARTOES).forEach(numeroCartao -> quantidades.merge(anel.dono(numeroCartao), 1, Integer::sum));
+
+        assertThat(quantidades).containsOnlyKeys("shard-0", "shard-1", "shard-2");
+        quantidades.values().forEach(quantidade -> assertThat(quantidade).isBetween(CARTOES / 4, CARTOES * 5 / 12));
+    }
+
+    @DisplayName("Teste de movimento mínimo de cartões ao incluir um shard")
+    @Test
+    void testDono_InclusaoDeShard() {
+        AnelShards anel = new AnelShards(List.of("shard-0", "shard-1", "shard-2"), 128);
+        AnelShards novo = new AnelShards(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 128);
+
+        int movidos = 0;
+        for (long numeroCartao : cartoes(CARTOES)) {
+            String dono = novo.dono(numeroCartao);
+            if (!dono.equals(anel.dono(numeroCartao))) {
+                // Só o shard novo recebe cartões
+                assertThat(dono).isEqualTo("shard-3");
+                movidos++;
+            }
+        }
+        assertThat(movidos).isBetween(CARTOES / 6, CARTOES / 3);
+    }
+
+    @DisplayName("Teste de hash do número igual ao hash do número em texto")
+    @Test
+    void testHash_CompativelComNumeroEmTexto() {
+        // Os cartões continuam nos mesmos shards depois da troca da coluna para BIGINT
+        for (long numeroCartao : cartoes(1_000)) {
+            assertThat(AnelShards.hash(numeroCartao)).isEqualTo(AnelShards.hash(String.valueOf(numeroCartao)));
+        }
+        assertThat(AnelShards.hash(12345678901234L)).isEqualTo(AnelShards.hash("0012345678901234"));
+    }
+
+    @DisplayName("Teste de anel sem shards")
+    @Test
+    void testAnel_SemShards() {
+        assertThatThrownBy(() -> new AnelShards(List.of(), 128)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Long> cartoes(int quantidade) {
+        Random random = new Random(42);
+        return random.longs(quantidade, 1_000_000_000_000_000L, 10_000_000_000_000_000L)
+                .boxed()
+                .toList();
+    }
+}
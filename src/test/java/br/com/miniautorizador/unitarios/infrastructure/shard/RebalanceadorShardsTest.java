@@ -0,0 +1,169 @@
+package br.com.miniautorizador.unitarios.infrastructure.shard;
+
+import br.com.miniautorizador.infrastructure.shard.RebalanceadorShards;
+import br.com.miniautorizador.infrastructure.shard.RelatorioShards;
+import br.com.miniautorizador.infrastructure.shard.RoteadorShards;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de teste para o rebalanceamento online dos cartões entre os shards.
+ * <p>
+ * Três bancos H2 fazem o papel dos shards. O anel começa com dois membros, e o terceiro é incluído enquanto outras
+ * threads debitam os cartões pelo datasource roteado, como a aplicação.
+ *
+ * @author Fabiana Costa
+ */
+class RebalanceadorShardsTest {
+    private static final List<String> SHARDS = List.of("shard-0", "shard-1", "shard-2");
+    private static final int CARTOES = 300;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("500.00");
+
+    private final Map<String, EmbeddedDatabase> bancos = new LinkedHashMap<>();
+    private TopologiaShards topologia;
+    private RebalanceadorShards rebalanceador;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> cartoes;
+
+    @BeforeEach
+    void setUp() {
+        SHARDS.forEach(shard -> bancos.put(shard, banco()));
+        ShardsProperties properties = new ShardsProperties();
+        properties.setHabilitado(true);
+        properties.setNomePrincipal("shard-0");
+        properties.setTamanhoBloco(20);
+        for (String shard : SHARDS.subList(1, SHARDS.size())) {
+            ShardsProperties.Fonte fonte = new ShardsProperties.Fonte();
+            fonte.setNome(shard);
+            properties.getFontes().add(fonte);
+        }
+        // O terceiro shard está configurado, mas ainda fora do anel
+        new JdbcTemplate(bancos.get("shard-0"))
+                .update("INSERT INTO shards_topologia (id, membros) VALUES (1, 'shard-0,shard-1')");
+
+        topologia = new TopologiaShards(properties);
+        Map<String, DataSource> dataSources = new LinkedHashMap<>(bancos);
+        rebalanceador = new RebalanceadorShards(topologia, dataSources, properties);
+        rebalanceador.carregar();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new RoteadorShards(dataSources));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        cartoes = IntStream.range(0, CARTOES).mapToObj(i -> 4_000_000_000_000_000L + i * 7919L).toList();
+        cartoes.forEach(numeroCartao -> new JdbcTemplate(bancos.get(topologia.dono(numeroCartao))).update(
+                "INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)",
+                numeroCartao, "hash", SALDO_INICIAL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        rebalanceador.encerrar();
+        bancos.values().forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @DisplayName("Teste de inclusão de shard com débitos concorrentes")
+    @Test
+    void testRebalancear_DebitosConcorrentes() throws Exception {
+        assertThat(rebalanceador.relatorio().membros()).containsExactly("shard-0", "shard-1");
+        assertThat(quantidade("shard-2")).isZero();
+
+        AtomicInteger debitos = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            rebalanceador.rebalancear(SHARDS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int inicio = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = inicio; rebalanceador.emAndamento() || i < CARTOES; i += 4) {
+                        // Todo cartão continua acessível durante a cópia
+                        assertThat(debitar(cartoes.get(i % CARTOES))).isEqualTo(1);
+                        debitos.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        RelatorioShards relatorio = rebalanceador.relatorio();
+        assertThat(relatorio.erro()).isNull();
+        assertThat(relatorio.membros()).containsExactlyElementsOf(SHARDS);
+        assertThat(relatorio.destino()).isNull();
+        assertThat(relatorio.cartoesMovidos()).isEqualTo(quantidade("shard-2")).isPositive();
+        assertThat(new JdbcTemplate(bancos.get("shard-0"))
+                .queryForObject("SELECT membros FROM shards_topologia WHERE id = 1", String.class))
+                .isEqualTo("shard-0,shard-1,shard-2");
+
+        // Cada cartão está só no novo dono, e nenhum débito se perdeu na cópia
+        assertThat(SHARDS.stream().mapToInt(this::quantidade).sum()).isEqualTo(CARTOES);
+        BigDecimal total = BigDecimal.ZERO;
+        for (long numeroCartao : cartoes) {
+            BigDecimal saldo = new JdbcTemplate(bancos.get(topologia.dono(numeroCartao))).queryForObject(
+                    "SELECT saldo FROM cartoes WHERE numero_cartao = ?", BigDecimal.class, numeroCartao);
+            total = total.add(saldo);
+        }
+        assertThat(total).isEqualByComparingTo(
+                SALDO_INICIAL.multiply(BigDecimal.valueOf(CARTOES)).subtract(BigDecimal.valueOf(debitos.get())));
+    }
+
+    @DisplayName("Teste de rebalanceamento com shard não configurado")
+    @Test
+    void testRebalancear_ShardNaoConfigurado() {
+        assertThatThrownBy(() -> rebalanceador.rebalancear(List.of("shard-0", "shard-9")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(rebalanceador.relatorio().destino()).isNull();
+    }
+
+    private int debitar(long numeroCartao) {
+        return topologia.executar(numeroCartao, () -> transactionTemplate.execute(status -> jdbcTemplate.update(
+                "UPDATE cartoes SET saldo = saldo - 1, version = version + 1 WHERE numero_cartao = ? AND saldo >= 1",
+                numeroCartao)));
+    }
+
+    private int quantidade(String shard) {
+        return new JdbcTemplate(bancos.get(shard)).queryForObject("SELECT COUNT(*) FROM cartoes", Integer.class);
+    }
+
+    private static EmbeddedDatabase banco() {
+        return new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202412190906_create_table_cartao.sql")
+                .addScript("db/changelog/sqls/202610171400_alter_table_cartoes_numero_bigint_h2.sql")
+                .addScript("db/changelog/sqls/202610171300_create_table_shards_topologia.sql")
+                .build();
+    }
+}
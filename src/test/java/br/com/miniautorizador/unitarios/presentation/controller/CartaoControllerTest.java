@@ -1,13 +1,17 @@
 package br.com.miniautorizador.unitarios.presentation.controller;
 
 import br.com.miniautorizador.application.cartao.CriarCartaoUseCase;
+import br.com.miniautorizador.application.cartao.CriarCartoesEmLoteUseCase;
 import br.com.miniautorizador.application.cartao.ObterSaldoUseCase;
 import br.com.miniautorizador.domain.cartao.Cartao;
+import br.com.miniautorizador.domain.cartao.StatusCriacaoCartao;
 import br.com.miniautorizador.domain.cartao.exception.CartaoExistenteException;
 import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteException;
 import br.com.miniautorizador.presentation.controller.CartaoController;
+import br.com.miniautorizador.presentation.dto.CartaoLoteRequest;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.presentation.dto.CartaoResponse;
+import br.com.miniautorizador.presentation.dto.ResultadoCartaoResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,6 +23,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -41,12 +46,15 @@ class CartaoControllerTest {
     @Mock
     private ObterSaldoUseCase obterSaldoUseCase;
 
+    @Mock
+    private CriarCartoesEmLoteUseCase criarCartoesEmLoteUseCase;
+
     private CartaoController cartaoController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        cartaoController = new CartaoController(obterSaldoUseCase, criarCartaoUseCase);
+        cartaoController = new CartaoController(obterSaldoUseCase, criarCartaoUseCase, criarCartoesEmLoteUseCase);
     }
 
     @DisplayName("Teste de criação de cartão com sucesso")
@@ -54,7 +62,7 @@ class CartaoControllerTest {
     void testCriarCartao_Successo() {
         // Arrange: Cria uma requisição de cartão e um mock de cartão esperado
         CartaoRequest cartaoRequest = new CartaoRequest("1234567890123456", "1234");
-        Cartao cartaoMock = new Cartao("1234567890123456", "1234", BigDecimal.valueOf(500.00));
+        Cartao cartaoMock = new Cartao(1234567890123456L, "1234", BigDecimal.valueOf(500.00));
         when(criarCartaoUseCase.criarCartao(cartaoRequest)).thenReturn(cartaoMock);
 
         // Act: Chama o método de criação de cartão da controller
@@ -110,4 +118,21 @@ class CartaoControllerTest {
         CartaoInexistenteException exception = assertThrows(CartaoInexistenteException.class, () -> cartaoController.obterSaldo(numeroCartao));
         assertThat(exception.getMessage()).isEqualTo("O cartão [" + numeroCartao + "] não foi encontrado.");
     }
+
+    @DisplayName("Teste de criação de cartões em lote")
+    @Test
+    void testCriarCartoesEmLote_Sucesso() {
+        CartaoLoteRequest cartaoLoteRequest = new CartaoLoteRequest(List.of(
+                new CartaoRequest("1234567890123456", "1234"),
+                new CartaoRequest("6549873025634501", "1234")));
+        List<ResultadoCartaoResponse> resultados = List.of(
+                new ResultadoCartaoResponse("1234567890123456", StatusCriacaoCartao.CRIADO),
+                new ResultadoCartaoResponse("6549873025634501", StatusCriacaoCartao.CARTAO_EXISTENTE));
+        when(criarCartoesEmLoteUseCase.criarCartoes(cartaoLoteRequest)).thenReturn(resultados);
+
+        ResponseEntity<List<ResultadoCartaoResponse>> response = cartaoController.criarCartoes(cartaoLoteRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(resultados);
+    }
 }
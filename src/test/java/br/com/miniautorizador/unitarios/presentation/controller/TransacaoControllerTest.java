@@ -1,11 +1,19 @@
 package br.com.miniautorizador.unitarios.presentation.controller;
 
 import br.com.miniautorizador.application.transacao.RealizarTransacaoUseCase;
-import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteTransacaoException;
-import br.com.miniautorizador.domain.cartao.exception.SaldoInsuficienteException;
-import br.com.miniautorizador.domain.cartao.exception.SenhaInvalidaException;
+import br.com.miniautorizador.application.transacao.RealizarTransacoesEmLoteUseCase;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.concorrencia.AdmissaoExecutor;
+import br.com.miniautorizador.infrastructure.concorrencia.AdmissaoProperties;
+import br.com.miniautorizador.infrastructure.repository.IdempotenciaJdbcRepository;
 import br.com.miniautorizador.presentation.controller.TransacaoController;
+import br.com.miniautorizador.presentation.dto.ResultadoTransacaoResponse;
+import br.com.miniautorizador.presentation.dto.TransacaoLoteRequest;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.idempotencia.IdempotenciaProperties;
+import br.com.miniautorizador.service.transacao.idempotencia.IdempotenciaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,12 +25,17 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 /**
  * Classe de teste para o controller de transações.
@@ -36,12 +49,29 @@ class TransacaoControllerTest {
     @Mock
     private RealizarTransacaoUseCase realizarTransacaoUseCase;
 
+    @Mock
+    private RealizarTransacoesEmLoteUseCase realizarTransacoesEmLoteUseCase;
+
+    @Mock
+    private IdempotenciaJdbcRepository idempotenciaJdbcRepository;
+
+    private AdmissaoExecutor admissaoExecutor;
+
     private TransacaoController transacaoController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        transacaoController = new TransacaoController(realizarTransacaoUseCase);
+        admissaoExecutor = new AdmissaoExecutor(new AdmissaoProperties(), new SimpleMeterRegistry(), false);
+        IdempotenciaService idempotenciaService = new IdempotenciaService(
+                new IdempotenciaProperties(), idempotenciaJdbcRepository, new SimpleMeterRegistry());
+        transacaoController = new TransacaoController(
+                realizarTransacaoUseCase, realizarTransacoesEmLoteUseCase, admissaoExecutor, idempotenciaService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admissaoExecutor.encerrar();
     }
 
     @DisplayName("Teste de execução de transação de débito com sucesso")
@@ -49,11 +79,11 @@ class TransacaoControllerTest {
     void testExecutarTransacao_ComSucesso() {
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
 
-        // Realiza a transação sem lançar exceções
-        doNothing().when(realizarTransacaoUseCase).realizarTransacao(transacaoRequest);
+        // Realiza a transação com sucesso
+        when(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.OK);
 
         // Verifica se a resposta HTTP é 201 Created
-        ResponseEntity<String> response = transacaoController.realizarTransacao(transacaoRequest);
+        ResponseEntity<String> response = realizar(transacaoRequest);
         ResponseEntity<String> expectedResponse = ResponseEntity.status(HttpStatus.CREATED).body("OK");
 
         assertEquals(expectedResponse, response);
@@ -65,15 +95,14 @@ class TransacaoControllerTest {
         // Arrange: Cria uma requisição de transação com dados de cartão inexistente
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
 
-        // Simula o comportamento do caso de uso, lançando exceção para cartão inexistente
-        doThrow(new CartaoInexistenteTransacaoException(transacaoRequest.getNumeroCartao()))
-                .when(realizarTransacaoUseCase).realizarTransacao(transacaoRequest);
+        // Simula o comportamento do caso de uso, recusando a transação por cartão inexistente
+        when(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.CARTAO_INEXISTENTE);
 
-        // Act & Assert: Verifica se a exceção CartaoInexistenteTransacaoException é lançada e a mensagem está correta
-        CartaoInexistenteTransacaoException exception = assertThrows(CartaoInexistenteTransacaoException.class,
-                () -> transacaoController.realizarTransacao(transacaoRequest));
+        // Act & Assert: Verifica se a resposta é 422 com o código da recusa
+        ResponseEntity<String> response = realizar(transacaoRequest);
 
-        assertThat(exception.getMessage()).isEqualTo("O cartão [" + transacaoRequest.getNumeroCartao() + "] não foi encontrado.");
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("CARTAO_INEXISTENTE", response.getBody());
     }
 
 
@@ -85,7 +114,7 @@ class TransacaoControllerTest {
 
         // Assert: Verifica se a exceção NullPointerException é lançada
         NullPointerException exception = assertThrows(NullPointerException.class,
-                () -> transacaoController.realizarTransacao(null)
+                () -> realizar(null)
         );
 
         // Verifica se a mensagem da exceção é nula
@@ -101,7 +130,7 @@ class TransacaoControllerTest {
         // Act & Assert: Verifica se a exceção NullPointerException é lançada e a mensagem está correta
         doThrow(NullPointerException.class).when(realizarTransacaoUseCase).realizarTransacao(transacaoRequest);
         NullPointerException exception = assertThrows(NullPointerException.class,
-                () -> transacaoController.realizarTransacao(transacaoRequest)
+                () -> realizar(transacaoRequest)
         );
 
         // Verifica se a mensagem da exceção é nula
@@ -119,7 +148,7 @@ class TransacaoControllerTest {
 
         // Act & Assert: Verifica se a exceção NullPointerException é lançada e a mensagem está correta
         NullPointerException exception = assertThrows(NullPointerException.class,
-                () -> transacaoController.realizarTransacao(transacaoRequest)
+                () -> realizar(transacaoRequest)
         );
 
         // Verifica se a mensagem da exceção é nula
@@ -137,7 +166,7 @@ class TransacaoControllerTest {
 
         // Act & Assert: Verifica se a exceção NullPointerException é lançada e a mensagem está correta
         NullPointerException exception = assertThrows(NullPointerException.class,
-                () -> transacaoController.realizarTransacao(transacaoRequest)
+                () -> realizar(transacaoRequest)
         );
 
         // Verifica se a mensagem da exceção é nula
@@ -150,12 +179,13 @@ class TransacaoControllerTest {
         // Arrange: Cria uma requisição de transação com senha de cartão inválida
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
 
-        // Simula o comportamento do caso de uso, lançando exceção para senha de cartão inválida
-        doThrow(new SenhaInvalidaException()).when(realizarTransacaoUseCase).realizarTransacao(transacaoRequest);
+        // Simula o comportamento do caso de uso, recusando a transação por senha inválida
+        when(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.SENHA_INVALIDA);
 
-        // Act & Assert: Verifica se a exceção SenhaInvalidaException é lançada e a mensagem está correta
-        SenhaInvalidaException exception = assertThrows(SenhaInvalidaException.class, () -> transacaoController.realizarTransacao(transacaoRequest));
-        assertThat(exception.getMessage()).isEqualTo("Senha inválida.");
+        // Act & Assert: Verifica se a resposta é 422 com o código da recusa
+        ResponseEntity<String> response = realizar(transacaoRequest);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("SENHA_INVALIDA", response.getBody());
     }
 
     @DisplayName("Teste de execução de transação de débito com saldo insuficiente")
@@ -164,11 +194,68 @@ class TransacaoControllerTest {
         // Arrange: Cria uma requisição de transação com saldo insuficiente
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
 
-        // Simula o comportamento do caso de uso, lançando exceção para saldo insuficiente
-        doThrow(new SaldoInsuficienteException()).when(realizarTransacaoUseCase).realizarTransacao(transacaoRequest);
+        // Simula o comportamento do caso de uso, recusando a transação por saldo insuficiente
+        when(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.SALDO_INSUFICIENTE);
+
+        // Act & Assert: Verifica se a resposta é 422 com o código da recusa
+        ResponseEntity<String> response = realizar(transacaoRequest);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("SALDO_INSUFICIENTE", response.getBody());
+    }
+
+    @DisplayName("Teste de retentativa com a mesma chave de idempotência sem nova autorização")
+    @Test
+    void testExecutarTransacao_ChaveIdempotencia() {
+        TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
+        when(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.OK);
+
+        ResponseEntity<String> primeira = transacaoController.realizarTransacao(transacaoRequest, "chave-1").join();
+        ResponseEntity<String> retentativa = transacaoController.realizarTransacao(transacaoRequest, "chave-1").join();
+
+        assertEquals(HttpStatus.CREATED, primeira.getStatusCode());
+        assertEquals(primeira, retentativa);
+        verify(realizarTransacaoUseCase, times(1)).realizarTransacao(transacaoRequest);
+        verifyNoInteractions(idempotenciaJdbcRepository);
+    }
+
+    @DisplayName("Teste de retentativa com a mesma chave de idempotência após recusa")
+    @Test
+    void testExecutarTransacao_ChaveIdempotenciaRecusada() {
+        TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
+        when(realizarTransacaoUseCase.realizarTransacao(transacaoRequest)).thenReturn(StatusTransacao.SALDO_INSUFICIENTE);
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<String> response = transacaoController.realizarTransacao(transacaoRequest, "chave-2").join();
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+            assertEquals("SALDO_INSUFICIENTE", response.getBody());
+        }
+        verify(realizarTransacaoUseCase, times(1)).realizarTransacao(transacaoRequest);
+    }
+
+    @DisplayName("Teste de execução de transações de débito em lote")
+    @Test
+    void testExecutarTransacoesEmLote_ComSucesso() {
+        TransacaoLoteRequest transacaoLoteRequest = new TransacaoLoteRequest(List.of(
+                new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00)),
+                new TransacaoRequest("1234567890123456", "4321", BigDecimal.valueOf(100.00))));
+        List<ResultadoTransacaoResponse> resultados = List.of(
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.OK),
+                new ResultadoTransacaoResponse("1234567890123456", StatusTransacao.SENHA_INVALIDA));
+        when(realizarTransacoesEmLoteUseCase.realizarTransacoes(transacaoLoteRequest)).thenReturn(resultados);
+
+        ResponseEntity<List<ResultadoTransacaoResponse>> response =
+                transacaoController.realizarTransacoes(transacaoLoteRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resultados, response.getBody());
+    }
 
-        // Act & Assert: Verifica se a exceção SaldoInsuficienteException é lançada e a mensagem está correta
-        SaldoInsuficienteException exception = assertThrows(SaldoInsuficienteException.class, () -> transacaoController.realizarTransacao(transacaoRequest));
-        assertThat(exception.getMessage()).isEqualTo("Saldo insuficiente no cartão.");
+    // Aguarda a resposta assíncrona, relançando a exceção do caso de uso como o Spring MVC faz ao tratá-la
+    private ResponseEntity<String> realizar(TransacaoRequest transacaoRequest) {
+        try {
+            return transacaoController.realizarTransacao(transacaoRequest, null).join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
     }
 }
@@ -0,0 +1,145 @@
+package br.com.miniautorizador.unitarios.service;
+
+import br.com.miniautorizador.domain.cartao.StatusCriacaoCartao;
+import br.com.miniautorizador.infrastructure.cache.CoerenciaSaldoProperties;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.cache.SaldoCacheProperties;
+import br.com.miniautorizador.infrastructure.pin.HmacPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.PinExecutor;
+import br.com.miniautorizador.infrastructure.pin.PinProperties;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
+import br.com.miniautorizador.infrastructure.repository.CartaoJdbcRepository;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.presentation.dto.CartaoRequest;
+import br.com.miniautorizador.service.CartaoLoteProperties;
+import br.com.miniautorizador.service.CartaoLoteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o provisionamento de cartões em lote.
+ * <p>
+ * Os testes usam um banco H2 embarcado com a tabela de cartões e verificam o resultado de cada cartão, inclusive
+ * de cartões já existentes e repetidos no lote.
+ *
+ * @author Fabiana Costa
+ */
+class CartaoLoteServiceTest {
+    private final HmacPinVerificador pinVerificador =
+            new HmacPinVerificador("chave-de-teste-com-32-bytes-1234".getBytes(StandardCharsets.US_ASCII));
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PinExecutor pinExecutor;
+    private CartaoLoteService service;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202412190906_create_table_cartao.sql")
+                .addScript("db/changelog/sqls/202610171400_alter_table_cartoes_numero_bigint_h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        pinExecutor = new PinExecutor(new PinProperties(), new SimpleMeterRegistry());
+        CartaoLoteProperties properties = new CartaoLoteProperties();
+        properties.setTamanhoBloco(50);
+        service = new CartaoLoteService(
+                new CartaoJdbcRepository(new NamedParameterJdbcTemplate(database)),
+                new TransactionTemplate(new DataSourceTransactionManager(database)),
+                pinVerificador,
+                pinExecutor,
+                properties,
+                new SaldoCache(new SaldoCacheProperties(), new CoerenciaSaldoProperties(),
+                        new AlteracaoSaldoJdbcRepository(new NamedParameterJdbcTemplate(database)),
+                        new SimpleMeterRegistry()),
+                new TopologiaShards(new ShardsProperties()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pinExecutor.encerrar();
+        database.shutdown();
+    }
+
+    @DisplayName("Teste de criação de cartões em vários blocos")
+    @Test
+    void testCriarCartoes_VariosBlocos() {
+        List<CartaoRequest> cartoes = IntStream.range(0, 120)
+                .mapToObj(i -> new CartaoRequest(String.format("1234%012d", i), "1234"))
+                .toList();
+
+        List<StatusCriacaoCartao> resultados = service.criarCartoes(cartoes);
+
+        assertThat(resultados).hasSize(120).containsOnly(StatusCriacaoCartao.CRIADO);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cartoes", Integer.class)).isEqualTo(120);
+        String senha = jdbcTemplate.queryForObject(
+                "SELECT senha FROM cartoes WHERE numero_cartao = ?", String.class, 1234000000000007L);
+        assertThat(pinVerificador.verificar(1234000000000007L, "1234", senha)).isTrue();
+    }
+
+    @DisplayName("Teste de criação de um bloco maior que um INSERT")
+    @Test
+    void testCriarCartoes_BlocoMaiorQueInsert() {
+        CartaoLoteProperties properties = new CartaoLoteProperties();
+        properties.setTamanhoBloco(2500);
+        service = new CartaoLoteService(
+                new CartaoJdbcRepository(new NamedParameterJdbcTemplate(database)),
+                new TransactionTemplate(new DataSourceTransactionManager(database)),
+                pinVerificador,
+                pinExecutor,
+                properties,
+                new SaldoCache(new SaldoCacheProperties(), new CoerenciaSaldoProperties(),
+                        new AlteracaoSaldoJdbcRepository(new NamedParameterJdbcTemplate(database)),
+                        new SimpleMeterRegistry()),
+                new TopologiaShards(new ShardsProperties()));
+        List<CartaoRequest> cartoes = IntStream.range(0, 2500)
+                .mapToObj(i -> new CartaoRequest(String.format("1234%012d", i), "1234"))
+                .toList();
+
+        List<StatusCriacaoCartao> resultados = service.criarCartoes(cartoes);
+
+        assertThat(resultados).hasSize(2500).containsOnly(StatusCriacaoCartao.CRIADO);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cartoes WHERE saldo = 500.00 AND version = 0", Integer.class)).isEqualTo(2500);
+        String senha = jdbcTemplate.queryForObject(
+                "SELECT senha FROM cartoes WHERE numero_cartao = ?", String.class, 1234000000002499L);
+        assertThat(pinVerificador.verificar(1234000000002499L, "1234", senha)).isTrue();
+    }
+
+    @DisplayName("Teste de criação de cartões existentes e repetidos no lote")
+    @Test
+    void testCriarCartoes_ExistentesERepetidos() {
+        jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha) VALUES (?, ?)", 1234567890123456L, "hash");
+
+        List<StatusCriacaoCartao> resultados = service.criarCartoes(List.of(
+                new CartaoRequest("1234567890123456", "1234"),
+                new CartaoRequest("6549873025634501", "1234"),
+                new CartaoRequest("6549873025634501", "4321")));
+
+        assertThat(resultados).containsExactly(
+                StatusCriacaoCartao.CARTAO_EXISTENTE,
+                StatusCriacaoCartao.CRIADO,
+                StatusCriacaoCartao.CARTAO_EXISTENTE);
+        String senha = jdbcTemplate.queryForObject(
+                "SELECT senha FROM cartoes WHERE numero_cartao = ?", String.class, 6549873025634501L);
+        assertThat(pinVerificador.verificar(6549873025634501L, "1234", senha)).isTrue();
+    }
+}
@@ -2,6 +2,8 @@ package br.com.miniautorizador.unitarios.service;
 
 import br.com.miniautorizador.domain.cartao.Cartao;
 import br.com.miniautorizador.domain.cartao.exception.CartaoExistenteException;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
 import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
 import br.com.miniautorizador.presentation.dto.CartaoRequest;
 import br.com.miniautorizador.service.CartaoService;
@@ -13,13 +15,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -36,29 +40,34 @@ class CartaoServiceTest {
     private CartaoRepository cartaoRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PinVerificador pinVerificador;
+
+    @Mock
+    private SaldoCache saldoCache;
 
     private CartaoService cartaoService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        cartaoService = new CartaoService(cartaoRepository, passwordEncoder);
+        cartaoService = new CartaoService(cartaoRepository, pinVerificador, saldoCache);
     }
 
     @DisplayName("Teste de criação de cartão com sucesso")
     @Test
     void testCriarCartao_Successo() {
         CartaoRequest cartaoRequest = new CartaoRequest("1234567890123456", "1234");
-        Cartao cartaoMock = new Cartao("1234567890123456", "encoded_password", BigDecimal.valueOf(500.00));
-        when(passwordEncoder.encode("1234")).thenReturn("encoded_password");
-        when(cartaoRepository.saveAndFlush(any(Cartao.class))).thenReturn(cartaoMock);
+        Cartao cartaoMock = new Cartao(1234567890123456L, "encoded_password", BigDecimal.valueOf(500.00));
+        when(pinVerificador.gerarHash(1234567890123456L, "1234")).thenReturn("encoded_password");
+        when(cartaoRepository.saveAndFlush(argThat(novo -> Cartao.SALDO_INICIAL.equals(novo.getSaldo()))))
+                .thenReturn(cartaoMock);
         Cartao cartao = cartaoService.criarCartao(cartaoRequest);
 
         assertThat(cartao).isNotNull();
-        assertThat(cartao.getNumeroCartao()).isEqualTo(cartaoRequest.getNumeroCartao());
-        assertThat(passwordEncoder.matches(cartaoRequest.getSenha(), cartao.getSenha())).isFalse(); // encoded password mismatch
-        assertThat(cartao.getSaldo()).isEqualByComparingTo(BigDecimal.valueOf(500.00));
+        assertThat(cartao.getNumeroCartao()).isEqualTo(cartaoRequest.numero());
+        assertThat(cartao.getSenha()).isEqualTo("encoded_password");
+        assertThat(cartao.getSaldo()).isEqualByComparingTo(Cartao.SALDO_INICIAL);
+        verify(saldoCache).invalidarAposCommit(1234567890123456L);
     }
 
     @DisplayName("Teste de criação de cartão com cartão existente")
@@ -83,6 +92,14 @@ class CartaoServiceTest {
         assertThrows(NullPointerException.class, () -> cartaoService.criarCartao(cartaoRequest));
     }
 
+    @DisplayName("Teste de criação de cartão com número do cartão sem 16 dígitos")
+    @Test
+    void testCriarCartao_NumeroCartaoInvalido() {
+        CartaoRequest cartaoRequest = new CartaoRequest("12345678901234x6", "1234");
+        assertThrows(IllegalArgumentException.class, () -> cartaoService.criarCartao(cartaoRequest));
+        verifyNoInteractions(cartaoRepository);
+    }
+
     @DisplayName("Teste de criação de cartão com senha null")
     @Test
     void testCriarCartao_SenhaNull() {
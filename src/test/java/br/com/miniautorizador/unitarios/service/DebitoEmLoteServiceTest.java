@@ -0,0 +1,193 @@
+package br.com.miniautorizador.unitarios.service;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.cache.CoerenciaSaldoProperties;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.cache.SaldoCacheProperties;
+import br.com.miniautorizador.infrastructure.pin.BCryptPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.HmacPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.MigracaoPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.PinExecutor;
+import br.com.miniautorizador.infrastructure.pin.PinProperties;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
+import br.com.miniautorizador.infrastructure.repository.CartaoJdbcRepository;
+import br.com.miniautorizador.infrastructure.shard.ShardsProperties;
+import br.com.miniautorizador.infrastructure.shard.TopologiaShards;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.lote.AutorizacaoLoteService;
+import br.com.miniautorizador.service.transacao.lote.DebitoEmLoteService;
+import br.com.miniautorizador.service.transacao.lote.DebitoLoteProperties;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para o agrupamento de débitos em lotes com um único commit.
+ * <p>
+ * Os testes usam um banco H2 embarcado com a tabela de cartões e verificam o resultado individual de cada débito
+ * do lote e a quantidade de commits.
+ *
+ * @author Fabiana Costa
+ */
+class DebitoEmLoteServiceTest {
+    private static final String NUMERO_CARTAO = "1234567890123456";
+    private static final String SENHA = "1234";
+
+    private final HmacPinVerificador hmacPinVerificador =
+            new HmacPinVerificador("chave-de-teste-com-32-bytes-1234".getBytes(StandardCharsets.US_ASCII));
+    private final BCryptPinVerificador bcryptPinVerificador = new BCryptPinVerificador(new BCryptPasswordEncoder(4));
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private PinExecutor pinExecutor;
+    private DebitoLoteProperties properties;
+    private DebitoEmLoteService service;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202412190906_create_table_cartao.sql")
+                .addScript("db/changelog/sqls/202610171400_alter_table_cartoes_numero_bigint_h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)", NUMERO_CARTAO,
+                hmacPinVerificador.gerarHash(Long.parseLong(NUMERO_CARTAO), SENHA), new BigDecimal("500.00"));
+
+        pinExecutor = new PinExecutor(new PinProperties(), new SimpleMeterRegistry());
+        properties = new DebitoLoteProperties();
+        properties.setJanela(Duration.ofMillis(20));
+        service = criar();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.encerrar();
+        pinExecutor.encerrar();
+        database.shutdown();
+    }
+
+    @DisplayName("Teste de débito em lote com sucesso")
+    @Test
+    void testDebitar_Sucesso() {
+        assertThat(service.debitar(new TransacaoRequest(NUMERO_CARTAO, SENHA, new BigDecimal("100.00"))))
+                .isEqualTo(StatusTransacao.OK);
+
+        assertThat(saldoNoBanco(NUMERO_CARTAO)).isEqualByComparingTo("400.00");
+    }
+
+    @DisplayName("Teste de débitos recusados em lote")
+    @Test
+    void testDebitar_Recusas() {
+        assertThat(service.debitar(new TransacaoRequest("9999999999999999", SENHA, BigDecimal.TEN)))
+                .isEqualTo(StatusTransacao.CARTAO_INEXISTENTE);
+        assertThat(service.debitar(new TransacaoRequest(NUMERO_CARTAO, SENHA, new BigDecimal("500.01"))))
+                .isEqualTo(StatusTransacao.SALDO_INSUFICIENTE);
+        assertThat(service.debitar(new TransacaoRequest(NUMERO_CARTAO, "4321", BigDecimal.TEN)))
+                .isEqualTo(StatusTransacao.SENHA_INVALIDA);
+
+        assertThat(saldoNoBanco(NUMERO_CARTAO)).isEqualByComparingTo("500.00");
+    }
+
+    @DisplayName("Teste de débitos concorrentes agrupados em menos commits")
+    @Test
+    void testDebitar_Concorrencia() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<StatusTransacao>> resultados = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            resultados.add(executor.submit(
+                    () -> service.debitar(new TransacaoRequest(NUMERO_CARTAO, SENHA, BigDecimal.TEN))));
+        }
+        int aprovados = 0;
+        for (Future<StatusTransacao> resultado : resultados) {
+            if (resultado.get() == StatusTransacao.OK) {
+                aprovados++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(aprovados).isEqualTo(50);
+        assertThat(saldoNoBanco(NUMERO_CARTAO)).isEqualByComparingTo("0.00");
+        // Cada lote registra um commit; débitos concorrentes devem ser agrupados
+        assertThat(meterRegistry.get("miniautorizador.lote-debito.tamanho").summary().count()).isLessThan(100);
+    }
+
+    @DisplayName("Teste de migração da senha legada no débito em lote")
+    @Test
+    void testDebitar_MigraSenhaLegada() {
+        String numeroLegado = "6549873025634501";
+        jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)", numeroLegado,
+                bcryptPinVerificador.gerarHash(Long.parseLong(numeroLegado), SENHA), new BigDecimal("500.00"));
+
+        assertThat(service.debitar(new TransacaoRequest(numeroLegado, SENHA, BigDecimal.TEN)))
+                .isEqualTo(StatusTransacao.OK);
+
+        String senha = jdbcTemplate.queryForObject(
+                "SELECT senha FROM cartoes WHERE numero_cartao = ?", String.class, numeroLegado);
+        assertThat(senha).startsWith("{hmac}");
+        assertThat(saldoNoBanco(numeroLegado)).isEqualByComparingTo("490.00");
+    }
+
+    @DisplayName("Teste de débito retirado do lote quando o chamador desiste antes do processamento")
+    @Test
+    void testDebitar_TimeoutAntesDoLote() throws InterruptedException {
+        service.encerrar();
+        // A janela mais longa que o tempo de resposta mantém o débito reunindo o lote quando o chamador desiste
+        properties.setJanela(Duration.ofMillis(500));
+        properties.setTimeoutResposta(Duration.ofMillis(50));
+        service = criar();
+
+        assertThrows(ServicoOcupadoException.class,
+                () -> service.debitar(new TransacaoRequest(NUMERO_CARTAO, SENHA, BigDecimal.TEN)));
+        Thread.sleep(700);
+
+        assertThat(saldoNoBanco(NUMERO_CARTAO)).isEqualByComparingTo("500.00");
+    }
+
+    private DebitoEmLoteService criar() {
+        meterRegistry = new SimpleMeterRegistry();
+        DebitoEmLoteService debitoEmLoteService = new DebitoEmLoteService(
+                properties,
+                new AutorizacaoLoteService(
+                        new CartaoJdbcRepository(new NamedParameterJdbcTemplate(database)),
+                        new TransactionTemplate(new DataSourceTransactionManager(database)),
+                        new MigracaoPinVerificador(hmacPinVerificador, bcryptPinVerificador),
+                        pinExecutor,
+                        new SaldoCache(new SaldoCacheProperties(), new CoerenciaSaldoProperties(),
+                                new AlteracaoSaldoJdbcRepository(new NamedParameterJdbcTemplate(database)),
+                                new SimpleMeterRegistry())),
+                meterRegistry,
+                new TopologiaShards(new ShardsProperties()));
+        debitoEmLoteService.iniciar();
+        return debitoEmLoteService;
+    }
+
+    private BigDecimal saldoNoBanco(String numeroCartao) {
+        return jdbcTemplate.queryForObject(
+                "SELECT saldo FROM cartoes WHERE numero_cartao = ?", BigDecimal.class, numeroCartao);
+    }
+}
@@ -0,0 +1,306 @@
+package br.com.miniautorizador.unitarios.service;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.repository.IdempotenciaJdbcRepository;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.idempotencia.IdempotenciaProperties;
+import br.com.miniautorizador.service.transacao.idempotencia.IdempotenciaService;
+import br.com.miniautorizador.shared.exception.ChaveIdempotenciaConflitanteException;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.TransacaoEmAndamentoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Classe de teste para a idempotência das transações de débito.
+ * <p>
+ * Os testes verificam a reutilização do resultado concluído, a espera pela transação em andamento, a liberação da
+ * chave após falha técnica e, no modo persistente, a reserva da chave no banco de dados antes da autorização.
+ *
+ * @author Fabiana Costa
+ */
+class IdempotenciaServiceTest {
+    private static final TransacaoRequest TRANSACAO =
+            new TransacaoRequest("1234567890123456", "1234", new BigDecimal("10.00"));
+
+    private EmbeddedDatabase database;
+    private IdempotenciaJdbcRepository repository;
+    private IdempotenciaProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotenciaService service;
+    private final AtomicInteger autorizacoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202610171000_create_table_idempotencia_transacoes.sql")
+                .build();
+        repository = new IdempotenciaJdbcRepository(new NamedParameterJdbcTemplate(database));
+        properties = new IdempotenciaProperties();
+        service = criar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.encerrar();
+        database.shutdown();
+    }
+
+    @DisplayName("Teste de retentativa atendida com o resultado da transação concluída")
+    @Test
+    void testExecutar_ResultadoConcluido() {
+        StatusTransacao primeira = service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+        StatusTransacao retentativa = service.executar("chave", TRANSACAO,
+                () -> autorizar(StatusTransacao.SALDO_INSUFICIENTE)).join();
+
+        assertThat(primeira).isEqualTo(StatusTransacao.OK);
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(1);
+        assertThat(meterRegistry.get("miniautorizador.idempotencia.repetidas").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de retentativa aguardando a transação original em andamento")
+    @Test
+    void testExecutar_EmAndamento() {
+        CompletableFuture<StatusTransacao> original = new CompletableFuture<>();
+        CompletableFuture<StatusTransacao> primeira = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return original;
+        });
+        CompletableFuture<StatusTransacao> retentativa = service.executar("chave", TRANSACAO,
+                () -> autorizar(StatusTransacao.OK));
+
+        assertThat(retentativa).isNotDone();
+        original.complete(StatusTransacao.SENHA_INVALIDA);
+
+        assertThat(primeira.join()).isEqualTo(StatusTransacao.SENHA_INVALIDA);
+        assertThat(retentativa.join()).isEqualTo(StatusTransacao.SENHA_INVALIDA);
+        assertThat(autorizacoes).hasValue(1);
+        assertThat(meterRegistry.get("miniautorizador.idempotencia.coalescidas").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Teste de chave reutilizada com outra transação")
+    @Test
+    void testExecutar_ChaveConflitante() {
+        service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+        TransacaoRequest outra = new TransacaoRequest("1234567890123456", "1234", new BigDecimal("20.00"));
+
+        assertThrows(ChaveIdempotenciaConflitanteException.class, () ->
+                service.executar("chave", outra, () -> autorizar(StatusTransacao.OK)));
+        assertThat(autorizacoes).hasValue(1);
+    }
+
+    @DisplayName("Teste de liberação da chave após falha técnica")
+    @Test
+    void testExecutar_FalhaLiberaChave() {
+        CompletableFuture<StatusTransacao> falha = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return CompletableFuture.failedFuture(new QueryTimeoutException("Timeout"));
+        });
+        assertThrows(CompletionException.class, falha::join);
+
+        StatusTransacao retentativa = service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(2);
+    }
+
+    @DisplayName("Teste de chave reservada até a conclusão real da transação com resultado indeterminado")
+    @Test
+    void testExecutar_ResultadoIndeterminado() {
+        CompletableFuture<StatusTransacao> conclusao = new CompletableFuture<>();
+        CompletableFuture<StatusTransacao> indeterminada = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return CompletableFuture.failedFuture(new ResultadoIndeterminadoException("Sem resultado", conclusao));
+        });
+        CompletionException exception = assertThrows(CompletionException.class, indeterminada::join);
+        assertThat(exception.getCause()).isInstanceOf(ResultadoIndeterminadoException.class);
+
+        // A transação original continua em execução e pode debitar: a retentativa não autoriza de novo
+        CompletionException emAndamento = assertThrows(CompletionException.class, () ->
+                service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join());
+        assertThat(emAndamento.getCause()).isInstanceOf(TransacaoEmAndamentoException.class);
+
+        conclusao.complete(StatusTransacao.SALDO_INSUFICIENTE);
+        StatusTransacao retentativa = service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+
+        assertThat(retentativa).isEqualTo(StatusTransacao.SALDO_INSUFICIENTE);
+        assertThat(autorizacoes).hasValue(1);
+    }
+
+    @DisplayName("Teste de liberação da chave quando a transação com resultado indeterminado falha")
+    @Test
+    void testExecutar_ResultadoIndeterminadoFalha() {
+        CompletableFuture<StatusTransacao> conclusao = new CompletableFuture<>();
+        CompletableFuture<StatusTransacao> indeterminada = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return CompletableFuture.failedFuture(new ResultadoIndeterminadoException("Sem resultado", conclusao));
+        });
+        assertThrows(CompletionException.class, indeterminada::join);
+
+        conclusao.completeExceptionally(new QueryTimeoutException("Timeout"));
+        StatusTransacao retentativa = service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(2);
+    }
+
+    @DisplayName("Teste de chave reservada até a expiração sem a conclusão da transação indeterminada")
+    @Test
+    void testExecutar_ResultadoIndeterminadoExpirado() throws Exception {
+        properties.setTtl(Duration.ofMillis(100));
+        service.encerrar();
+        service = criar();
+        service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return CompletableFuture.failedFuture(new ResultadoIndeterminadoException("Sem resultado"));
+        });
+        assertThrows(CompletionException.class, () ->
+                service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join());
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        StatusTransacao retentativa = null;
+        while (retentativa == null && System.nanoTime() < limite) {
+            Thread.sleep(50);
+            retentativa = service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK))
+                    .exceptionally(erro -> null).join();
+        }
+
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(2);
+    }
+
+    @DisplayName("Teste de resultado gravado no banco de dados usado por outra instância")
+    @Test
+    void testExecutar_Persistente() {
+        properties.setPersistente(true);
+        service.encerrar();
+        service = criar();
+        service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+
+        // Outra instância, com o cache vazio, encontra o resultado no banco de dados
+        IdempotenciaService outraInstancia = criar();
+        StatusTransacao retentativa = outraInstancia.executar("chave", TRANSACAO,
+                () -> autorizar(StatusTransacao.SALDO_INSUFICIENTE)).join();
+        outraInstancia.encerrar();
+
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(1);
+    }
+
+    @DisplayName("Teste de retentativa em outra instância enquanto a original está em andamento")
+    @Test
+    void testExecutar_PersistenteEmAndamento() {
+        usarPersistente();
+        CompletableFuture<StatusTransacao> original = new CompletableFuture<>();
+        CompletableFuture<StatusTransacao> primeira = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return original;
+        });
+
+        // A chave reservada no banco de dados impede que outra instância autorize a mesma transação
+        IdempotenciaService outraInstancia = criar();
+        assertThrows(TransacaoEmAndamentoException.class, () ->
+                outraInstancia.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)));
+        original.complete(StatusTransacao.OK);
+        StatusTransacao retentativa = outraInstancia.executar("chave", TRANSACAO,
+                () -> autorizar(StatusTransacao.SALDO_INSUFICIENTE)).join();
+        outraInstancia.encerrar();
+
+        assertThat(primeira.join()).isEqualTo(StatusTransacao.OK);
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(1);
+    }
+
+    @DisplayName("Teste de liberação da chave reservada no banco de dados após falha técnica")
+    @Test
+    void testExecutar_PersistenteFalhaLiberaChave() {
+        usarPersistente();
+        CompletableFuture<StatusTransacao> falha = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return CompletableFuture.failedFuture(new QueryTimeoutException("Timeout"));
+        });
+        assertThrows(CompletionException.class, falha::join);
+
+        IdempotenciaService outraInstancia = criar();
+        StatusTransacao retentativa = outraInstancia.executar("chave", TRANSACAO,
+                () -> autorizar(StatusTransacao.OK)).join();
+        outraInstancia.encerrar();
+
+        assertThat(retentativa).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(2);
+    }
+
+    @DisplayName("Teste de chave mantida reservada após resultado indeterminado")
+    @Test
+    void testExecutar_PersistenteResultadoIndeterminado() {
+        usarPersistente();
+        CompletableFuture<StatusTransacao> indeterminada = service.executar("chave", TRANSACAO, () -> {
+            autorizacoes.incrementAndGet();
+            return CompletableFuture.failedFuture(new ResultadoIndeterminadoException("Sem resultado"));
+        });
+        assertThrows(CompletionException.class, indeterminada::join);
+
+        // O débito pode ter sido aplicado: a retentativa não autoriza de novo
+        IdempotenciaService outraInstancia = criar();
+        assertThrows(TransacaoEmAndamentoException.class, () ->
+                outraInstancia.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)));
+        outraInstancia.encerrar();
+
+        assertThat(autorizacoes).hasValue(1);
+    }
+
+    @DisplayName("Teste de reserva de chave com registro expirado no banco de dados")
+    @Test
+    void testExecutar_PersistenteExpirada() throws Exception {
+        properties.setTtl(Duration.ofMillis(50));
+        usarPersistente();
+        service.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.SALDO_INSUFICIENTE)).join();
+        Thread.sleep(100);
+
+        IdempotenciaService outraInstancia = criar();
+        StatusTransacao nova = outraInstancia.executar("chave", TRANSACAO, () -> autorizar(StatusTransacao.OK)).join();
+        outraInstancia.encerrar();
+
+        assertThat(nova).isEqualTo(StatusTransacao.OK);
+        assertThat(autorizacoes).hasValue(2);
+    }
+
+    private void usarPersistente() {
+        properties.setPersistente(true);
+        service.encerrar();
+        service = criar();
+    }
+
+    private IdempotenciaService criar() {
+        meterRegistry = new SimpleMeterRegistry();
+        IdempotenciaService idempotenciaService = new IdempotenciaService(properties, repository, meterRegistry);
+        idempotenciaService.iniciar();
+        return idempotenciaService;
+    }
+
+    private CompletableFuture<StatusTransacao> autorizar(StatusTransacao status) {
+        autorizacoes.incrementAndGet();
+        return CompletableFuture.completedFuture(status);
+    }
+}
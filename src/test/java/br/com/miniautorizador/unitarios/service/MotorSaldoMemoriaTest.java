@@ -0,0 +1,226 @@
+package br.com.miniautorizador.unitarios.service;
+
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.pin.BCryptPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.HmacPinVerificador;
+import br.com.miniautorizador.infrastructure.pin.MigracaoPinVerificador;
+import br.com.miniautorizador.presentation.dto.TransacaoRequest;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoMemoria;
+import br.com.miniautorizador.service.transacao.memoria.MotorSaldoProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de teste para o motor de autorização com saldo em memória.
+ * <p>
+ * Os testes usam um banco H2 embarcado com a tabela de cartões e verificam as autorizações, a gravação em segundo
+ * plano dos saldos e a recuperação do journal na inicialização.
+ *
+ * @author Fabiana Costa
+ */
+class MotorSaldoMemoriaTest {
+    private static final long NUMERO_CARTAO = 1234567890123456L;
+    private static final String SENHA = "1234";
+
+    @TempDir
+    Path diretorioJournal;
+
+    private final HmacPinVerificador pinVerificador =
+            new HmacPinVerificador("chave-de-teste-com-32-bytes-1234".getBytes(StandardCharsets.US_ASCII));
+    private final BCryptPinVerificador bcryptPinVerificador = new BCryptPinVerificador(new BCryptPasswordEncoder(4));
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private MotorSaldoProperties properties;
+    private MotorSaldoMemoria motor;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/changelog/sqls/202412190906_create_table_cartao.sql")
+                .addScript("db/changelog/sqls/202610171400_alter_table_cartoes_numero_bigint_h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)",
+                NUMERO_CARTAO, pinVerificador.gerarHash(NUMERO_CARTAO, SENHA), new BigDecimal("500.00"));
+
+        properties = new MotorSaldoProperties();
+        properties.setShards(2);
+        properties.setIntervaloFlush(Duration.ofMillis(20));
+        properties.setDiretorioJournal(diretorioJournal.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (motor != null) {
+            motor.encerrar();
+        }
+        database.shutdown();
+    }
+
+    @DisplayName("Teste de débito aprovado e gravado no banco de dados")
+    @Test
+    void testDebitar_Sucesso() throws InterruptedException {
+        iniciarMotor();
+
+        assertThat(motor.debitar(NUMERO_CARTAO, SENHA, new BigDecimal("100.00"))).isEqualTo(StatusTransacao.OK);
+        assertThat(motor.consultarSaldo(NUMERO_CARTAO)).contains(new BigDecimal("400.00"));
+
+        motor.encerrar();
+        motor = null;
+        assertThat(saldoNoBanco()).isEqualByComparingTo("400.00");
+        assertThat(diretorioJournal).isEmptyDirectory();
+    }
+
+    @DisplayName("Teste de débitos recusados")
+    @Test
+    void testDebitar_Recusas() {
+        iniciarMotor();
+
+        assertThat(motor.debitar(9999999999999999L, SENHA, BigDecimal.TEN)).isEqualTo(StatusTransacao.CARTAO_INEXISTENTE);
+        assertThat(motor.debitar(NUMERO_CARTAO, "4321", BigDecimal.TEN)).isEqualTo(StatusTransacao.SENHA_INVALIDA);
+        assertThat(motor.debitar(NUMERO_CARTAO, SENHA, new BigDecimal("500.01")))
+                .isEqualTo(StatusTransacao.SALDO_INSUFICIENTE);
+        assertThat(motor.consultarSaldo(NUMERO_CARTAO)).contains(new BigDecimal("500.00"));
+        assertThat(motor.consultarSaldo(9999999999999999L)).isEmpty();
+    }
+
+    @DisplayName("Teste de débito por request com saldo insuficiente")
+    @Test
+    void testDebitarRequest_SaldoInsuficiente() {
+        iniciarMotor();
+        TransacaoRequest request = new TransacaoRequest(String.valueOf(NUMERO_CARTAO), SENHA, new BigDecimal("600.00"));
+
+        assertThat(motor.debitar(request)).isEqualTo(StatusTransacao.SALDO_INSUFICIENTE);
+    }
+
+    @DisplayName("Teste de débitos concorrentes no mesmo cartão sem saldo negativo")
+    @Test
+    void testDebitar_Concorrencia() throws Exception {
+        iniciarMotor();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<StatusTransacao>> resultados = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            resultados.add(executor.submit(() -> motor.debitar(NUMERO_CARTAO, SENHA, BigDecimal.TEN)));
+        }
+        int aprovados = 0;
+        for (Future<StatusTransacao> resultado : resultados) {
+            if (resultado.get() == StatusTransacao.OK) {
+                aprovados++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(aprovados).isEqualTo(50);
+        assertThat(motor.consultarSaldo(NUMERO_CARTAO)).contains(new BigDecimal("0.00"));
+    }
+
+    @DisplayName("Teste de recuperação do journal na inicialização")
+    @Test
+    void testIniciar_RecuperaJournal() throws Exception {
+        Files.writeString(diretorioJournal.resolve("shard-0000-0000000000000000000.journal"),
+                NUMERO_CARTAO + ";450.00\n" + NUMERO_CARTAO + ";420.00\n" + NUMERO_CARTAO + ";1",
+                StandardCharsets.US_ASCII);
+
+        iniciarMotor();
+
+        // A última linha, sem terminador, é uma escrita interrompida e não é aplicada
+        assertThat(saldoNoBanco()).isEqualByComparingTo("420.00");
+        assertThat(motor.consultarSaldo(NUMERO_CARTAO)).contains(new BigDecimal("420.00"));
+    }
+
+    @DisplayName("Teste de migração da senha legada verificada antes do débito entrar no shard")
+    @Test
+    void testDebitar_MigraSenhaLegada() throws InterruptedException {
+        long numeroLegado = 6549873025634501L;
+        jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)", numeroLegado,
+                bcryptPinVerificador.gerarHash(numeroLegado, SENHA), new BigDecimal("500.00"));
+        motor = new MotorSaldoMemoria(properties, jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database)),
+                new MigracaoPinVerificador(pinVerificador, bcryptPinVerificador));
+        motor.iniciar();
+
+        assertThat(motor.debitar(numeroLegado, "4321", BigDecimal.TEN)).isEqualTo(StatusTransacao.SENHA_INVALIDA);
+        assertThat(motor.debitar(numeroLegado, SENHA, BigDecimal.TEN)).isEqualTo(StatusTransacao.OK);
+        // O débito seguinte já encontra o hash migrado no shard
+        assertThat(motor.debitar(numeroLegado, SENHA, BigDecimal.TEN)).isEqualTo(StatusTransacao.OK);
+
+        motor.encerrar();
+        motor = null;
+        String senha = jdbcTemplate.queryForObject(
+                "SELECT senha FROM cartoes WHERE numero_cartao = ?", String.class, numeroLegado);
+        assertThat(senha).startsWith("{hmac}");
+    }
+
+    @DisplayName("Teste de débitos com cartões descartados da memória e lidos de novo do banco de dados")
+    @Test
+    void testDebitar_CartoesDescartados() throws InterruptedException {
+        List<Long> numeros = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            long numero = 6549873025634500L + i;
+            numeros.add(numero);
+            jdbcTemplate.update("INSERT INTO cartoes (numero_cartao, senha, saldo) VALUES (?, ?, ?)",
+                    numero, pinVerificador.gerarHash(numero, SENHA), new BigDecimal("500.00"));
+        }
+        properties.setShards(1);
+        properties.setCartoesPorShard(2);
+        iniciarMotor();
+
+        for (int rodada = 1; rodada <= 3; rodada++) {
+            for (long numero : numeros) {
+                assertThat(motor.debitar(numero, SENHA, BigDecimal.TEN)).isEqualTo(StatusTransacao.OK);
+            }
+            aguardarGravacao(new BigDecimal(500 - 10 * rodada), numeros.size());
+        }
+        // Alteração fora do motor, só visível se o cartão foi descartado e lido de novo do banco de dados
+        jdbcTemplate.update("UPDATE cartoes SET saldo = 999.00 WHERE numero_cartao = ?", numeros.get(0));
+        for (long numero : numeros.subList(1, numeros.size())) {
+            assertThat(motor.consultarSaldo(numero)).contains(new BigDecimal("470.00"));
+        }
+
+        assertThat(motor.consultarSaldo(numeros.get(0))).contains(new BigDecimal("999.00"));
+    }
+
+    private void iniciarMotor() {
+        motor = new MotorSaldoMemoria(properties, jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database)), pinVerificador);
+        motor.iniciar();
+    }
+
+    private void aguardarGravacao(BigDecimal saldo, int quantidade) throws InterruptedException {
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cartoes WHERE saldo = ?", Integer.class, saldo)
+                < quantidade && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+    }
+
+    private BigDecimal saldoNoBanco() {
+        return jdbcTemplate.queryForObject(
+                "SELECT saldo FROM cartoes WHERE numero_cartao = ?", BigDecimal.class, NUMERO_CARTAO);
+    }
+}
@@ -1,12 +1,18 @@
 package br.com.miniautorizador.unitarios.service;
 
-import br.com.miniautorizador.domain.cartao.Cartao;
-import br.com.miniautorizador.domain.cartao.exception.CartaoInexistenteTransacaoException;
-import br.com.miniautorizador.domain.cartao.exception.SaldoInsuficienteException;
-import br.com.miniautorizador.domain.cartao.exception.SenhaInvalidaException;
+import br.com.miniautorizador.domain.cartao.SaldoCartao;
+import br.com.miniautorizador.domain.transacao.StatusTransacao;
+import br.com.miniautorizador.infrastructure.cache.CoerenciaSaldoProperties;
+import br.com.miniautorizador.infrastructure.cache.SaldoCache;
+import br.com.miniautorizador.infrastructure.cache.SaldoCacheProperties;
+import br.com.miniautorizador.infrastructure.metricas.MetricasAutorizacao;
+import br.com.miniautorizador.infrastructure.pin.PinVerificador;
+import br.com.miniautorizador.infrastructure.repository.AlteracaoSaldoJdbcRepository;
 import br.com.miniautorizador.infrastructure.repository.CartaoRepository;
 import br.com.miniautorizador.presentation.dto.TransacaoRequest;
 import br.com.miniautorizador.service.transacao.TransacaoService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,13 +20,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.QueryTimeoutException;
 
 import java.math.BigDecimal;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,72 +44,126 @@ class TransacaoServiceTest {
     private CartaoRepository cartaoRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PinVerificador pinVerificador;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SaldoCache saldoCache;
 
     private TransacaoService transacaoService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        transacaoService = new TransacaoService(cartaoRepository, passwordEncoder);
+        meterRegistry = new SimpleMeterRegistry();
+        saldoCache = new SaldoCache(new SaldoCacheProperties(), new CoerenciaSaldoProperties(),
+                mock(AlteracaoSaldoJdbcRepository.class), meterRegistry);
+        transacaoService = new TransacaoService(
+                cartaoRepository, pinVerificador, new MetricasAutorizacao(meterRegistry), saldoCache);
     }
 
     @DisplayName("Teste de realização de transação de débito com sucesso")
     @Test
     void testRealizarTransacao_ComSucesso() {
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
-        Cartao cartaoMock = new Cartao(transacaoRequest.getNumeroCartao(), "encoded_password", BigDecimal.valueOf(500.00));
 
-        when(cartaoRepository.findByNumeroCartao(transacaoRequest.getNumeroCartao())).thenReturn(Optional.of(cartaoMock));
-        when(passwordEncoder.matches(transacaoRequest.getSenhaCartao(), cartaoMock.getSenha())).thenReturn(true);
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero())).thenReturn(Optional.of("encoded_password"));
+        when(pinVerificador.verificar(transacaoRequest.numero(), transacaoRequest.getSenhaCartao(), "encoded_password")).thenReturn(true);
+        when(cartaoRepository.debitarSaldo(transacaoRequest.numero(), transacaoRequest.getValor())).thenReturn(1);
+        saldoCache.obter(transacaoRequest.numero(),
+                () -> Optional.of(new SaldoCartao(BigDecimal.valueOf(500.00), 0L)));
+
+        assertEquals(StatusTransacao.OK, transacaoService.realizarTransacao(transacaoRequest));
+        // O débito aprovado descarta o saldo em cache
+        assertEquals(Optional.of(BigDecimal.valueOf(400.00)),
+                saldoCache.obter(transacaoRequest.numero(),
+                        () -> Optional.of(new SaldoCartao(BigDecimal.valueOf(400.00), 1L))));
+        verify(cartaoRepository, times(1)).findSenhaByNumeroCartao(transacaoRequest.numero());
+        verify(cartaoRepository, times(1)).debitarSaldo(transacaoRequest.numero(), transacaoRequest.getValor());
+        verify(cartaoRepository, never()).save(any());
+        verify(cartaoRepository, never()).atualizarSenha(anyLong(), any(), any());
+    }
+
+    @DisplayName("Teste de migração do hash de senha legado após transação aprovada")
+    @Test
+    void testRealizarTransacao_MigracaoSenhaLegada() {
+        TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
+
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero())).thenReturn(Optional.of("$2a$10$legado"));
+        when(pinVerificador.verificar(transacaoRequest.numero(), transacaoRequest.getSenhaCartao(), "$2a$10$legado")).thenReturn(true);
+        when(cartaoRepository.debitarSaldo(transacaoRequest.numero(), transacaoRequest.getValor())).thenReturn(1);
+        when(pinVerificador.precisaMigrar("$2a$10$legado")).thenReturn(true);
+        when(pinVerificador.gerarHash(transacaoRequest.numero(), transacaoRequest.getSenhaCartao())).thenReturn("{hmac}novo");
 
         transacaoService.realizarTransacao(transacaoRequest);
-        verify(cartaoRepository, times(1)).findByNumeroCartao(transacaoRequest.getNumeroCartao());
-        verify(cartaoRepository, times(1)).save(cartaoMock);
+
+        verify(cartaoRepository, times(1)).atualizarSenha(transacaoRequest.numero(), "$2a$10$legado", "{hmac}novo");
     }
 
     @DisplayName("Teste de realização de transação de débito com cartão inexistente")
     @Test
     void testRealizarTransacao_CartaoInexistente() {
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
-        when(cartaoRepository.findByNumeroCartao(transacaoRequest.getNumeroCartao())).thenReturn(Optional.empty());
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero())).thenReturn(Optional.empty());
 
-        assertThrows(CartaoInexistenteTransacaoException.class, () -> transacaoService.realizarTransacao(transacaoRequest));
+        assertEquals(StatusTransacao.CARTAO_INEXISTENTE, transacaoService.realizarTransacao(transacaoRequest));
+        verify(cartaoRepository, never()).debitarSaldo(anyLong(), any());
     }
 
     @DisplayName("Teste de realização de transação de débito com senha inválida")
     @Test
     void testRealizarTransacao_SenhaInvalida() {
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
-        Cartao cartaoMock = new Cartao(transacaoRequest.getNumeroCartao(), "encoded_password", BigDecimal.valueOf(500.00));
-        when(cartaoRepository.findByNumeroCartao(transacaoRequest.getNumeroCartao())).thenReturn(Optional.of(cartaoMock));
-        when(passwordEncoder.matches(transacaoRequest.getSenhaCartao(), cartaoMock.getSenha())).thenReturn(false);
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero())).thenReturn(Optional.of("encoded_password"));
+        when(pinVerificador.verificar(transacaoRequest.numero(), transacaoRequest.getSenhaCartao(), "encoded_password")).thenReturn(false);
 
-        assertThrows(SenhaInvalidaException.class, () -> transacaoService.realizarTransacao(transacaoRequest));
+        assertEquals(StatusTransacao.SENHA_INVALIDA, transacaoService.realizarTransacao(transacaoRequest));
+        verify(cartaoRepository, never()).debitarSaldo(anyLong(), any());
     }
 
     @DisplayName("Teste de realização de transação de débito com saldo insuficiente")
     @Test
     void testRealizarTransacao_SaldoInsuficiente() {
         TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(600.00));
-        Cartao cartaoMock = new Cartao(transacaoRequest.getNumeroCartao(), "1234", BigDecimal.valueOf(500.00));
-        when(cartaoRepository.findByNumeroCartao(transacaoRequest.getNumeroCartao())).thenReturn(Optional.of(cartaoMock));
-        when(passwordEncoder.matches(transacaoRequest.getSenhaCartao(), cartaoMock.getSenha())).thenReturn(true);
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero())).thenReturn(Optional.of("1234"));
+        when(pinVerificador.verificar(transacaoRequest.numero(), transacaoRequest.getSenhaCartao(), "1234")).thenReturn(true);
+        when(cartaoRepository.debitarSaldo(transacaoRequest.numero(), transacaoRequest.getValor())).thenReturn(0);
 
-        assertThrows(SaldoInsuficienteException.class, () -> transacaoService.realizarTransacao(transacaoRequest));
+        assertEquals(StatusTransacao.SALDO_INSUFICIENTE, transacaoService.realizarTransacao(transacaoRequest));
+        // Transações recusadas não migram o hash da senha
+        verify(cartaoRepository, never()).atualizarSenha(anyLong(), any(), any());
     }
 
-    @DisplayName("Teste de realização de transação de débito com concorrência de operação")
+    @DisplayName("Teste de métricas por etapa com o resultado da transação")
     @Test
-    void testAtualizarSaldo_ConcorrenciaOperacao() {
-        TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(300.00));
-        Cartao cartaoMock = new Cartao(transacaoRequest.getNumeroCartao(), "1234", BigDecimal.valueOf(500.00));
+    void testRealizarTransacao_MetricasPorEtapa() {
+        TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero())).thenReturn(Optional.of("encoded_password"));
+        when(pinVerificador.verificar(transacaoRequest.numero(), transacaoRequest.getSenhaCartao(), "encoded_password")).thenReturn(false);
+
+        transacaoService.realizarTransacao(transacaoRequest);
 
-        when(cartaoRepository.findByNumeroCartao(transacaoRequest.getNumeroCartao())).thenReturn(Optional.of(cartaoMock));
-        when(passwordEncoder.matches(transacaoRequest.getSenhaCartao(), cartaoMock.getSenha())).thenReturn(true);
-        doThrow(OptimisticLockingFailureException.class).when(cartaoRepository).save(any());
+        for (String etapa : new String[]{"buscar-cartao", "validar-senha"}) {
+            Timer timer = meterRegistry.find("miniautorizador.autorizacao.etapa")
+                    .tags("fluxo", "transacao", "etapa", etapa, "resultado", "SENHA_INVALIDA").timer();
+            assertNotNull(timer, etapa);
+            assertEquals(1, timer.count());
+        }
+        assertNull(meterRegistry.find("miniautorizador.autorizacao.etapa").tag("etapa", "atualizar-saldo").timer());
+        assertEquals(1, meterRegistry.get("miniautorizador.autorizacao")
+                .tags("fluxo", "transacao", "resultado", "SENHA_INVALIDA").timer().count());
+    }
+
+    @DisplayName("Teste de métricas com resultado de erro quando o banco de dados falha")
+    @Test
+    void testRealizarTransacao_MetricasErro() {
+        TransacaoRequest transacaoRequest = new TransacaoRequest("1234567890123456", "1234", BigDecimal.valueOf(100.00));
+        when(cartaoRepository.findSenhaByNumeroCartao(transacaoRequest.numero()))
+                .thenThrow(new QueryTimeoutException("timeout"));
 
-        assertThrows(RuntimeException.class, () -> transacaoService.realizarTransacao(transacaoRequest));
+        assertThrows(QueryTimeoutException.class, () -> transacaoService.realizarTransacao(transacaoRequest));
+        assertEquals(1, meterRegistry.get("miniautorizador.autorizacao.etapa")
+                .tags("etapa", "buscar-cartao", "resultado", MetricasAutorizacao.ERRO).timer().count());
     }
 
     @DisplayName("Teste de realização de transação de débito com request null")
@@ -3,6 +3,9 @@ package br.com.miniautorizador.unitarios.shared.exception;
 import br.com.miniautorizador.domain.cartao.exception.*;
 import br.com.miniautorizador.presentation.dto.CartaoResponse;
 import br.com.miniautorizador.shared.exception.GlobalExceptionHandler;
+import br.com.miniautorizador.shared.exception.ResultadoIndeterminadoException;
+import br.com.miniautorizador.shared.exception.ServicoOcupadoException;
+import br.com.miniautorizador.shared.exception.TransacaoEmAndamentoException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,15 +13,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 
+import java.time.Duration;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Teste de classe para GlobalExceptionHandler.
@@ -58,44 +65,56 @@ class GlobalExceptionHandlerTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
-    @DisplayName("Teste de handle para CartaoInexistenteTransacaoException")
+    @DisplayName("Teste de handle para OptimisticLockingFailureException")
     @Test
-    void testHandle_CartaoInexistenteTransacaoException() {
-        CartaoInexistenteTransacaoException exception = new CartaoInexistenteTransacaoException("1234567890123456");
-        ResponseEntity<String> response = globalExceptionHandler.handleCartaoInexistenteTransacaoException(exception);
+    void testHandle_OptimisticLockingFailureException() {
+        OptimisticLockingFailureException exception = new OptimisticLockingFailureException("Conflito de concorrência");
+        ResponseEntity<String> response = globalExceptionHandler.handleOptimisticLockingFailure(exception);
 
-        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
-        assertEquals("CARTAO_INEXISTENTE", response.getBody());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("CONFLITO_DE_CONCORRENCIA", response.getBody());
     }
 
-    @DisplayName("Teste de handle para SenhaInvalidaException")
+    @DisplayName("Teste de handle para ConcurrencyFailureException")
     @Test
-    void testHandle_SenhaInvalidaException() {
-        SenhaInvalidaException exception = new SenhaInvalidaException();
-        ResponseEntity<String> response = globalExceptionHandler.handleSenhaInvalidaException(exception);
+    void testHandle_ConcurrencyFailureException() {
+        CannotAcquireLockException exception = new CannotAcquireLockException("Timeout de lock");
+        ResponseEntity<String> response = globalExceptionHandler.handleConcurrencyFailure(exception);
 
-        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
-        assertEquals("SENHA_INVALIDA", response.getBody());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("CONFLITO_DE_CONCORRENCIA", response.getBody());
     }
 
-    @DisplayName("Teste de handle para SaldoInsuficienteException")
+    @DisplayName("Teste de handle para TransacaoEmAndamentoException")
     @Test
-    void testHandle_SaldoInsuficienteException() {
-        SaldoInsuficienteException exception = new SaldoInsuficienteException();
-        ResponseEntity<String> response = globalExceptionHandler.handleSaldoInsuficienteException(exception);
+    void testHandle_TransacaoEmAndamentoException() {
+        ResponseEntity<String> response =
+                globalExceptionHandler.handleTransacaoEmAndamentoException(new TransacaoEmAndamentoException());
 
-        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
-        assertEquals("SALDO_INSUFICIENTE", response.getBody());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("TRANSACAO_EM_ANDAMENTO", response.getBody());
     }
 
-    @DisplayName("Teste de handle para OptimisticLockingFailureException")
+    @DisplayName("Teste de handle para ServicoOcupadoException")
     @Test
-    void testHandle_OptimisticLockingFailureException() {
-        OptimisticLockingFailureException exception = new OptimisticLockingFailureException("Conflito de concorrência");
-        ResponseEntity<String> response = globalExceptionHandler.handleOptimisticLockingFailure(exception);
+    void testHandle_ServicoOcupadoException() {
+        ServicoOcupadoException exception = new ServicoOcupadoException("Pool ocupado", Duration.ofSeconds(2));
+        ResponseEntity<String> response = globalExceptionHandler.handleServicoOcupadoException(exception);
 
-        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
-        assertEquals("CONFLITO_DE_CONCORRENCIA", response.getBody());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("SERVICO_OCUPADO", response.getBody());
+    }
+
+    @DisplayName("Teste de handle para ResultadoIndeterminadoException")
+    @Test
+    void testHandle_ResultadoIndeterminadoException() {
+        ResultadoIndeterminadoException exception = new ResultadoIndeterminadoException("Sem resultado");
+        ResponseEntity<String> response = globalExceptionHandler.handleResultadoIndeterminadoException(exception);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("RESULTADO_INDETERMINADO", response.getBody());
     }
 
     @DisplayName("Teste de handle para DataIntegrityViolationException")